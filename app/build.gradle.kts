@@ -56,6 +56,12 @@ dependencies {
     implementation(mn.micronaut.validation)
     implementation(mn.logback.classic)
     implementation(mn.micronaut.http.client)
+    implementation("io.netty:netty-resolver-dns")
+    // The optional BoringSSL provider of the uptime checks, only for the platforms of the Docker images
+    // The JDK provider is used if it can't be loaded
+    listOf("linux-x86_64", "linux-aarch_64").forEach { platform ->
+        runtimeOnly(group = "io.netty", name = "netty-tcnative-boringssl-static", classifier = platform)
+    }
     implementation(mn.micronaut.rxjava3)
     implementation(mn.micronaut.retry)
     implementation(mn.micronaut.security.jwt)
@@ -99,6 +105,9 @@ dependencies {
     testImplementation(libs.mockk)
     testImplementation(mn.testcontainers.postgres)
     testImplementation(libs.mockserver.netty)
+    testImplementation(libs.bcpkix)
+    // The natives of every platform, so the OpenSSL provider can be tested anywhere
+    testRuntimeOnly("io.netty:netty-tcnative-boringssl-static")
     detektPlugins(libs.detekt.formatting)
 }
 
@@ -120,6 +129,25 @@ tasks.withType<JavaExec> {
     systemProperty("micronaut.config.files", file("../localdev/application-dev.yml"))
 }
 
+tasks.test {
+    exclude("**/benchmarks/**")
+}
+
+// Running the benchmarks explicitly, they are skipped by the regular test task
+val benchmark by tasks.registering(type = Test::class) {
+    description = "Runs the benchmarks of the app module."
+    group = "verification"
+    testClassesDirs = sourceSets.test.get().output.classesDirs
+    classpath = sourceSets.test.get().runtimeClasspath
+    useJUnitPlatform()
+    include("**/benchmarks/**")
+    systemProperty("kuvasz.benchmarks", "true")
+    maxHeapSize = "2g"
+    testLogging {
+        showStandardStreams = true
+    }
+}
+
 tasks.withType<ShadowJar> {
     mergeServiceFiles()
 }
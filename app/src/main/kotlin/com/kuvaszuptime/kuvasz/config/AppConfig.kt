@@ -16,6 +16,47 @@ class AppConfig {
         private const val DEFAULT_LATENCY_RETENTION_DAYS = 7
         private const val DEFAULT_LANGUAGE = "en"
         private const val UPTIME_CHECK_LOCK_TIMEOUT_MS = 300_000L // 5 minutes
+        private const val MIN_SCHEDULER_TICK_MS = 1L
+        private const val DEFAULT_SCHEDULER_TICK_MS = 100L
+        private const val MIN_SCHEDULER_WHEEL_SIZE = 1L
+        private const val DEFAULT_SCHEDULER_WHEEL_SIZE = 1024
+        private const val MIN_MAX_CONCURRENT_CHECKS_PER_HOST = 0L
+        private const val MIN_MAX_CONCURRENT_CHECKS = 0L
+        private const val DEFAULT_MAX_CONCURRENT_CHECKS = 1000
+        private const val MIN_MAX_PENDING_CHECKS = 0L
+        private const val DEFAULT_MAX_PENDING_CHECKS = 10_000
+        private const val MIN_ADAPTIVE_CONCURRENCY_MIN_LIMIT = 1L
+        private const val DEFAULT_ADAPTIVE_CONCURRENCY_MIN_LIMIT = 10
+        private const val MIN_PROBER_LAG_THRESHOLD_MS = 1L
+        private const val DEFAULT_PROBER_LAG_THRESHOLD_MS = 50L
+        private const val MIN_CHECK_DEADLINE_SECONDS = 1L
+        private const val DEFAULT_CHECK_DEADLINE_SECONDS = 60
+        private const val MIN_BOOTSTRAP_BATCH_SIZE = 1L
+        private const val DEFAULT_BOOTSTRAP_BATCH_SIZE = 1000
+        private const val MIN_BOOTSTRAP_WARM_UP_SECONDS = 0L
+        private const val DEFAULT_BOOTSTRAP_WARM_UP_SECONDS = 0
+        private const val MIN_DNS_CACHE_MAX_ENTRIES = 0L
+        private const val DEFAULT_DNS_CACHE_MAX_ENTRIES = 10_000
+        private const val MIN_DNS_CACHE_MAX_TTL_SECONDS = 1L
+        private const val DEFAULT_DNS_CACHE_MAX_TTL_SECONDS = 300
+        private const val MIN_DNS_NEGATIVE_CACHE_TTL_SECONDS = 0L
+        private const val DEFAULT_DNS_NEGATIVE_CACHE_TTL_SECONDS = 0
+        private const val MIN_CHECK_BODY_MAX_BYTES = 0L
+        private const val DEFAULT_CHECK_BODY_MAX_BYTES = 1_048_576L
+        private const val MIN_CHECK_MAX_CONNECTIONS_PER_ORIGIN = 0L
+        private const val MIN_CHECK_MAX_HTTP2_CONNECTIONS_PER_ORIGIN = 1L
+        private const val DEFAULT_CHECK_MAX_HTTP2_CONNECTIONS_PER_ORIGIN = 1
+        private const val MIN_CHECK_MAX_STREAMS_PER_HTTP2_CONNECTION = 0L
+        private const val MIN_CHECK_CONNECTION_IDLE_TIMEOUT_SECONDS = 1L
+        private const val DEFAULT_CHECK_CONNECTION_IDLE_TIMEOUT_SECONDS = 60
+        private const val MIN_SSL_CHECK_MAX_CONCURRENCY = 1L
+        private const val DEFAULT_SSL_CHECK_MAX_CONCURRENCY = 64
+        private const val MIN_SSL_CHECK_MAX_INTERVAL_DAYS = 1L
+        private const val DEFAULT_SSL_CHECK_MAX_INTERVAL_DAYS = 7
+        private const val MIN_SSL_REVOCATION_CACHE_MAX_ENTRIES = 0L
+        private const val DEFAULT_SSL_REVOCATION_CACHE_MAX_ENTRIES = 10_000
+        private const val MIN_SSL_REVOCATION_MAX_DOWNLOAD_BYTES = 1L
+        private const val DEFAULT_SSL_REVOCATION_MAX_DOWNLOAD_BYTES = 10_485_760L
     }
 
     @Min(MIN_EVENT_RETENTION_DAYS)
@@ -30,8 +71,215 @@ class AppConfig {
 
     private var isExternalWriteDisabled = false
 
+    /**
+     * The deadline of an uptime check, the checks that overrun it are cancelled, see
+     * [com.kuvaszuptime.kuvasz.services.concurrency.InFlightCheckTable]
+     */
     var uptimeCheckLockTimeoutMs: Long = UPTIME_CHECK_LOCK_TIMEOUT_MS
 
+    /**
+     * The tick duration of the timing wheel that schedules the checks, i.e. the precision of the scheduling
+     */
+    @Min(MIN_SCHEDULER_TICK_MS)
+    var schedulerTickMs: Long = DEFAULT_SCHEDULER_TICK_MS
+
+    /**
+     * The number of buckets on the timing wheel that schedules the checks
+     */
+    @Min(MIN_SCHEDULER_WHEEL_SIZE)
+    var schedulerWheelSize: Int = DEFAULT_SCHEDULER_WHEEL_SIZE
+
+    /**
+     * Where the uptime & SSL checks should be executed, see [CheckExecutionMode]
+     */
+    var checkExecutionMode: CheckExecutionMode = CheckExecutionMode.DISPATCHER
+
+    /**
+     * The maximum number of concurrent uptime checks against the same host (scheme, host and port). 0 means unlimited.
+     * It can be overridden on a per-monitor basis.
+     */
+    @Min(MIN_MAX_CONCURRENT_CHECKS_PER_HOST)
+    var maxConcurrentChecksPerHost: Int = 0
+
+    /**
+     * The maximum number of checks (uptime & SSL) that can run at the same time. 0 means unlimited.
+     */
+    @Min(MIN_MAX_CONCURRENT_CHECKS)
+    var maxConcurrentChecks: Int = DEFAULT_MAX_CONCURRENT_CHECKS
+
+    /**
+     * The maximum number of checks that can wait for a free slot when [maxConcurrentChecks] is reached. The checks
+     * over this limit are skipped until their next planned execution.
+     */
+    @Min(MIN_MAX_PENDING_CHECKS)
+    var maxPendingChecks: Int = DEFAULT_MAX_PENDING_CHECKS
+
+    /**
+     * Whether the concurrency limit of the checks should be adjusted automatically (between
+     * [adaptiveConcurrencyMinLimit] and [maxConcurrentChecks]), based on the saturation of the prober
+     */
+    var adaptiveConcurrencyEnabled: Boolean = false
+
+    /**
+     * The lowest concurrency limit that the adaptive limiter can set
+     */
+    @Min(MIN_ADAPTIVE_CONCURRENCY_MIN_LIMIT)
+    var adaptiveConcurrencyMinLimit: Int = DEFAULT_ADAPTIVE_CONCURRENCY_MIN_LIMIT
+
+    /**
+     * Above this event loop or dispatcher task latency the prober is considered saturated, and the latencies measured
+     * in the meantime are flagged
+     */
+    @Min(MIN_PROBER_LAG_THRESHOLD_MS)
+    var proberLagThresholdMs: Long = DEFAULT_PROBER_LAG_THRESHOLD_MS
+
+    /**
+     * The total time that an uptime check can take, including every redirect and retry. It can be overridden on a
+     * per-monitor basis.
+     */
+    @Min(MIN_CHECK_DEADLINE_SECONDS)
+    var checkDeadlineSeconds: Int = DEFAULT_CHECK_DEADLINE_SECONDS
+
+    /**
+     * The number of the monitors that are read from the database at once, when their checks are scheduled on startup
+     */
+    @Min(MIN_BOOTSTRAP_BATCH_SIZE)
+    var bootstrapBatchSize: Int = DEFAULT_BOOTSTRAP_BATCH_SIZE
+
+    /**
+     * The window over which the scheduling of the monitors is spread on startup. 0 means that every monitor is
+     * scheduled right away, before the application starts.
+     */
+    @Min(MIN_BOOTSTRAP_WARM_UP_SECONDS)
+    var bootstrapWarmUpSeconds: Int = DEFAULT_BOOTSTRAP_WARM_UP_SECONDS
+
+    /**
+     * The maximum number of the hostnames whose DNS records are cached for the uptime checks. 0 means that nothing is
+     * cached.
+     */
+    @Min(MIN_DNS_CACHE_MAX_ENTRIES)
+    var dnsCacheMaxEntries: Int = DEFAULT_DNS_CACHE_MAX_ENTRIES
+
+    /**
+     * The DNS records are cached for their TTL, but at most for this long
+     */
+    @Min(MIN_DNS_CACHE_MAX_TTL_SECONDS)
+    var dnsCacheMaxTtlSeconds: Int = DEFAULT_DNS_CACHE_MAX_TTL_SECONDS
+
+    /**
+     * The failed DNS resolutions are cached for this long. 0 means that they aren't cached.
+     */
+    @Min(MIN_DNS_NEGATIVE_CACHE_TTL_SECONDS)
+    var dnsNegativeCacheTtlSeconds: Int = DEFAULT_DNS_NEGATIVE_CACHE_TTL_SECONDS
+
+    /**
+     * The uptime checks read the response body up to this many bytes (without keeping it in memory), and close the
+     * connection if it's longer. 0 means that the connection is closed right after the response headers.
+     */
+    @Min(MIN_CHECK_BODY_MAX_BYTES)
+    var checkBodyMaxBytes: Long = DEFAULT_CHECK_BODY_MAX_BYTES
+
+    /**
+     * Whether the uptime checks offer HTTP/2 (via ALPN) to the HTTPS targets, so the checks against the same origin
+     * are multiplexed over a shared connection, instead of opening a connection for every concurrent check
+     */
+    var checkHttp2Enabled: Boolean = true
+
+    /**
+     * The maximum number of the pooled HTTP/1.1 connections of the uptime checks per origin (scheme, host and port).
+     * The checks over this limit wait for a free connection. 0 means unlimited.
+     */
+    @Min(MIN_CHECK_MAX_CONNECTIONS_PER_ORIGIN)
+    var checkMaxConnectionsPerOrigin: Int = 0
+
+    /**
+     * The maximum number of the HTTP/2 connections of the uptime checks per origin
+     */
+    @Min(MIN_CHECK_MAX_HTTP2_CONNECTIONS_PER_ORIGIN)
+    var checkMaxHttp2ConnectionsPerOrigin: Int = DEFAULT_CHECK_MAX_HTTP2_CONNECTIONS_PER_ORIGIN
+
+    /**
+     * The maximum number of the concurrent uptime checks (streams) that are multiplexed over an HTTP/2 connection.
+     * 0 means that only the limit advertised by the server applies.
+     */
+    @Min(MIN_CHECK_MAX_STREAMS_PER_HTTP2_CONNECTION)
+    var checkMaxStreamsPerHttp2Connection: Int = 0
+
+    /**
+     * The pooled connections of the uptime checks are closed after being idle for this long, and so are the pools of
+     * the origins that aren't checked anymore
+     */
+    @Min(MIN_CHECK_CONNECTION_IDLE_TIMEOUT_SECONDS)
+    var checkConnectionIdleTimeoutSeconds: Int = DEFAULT_CHECK_CONNECTION_IDLE_TIMEOUT_SECONDS
+
+    /**
+     * Whether Nagle's algorithm is disabled (TCP_NODELAY) on the connections of the uptime checks, so the small
+     * requests are sent right away, instead of waiting for the acknowledgement of the previous segment
+     */
+    var checkTcpNoDelay: Boolean = true
+
+    /**
+     * How the connections of the uptime checks are closed, see [CheckConnectionCloseStrategy]
+     */
+    var checkConnectionCloseStrategy: CheckConnectionCloseStrategy = CheckConnectionCloseStrategy.GRACEFUL
+
+    /**
+     * The local IP addresses that the connections of the uptime checks are bound to, in a round-robin fashion (per
+     * address family), so every address has its own range of ephemeral ports. If it's empty, the OS picks the source
+     * address.
+     */
+    var checkLocalAddresses: List<String> = emptyList()
+
+    /**
+     * The TLS implementation of the uptime checks' connections, see [CheckTlsProvider]
+     */
+    var checkTlsProvider: CheckTlsProvider = CheckTlsProvider.JDK
+
+    /**
+     * The engine that sends the requests of the uptime checks, see [CheckProbeEngine]
+     */
+    var checkProbeEngine: CheckProbeEngine = CheckProbeEngine.CLIENT
+
+    /**
+     * The maximum number of the concurrent TLS handshakes of the SSL checks, see
+     * [com.kuvaszuptime.kuvasz.services.tls.CertificateHandshakeProbe]
+     */
+    @Min(MIN_SSL_CHECK_MAX_CONCURRENCY)
+    var sslCheckMaxConcurrency: Int = DEFAULT_SSL_CHECK_MAX_CONCURRENCY
+
+    /**
+     * The maximum number of days between two SSL checks of a valid certificate that is far from its expiry, see
+     * [com.kuvaszuptime.kuvasz.services.scheduling.SSLCheckPlanner]
+     */
+    @Min(MIN_SSL_CHECK_MAX_INTERVAL_DAYS)
+    var sslCheckMaxIntervalDays: Int = DEFAULT_SSL_CHECK_MAX_INTERVAL_DAYS
+
+    /**
+     * Whether the SSL checks should check the revocation of the certificates with OCSP and CRLs, see
+     * [com.kuvaszuptime.kuvasz.services.tls.RevocationLookup]
+     */
+    var sslRevocationCheckEnabled: Boolean = true
+
+    /**
+     * The maximum number of the OCSP responses (and CRLs) that are cached for the revocation checks. 0 means that
+     * nothing is cached.
+     */
+    @Min(MIN_SSL_REVOCATION_CACHE_MAX_ENTRIES)
+    var sslRevocationCacheMaxEntries: Int = DEFAULT_SSL_REVOCATION_CACHE_MAX_ENTRIES
+
+    /**
+     * The OCSP responses and the CRLs that are longer than this many bytes are discarded by the revocation checks
+     */
+    @Min(MIN_SSL_REVOCATION_MAX_DOWNLOAD_BYTES)
+    var sslRevocationMaxDownloadBytes: Long = DEFAULT_SSL_REVOCATION_MAX_DOWNLOAD_BYTES
+
+    /**
+     * Whether the revocation checks can send requests to the OCSP responders and the CRL distribution points that are
+     * on private, loopback or link-local addresses. They're taken from the checked servers' certificates, so they're
+     * rejected by default.
+     */
+    var sslRevocationPrivateTargetsAllowed: Boolean = false
+
     fun disableExternalWrite() {
         isExternalWriteDisabled = true
     }
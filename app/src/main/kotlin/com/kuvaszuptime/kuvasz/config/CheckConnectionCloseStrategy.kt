@@ -0,0 +1,18 @@
+package com.kuvaszuptime.kuvasz.config
+
+/**
+ * Determines how the connections of the uptime checks are closed by the prober
+ */
+enum class CheckConnectionCloseStrategy {
+    /**
+     * The connections are closed with the regular FIN handshake, so if the prober closes a connection first, its
+     * socket stays in TIME_WAIT for a while, and keeps its ephemeral port occupied
+     */
+    GRACEFUL,
+
+    /**
+     * The connections are reset on close (SO_LINGER is 0), so their sockets never enter TIME_WAIT on the prober, and
+     * their ephemeral ports are free right away. The data that the server hasn't acknowledged yet is discarded.
+     */
+    RESET,
+}
@@ -0,0 +1,17 @@
+package com.kuvaszuptime.kuvasz.config
+
+/**
+ * Determines where the uptime & SSL checks are executed
+ */
+enum class CheckExecutionMode {
+    /**
+     * The checks are running on the shared IO dispatcher of the coroutines, which is capped at 64 threads by default
+     */
+    DISPATCHER,
+
+    /**
+     * Every check is running on its own virtual thread, so the blocking parts of a check (e.g. DB queries, the SSL
+     * handshake) are not competing for a limited number of platform threads
+     */
+    VIRTUAL_THREADS,
+}
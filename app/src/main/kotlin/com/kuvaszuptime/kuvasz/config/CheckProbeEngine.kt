@@ -0,0 +1,18 @@
+package com.kuvaszuptime.kuvasz.config
+
+/**
+ * Determines which engine sends the requests of the uptime checks
+ */
+enum class CheckProbeEngine {
+    /**
+     * Micronaut's HTTP client, which supports every feature of the checks, including HTTP/2
+     */
+    CLIENT,
+
+    /**
+     * A lean HTTP/1.1 client on top of Netty, which writes the precomputed request of the monitor, and parses only
+     * the status line and the few headers that the checks need. The monitors with body assertions are still checked
+     * by Micronaut's HTTP client.
+     */
+    NETTY,
+}
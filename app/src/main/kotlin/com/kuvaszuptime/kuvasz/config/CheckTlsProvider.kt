@@ -0,0 +1,17 @@
+package com.kuvaszuptime.kuvasz.config
+
+/**
+ * Determines which TLS implementation is used by the connections of the uptime checks
+ */
+enum class CheckTlsProvider {
+    /**
+     * The TLS implementation of the JDK
+     */
+    JDK,
+
+    /**
+     * BoringSSL via netty-tcnative, which needs considerably less CPU per handshake than the JDK. If the native
+     * library can't be loaded on the platform, the JDK provider is used instead.
+     */
+    OPENSSL,
+}
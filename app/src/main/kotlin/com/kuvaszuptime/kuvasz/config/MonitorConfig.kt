@@ -41,5 +41,26 @@ interface MonitorConfig : MonitorCreatorLike {
     @get:Bindable(defaultValue = MonitorDefaults.SSL_EXPIRY_THRESHOLD_DAYS.toString())
     override val sslExpiryThreshold: Int
 
+    @get:Bindable(defaultValue = MonitorDefaults.HOST_CONCURRENCY_LIMIT.toString())
+    override val hostConcurrencyLimit: Int
+
+    @get:Bindable(defaultValue = MonitorDefaults.CHECK_DEADLINE_SECONDS.toString())
+    override val checkDeadlineSeconds: Int
+
+    @get:Bindable(defaultValue = MonitorDefaults.DNS_CACHE_ENABLED.toString())
+    override val dnsCacheEnabled: Boolean
+
+    @get:Bindable(defaultValue = MonitorDefaults.CONNECTION_REUSE_ENABLED.toString())
+    override val connectionReuseEnabled: Boolean
+
+    @get:Bindable(defaultValue = MonitorDefaults.TLS_SESSION_RESUMPTION_ENABLED.toString())
+    override val tlsSessionResumptionEnabled: Boolean
+
+    override val bodyMustContain: List<String>?
+
+    override val bodyMustNotContain: List<String>?
+
+    override val bodyJsonAssertions: List<String>?
+
     override val integrations: List<String>?
 }
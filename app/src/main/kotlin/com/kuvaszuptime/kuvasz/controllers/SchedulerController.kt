@@ -0,0 +1,81 @@
+package com.kuvaszuptime.kuvasz.controllers
+
+import com.kuvaszuptime.kuvasz.models.dto.InFlightCheckDto
+import com.kuvaszuptime.kuvasz.models.dto.PlannedChecksDto
+import com.kuvaszuptime.kuvasz.services.concurrency.InFlightCheckTable
+import com.kuvaszuptime.kuvasz.services.scheduling.PhasePlanner
+import com.kuvaszuptime.kuvasz.util.toOffsetDateTime
+import io.micronaut.http.MediaType
+import io.micronaut.http.annotation.Controller
+import io.micronaut.http.annotation.QueryValue
+import io.micronaut.validation.Validated
+import io.swagger.v3.oas.annotations.media.ArraySchema
+import io.swagger.v3.oas.annotations.media.Content
+import io.swagger.v3.oas.annotations.media.Schema
+import io.swagger.v3.oas.annotations.responses.ApiResponse
+import io.swagger.v3.oas.annotations.responses.ApiResponses
+import io.swagger.v3.oas.annotations.security.SecurityRequirement
+import io.swagger.v3.oas.annotations.security.SecurityRequirements
+import io.swagger.v3.oas.annotations.tags.Tag
+import java.time.Instant
+import java.util.concurrent.TimeUnit
+
+@Controller("$API_V1_PREFIX/scheduler", produces = [MediaType.APPLICATION_JSON])
+@Validated
+@Tag(name = "Scheduler operations")
+@SecurityRequirements(
+    SecurityRequirement(name = "apiKey"),
+    SecurityRequirement(name = "bearerAuth")
+)
+class SchedulerController(
+    private val phasePlanner: PhasePlanner,
+    private val inFlightCheckTable: InFlightCheckTable,
+) : SchedulerOperations {
+
+    companion object {
+        private const val PLANNED_CHECKS_DEFAULT_SECONDS = 60
+        private const val PLANNED_CHECKS_MAX_SECONDS = 3600
+    }
+
+    @ApiResponses(
+        ApiResponse(
+            responseCode = "200",
+            description = "Successful query",
+            content = [Content(schema = Schema(implementation = PlannedChecksDto::class))]
+        )
+    )
+    override fun getPlannedChecks(@QueryValue seconds: Int?): PlannedChecksDto {
+        val effectiveSeconds = (seconds ?: PLANNED_CHECKS_DEFAULT_SECONDS).coerceIn(1, PLANNED_CHECKS_MAX_SECONDS)
+        val from = Instant.now().let { Instant.ofEpochSecond(it.epochSecond) }
+        val perSecond = phasePlanner.plannedChecksPerSecond(from, effectiveSeconds)
+
+        return PlannedChecksDto(
+            from = from.toOffsetDateTime(),
+            min = perSecond.min(),
+            max = perSecond.max(),
+            mean = perSecond.average(),
+            perSecond = perSecond.toList(),
+        )
+    }
+
+    @ApiResponses(
+        ApiResponse(
+            responseCode = "200",
+            description = "Successful query",
+            content = [Content(array = ArraySchema(schema = Schema(implementation = InFlightCheckDto::class)))]
+        )
+    )
+    override fun getInFlightChecks(): List<InFlightCheckDto> {
+        val now = Instant.now()
+        return inFlightCheckTable.snapshot().map { check ->
+            val runningForMs = TimeUnit.NANOSECONDS.toMillis(check.runningForNanos)
+            InFlightCheckDto(
+                monitorId = check.monitorId,
+                startedAt = now.minusMillis(runningForMs).toOffsetDateTime(),
+                runningForMs = runningForMs,
+                remainingMs = TimeUnit.NANOSECONDS.toMillis(check.remainingNanos),
+                overrun = check.remainingNanos < 0,
+            )
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.kuvaszuptime.kuvasz.controllers
+
+import com.kuvaszuptime.kuvasz.models.dto.InFlightCheckDto
+import com.kuvaszuptime.kuvasz.models.dto.PlannedChecksDto
+import io.micronaut.http.annotation.Get
+import io.micronaut.http.annotation.QueryValue
+import io.swagger.v3.oas.annotations.Operation
+import io.swagger.v3.oas.annotations.Parameter
+import io.swagger.v3.oas.annotations.media.Schema
+
+interface SchedulerOperations {
+
+    @Operation(
+        summary = "Get the histogram of the planned uptime checks",
+        description = "Returns the number of the uptime checks that are planned for the upcoming seconds, second by " +
+            "second, which can be used to verify that the checks are spread evenly.",
+    )
+    @Get("/planned-checks")
+    fun getPlannedChecks(
+        @QueryValue
+        @Parameter(
+            required = false,
+            schema = Schema(
+                implementation = Int::class,
+                description = "The number of seconds to include, default 60, max 3600"
+            )
+        )
+        seconds: Int?,
+    ): PlannedChecksDto
+
+    @Operation(
+        summary = "Get the uptime checks that are running right now",
+        description = "Returns the uptime checks that are running right now, the longest running first, which can be " +
+            "used to debug the stuck checks. The checks that have overrun their deadline are going to be cancelled.",
+    )
+    @Get("/in-flight-checks")
+    fun getInFlightChecks(): List<InFlightCheckDto>
+}
@@ -30,7 +30,12 @@ class DatabaseEventHandler(
         eventDispatcher.subscribeToMonitorUpEvents { event ->
             logger.debug("A MonitorUpEvent has been received for monitor with ID: ${event.monitor.id}")
             if (event.monitor.latencyHistoryEnabled) {
-                latencyLogRepository.insertLatencyForMonitor(event.monitor.id, event.latency)
+                latencyLogRepository.insertLatencyForMonitor(
+                    monitorId = event.monitor.id,
+                    latency = event.latency,
+                    proberSaturated = event.proberSaturated,
+                    timings = event.timings,
+                )
             }
             handleUptimeMonitorEvent(event)
         }
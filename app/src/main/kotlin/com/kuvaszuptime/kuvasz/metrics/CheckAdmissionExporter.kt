@@ -0,0 +1,82 @@
+package com.kuvaszuptime.kuvasz.metrics
+
+import com.kuvaszuptime.kuvasz.models.CheckType
+import com.kuvaszuptime.kuvasz.services.concurrency.CheckAdmissionController
+import io.micrometer.core.instrument.FunctionCounter
+import io.micrometer.core.instrument.FunctionTimer
+import io.micrometer.core.instrument.Gauge
+import io.micrometer.core.instrument.MeterRegistry
+import io.micrometer.core.instrument.TimeGauge
+import io.micronaut.context.annotation.Requirements
+import io.micronaut.context.annotation.Requires
+import io.micronaut.core.util.StringUtils
+import jakarta.inject.Singleton
+import java.util.concurrent.TimeUnit
+
+/**
+ * Exports the state of the check admission: how late the checks are started compared to their planned time (the
+ * scheduler lag), how many checks are waiting for a free slot, and how many of them were deferred or rejected.
+ */
+@Singleton
+@Requirements(
+    Requires(bean = MeterRegistry::class),
+    Requires(property = "${MetricsExportConfig.CONFIG_PREFIX}.check-execution", value = StringUtils.TRUE),
+)
+class CheckAdmissionExporter(
+    private val meterRegistry: MeterRegistry,
+    private val admissionController: CheckAdmissionController,
+) : MetricsExporter {
+
+    companion object {
+        private const val SCHEDULER_LAG = "scheduler.lag"
+        private const val SCHEDULER_LAG_MAX = "scheduler.lag.max"
+        private const val CHECKS_PENDING = "checks.pending"
+        private const val CHECKS_DEFERRED = "checks.deferred"
+        private const val CHECKS_REJECTED = "checks.rejected"
+    }
+
+    override val meterName = SCHEDULER_LAG
+
+    override fun initialize() {
+        Gauge.builder("${MetricsExporter.PREFIX}.$CHECKS_PENDING", admissionController) {
+            it.pendingCount().toDouble()
+        }
+            .description("The number of checks that are waiting for a free slot")
+            .register(meterRegistry)
+
+        CheckType.entries.forEach { checkType ->
+            val type = checkType.name.lowercase()
+            val stats = admissionController.stats(checkType)
+            FunctionTimer.builder(
+                prefixedMeterName(),
+                stats,
+                { it.startedCount() },
+                { it.totalLagNanos().toDouble() },
+                TimeUnit.NANOSECONDS,
+            )
+                .description("How much later the checks were started than they were planned")
+                .tag("type", type)
+                .register(meterRegistry)
+            TimeGauge.builder(
+                "${MetricsExporter.PREFIX}.$SCHEDULER_LAG_MAX",
+                stats,
+                TimeUnit.NANOSECONDS,
+            ) { it.maxLagNanos().toDouble() }
+                .description("The highest scheduler lag that was recorded so far")
+                .tag("type", type)
+                .register(meterRegistry)
+            FunctionCounter.builder("${MetricsExporter.PREFIX}.$CHECKS_DEFERRED", stats) {
+                it.deferredCount().toDouble()
+            }
+                .description("The number of checks that had to wait for a free slot")
+                .tag("type", type)
+                .register(meterRegistry)
+            FunctionCounter.builder("${MetricsExporter.PREFIX}.$CHECKS_REJECTED", stats) {
+                it.rejectedCount().toDouble()
+            }
+                .description("The number of checks that were skipped, because the pending queue was full")
+                .tag("type", type)
+                .register(meterRegistry)
+        }
+    }
+}
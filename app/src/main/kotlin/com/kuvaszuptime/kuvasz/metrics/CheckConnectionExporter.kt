@@ -0,0 +1,62 @@
+package com.kuvaszuptime.kuvasz.metrics
+
+import com.kuvaszuptime.kuvasz.services.timing.CheckConnectionStats
+import io.micrometer.core.instrument.FunctionCounter
+import io.micrometer.core.instrument.Gauge
+import io.micrometer.core.instrument.MeterRegistry
+import io.micronaut.context.annotation.Requirements
+import io.micronaut.context.annotation.Requires
+import io.micronaut.core.util.StringUtils
+import jakarta.inject.Singleton
+
+/**
+ * Exports how many of the uptime checks' requests were sent over a new connection (and how many TLS handshakes it
+ * took), how many of them reused a pooled or a multiplexed (HTTP/2) connection, and how many checks failed because of
+ * a local socket error of the prober.
+ */
+@Singleton
+@Requirements(
+    Requires(bean = MeterRegistry::class),
+    Requires(property = "${MetricsExportConfig.CONFIG_PREFIX}.check-execution", value = StringUtils.TRUE),
+)
+class CheckConnectionExporter(
+    private val meterRegistry: MeterRegistry,
+    private val checkConnectionStats: CheckConnectionStats,
+) : MetricsExporter {
+
+    companion object {
+        private const val CONNECTIONS_REUSE_RATIO = "checks.connections.reuse_ratio"
+        private const val CONNECTIONS_OPENED = "checks.connections.opened"
+        private const val CONNECTIONS_REUSED = "checks.connections.reused"
+        private const val TLS_HANDSHAKES = "checks.connections.tls_handshakes"
+        private const val LOCAL_ERRORS = "checks.connections.local_errors"
+    }
+
+    override val meterName = CONNECTIONS_REUSE_RATIO
+
+    override fun initialize() {
+        Gauge.builder(prefixedMeterName(), checkConnectionStats) { it.reuseRatio() }
+            .description("The ratio of the uptime checks' requests that were sent over a reused connection")
+            .register(meterRegistry)
+        FunctionCounter.builder("${MetricsExporter.PREFIX}.$CONNECTIONS_OPENED", checkConnectionStats) {
+            it.newConnectionCount().toDouble()
+        }
+            .description("The number of the connections that were opened by the uptime checks")
+            .register(meterRegistry)
+        FunctionCounter.builder("${MetricsExporter.PREFIX}.$CONNECTIONS_REUSED", checkConnectionStats) {
+            it.reusedConnectionCount().toDouble()
+        }
+            .description("The number of the uptime checks' requests that were sent over a reused connection")
+            .register(meterRegistry)
+        FunctionCounter.builder("${MetricsExporter.PREFIX}.$TLS_HANDSHAKES", checkConnectionStats) {
+            it.tlsHandshakeCount().toDouble()
+        }
+            .description("The number of the TLS handshakes of the connections that were opened by the uptime checks")
+            .register(meterRegistry)
+        FunctionCounter.builder("${MetricsExporter.PREFIX}.$LOCAL_ERRORS", checkConnectionStats) {
+            it.localSocketErrorCount().toDouble()
+        }
+            .description("The number of the uptime checks that failed because of a local socket error of the prober")
+            .register(meterRegistry)
+    }
+}
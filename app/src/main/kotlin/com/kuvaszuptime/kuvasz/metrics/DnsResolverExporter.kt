@@ -0,0 +1,52 @@
+package com.kuvaszuptime.kuvasz.metrics
+
+import com.kuvaszuptime.kuvasz.services.dns.UptimeCheckDnsResolver
+import io.micrometer.core.instrument.FunctionTimer
+import io.micrometer.core.instrument.Gauge
+import io.micrometer.core.instrument.MeterRegistry
+import io.micronaut.context.annotation.Requirements
+import io.micronaut.context.annotation.Requires
+import io.micronaut.core.util.StringUtils
+import jakarta.inject.Singleton
+import java.util.concurrent.TimeUnit
+
+/**
+ * Exports the time that the uptime checks spent resolving their hosts, the hit ratio of the DNS cache, and the number
+ * of the hosts that are in the cache right now.
+ */
+@Singleton
+@Requirements(
+    Requires(bean = MeterRegistry::class),
+    Requires(property = "${MetricsExportConfig.CONFIG_PREFIX}.check-execution", value = StringUtils.TRUE),
+)
+class DnsResolverExporter(
+    private val meterRegistry: MeterRegistry,
+    private val dnsResolver: UptimeCheckDnsResolver,
+) : MetricsExporter {
+
+    companion object {
+        private const val DNS_RESOLUTION = "checks.dns.resolution"
+        private const val DNS_CACHE_HIT_RATIO = "checks.dns.cache.hit_ratio"
+        private const val DNS_CACHE_SIZE = "checks.dns.cache.size"
+    }
+
+    override val meterName = DNS_RESOLUTION
+
+    override fun initialize() {
+        FunctionTimer.builder(
+            prefixedMeterName(),
+            dnsResolver,
+            { it.resolutionCount() },
+            { it.totalResolutionNanos().toDouble() },
+            TimeUnit.NANOSECONDS,
+        )
+            .description("The time that the uptime checks spent resolving the hosts, including the cached resolutions")
+            .register(meterRegistry)
+        Gauge.builder("${MetricsExporter.PREFIX}.$DNS_CACHE_HIT_RATIO", dnsResolver) { it.cacheHitRatio() }
+            .description("The ratio of the DNS cache lookups of the uptime checks that were served from the cache")
+            .register(meterRegistry)
+        Gauge.builder("${MetricsExporter.PREFIX}.$DNS_CACHE_SIZE", dnsResolver) { it.cacheSize().toDouble() }
+            .description("The number of the hosts that are in the DNS cache of the uptime checks")
+            .register(meterRegistry)
+    }
+}
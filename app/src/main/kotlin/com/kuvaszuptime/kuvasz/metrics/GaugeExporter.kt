@@ -1,8 +1,8 @@
 package com.kuvaszuptime.kuvasz.metrics
 
 import com.kuvaszuptime.kuvasz.jooq.tables.records.MonitorRecord
-import com.kuvaszuptime.kuvasz.repositories.MonitorRepository
 import com.kuvaszuptime.kuvasz.services.EventDispatcher
+import com.kuvaszuptime.kuvasz.services.MonitorRegistry
 import io.micrometer.core.instrument.Gauge
 import io.micrometer.core.instrument.MeterRegistry
 import java.util.concurrent.atomic.AtomicLong
@@ -14,8 +14,8 @@ import java.util.concurrent.atomic.AtomicLong
 abstract class GaugeExporter<SOURCE_VAL : Any>(
     private val meterRegistry: MeterRegistry,
     eventDispatcher: EventDispatcher,
-    monitorRepository: MonitorRepository,
-) : BaseMetricsExporter<SOURCE_VAL, Long, AtomicLong>(monitorRepository, meterRegistry, eventDispatcher) {
+    monitorRegistry: MonitorRegistry,
+) : BaseMetricsExporter<SOURCE_VAL, Long, AtomicLong>(monitorRegistry, meterRegistry, eventDispatcher) {
 
     override fun updateValue(existingValue: AtomicLong, newValue: Long) {
         existingValue.set(newValue)
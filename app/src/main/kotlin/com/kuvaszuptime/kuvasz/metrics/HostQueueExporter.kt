@@ -0,0 +1,48 @@
+package com.kuvaszuptime.kuvasz.metrics
+
+import com.kuvaszuptime.kuvasz.services.concurrency.HostBulkhead
+import io.micrometer.core.instrument.FunctionTimer
+import io.micrometer.core.instrument.Gauge
+import io.micrometer.core.instrument.MeterRegistry
+import io.micronaut.context.annotation.Requirements
+import io.micronaut.context.annotation.Requires
+import io.micronaut.core.util.StringUtils
+import jakarta.inject.Singleton
+import java.util.concurrent.TimeUnit
+
+/**
+ * Exports the time that the uptime checks spent waiting for a per-host permit, which is not included in the recorded
+ * latencies, and the number of the checks that are waiting right now.
+ */
+@Singleton
+@Requirements(
+    Requires(bean = MeterRegistry::class),
+    Requires(property = "${MetricsExportConfig.CONFIG_PREFIX}.check-execution", value = StringUtils.TRUE),
+)
+class HostQueueExporter(
+    private val meterRegistry: MeterRegistry,
+    private val hostBulkhead: HostBulkhead,
+) : MetricsExporter {
+
+    companion object {
+        private const val HOST_QUEUE_WAIT = "checks.host_queue.wait"
+        private const val HOST_QUEUE_WAITING = "checks.host_queue.waiting"
+    }
+
+    override val meterName = HOST_QUEUE_WAIT
+
+    override fun initialize() {
+        FunctionTimer.builder(
+            prefixedMeterName(),
+            hostBulkhead,
+            { it.queuedCount() },
+            { it.totalWaitNanos().toDouble() },
+            TimeUnit.NANOSECONDS,
+        )
+            .description("The time that the uptime checks spent waiting for a per-host concurrency permit")
+            .register(meterRegistry)
+        Gauge.builder("${MetricsExporter.PREFIX}.$HOST_QUEUE_WAITING", hostBulkhead) { it.waitingCount().toDouble() }
+            .description("The number of the uptime checks that are waiting for a per-host concurrency permit")
+            .register(meterRegistry)
+    }
+}
@@ -0,0 +1,57 @@
+package com.kuvaszuptime.kuvasz.metrics
+
+import com.kuvaszuptime.kuvasz.config.AppConfig
+import com.kuvaszuptime.kuvasz.models.CheckType
+import com.kuvaszuptime.kuvasz.services.scheduling.InFlightCheckCounter
+import io.micrometer.core.instrument.FunctionCounter
+import io.micrometer.core.instrument.Gauge
+import io.micrometer.core.instrument.MeterRegistry
+import io.micronaut.context.annotation.Requirements
+import io.micronaut.context.annotation.Requires
+import io.micronaut.core.util.StringUtils
+import jakarta.inject.Singleton
+import org.slf4j.LoggerFactory
+
+/**
+ * Exports the number of the in-flight and the started checks per check type. Unlike the other exporters, these meters
+ * are not bound to individual monitors, so the list of the monitors is not used during the initialization.
+ */
+@Singleton
+@Requirements(
+    Requires(bean = MeterRegistry::class),
+    Requires(property = "${MetricsExportConfig.CONFIG_PREFIX}.check-execution", value = StringUtils.TRUE),
+)
+class InFlightChecksExporter(
+    private val meterRegistry: MeterRegistry,
+    private val inFlightCheckCounter: InFlightCheckCounter,
+    private val appConfig: AppConfig,
+) : MetricsExporter {
+
+    companion object {
+        private const val CHECKS_IN_FLIGHT = "checks.in_flight"
+        private const val CHECKS_STARTED = "checks.started"
+        private val logger = LoggerFactory.getLogger(InFlightChecksExporter::class.java)
+    }
+
+    override val meterName = CHECKS_IN_FLIGHT
+
+    override fun initialize() {
+        val executionMode = appConfig.checkExecutionMode.name.lowercase()
+        CheckType.entries.forEach { checkType ->
+            logger.debug("Registering in-flight check meters for check type: $checkType")
+            val type = checkType.name.lowercase()
+            Gauge.builder(prefixedMeterName(), inFlightCheckCounter) { it.inFlight(checkType).toDouble() }
+                .description("The number of checks that are being executed right now")
+                .tag("type", type)
+                .tag("execution_mode", executionMode)
+                .register(meterRegistry)
+            FunctionCounter.builder("${MetricsExporter.PREFIX}.$CHECKS_STARTED", inFlightCheckCounter) {
+                it.started(checkType).toDouble()
+            }
+                .description("The number of checks that were started")
+                .tag("type", type)
+                .tag("execution_mode", executionMode)
+                .register(meterRegistry)
+        }
+    }
+}
@@ -3,8 +3,8 @@ package com.kuvaszuptime.kuvasz.metrics
 import com.kuvaszuptime.kuvasz.jooq.tables.records.MonitorRecord
 import com.kuvaszuptime.kuvasz.models.events.MonitorUpEvent
 import com.kuvaszuptime.kuvasz.repositories.LatencyLogRepository
-import com.kuvaszuptime.kuvasz.repositories.MonitorRepository
 import com.kuvaszuptime.kuvasz.services.EventDispatcher
+import com.kuvaszuptime.kuvasz.services.MonitorRegistry
 import io.micrometer.core.instrument.MeterRegistry
 import io.micronaut.context.annotation.Requirements
 import io.micronaut.context.annotation.Requires
@@ -20,8 +20,8 @@ class LatencyExporter(
     meterRegistry: MeterRegistry,
     private val eventDispatcher: EventDispatcher,
     private val latencyLogRepository: LatencyLogRepository,
-    monitorRepository: MonitorRepository,
-) : GaugeExporter<Int>(meterRegistry, eventDispatcher, monitorRepository) {
+    monitorRegistry: MonitorRegistry,
+) : GaugeExporter<Int>(meterRegistry, eventDispatcher, monitorRegistry) {
 
     companion object {
         private const val MONITOR_LATENCY = "monitor.latency.latest.milliseconds"
@@ -36,6 +36,11 @@ class LatencyExporter(
     }
 
     private fun MonitorUpEvent.handle() {
+        // The latencies that were measured while the prober was saturated might include self-induced delays
+        if (proberSaturated) {
+            logger.debug("Skipping the saturated latency sample of monitor with ID: ${monitor.id}")
+            return
+        }
         logger.debug("Updating latency for monitor with ID: ${monitor.id} to $latency")
         upsertMeter(monitor.id, latency)
     }
@@ -43,7 +48,7 @@ class LatencyExporter(
     override fun transform(valueSource: Int): Long = valueSource.toLong()
 
     override fun computeInitialValue(monitor: MonitorRecord): Int? =
-        latencyLogRepository.fetchLastByMonitorId(monitor.id)?.latencyInMs
+        latencyLogRepository.fetchLastUnsaturatedByMonitorId(monitor.id)?.latencyInMs
 
     override fun filterCondition(monitor: MonitorRecord): Boolean = monitor.enabled
 }
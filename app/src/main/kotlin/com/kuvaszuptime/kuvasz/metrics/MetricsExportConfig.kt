@@ -21,4 +21,7 @@ interface MetricsExportConfig {
 
     @get:Bindable(defaultValue = "false")
     val sslExpiry: Boolean
+
+    @get:Bindable(defaultValue = "false")
+    val checkExecution: Boolean
 }
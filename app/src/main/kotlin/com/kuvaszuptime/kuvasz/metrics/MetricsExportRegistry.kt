@@ -1,6 +1,6 @@
 package com.kuvaszuptime.kuvasz.metrics
 
-import com.kuvaszuptime.kuvasz.repositories.MonitorRepository
+import com.kuvaszuptime.kuvasz.jooq.tables.records.MonitorRecord
 import io.micrometer.core.instrument.MeterRegistry
 import io.micronaut.context.annotation.Requires
 import jakarta.inject.Singleton
@@ -12,23 +12,26 @@ import org.slf4j.LoggerFactory
  */
 @Requires(bean = MeterRegistry::class)
 @Singleton
-class MetricsExportRegistry(
-    private val monitorRepository: MonitorRepository,
-    private val metricsExporters: List<MetricsExporter>,
-) {
+class MetricsExportRegistry(private val metricsExporters: List<MetricsExporter>) {
 
     companion object {
         private val logger: Logger = LoggerFactory.getLogger(this::class.java)
     }
 
     /**
-     * Reads the actually available monitors from the database and initializes the metrics exporters with them
+     * Initializes the metrics exporters, the meters of the monitors are registered later by [registerMonitors]
      */
     fun initialize() {
-        val monitors = monitorRepository.fetchByEnabled(enabled = true)
         metricsExporters.forEach { exporter ->
-            logger.debug("Initializing exporter: ${exporter::class.java.simpleName} for ${monitors.size} monitors")
-            exporter.initialize(monitors)
+            logger.debug("Initializing exporter: ${exporter::class.java.simpleName}")
+            exporter.initialize()
         }
     }
+
+    /**
+     * Registers the meters of a batch of the enabled monitors in every exporter
+     */
+    fun registerMonitors(monitors: List<MonitorRecord>) {
+        metricsExporters.forEach { exporter -> exporter.registerMonitors(monitors) }
+    }
 }
@@ -3,8 +3,8 @@ package com.kuvaszuptime.kuvasz.metrics
 import com.kuvaszuptime.kuvasz.jooq.tables.records.MonitorRecord
 import com.kuvaszuptime.kuvasz.models.events.MonitorDeleteEvent
 import com.kuvaszuptime.kuvasz.models.events.MonitorUpdateEvent
-import com.kuvaszuptime.kuvasz.repositories.MonitorRepository
 import com.kuvaszuptime.kuvasz.services.EventDispatcher
+import com.kuvaszuptime.kuvasz.services.MonitorRegistry
 import io.micrometer.core.instrument.MeterRegistry
 import org.slf4j.Logger
 import org.slf4j.LoggerFactory
@@ -16,7 +16,7 @@ import java.util.concurrent.ConcurrentHashMap
 interface MetricsExporter {
 
     companion object {
-        private const val PREFIX = "kuvasz"
+        const val PREFIX = "kuvasz"
     }
 
     /**
@@ -32,16 +32,23 @@ interface MetricsExporter {
     fun prefixedMeterName(): String = "$PREFIX.$meterName"
 
     /**
-     * Initializes the exporter with the provided list of monitors.
-     * It should:
-     *  - register meters for each monitor if the monitor meets the exporter-specific filter condition
-     *  - set the initial values for the meters based on the monitors' current state
+     * Initializes the exporter. It should:
+     *  - register the global meters of the exporter, if there is any
      *  - listen to relevant events to update the meters dynamically
      *  - listen to monitor lifecycle events to re-create or remove meters as needed
      *
-     * This method is called once per exporter during application startup to set up the metrics exporters.
+     * This method is called once per exporter during application startup, before any monitor is registered.
      */
-    fun initialize(monitors: List<MonitorRecord>)
+    fun initialize()
+
+    /**
+     * Registers the meters of the provided monitors. It should:
+     *  - register meters for each monitor if the monitor meets the exporter-specific filter condition
+     *  - set the initial values for the meters based on the monitors' current state
+     *
+     * This method is called with the batches of the enabled monitors, while they're loaded on startup.
+     */
+    fun registerMonitors(monitors: List<MonitorRecord>) = Unit
 }
 
 /**
@@ -55,7 +62,7 @@ interface MetricsExporter {
  * an [java.util.concurrent.atomic.AtomicLong].
  */
 abstract class BaseMetricsExporter<SOURCE_VAL : Any, INTERNAL_VAL : Any, METER_VAL : Any>(
-    private val monitorRepository: MonitorRepository,
+    private val monitorRegistry: MonitorRegistry,
     private val meterRegistry: MeterRegistry,
     private val eventDispatcher: EventDispatcher,
 ) : MetricsExporter {
@@ -116,7 +123,7 @@ abstract class BaseMetricsExporter<SOURCE_VAL : Any, INTERNAL_VAL : Any, METER_V
      * Creates a meter for the given monitor ID with an optional initial value.
      */
     private fun createMeter(monitorId: Long, initialValue: SOURCE_VAL?) {
-        monitorRepository.findById(monitorId)?.let { monitor -> createMeter(monitor, initialValue) }
+        monitorRegistry.get(monitorId)?.let { monitor -> createMeter(monitor, initialValue) }
     }
 
     /**
@@ -153,11 +160,13 @@ abstract class BaseMetricsExporter<SOURCE_VAL : Any, INTERNAL_VAL : Any, METER_V
         }
     }
 
-    override fun initialize(monitors: List<MonitorRecord>) {
+    override fun registerMonitors(monitors: List<MonitorRecord>) {
         monitors.forEach { monitor ->
             createMeter(monitor, null)
         }
+    }
 
+    override fun initialize() {
         // Subclass specific subscriptions
         subscribeToEvents()
 
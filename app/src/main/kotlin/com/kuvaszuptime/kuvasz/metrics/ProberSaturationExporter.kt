@@ -0,0 +1,56 @@
+package com.kuvaszuptime.kuvasz.metrics
+
+import com.kuvaszuptime.kuvasz.services.concurrency.AdaptiveConcurrencyLimiter
+import io.micrometer.core.instrument.Gauge
+import io.micrometer.core.instrument.MeterRegistry
+import io.micrometer.core.instrument.TimeGauge
+import io.micronaut.context.annotation.Requirements
+import io.micronaut.context.annotation.Requires
+import io.micronaut.core.util.StringUtils
+import jakarta.inject.Singleton
+import java.util.concurrent.TimeUnit
+
+/**
+ * Exports whether the prober is saturated, the task latencies of the event loop and the dispatcher that are used to
+ * detect it, and the current concurrency limit of the checks.
+ */
+@Singleton
+@Requirements(
+    Requires(bean = MeterRegistry::class),
+    Requires(property = "${MetricsExportConfig.CONFIG_PREFIX}.check-execution", value = StringUtils.TRUE),
+)
+class ProberSaturationExporter(
+    private val meterRegistry: MeterRegistry,
+    private val concurrencyLimiter: AdaptiveConcurrencyLimiter,
+) : MetricsExporter {
+
+    companion object {
+        private const val PROBER_SATURATED = "prober.saturated"
+        private const val EVENT_LOOP_LAG = "prober.event_loop.lag"
+        private const val DISPATCHER_LAG = "prober.dispatcher.lag"
+        private const val CONCURRENCY_LIMIT = "checks.concurrency_limit"
+    }
+
+    override val meterName = PROBER_SATURATED
+
+    override fun initialize() {
+        Gauge.builder(prefixedMeterName(), concurrencyLimiter) { if (it.isSaturated()) 1.0 else 0.0 }
+            .description("Whether the prober is saturated (1) or not (0)")
+            .register(meterRegistry)
+        TimeGauge.builder("${MetricsExporter.PREFIX}.$EVENT_LOOP_LAG", concurrencyLimiter, TimeUnit.NANOSECONDS) {
+            it.eventLoopLagNanos().toDouble()
+        }
+            .description("How long a task was waiting to be executed on the event loop of the uptime checks")
+            .register(meterRegistry)
+        TimeGauge.builder("${MetricsExporter.PREFIX}.$DISPATCHER_LAG", concurrencyLimiter, TimeUnit.NANOSECONDS) {
+            it.dispatcherLagNanos().toDouble()
+        }
+            .description("How long a task was waiting to be executed on the dispatcher of the checks")
+            .register(meterRegistry)
+        Gauge.builder("${MetricsExporter.PREFIX}.$CONCURRENCY_LIMIT", concurrencyLimiter) {
+            it.currentLimit().toDouble()
+        }
+            .description("The current limit of the concurrent checks, 0 means unlimited")
+            .register(meterRegistry)
+    }
+}
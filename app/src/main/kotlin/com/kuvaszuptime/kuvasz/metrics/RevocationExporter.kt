@@ -0,0 +1,54 @@
+package com.kuvaszuptime.kuvasz.metrics
+
+import com.kuvaszuptime.kuvasz.services.tls.RevocationLookup
+import com.kuvaszuptime.kuvasz.services.tls.RevocationResponseCache
+import io.micrometer.core.instrument.FunctionTimer
+import io.micrometer.core.instrument.Gauge
+import io.micrometer.core.instrument.MeterRegistry
+import io.micronaut.context.annotation.Requirements
+import io.micronaut.context.annotation.Requires
+import io.micronaut.core.util.StringUtils
+import jakarta.inject.Singleton
+import java.util.concurrent.TimeUnit
+
+/**
+ * Exports the time that the SSL checks spent looking up the revocation of the certificates, the hit ratio of the
+ * cached OCSP responses and CRLs, and the number of them that are in the cache right now.
+ */
+@Singleton
+@Requirements(
+    Requires(bean = MeterRegistry::class),
+    Requires(property = "${MetricsExportConfig.CONFIG_PREFIX}.check-execution", value = StringUtils.TRUE),
+)
+class RevocationExporter(
+    private val meterRegistry: MeterRegistry,
+    private val revocationLookup: RevocationLookup,
+    private val responseCache: RevocationResponseCache,
+) : MetricsExporter {
+
+    companion object {
+        private const val REVOCATION_LOOKUP = "ssl_checks.revocation.lookup"
+        private const val REVOCATION_CACHE_HIT_RATIO = "ssl_checks.revocation.cache.hit_ratio"
+        private const val REVOCATION_CACHE_SIZE = "ssl_checks.revocation.cache.size"
+    }
+
+    override val meterName = REVOCATION_LOOKUP
+
+    override fun initialize() {
+        FunctionTimer.builder(
+            prefixedMeterName(),
+            revocationLookup,
+            { it.lookupCount() },
+            { it.totalLookupNanos().toDouble() },
+            TimeUnit.NANOSECONDS,
+        )
+            .description("The time that the SSL checks spent looking up the revocation of the certificate chains")
+            .register(meterRegistry)
+        Gauge.builder("${MetricsExporter.PREFIX}.$REVOCATION_CACHE_HIT_RATIO", responseCache) { it.hitRatio() }
+            .description("The ratio of the revocation lookups that were served by a cached OCSP response or CRL")
+            .register(meterRegistry)
+        Gauge.builder("${MetricsExporter.PREFIX}.$REVOCATION_CACHE_SIZE", responseCache) { it.size().toDouble() }
+            .description("The number of the OCSP responses and CRLs that are cached for the revocation lookups")
+            .register(meterRegistry)
+    }
+}
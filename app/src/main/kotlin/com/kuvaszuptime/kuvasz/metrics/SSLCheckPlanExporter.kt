@@ -0,0 +1,53 @@
+package com.kuvaszuptime.kuvasz.metrics
+
+import com.kuvaszuptime.kuvasz.services.scheduling.SSLCheckPlanner
+import io.micrometer.core.instrument.Gauge
+import io.micrometer.core.instrument.MeterRegistry
+import io.micronaut.context.annotation.Requirements
+import io.micronaut.context.annotation.Requires
+import io.micronaut.core.util.StringUtils
+import jakarta.inject.Singleton
+import java.time.Duration
+import java.time.Instant
+
+/**
+ * Exports the number of the SSL checks that were planned for the current and the previous hour, and how many of them
+ * were executed, so the checks that couldn't be executed in time are revealed by the gap between the two.
+ */
+@Singleton
+@Requirements(
+    Requires(bean = MeterRegistry::class),
+    Requires(property = "${MetricsExportConfig.CONFIG_PREFIX}.check-execution", value = StringUtils.TRUE),
+)
+class SSLCheckPlanExporter(
+    private val meterRegistry: MeterRegistry,
+    private val sslCheckPlanner: SSLCheckPlanner,
+) : MetricsExporter {
+
+    companion object {
+        private const val SSL_CHECKS_PLANNED = "ssl_checks.planned"
+        private const val SSL_CHECKS_EXECUTED = "ssl_checks.executed"
+        private val HOURS_AGO = mapOf("current" to 0L, "previous" to 1L)
+    }
+
+    override val meterName = SSL_CHECKS_PLANNED
+
+    override fun initialize() {
+        HOURS_AGO.forEach { (hour, hoursAgo) ->
+            Gauge.builder(prefixedMeterName(), sslCheckPlanner) {
+                it.plannedInHourOf(hoursAgo.hoursBeforeNow()).toDouble()
+            }
+                .description("The number of the SSL checks that were planned for the hour")
+                .tag("hour", hour)
+                .register(meterRegistry)
+            Gauge.builder("${MetricsExporter.PREFIX}.$SSL_CHECKS_EXECUTED", sslCheckPlanner) {
+                it.executedInHourOf(hoursAgo.hoursBeforeNow()).toDouble()
+            }
+                .description("The number of the SSL checks that were planned for the hour, and were executed")
+                .tag("hour", hour)
+                .register(meterRegistry)
+        }
+    }
+
+    private fun Long.hoursBeforeNow(): Instant = Instant.now().minus(Duration.ofHours(this))
+}
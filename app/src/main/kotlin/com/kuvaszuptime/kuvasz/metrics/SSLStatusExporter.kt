@@ -5,6 +5,7 @@ import com.kuvaszuptime.kuvasz.jooq.tables.records.MonitorRecord
 import com.kuvaszuptime.kuvasz.models.events.SSLMonitorEvent
 import com.kuvaszuptime.kuvasz.repositories.MonitorRepository
 import com.kuvaszuptime.kuvasz.services.EventDispatcher
+import com.kuvaszuptime.kuvasz.services.MonitorRegistry
 import io.micrometer.core.instrument.MeterRegistry
 import io.micronaut.context.annotation.Requirements
 import io.micronaut.context.annotation.Requires
@@ -20,7 +21,8 @@ class SSLStatusExporter(
     meterRegistry: MeterRegistry,
     private val eventDispatcher: EventDispatcher,
     private val monitorRepository: MonitorRepository,
-) : GaugeExporter<SslStatus>(meterRegistry, eventDispatcher, monitorRepository) {
+    monitorRegistry: MonitorRegistry,
+) : GaugeExporter<SslStatus>(meterRegistry, eventDispatcher, monitorRegistry) {
 
     companion object {
         private const val MONITOR_SSL_STATUS = "monitor.ssl.status"
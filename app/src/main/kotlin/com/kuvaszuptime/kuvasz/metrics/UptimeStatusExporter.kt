@@ -5,6 +5,7 @@ import com.kuvaszuptime.kuvasz.jooq.tables.records.MonitorRecord
 import com.kuvaszuptime.kuvasz.models.events.UptimeMonitorEvent
 import com.kuvaszuptime.kuvasz.repositories.MonitorRepository
 import com.kuvaszuptime.kuvasz.services.EventDispatcher
+import com.kuvaszuptime.kuvasz.services.MonitorRegistry
 import io.micrometer.core.instrument.MeterRegistry
 import io.micronaut.context.annotation.Requirements
 import io.micronaut.context.annotation.Requires
@@ -20,7 +21,8 @@ class UptimeStatusExporter(
     meterRegistry: MeterRegistry,
     private val eventDispatcher: EventDispatcher,
     private val monitorRepository: MonitorRepository,
-) : GaugeExporter<UptimeStatus>(meterRegistry, eventDispatcher, monitorRepository) {
+    monitorRegistry: MonitorRegistry,
+) : GaugeExporter<UptimeStatus>(meterRegistry, eventDispatcher, monitorRegistry) {
 
     companion object {
         private const val MONITOR_UPTIME_STATUS = "monitor.uptime.status"
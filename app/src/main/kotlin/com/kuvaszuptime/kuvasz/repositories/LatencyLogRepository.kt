@@ -2,18 +2,23 @@ package com.kuvaszuptime.kuvasz.repositories
 
 import com.kuvaszuptime.kuvasz.jooq.tables.LatencyLog.LATENCY_LOG
 import com.kuvaszuptime.kuvasz.jooq.tables.records.LatencyLogRecord
+import com.kuvaszuptime.kuvasz.models.checks.CheckTimings
 import com.kuvaszuptime.kuvasz.models.dto.LatencyLogDto
 import com.kuvaszuptime.kuvasz.util.getCurrentTimestamp
 import io.micronaut.core.annotation.Introspected
 import jakarta.inject.Singleton
 import org.jooq.DSLContext
+import org.jooq.Field
 import org.jooq.impl.DSL.avg
+import org.jooq.impl.DSL.inline
 import org.jooq.impl.DSL.max
 import org.jooq.impl.DSL.min
 import org.jooq.impl.DSL.percentileCont
 import org.jooq.impl.DSL.round
+import org.jooq.impl.SQLDataType
 import java.time.Duration
 import java.time.OffsetDateTime
+import java.util.concurrent.TimeUnit
 
 @Singleton
 class LatencyLogRepository(private val dslContext: DSLContext) {
@@ -22,15 +27,38 @@ class LatencyLogRepository(private val dslContext: DSLContext) {
         private const val P90 = .90
         private const val P95 = .95
         private const val P99 = .99
+        private const val MICROS_PER_MILLI = 1000.0
+
+        private fun Long.toMicros(): Int = TimeUnit.NANOSECONDS.toMicros(this).toInt()
+
+        /**
+         * The phase timings are stored in microseconds, but they're exposed in milliseconds
+         */
+        private fun Field<out Number>.inMillis(): Field<Double> =
+            cast(SQLDataType.DOUBLE).div(inline(MICROS_PER_MILLI))
+
+        private fun Field<Int>.averageInMillis(): Field<Double> = round(avg(this)).inMillis()
     }
 
-    fun insertLatencyForMonitor(monitorId: Long, latency: Int, createdAt: OffsetDateTime = getCurrentTimestamp()) {
+    fun insertLatencyForMonitor(
+        monitorId: Long,
+        latency: Int,
+        createdAt: OffsetDateTime = getCurrentTimestamp(),
+        proberSaturated: Boolean = false,
+        timings: CheckTimings? = null,
+    ) {
         dslContext.insertInto(LATENCY_LOG)
             .set(
                 LatencyLogRecord()
                     .setMonitorId(monitorId)
                     .setLatency(latency)
                     .setCreatedAt(createdAt)
+                    .setProberSaturated(proberSaturated)
+                    .setDnsUs(timings?.dnsNanos?.toMicros())
+                    .setConnectUs(timings?.connectNanos?.toMicros())
+                    .setTlsUs(timings?.tlsNanos?.toMicros())
+                    .setTtfbUs(timings?.ttfbNanos?.toMicros())
+                    .setTransferUs(timings?.transferNanos?.toMicros())
             )
             .execute()
     }
@@ -39,7 +67,13 @@ class LatencyLogRepository(private val dslContext: DSLContext) {
         select(
             LATENCY_LOG.ID.`as`(LatencyLogDto::id.name),
             LATENCY_LOG.LATENCY.`as`(LatencyLogDto::latencyInMs.name),
-            LATENCY_LOG.CREATED_AT.`as`(LatencyLogDto::createdAt.name)
+            LATENCY_LOG.CREATED_AT.`as`(LatencyLogDto::createdAt.name),
+            LATENCY_LOG.PROBER_SATURATED.`as`(LatencyLogDto::proberSaturated.name),
+            LATENCY_LOG.DNS_US.inMillis().`as`(LatencyLogDto::dnsInMs.name),
+            LATENCY_LOG.CONNECT_US.inMillis().`as`(LatencyLogDto::connectInMs.name),
+            LATENCY_LOG.TLS_US.inMillis().`as`(LatencyLogDto::tlsInMs.name),
+            LATENCY_LOG.TTFB_US.inMillis().`as`(LatencyLogDto::ttfbInMs.name),
+            LATENCY_LOG.TRANSFER_US.inMillis().`as`(LatencyLogDto::transferInMs.name),
         )
             .from(LATENCY_LOG)
             .where(LATENCY_LOG.MONITOR_ID.eq(monitorId))
@@ -58,8 +92,9 @@ class LatencyLogRepository(private val dslContext: DSLContext) {
         .orderBy(LATENCY_LOG.CREATED_AT.desc(), LATENCY_LOG.ID.desc())
         .fetchInto(LatencyLogDto::class.java)
 
-    fun fetchLastByMonitorId(monitorId: Long): LatencyLogDto? = dslContext
+    fun fetchLastUnsaturatedByMonitorId(monitorId: Long): LatencyLogDto? = dslContext
         .latencyLogDtoSelect(monitorId)
+        .and(LATENCY_LOG.PROBER_SATURATED.isFalse)
         .orderBy(LATENCY_LOG.CREATED_AT.desc(), LATENCY_LOG.ID.desc())
         .limit(1)
         .fetchOneInto(LatencyLogDto::class.java)
@@ -87,11 +122,18 @@ class LatencyLogRepository(private val dslContext: DSLContext) {
                 round(percentileCont(P95).withinGroupOrderBy(LATENCY_LOG.LATENCY)).cast(Int::class.java)
                     .`as`(LatencyMetricResult::p95.name),
                 round(percentileCont(P99).withinGroupOrderBy(LATENCY_LOG.LATENCY)).cast(Int::class.java)
-                    .`as`(LatencyMetricResult::p99.name)
+                    .`as`(LatencyMetricResult::p99.name),
+                LATENCY_LOG.DNS_US.averageInMillis().`as`(LatencyMetricResult::avgDns.name),
+                LATENCY_LOG.CONNECT_US.averageInMillis().`as`(LatencyMetricResult::avgConnect.name),
+                LATENCY_LOG.TLS_US.averageInMillis().`as`(LatencyMetricResult::avgTls.name),
+                LATENCY_LOG.TTFB_US.averageInMillis().`as`(LatencyMetricResult::avgTtfb.name),
+                LATENCY_LOG.TRANSFER_US.averageInMillis().`as`(LatencyMetricResult::avgTransfer.name),
             )
             .from(LATENCY_LOG)
             .where(LATENCY_LOG.MONITOR_ID.eq(monitorId))
             .and(LATENCY_LOG.CREATED_AT.greaterOrEqual(getCurrentTimestamp().minusSeconds(thresholdSeconds)))
+            // The latencies that were recorded while the prober was saturated might include self-induced delays
+            .and(LATENCY_LOG.PROBER_SATURATED.isFalse)
             .groupBy(LATENCY_LOG.MONITOR_ID)
             .fetchOneInto(LatencyMetricResult::class.java)
     }
@@ -106,4 +148,9 @@ data class LatencyMetricResult(
     val p90: Int?,
     val p95: Int?,
     val p99: Int?,
+    val avgDns: Double?,
+    val avgConnect: Double?,
+    val avgTls: Double?,
+    val avgTtfb: Double?,
+    val avgTransfer: Double?,
 )
@@ -13,6 +13,7 @@ import com.kuvaszuptime.kuvasz.models.MonitorDuplicatedException
 import com.kuvaszuptime.kuvasz.models.PersistenceException
 import com.kuvaszuptime.kuvasz.models.dto.MonitorDetailsDto
 import com.kuvaszuptime.kuvasz.models.handlers.IntegrationID
+import com.kuvaszuptime.kuvasz.models.toContentPatterns
 import com.kuvaszuptime.kuvasz.util.fetchOneOrThrow
 import com.kuvaszuptime.kuvasz.util.getCurrentTimestamp
 import com.kuvaszuptime.kuvasz.util.toPersistenceError
@@ -45,6 +46,21 @@ class MonitorRepository(private val dslContext: DSLContext) {
         .where(MONITOR.ENABLED.eq(enabled))
         .fetch()
 
+    /**
+     * Returns the next batch of the monitors after the given ID, ordered by their ID. Paging through the monitors this
+     * way (instead of one big fetch, or a cursor that holds a connection open) keeps both the memory footprint and the
+     * connection usage of the bootstrap flat, no matter how many monitors there are.
+     */
+    fun fetchBatchByEnabled(enabled: Boolean, afterId: Long, batchSize: Int): List<MonitorRecord> = dslContext
+        .selectFrom(MONITOR)
+        .where(MONITOR.ENABLED.eq(enabled))
+        .and(MONITOR.ID.gt(afterId))
+        .orderBy(MONITOR.ID)
+        .limit(batchSize)
+        .fetch()
+
+    fun countByEnabled(enabled: Boolean): Int = dslContext.fetchCount(MONITOR, MONITOR.ENABLED.eq(enabled))
+
     fun deleteById(monitorId: Long): Int = dslContext
         .deleteFrom(MONITOR)
         .where(MONITOR.ID.eq(monitorId))
@@ -105,6 +121,17 @@ class MonitorRepository(private val dslContext: DSLContext) {
                     .set(MONITOR.LATENCY_HISTORY_ENABLED, updatedMonitor.latencyHistoryEnabled)
                     .set(MONITOR.FORCE_NO_CACHE, updatedMonitor.forceNoCache)
                     .set(MONITOR.SSL_EXPIRY_THRESHOLD, updatedMonitor.sslExpiryThreshold)
+                    .set(MONITOR.HOST_CONCURRENCY_LIMIT, updatedMonitor.hostConcurrencyLimit)
+                    .set(MONITOR.CHECK_DEADLINE_SECONDS, updatedMonitor.checkDeadlineSeconds)
+                    .set(MONITOR.DNS_CACHE_ENABLED, updatedMonitor.dnsCacheEnabled)
+                    .set(MONITOR.CONNECTION_REUSE_ENABLED, updatedMonitor.connectionReuseEnabled)
+                    .set(MONITOR.TLS_SESSION_RESUMPTION_ENABLED, updatedMonitor.tlsSessionResumptionEnabled)
+                    .set(MONITOR.BODY_MUST_CONTAIN, updatedMonitor.bodyMustContain?.toList().toContentPatterns())
+                    .set(
+                        MONITOR.BODY_MUST_NOT_CONTAIN,
+                        updatedMonitor.bodyMustNotContain?.toList().toContentPatterns()
+                    )
+                    .set(MONITOR.BODY_JSON_ASSERTIONS, updatedMonitor.bodyJsonAssertions?.distinct()?.toTypedArray())
                     .set(MONITOR.INTEGRATIONS, updatedMonitor.integrations)
                     .where(MONITOR.ID.eq(updatedMonitor.id))
                     .returning(MONITOR.asterisk())
@@ -167,6 +194,14 @@ class MonitorRepository(private val dslContext: DSLContext) {
             MONITOR.FOLLOW_REDIRECTS.`as`(MonitorDetailsDto::followRedirects.name),
             MONITOR.REQUEST_METHOD.`as`(MonitorDetailsDto::requestMethod.name),
             MONITOR.SSL_EXPIRY_THRESHOLD.`as`(MonitorDetailsDto::sslExpiryThreshold.name),
+            MONITOR.HOST_CONCURRENCY_LIMIT.`as`(MonitorDetailsDto::hostConcurrencyLimit.name),
+            MONITOR.CHECK_DEADLINE_SECONDS.`as`(MonitorDetailsDto::checkDeadlineSeconds.name),
+            MONITOR.DNS_CACHE_ENABLED.`as`(MonitorDetailsDto::dnsCacheEnabled.name),
+            MONITOR.CONNECTION_REUSE_ENABLED.`as`(MonitorDetailsDto::connectionReuseEnabled.name),
+            MONITOR.TLS_SESSION_RESUMPTION_ENABLED.`as`(MonitorDetailsDto::tlsSessionResumptionEnabled.name),
+            MONITOR.BODY_MUST_CONTAIN.`as`(MonitorDetailsDto::bodyMustContain.name),
+            MONITOR.BODY_MUST_NOT_CONTAIN.`as`(MonitorDetailsDto::bodyMustNotContain.name),
+            MONITOR.BODY_JSON_ASSERTIONS.`as`(MonitorDetailsDto::bodyJsonAssertions.name),
             DSL.array(arrayOf<String>()).`as`(MonitorDetailsDto::effectiveIntegrations.name),
             MONITOR.INTEGRATIONS.`as`(MonitorDetailsDto::integrations.name),
         )
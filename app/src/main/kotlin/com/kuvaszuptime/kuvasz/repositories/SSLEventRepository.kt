@@ -41,6 +41,16 @@ class SSLEventRepository(private val dslContext: DSLContext) {
         .and(SSL_EVENT.ENDED_AT.isNull)
         .fetchOne()
 
+    /**
+     * The ongoing events of the given monitors, by their monitor's ID
+     */
+    fun fetchOngoingEventsByMonitorIds(monitorIds: Collection<Long>): Map<Long, SslEventRecord> = dslContext
+        .selectFrom(SSL_EVENT)
+        .where(SSL_EVENT.MONITOR_ID.`in`(monitorIds))
+        .and(SSL_EVENT.ENDED_AT.isNull)
+        .fetch()
+        .associateBy { it.monitorId }
+
     fun endEventById(eventId: Long, endedAt: OffsetDateTime, ctx: DSLContext = dslContext) = ctx
         .update(SSL_EVENT)
         .set(SSL_EVENT.ENDED_AT, endedAt)
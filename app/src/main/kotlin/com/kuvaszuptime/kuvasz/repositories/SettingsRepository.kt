@@ -87,6 +87,7 @@ class SettingsRepository(
             latestLatency = exportConfig.latestLatency,
             uptimeStatus = exportConfig.uptimeStatus,
             sslStatus = exportConfig.sslStatus,
+            checkExecution = exportConfig.checkExecution,
         ),
         exporters = SettingsDto.MetricsExportSettingsDto.ExporterSettingsDto(
             prometheus = SettingsDto.MetricsExportSettingsDto.ExporterSettingsDto.PrometheusSettingsDto(
@@ -7,7 +7,13 @@ import com.kuvaszuptime.kuvasz.metrics.MetricsExportRegistry
 import com.kuvaszuptime.kuvasz.repositories.MonitorRepository
 import io.micronaut.context.annotation.Context
 import jakarta.annotation.PostConstruct
+import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.runBlocking
 import org.slf4j.LoggerFactory
+import java.time.Duration
 
 @Context
 class AppBootstrapper(
@@ -18,6 +24,8 @@ class AppBootstrapper(
     private val integrationRepository: IntegrationRepository,
     private val checkScheduler: CheckScheduler,
     private val metricsExportRegistry: MetricsExportRegistry?,
+    private val dispatcher: CoroutineDispatcher,
+    private val monitorRegistry: MonitorRegistry,
 ) {
 
     private val logger = LoggerFactory.getLogger(this.javaClass)
@@ -31,11 +39,35 @@ class AppBootstrapper(
         // Conditionally initialize the metrics export if enabled
         metricsExportRegistry?.initialize()
         // Scheduling the initial checks (uptime & SSL)
-        checkScheduler.initialize()
+        scheduleInitialChecks()
 
         logger.info("Kuvasz was successfully bootstrapped. Version: ${BuildConfig.APP_VERSION}")
     }
 
+    /**
+     * Schedules the checks of the enabled monitors, and registers their meters along the way. Without a warm-up window
+     * it's done right away, otherwise it's ramped up in the background, and the application reports itself as not
+     * ready until it's finished.
+     */
+    private fun scheduleInitialChecks() {
+        val warmUp = Duration.ofSeconds(appConfig.bootstrapWarmUpSeconds.toLong())
+        val initialize: suspend () -> Unit = {
+            checkScheduler.initialize(warmUp) { batch -> metricsExportRegistry?.registerMonitors(batch) }
+        }
+        if (warmUp.isZero) {
+            runBlocking { initialize() }
+        } else {
+            CoroutineScope(SupervisorJob() + dispatcher).launch {
+                @Suppress("TooGenericExceptionCaught")
+                try {
+                    initialize()
+                } catch (ex: Exception) {
+                    logger.error("Scheduling the checks of the monitors failed: ${ex.message}", ex)
+                }
+            }
+        }
+    }
+
     /**
      * Sanitizes the integrations of all monitors in the database.
      * If an integration is found on a monitor that is not configured, it will be removed from that monitor.
@@ -56,6 +88,7 @@ class AppBootstrapper(
                             "Updating monitor integrations to only include configured ones."
                     )
                     monitorRepository.updateIntegrations(monitor.id, matchedIntegrations.toTypedArray())
+                    monitorRegistry.remove(monitor.id)
                 }
             }
         }
@@ -0,0 +1,102 @@
+package com.kuvaszuptime.kuvasz.services
+
+import com.kuvaszuptime.kuvasz.jooq.enums.HttpMethod
+import com.kuvaszuptime.kuvasz.jooq.tables.records.MonitorRecord
+import com.kuvaszuptime.kuvasz.services.timing.CheckTimingClientCustomizer
+import com.kuvaszuptime.kuvasz.services.tls.PeerCertificateCache
+import io.micronaut.http.HttpHeaders
+import java.net.URI
+
+/**
+ * The immutable request of a monitor's uptime checks. The URL of the monitor is parsed, and the method and the headers
+ * of its requests are resolved only once (see [CheckRequestTemplates]), instead of on every check.
+ *
+ * @property uri The parsed URL of the monitor
+ * @property tlsOrigin The key of the monitor's origin in the [PeerCertificateCache], if the monitor is an HTTPS one
+ * @property clientMethod The method of the requests that are sent by Micronaut's HTTP client
+ * @property headers The headers of the requests that are sent by Micronaut's HTTP client
+ */
+class CheckRequestTemplate(monitor: MonitorRecord) {
+
+    companion object {
+        private const val HTTP_DEFAULT_PORT = 80
+        private const val HTTPS_DEFAULT_PORT = 443
+        private const val NO_CACHE = "no-cache"
+        private const val CLOSE = "close"
+    }
+
+    val monitorId: Long = monitor.id
+    val url: String = monitor.url
+    val method: HttpMethod = monitor.requestMethod
+    val forceNoCache: Boolean = monitor.forceNoCache == true
+    val connectionReuseEnabled: Boolean = monitor.connectionReuseEnabled != false
+
+    val uri: URI = URI(url)
+
+    val tlsOrigin: String? = uri.host?.takeIf { uri.scheme.equals("https", ignoreCase = true) }?.let { host ->
+        PeerCertificateCache.originOf(host, uri.port.takeIf { it >= 0 } ?: HTTPS_DEFAULT_PORT)
+    }
+
+    val clientMethod: io.micronaut.http.HttpMethod = when (method) {
+        HttpMethod.GET -> io.micronaut.http.HttpMethod.GET
+        HttpMethod.HEAD -> io.micronaut.http.HttpMethod.HEAD
+    }
+
+    val headers: Array<Pair<String, String>> = listOfNotNull(
+        HttpHeaders.ACCEPT to HttpCheckRequestConfigurator.ACCEPT,
+        HttpHeaders.ACCEPT_ENCODING to HttpCheckRequestConfigurator.ACCEPT_ENCODING,
+        HttpHeaders.USER_AGENT to HttpCheckRequestConfigurator.USER_AGENT,
+        (HttpHeaders.CACHE_CONTROL to NO_CACHE).takeIf { forceNoCache },
+        (CheckTimingClientCustomizer.CLOSE_CONNECTION_HEADER to "true").takeIf { !connectionReuseEnabled },
+    ).toTypedArray()
+
+    /**
+     * The HTTP/1.1 request to the URL of the monitor, that is written as is by the
+     * [com.kuvaszuptime.kuvasz.services.probe.NettyCheckProbe]. It's encoded on the first check with that engine.
+     * The returned array must not be modified.
+     */
+    val http1Request: ByteArray by lazy(LazyThreadSafetyMode.PUBLICATION) { encodeHttp1Request(uri) }
+
+    /**
+     * Whether the template is still up to date with the settings of the monitor, it doesn't allocate
+     */
+    fun isFor(monitor: MonitorRecord): Boolean =
+        monitorId == monitor.id &&
+            url == monitor.url &&
+            method == monitor.requestMethod &&
+            forceNoCache == (monitor.forceNoCache == true) &&
+            connectionReuseEnabled == (monitor.connectionReuseEnabled != false)
+
+    /**
+     * Encodes the HTTP/1.1 request of the monitor to the given URI (e.g. to the location of a redirect). The requests
+     * have the same headers as the [headers], except that the connection is closed with the standard header.
+     */
+    fun encodeHttp1Request(target: URI): ByteArray {
+        // The non-ASCII characters of the path and the query are percent-encoded
+        val asciiUri = URI(target.toASCIIString())
+        val request = buildString {
+            append(method.literal).append(' ')
+            append(asciiUri.rawPath?.takeIf { it.isNotEmpty() } ?: "/")
+            asciiUri.rawQuery?.let { append('?').append(it) }
+            append(" HTTP/1.1\r\n")
+            header(HttpHeaders.HOST, target.hostHeader())
+            header(HttpHeaders.ACCEPT, HttpCheckRequestConfigurator.ACCEPT)
+            header(HttpHeaders.ACCEPT_ENCODING, HttpCheckRequestConfigurator.ACCEPT_ENCODING)
+            header(HttpHeaders.USER_AGENT, HttpCheckRequestConfigurator.USER_AGENT)
+            if (forceNoCache) header(HttpHeaders.CACHE_CONTROL, NO_CACHE)
+            if (!connectionReuseEnabled) header(HttpHeaders.CONNECTION, CLOSE)
+            append("\r\n")
+        }
+        return request.toByteArray(Charsets.US_ASCII)
+    }
+
+    private fun StringBuilder.header(name: String, value: String) {
+        append(name).append(": ").append(value).append("\r\n")
+    }
+
+    private fun URI.hostHeader(): String {
+        val host = requireNotNull(host) { "The URL doesn't have a host: $this" }
+        val defaultPort = if (scheme.equals("https", ignoreCase = true)) HTTPS_DEFAULT_PORT else HTTP_DEFAULT_PORT
+        return if (port < 0 || port == defaultPort) host else "$host:$port"
+    }
+}
@@ -0,0 +1,57 @@
+package com.kuvaszuptime.kuvasz.services
+
+import com.kuvaszuptime.kuvasz.jooq.tables.records.MonitorRecord
+import jakarta.inject.Singleton
+import org.slf4j.LoggerFactory
+import java.net.URISyntaxException
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Holds the [CheckRequestTemplate] of the monitors. The templates are built when the monitors are put into the
+ * [MonitorRegistry] (i.e. when they're loaded, created, updated or imported), so the checks only have to look them
+ * up. A template that is missing or outdated (e.g. the monitor was loaded lazily, or its record was modified in place)
+ * is built again on the fly.
+ */
+@Singleton
+class CheckRequestTemplates {
+
+    companion object {
+        private val logger = LoggerFactory.getLogger(CheckRequestTemplates::class.java)
+    }
+
+    private val templates = ConcurrentHashMap<Long, CheckRequestTemplate>()
+
+    /**
+     * Returns the up-to-date template of the monitor. It throws, if the URL of the monitor is invalid, so the check
+     * fails the same way as it would without the template.
+     */
+    fun forMonitor(monitor: MonitorRecord): CheckRequestTemplate {
+        val template = templates[monitor.id]
+        if (template != null && template.isFor(monitor)) return template
+        return CheckRequestTemplate(monitor).also { templates[monitor.id] = it }
+    }
+
+    /**
+     * Builds the template of the monitor again, if it's needed. A monitor with an invalid URL doesn't have a template,
+     * its checks are going to report the error.
+     */
+    fun update(monitor: MonitorRecord) {
+        if (monitor.url == null || monitor.requestMethod == null) return remove(monitor.id)
+        try {
+            forMonitor(monitor)
+        } catch (e: URISyntaxException) {
+            logger.debug("Can't build the request template of monitor with ID: ${monitor.id}: ${e.message}")
+            remove(monitor.id)
+        }
+    }
+
+    fun remove(monitorId: Long) {
+        templates.remove(monitorId)
+    }
+
+    fun retainAll(monitorIds: Set<Long>) {
+        templates.keys.retainAll(monitorIds)
+    }
+
+    fun size(): Int = templates.size
+}
@@ -1,36 +1,55 @@
 package com.kuvaszuptime.kuvasz.services
 
+import com.kuvaszuptime.kuvasz.config.AppConfig
 import com.kuvaszuptime.kuvasz.jooq.tables.records.MonitorRecord
+import com.kuvaszuptime.kuvasz.jooq.tables.records.SslEventRecord
 import com.kuvaszuptime.kuvasz.models.CheckType
 import com.kuvaszuptime.kuvasz.models.SchedulingException
 import com.kuvaszuptime.kuvasz.repositories.MonitorRepository
+import com.kuvaszuptime.kuvasz.repositories.SSLEventRepository
+import com.kuvaszuptime.kuvasz.services.concurrency.CheckAdmissionController
+import com.kuvaszuptime.kuvasz.services.concurrency.InFlightCheckTable
+import com.kuvaszuptime.kuvasz.services.scheduling.BootstrapProgress
+import com.kuvaszuptime.kuvasz.services.scheduling.HashedTimingWheel
+import com.kuvaszuptime.kuvasz.services.scheduling.InFlightCheckCounter
+import com.kuvaszuptime.kuvasz.services.scheduling.PhaseMove
+import com.kuvaszuptime.kuvasz.services.scheduling.PhasePlanner
+import com.kuvaszuptime.kuvasz.services.scheduling.SSLCheckPlanner
+import com.kuvaszuptime.kuvasz.services.scheduling.WheelTimeout
 import com.kuvaszuptime.kuvasz.util.toDurationOfSeconds
 import com.kuvaszuptime.kuvasz.util.toOffsetDateTime
-import io.micronaut.scheduling.TaskExecutors
-import io.micronaut.scheduling.TaskScheduler
-import jakarta.inject.Named
 import jakarta.inject.Singleton
+import kotlinx.coroutines.CancellationException
 import kotlinx.coroutines.CoroutineDispatcher
 import kotlinx.coroutines.CoroutineExceptionHandler
 import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.job
 import kotlinx.coroutines.launch
 import org.slf4j.LoggerFactory
 import java.time.Duration
 import java.time.Instant
 import java.time.OffsetDateTime
 import java.util.concurrent.ConcurrentHashMap
-import java.util.concurrent.ScheduledFuture
 import java.util.concurrent.TimeUnit
 
 @Singleton
 class CheckScheduler(
-    @Named(TaskExecutors.SCHEDULED) private val taskScheduler: TaskScheduler,
+    private val timingWheel: HashedTimingWheel,
     private val monitorRepository: MonitorRepository,
+    private val sslEventRepository: SSLEventRepository,
+    private val monitorRegistry: MonitorRegistry,
     private val uptimeChecker: UptimeChecker,
     private val sslChecker: SSLChecker,
     dispatcher: CoroutineDispatcher,
-    private val lockRegistry: UptimeCheckLockRegistry,
+    private val inFlightCheckTable: InFlightCheckTable,
+    private val inFlightCheckCounter: InFlightCheckCounter,
+    private val phasePlanner: PhasePlanner,
+    private val sslCheckPlanner: SSLCheckPlanner,
+    private val admissionController: CheckAdmissionController,
+    private val bootstrapProgress: BootstrapProgress,
+    private val appConfig: AppConfig,
 ) {
     private val coroutineExHandler = CoroutineExceptionHandler { _, ex ->
         logger.warn("Coroutine failed with ${ex::class.simpleName}: ${ex.message}")
@@ -38,22 +57,72 @@ class CheckScheduler(
 
     private val scope = CoroutineScope(SupervisorJob() + dispatcher + coroutineExHandler)
 
-    private val scheduledUptimeChecks: ConcurrentHashMap<Long, ScheduledFuture<*>> = ConcurrentHashMap()
-    private val scheduledSSLChecks: ConcurrentHashMap<Long, ScheduledFuture<*>> = ConcurrentHashMap()
+    private val scheduledUptimeChecks: ConcurrentHashMap<Long, WheelTimeout> = ConcurrentHashMap()
+    private val scheduledSSLChecks: ConcurrentHashMap<Long, WheelTimeout> = ConcurrentHashMap()
 
-    private fun ScheduledFuture<*>?.gracefulCancel() {
-        this?.cancel(false)
+    private fun WheelTimeout?.gracefulCancel() {
+        this?.cancel()
     }
 
-    fun initialize() {
-        // Scheduling the uptime checks for the enabled monitors
-        monitorRepository.fetchByEnabled(enabled = true).forEach { createChecksForMonitor(it) }
+    /**
+     * Schedules the checks of the enabled monitors, reading them from the database in batches, so they never have to be
+     * held in memory all at once. If a warm-up window is given, the batches are paced evenly over it, so the first
+     * checks of a large fleet are ramped up gradually, instead of hitting the prober all at once.
+     *
+     * The monitors that were already scheduled in the meantime (e.g. because they were updated through the API) are
+     * left intact, and so are the newer states of the monitors in the [MonitorRegistry], since the batch might have
+     * been read before they were updated.
+     *
+     * @param onBatch Called with every batch of the monitors, before their checks are scheduled
+     */
+    suspend fun initialize(warmUp: Duration = Duration.ZERO, onBatch: (List<MonitorRecord>) -> Unit = {}) {
+        val totalMonitors = monitorRepository.countByEnabled(enabled = true)
+        val batchSize = appConfig.bootstrapBatchSize
+        bootstrapProgress.start(totalMonitors)
+        logger.info("Scheduling the checks of $totalMonitors monitors, warm-up window: $warmUp")
+
+        val startedAt = System.nanoTime()
+        var lastId = 0L
+        var scheduledMonitors = 0
+        do {
+            // Pacing the start of every batch to its share of the warm-up window
+            if (!warmUp.isZero && totalMonitors > 0) {
+                val dueAt = startedAt + (warmUp.toNanos() * minOf(1.0, scheduledMonitors.toDouble() / totalMonitors))
+                    .toLong()
+                val waitMs = TimeUnit.NANOSECONDS.toMillis(dueAt - System.nanoTime())
+                if (waitMs > 0) delay(waitMs)
+            }
+            val batch = monitorRepository.fetchBatchByEnabled(enabled = true, afterId = lastId, batchSize = batchSize)
+            if (batch.isNotEmpty()) {
+                val monitors = batch.mapNotNull { monitor ->
+                    monitorRegistry.putIfAbsent(monitor)
+                        .takeIf { it.enabled && !scheduledUptimeChecks.containsKey(it.id) }
+                }
+                onBatch(monitors)
+                val lastSSLEvents = monitors.filter { it.sslCheckEnabled }.map { it.id }
+                    .takeIf { it.isNotEmpty() }
+                    ?.let { sslEventRepository.fetchOngoingEventsByMonitorIds(it) }
+                    .orEmpty()
+                monitors.forEach {
+                    createChecksForMonitor(it, bootstrapping = true, lastSSLEvent = lastSSLEvents[it.id])
+                }
+                bootstrapProgress.advance(batch.size)
+                scheduledMonitors += batch.size
+                lastId = batch.last().id
+            }
+        } while (batch.size == batchSize)
+
+        bootstrapProgress.complete()
+        logger.info(
+            "The checks of $scheduledMonitors monitors have been scheduled in " +
+                "${TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt)}ms"
+        )
     }
 
     fun getScheduledUptimeChecks() = scheduledUptimeChecks.toMap()
     fun getScheduledSSLChecks() = scheduledSSLChecks.toMap()
 
-    private fun logCreated(monitor: MonitorRecord, checkType: CheckType, task: ScheduledFuture<*>) {
+    private fun logCreated(monitor: MonitorRecord, checkType: CheckType, task: WheelTimeout) {
         val estimatedNextCheck = task.getNextCheck()
         logger.debug(
             "${checkType.name} check for \"${monitor.name}\" (${monitor.url}) has been set up successfully. " +
@@ -82,7 +151,7 @@ class CheckScheduler(
         checkType: CheckType,
         monitor: MonitorRecord,
         doAfter: () -> Unit,
-    ): (ScheduledFuture<*>) -> SchedulingException? = { scheduledUptimeTask ->
+    ): (WheelTimeout) -> SchedulingException? = { scheduledUptimeTask ->
         monitor.cancelCheck(checkType)
         monitor.registerCheck(checkType, scheduledUptimeTask)
         logCreated(monitor, checkType, scheduledUptimeTask)
@@ -90,7 +159,7 @@ class CheckScheduler(
         null
     }
 
-    private fun MonitorRecord.registerCheck(checkType: CheckType, task: ScheduledFuture<*>) {
+    private fun MonitorRecord.registerCheck(checkType: CheckType, task: WheelTimeout) {
         when (checkType) {
             CheckType.UPTIME -> scheduledUptimeChecks[this.id] = task
             CheckType.SSL -> scheduledSSLChecks[this.id] = task
@@ -104,9 +173,6 @@ class CheckScheduler(
         }
     }
 
-    private fun scheduledUptimeCheckErrorHandler(monitor: MonitorRecord) =
-        scheduledCheckErrorHandler(CheckType.UPTIME, monitor)
-
     private fun scheduledSSLCheckErrorHandler(monitor: MonitorRecord) =
         scheduledCheckErrorHandler(CheckType.SSL, monitor)
 
@@ -120,15 +186,24 @@ class CheckScheduler(
 
     /**
      * (Re)Creates the checks (uptime + SSL) of a monitor. Relevant when a monitor is created or updated.
+     *
+     * @param bootstrapping Whether the checks are created during the startup. If so, the first SSL check happens in
+     * the monitor's slot of the day, or sooner if the last SSL check found the certificate invalid or expiring,
+     * otherwise within a few minutes, so a new monitor doesn't have to wait for it.
+     * @param lastSSLEvent The ongoing SSL event of the monitor, only relevant during the startup
      */
-    fun createChecksForMonitor(monitor: MonitorRecord): SchedulingException? =
-        scheduleUptimeCheck(monitor, resync = false).fold(
+    fun createChecksForMonitor(
+        monitor: MonitorRecord,
+        bootstrapping: Boolean = false,
+        lastSSLEvent: SslEventRecord? = null,
+    ): SchedulingException? =
+        scheduleUptimeCheck(monitor).fold(
             onSuccess = scheduledUptimeCheckSuccessHandler(
                 monitor,
                 doAfter = {
                     // If the monitor is enabled, we need to take care of the SSL check as well
                     if (monitor.sslCheckEnabled) {
-                        scheduleSSLCheck(monitor).fold(
+                        scheduleSSLCheck(monitor, bootstrapping, lastSSLEvent).fold(
                             onSuccess = scheduledSSLCheckSuccessHandler(monitor),
                             onFailure = scheduledSSLCheckErrorHandler(monitor)
                         )
@@ -145,8 +220,12 @@ class CheckScheduler(
     fun removeChecksOfMonitor(monitor: MonitorRecord) {
         monitor.cancelCheck(CheckType.UPTIME)
         scheduledUptimeChecks.remove(monitor.id)
+        phasePlanner.release(monitor.id).applyPhaseMoves()
         monitor.cancelCheck(CheckType.SSL)
         scheduledSSLChecks.remove(monitor.id)
+        sslCheckPlanner.release(monitor.id)
+        admissionController.discardPending(monitor.id)
+        inFlightCheckTable.remove(monitor.id)
         logger.debug("Checks for \"${monitor.name}\" (${monitor.url}) has been removed successfully")
     }
 
@@ -156,75 +235,136 @@ class CheckScheduler(
     fun removeAllChecks() {
         scheduledUptimeChecks.forEach { it.value.gracefulCancel() }
         scheduledUptimeChecks.clear()
-        scheduledSSLChecks.forEach { it.value.gracefulCancel() }
+        scheduledSSLChecks.forEach {
+            it.value.gracefulCancel()
+            sslCheckPlanner.release(it.key)
+        }
         scheduledSSLChecks.clear()
+        phasePlanner.clear()
+        admissionController.discardAllPending()
+        inFlightCheckTable.clear()
     }
 
     /**
      * Takes care of the actual scheduling of the uptime check
      */
-    private fun scheduleUptimeCheck(
-        monitor: MonitorRecord,
-        resync: Boolean,
-    ): Result<ScheduledFuture<*>> =
+    private fun scheduleUptimeCheck(monitor: MonitorRecord): Result<WheelTimeout> =
         runCatching {
-            // Spreading the first checks a little bit to prevent flooding the HTTP Client after startup
-            val effectiveInitialDelay = if (resync) {
-                monitor.uptimeCheckInterval
-            } else {
-                (1..monitor.uptimeCheckInterval).random()
-            }
+            // Spreading the checks evenly to prevent flooding the HTTP Client and the DB
+            val phasePlan = phasePlanner.plan(monitor.id, monitor.uptimeCheckInterval)
+            phasePlan.moves.applyPhaseMoves()
+            val initialDelay = phasePlanner.delayUntilNextPhase(phasePlan.assignment)
             val period = monitor.uptimeCheckInterval.toDurationOfSeconds()
 
-            taskScheduler.scheduleWithFixedDelay(effectiveInitialDelay.toDurationOfSeconds(), period) {
-                scope.launch {
-                    if (!lockRegistry.tryAcquire(monitor.id)) return@launch
-
-                    @Suppress("TooGenericExceptionCaught")
-                    try {
-                        uptimeChecker.check(monitor) { checkedMonitor ->
-                            // Re-applying the original check interval which acts like kind of a synchronization to
-                            // minimize the chance of overlapping requests
-                            if (checkedMonitor.enabled) reScheduleUptimeCheckForMonitor(checkedMonitor)
-                        }
-                    } catch (ex: Exception) {
-                        // Better to catch and swallow everything that wasn't caught before to prevent
-                        // the accidental cancellation of the parent coroutine
-                        logger.error(
-                            "An unexpected error happened during the uptime check of a " +
-                                "monitor (${monitor.name}): ${ex.message}",
-                            ex,
-                        )
-                    } finally {
-                        lockRegistry.release(monitor.id)
-                    }
+            timingWheel.schedule(initialDelay, period) { timeout ->
+                admissionController.submit(CheckType.UPTIME, monitor.id, timeout.plannedExecutionNanos) {
+                    launchUptimeCheck(monitor)
                 }
             }
         }
 
     /**
-     * Takes care of the actual scheduling of the SSL check
+     * Runs the uptime check of the monitor, and gives back its admission permit when it's finished
      */
-    private fun scheduleSSLCheck(monitor: MonitorRecord): Result<ScheduledFuture<*>> =
+    private fun launchUptimeCheck(monitor: MonitorRecord) {
+        scope.launch {
+            val ticket = inFlightCheckTable.tryAcquire(monitor.id, coroutineContext.job)
+            if (ticket == InFlightCheckTable.NOT_ACQUIRED) return@launch
+
+            @Suppress("TooGenericExceptionCaught")
+            try {
+                inFlightCheckCounter.track(CheckType.UPTIME) {
+                    uptimeChecker.check(monitor) { checkedMonitor ->
+                        // Re-applying the original check interval which acts like kind of a synchronization
+                        // to minimize the chance of overlapping requests
+                        if (checkedMonitor.enabled) reScheduleUptimeCheckForMonitor(checkedMonitor)
+                        if (checkedMonitor.sslCheckEnabled) reScheduleSSLCheckOnRotation(checkedMonitor)
+                    }
+                }
+            } catch (ex: CancellationException) {
+                logger.debug("Uptime check of monitor (${monitor.name}) has been cancelled")
+                throw ex
+            } catch (ex: Exception) {
+                // Better to catch and swallow everything that wasn't caught before to prevent
+                // the accidental cancellation of the parent coroutine
+                logger.error(
+                    "An unexpected error happened during the uptime check of a " +
+                        "monitor (${monitor.name}): ${ex.message}",
+                    ex,
+                )
+            } finally {
+                inFlightCheckTable.release(monitor.id, ticket)
+            }
+        }.invokeOnCompletion { admissionController.release() }
+    }
+
+    /**
+     * Takes care of the actual scheduling of the SSL check. The checks are planned by [SSLCheckPlanner], the period of
+     * the slot is only used if the next check couldn't be planned (e.g. the check was rejected by the admission).
+     */
+    private fun scheduleSSLCheck(
+        monitor: MonitorRecord,
+        bootstrapping: Boolean,
+        lastSSLEvent: SslEventRecord?,
+    ): Result<WheelTimeout> =
         runCatching {
-            val initialDelay = Duration.ofSeconds(
-                (SSL_CHECK_INITIAL_DELAY_MIN_SECONDS..SSL_CHECK_INITIAL_DELAY_MAX_SECONDS).random()
-            )
+            val firstCheckDelay = if (bootstrapping) {
+                lastSSLEvent?.let { sslCheckPlanner.recheckDelayOf(it.status, it.updatedAt) }
+            } else {
+                Duration.ofSeconds((SSL_CHECK_INITIAL_DELAY_MIN_SECONDS..SSL_CHECK_INITIAL_DELAY_MAX_SECONDS).random())
+            }
+            val initialDelay = sslCheckPlanner.planFirst(monitor.id, maxDelay = firstCheckDelay)
             val period = Duration.ofDays(SSL_CHECK_PERIOD_DAYS)
-            taskScheduler.scheduleWithFixedDelay(initialDelay, period) {
-                sslChecker.check(monitor)
+            timingWheel.schedule(initialDelay, period) { timeout ->
+                admissionController.submit(CheckType.SSL, monitor.id, timeout.plannedExecutionNanos) {
+                    // The wheel's worker thread must not be blocked, the SSL check is reading the database
+                    scope.launch {
+                        sslCheckPlanner.executed(monitor.id)
+                        val result = inFlightCheckCounter.track(CheckType.SSL) { sslChecker.check(monitor) }
+                        val delay = sslCheckPlanner.planNext(monitor.id, result, monitor.sslExpiryThreshold)
+                        if (!timeout.reschedule(delay)) sslCheckPlanner.release(monitor.id)
+                    }.invokeOnCompletion { admissionController.release() }
+                }
             }
         }
 
     /**
-     * Re-schedules the uptime check for a monitor, removing the previous one and scheduling a new one with an initial
-     * delay of the monitor's uptime check interval, to decrease the chance of overlapping checks
+     * Re-arms the existing uptime check slot of a monitor to the next occurrence of its phase, so the check can't drift
+     * away from its planned second, and it also decreases the chance of overlapping checks. It's an O(1) operation on
+     * the timing wheel, no new task is created.
      */
-    private fun reScheduleUptimeCheckForMonitor(monitor: MonitorRecord): SchedulingException? =
-        scheduleUptimeCheck(monitor, resync = true).fold(
-            onSuccess = scheduledUptimeCheckSuccessHandler(monitor),
-            onFailure = scheduledUptimeCheckErrorHandler(monitor),
-        )
+    private fun reScheduleUptimeCheckForMonitor(monitor: MonitorRecord) {
+        val delay = phasePlanner.delayUntilNextPhase(monitor.id) ?: monitor.uptimeCheckInterval.toDurationOfSeconds()
+        val rescheduled = scheduledUptimeChecks[monitor.id]?.reschedule(delay) ?: false
+        if (!rescheduled) {
+            logger.debug("Uptime check for \"${monitor.name}\" (${monitor.url}) is not scheduled anymore, skipping")
+        }
+    }
+
+    /**
+     * Brings the SSL check of a monitor forward, if its uptime check has seen a new certificate since the last SSL
+     * check, so the SSL status follows a rotated certificate within an uptime check interval, instead of a day
+     */
+    private fun reScheduleSSLCheckOnRotation(monitor: MonitorRecord) {
+        if (!sslChecker.claimCertificateRotation(monitor)) return
+        val delay = sslCheckPlanner.planFirst(monitor.id, maxDelay = Duration.ZERO)
+        if (scheduledSSLChecks[monitor.id]?.reschedule(delay) == true) {
+            logger.debug("The certificate of \"${monitor.name}\" (${monitor.url}) has been rotated, checking it now")
+        } else {
+            sslCheckPlanner.release(monitor.id)
+        }
+    }
+
+    /**
+     * Re-arms the uptime checks of the monitors that were moved to another phase by the planner
+     */
+    private fun List<PhaseMove>.applyPhaseMoves() {
+        forEach { move ->
+            val delay = phasePlanner.delayUntilNextPhase(move.monitorId) ?: return@forEach
+            scheduledUptimeChecks[move.monitorId]?.reschedule(delay)
+            logger.debug("Uptime check of monitor with ID: ${move.monitorId} has been moved to a new phase: $move")
+        }
+    }
 
     /**
      * Calculates the time of the next check for a given monitor and check type.
@@ -237,7 +377,7 @@ class CheckScheduler(
         return scheduledTask?.getNextCheck()
     }
 
-    private fun ScheduledFuture<*>.getNextCheck(): OffsetDateTime {
+    private fun WheelTimeout.getNextCheck(): OffsetDateTime {
         val nextCheckEpoch = System.currentTimeMillis() + this.getDelay(TimeUnit.MILLISECONDS)
         return Instant.ofEpochMilli(nextCheckEpoch).toOffsetDateTime()
     }
@@ -1,13 +1,35 @@
 package com.kuvaszuptime.kuvasz.services
 
+import com.kuvaszuptime.kuvasz.config.AppConfig
+import com.kuvaszuptime.kuvasz.config.CheckExecutionMode
 import io.micronaut.context.annotation.Factory
 import jakarta.inject.Singleton
+import kotlinx.coroutines.CoroutineDispatcher
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.asCoroutineDispatcher
+import java.util.concurrent.Executors
 
 @Factory
 class DispatcherFactory {
 
+    companion object {
+        private const val VIRTUAL_THREAD_PREFIX = "check-vt-"
+    }
+
     @Singleton
     @Suppress("InjectDispatcher")
-    fun provideDispatcher() = Dispatchers.IO
+    fun provideDispatcher(appConfig: AppConfig): CoroutineDispatcher =
+        when (appConfig.checkExecutionMode) {
+            CheckExecutionMode.DISPATCHER -> Dispatchers.IO
+            CheckExecutionMode.VIRTUAL_THREADS -> createVirtualThreadDispatcher()
+        }
+
+    /**
+     * Every dispatched block gets a new virtual thread, so a check that is blocked (e.g. on JDBC) doesn't hold up a
+     * platform thread. The virtual threads don't need to be pooled, and the executor doesn't need to be shut down.
+     */
+    private fun createVirtualThreadDispatcher(): CoroutineDispatcher =
+        Executors
+            .newThreadPerTaskExecutor(Thread.ofVirtual().name(VIRTUAL_THREAD_PREFIX, 0).factory())
+            .asCoroutineDispatcher()
 }
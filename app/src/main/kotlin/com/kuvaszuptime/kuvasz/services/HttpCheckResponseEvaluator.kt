@@ -2,8 +2,10 @@ package com.kuvaszuptime.kuvasz.services
 
 import com.kuvaszuptime.kuvasz.jooq.tables.records.MonitorRecord
 import com.kuvaszuptime.kuvasz.jooq.tables.records.UptimeEventRecord
+import com.kuvaszuptime.kuvasz.models.ContentAssertionFailedException
 import com.kuvaszuptime.kuvasz.models.IneligibleStatusCodeException
 import com.kuvaszuptime.kuvasz.models.InvalidRedirectionException
+import com.kuvaszuptime.kuvasz.models.JsonAssertionFailedException
 import com.kuvaszuptime.kuvasz.models.RedirectLoopException
 import com.kuvaszuptime.kuvasz.models.checks.HttpCheckResponse
 import com.kuvaszuptime.kuvasz.models.checks.HttpCheckResult
@@ -12,6 +14,8 @@ import com.kuvaszuptime.kuvasz.models.events.MonitorDownEvent
 import com.kuvaszuptime.kuvasz.models.events.MonitorUpEvent
 import com.kuvaszuptime.kuvasz.models.events.RedirectEvent
 import com.kuvaszuptime.kuvasz.repositories.UptimeEventRepository
+import com.kuvaszuptime.kuvasz.services.socket.isLocalSocketError
+import com.kuvaszuptime.kuvasz.services.timing.CheckConnectionStats
 import com.kuvaszuptime.kuvasz.util.toUri
 import io.micronaut.http.HttpHeaders
 import io.micronaut.http.HttpResponse
@@ -26,6 +30,7 @@ import java.net.URI
 class HttpCheckResponseEvaluator(
     private val eventDispatcher: EventDispatcher,
     private val uptimeEventRepository: UptimeEventRepository,
+    private val checkConnectionStats: CheckConnectionStats,
 ) {
     private val logger = LoggerFactory.getLogger(this::class.java)
 
@@ -49,6 +54,8 @@ class HttpCheckResponseEvaluator(
         visitedUrls: MutableList<URI>,
     ): HttpCheckResult =
         checkStatusAndRedirection(monitor, response, visitedUrls)
+            .finishOrContinueWith { checkContentAssertions(monitor, response) }
+            .finishOrContinueWith { checkJsonAssertions(monitor, response) }
             .finishOrContinueWith { dispatchUpEvent(monitor, response) }
 
     /**
@@ -74,20 +81,27 @@ class HttpCheckResponseEvaluator(
         visitedUrls: MutableList<URI>,
     ): HttpCheckResult =
         if (response.httpResponse.isSuccess()) {
-            logger.debug(
-                "Status check passed for monitor with ID: ${monitor.id} with status ${response.httpResponse.status}"
-            )
+            // The messages of the hot path are built only if they're logged
+            if (logger.isDebugEnabled) {
+                logger.debug(
+                    "Status check passed for monitor with ID: ${monitor.id} with status ${response.httpResponse.status}"
+                )
+            }
             HttpCheckResult.Continue
         } else if (response.httpResponse.isRedirected() && monitor.followRedirects) {
-            logger.debug(
-                "A redirect was detected for monitor with ID: ${monitor.id} " +
-                    "with status ${response.httpResponse.status}, following to new location"
-            )
+            if (logger.isDebugEnabled) {
+                logger.debug(
+                    "A redirect was detected for monitor with ID: ${monitor.id} " +
+                        "with status ${response.httpResponse.status}, following to new location"
+                )
+            }
             checkRedirection(monitor, response.httpResponse, visitedUrls)
         } else {
-            logger.debug(
-                "Status check failed for monitor with ID: ${monitor.id} with status ${response.httpResponse.status}"
-            )
+            if (logger.isDebugEnabled) {
+                logger.debug(
+                    "Status check failed for monitor with ID: ${monitor.id} with status ${response.httpResponse.status}"
+                )
+            }
             val error = if (response.httpResponse.isRedirected() && !monitor.followRedirects) {
                 InvalidRedirectionException("The request was redirected, but the followRedirects option is disabled")
             } else {
@@ -96,10 +110,60 @@ class HttpCheckResponseEvaluator(
             dispatchDownEvent(monitor, response.httpResponse.status, error)
         }
 
+    /**
+     * Checks the result of the monitor's content assertions, that were matched while the response body was streamed.
+     * If a required pattern was not found, or a forbidden one was found, it will dispatch a down event with the
+     * details. A response without content assertions (e.g. the monitor doesn't have any) always passes.
+     */
+    private fun checkContentAssertions(
+        monitor: MonitorRecord,
+        response: HttpCheckResponse,
+    ): HttpCheckResult {
+        val result = response.contentAssertions
+        return if (result == null || result.passed) {
+            HttpCheckResult.Continue
+        } else {
+            logger.debug("Content assertions failed for monitor with ID: ${monitor.id}: $result")
+            dispatchDownEvent(
+                monitor = monitor,
+                status = response.httpResponse.status,
+                error = ContentAssertionFailedException(
+                    missing = result.missing,
+                    forbiddenFound = result.forbiddenFound,
+                ),
+            )
+        }
+    }
+
+    /**
+     * Checks the result of the monitor's JSON assertions, that were evaluated while the response body was streamed.
+     * If the body is not a valid JSON, or a value is missing or different than the expected one, it will dispatch a
+     * down event with the details. A response without JSON assertions always passes.
+     */
+    private fun checkJsonAssertions(
+        monitor: MonitorRecord,
+        response: HttpCheckResponse,
+    ): HttpCheckResult {
+        val result = response.jsonAssertions
+        return if (result == null || result.passed) {
+            HttpCheckResult.Continue
+        } else {
+            logger.debug("JSON assertions failed for monitor with ID: ${monitor.id}: $result")
+            dispatchDownEvent(
+                monitor = monitor,
+                status = response.httpResponse.status,
+                error = JsonAssertionFailedException(result),
+            )
+        }
+    }
+
     /**
      * Evaluates an error that occurred during the HTTP check, by translating the passed exception into a
      * MonitorDownEvent and returning a [HttpCheckResult.Finished] result.
      *
+     * A local socket error of the prober (e.g. it ran out of ephemeral ports or file descriptors) says nothing about
+     * the target, so it doesn't change the status of the monitor, it's only logged and counted.
+     *
      * @param monitor The monitor record for which the error occurred
      * @param error The exception that occurred during the HTTP check
      * @return An instance of [HttpCheckResult.Finished] indicating that the evaluation is complete.
@@ -109,6 +173,11 @@ class HttpCheckResponseEvaluator(
         monitor: MonitorRecord,
         error: Exception,
     ): HttpCheckResult.Finished {
+        if (error.isLocalSocketError()) {
+            logger.warn("Uptime check of monitor (${monitor.name}) failed on the prober's side: ${error.message}")
+            checkConnectionStats.recordLocalSocketError()
+            return HttpCheckResult.Finished
+        }
         var clarifiedError = error
         val status = try {
             (error as? HttpClientResponseException)?.status
@@ -183,23 +252,13 @@ class HttpCheckResponseEvaluator(
                 status = response.httpResponse.status,
                 latency = response.latency,
                 previousEvent = getPreviousEvent(monitor),
+                proberSaturated = response.proberSaturated,
+                timings = response.timings,
             )
         )
         return HttpCheckResult.Finished
     }
 
-    @Suppress("MagicNumber")
-    private fun HttpResponse<*>.isSuccess(): Boolean = this.status.code in 200..299
-
-    private fun HttpResponse<*>.isRedirected(): Boolean =
-        listOf(
-            HttpStatus.MOVED_PERMANENTLY,
-            HttpStatus.FOUND,
-            HttpStatus.SEE_OTHER,
-            HttpStatus.TEMPORARY_REDIRECT,
-            HttpStatus.PERMANENT_REDIRECT
-        ).contains(this.status)
-
     private fun HttpResponse<*>.getRedirectionUri(originalUrl: String): URI? =
         if (isRedirected()) {
             header(HttpHeaders.LOCATION)
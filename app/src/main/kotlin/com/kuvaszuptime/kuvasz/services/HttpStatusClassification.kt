@@ -0,0 +1,28 @@
+package com.kuvaszuptime.kuvasz.services
+
+import com.kuvaszuptime.kuvasz.models.checks.RawHttpResponse
+import io.micronaut.http.HttpStatus
+
+private const val HTTP_SUCCESS_MIN = 200
+private const val HTTP_SUCCESS_MAX = 299
+
+/**
+ * Whether the response is a successful (2xx) one. The status classifications compare the raw status code, so they're
+ * cheap enough to be called on every check, and they don't allocate.
+ */
+internal fun RawHttpResponse.isSuccess(): Boolean = code() in HTTP_SUCCESS_MIN..HTTP_SUCCESS_MAX
+
+/**
+ * Whether the response is a redirect that can be followed
+ */
+internal fun RawHttpResponse.isRedirected(): Boolean =
+    when (code()) {
+        HttpStatus.MOVED_PERMANENTLY.code,
+        HttpStatus.FOUND.code,
+        HttpStatus.SEE_OTHER.code,
+        HttpStatus.TEMPORARY_REDIRECT.code,
+        HttpStatus.PERMANENT_REDIRECT.code,
+        -> true
+
+        else -> false
+    }
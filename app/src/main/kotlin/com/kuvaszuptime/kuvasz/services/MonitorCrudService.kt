@@ -47,6 +47,7 @@ class MonitorCrudService(
     private val integrationIdValidator: IntegrationIdValidator,
     private val integrationRepository: IntegrationRepository,
     private val eventDispatcher: EventDispatcher,
+    private val monitorRegistry: MonitorRegistry,
 ) {
 
     private val objectMapper: ObjectMapper = jacksonObjectMapper()
@@ -95,6 +96,7 @@ class MonitorCrudService(
                         throw schedulingError
                     }
                 }
+                monitorRegistry.put(insertedMonitor)
                 insertedMonitor
             }
         )
@@ -105,6 +107,7 @@ class MonitorCrudService(
             .orThrowNotFound(monitorId)
             .let { monitor ->
                 monitorRepository.deleteById(monitor.id)
+                monitorRegistry.remove(monitor.id)
                 checkScheduler.removeChecksOfMonitor(monitor)
                 eventDispatcher.dispatch(MonitorDeleteEvent(monitor.id))
             }
@@ -141,7 +144,10 @@ class MonitorCrudService(
             throw ex.cause ?: ex
         }
 
-        return result.also { eventDispatcher.dispatch(MonitorUpdateEvent(it.id)) }
+        return result.also { updatedMonitor ->
+            monitorRegistry.put(updatedMonitor)
+            eventDispatcher.dispatch(MonitorUpdateEvent(updatedMonitor.id))
+        }
     }
 
     private fun MonitorRecord.saveAndReschedule(
@@ -191,6 +197,11 @@ class MonitorCrudService(
                     p90LatencyInMs = null,
                     p95LatencyInMs = null,
                     p99LatencyInMs = null,
+                    averageDnsInMs = null,
+                    averageConnectInMs = null,
+                    averageTlsInMs = null,
+                    averageTtfbInMs = null,
+                    averageTransferInMs = null,
                     latencyLogs = emptyList()
                 )
                 if (!monitor.latencyHistoryEnabled) {
@@ -205,6 +216,11 @@ class MonitorCrudService(
                     p90LatencyInMs = metrics?.p90,
                     p95LatencyInMs = metrics?.p95,
                     p99LatencyInMs = metrics?.p99,
+                    averageDnsInMs = metrics?.avgDns,
+                    averageConnectInMs = metrics?.avgConnect,
+                    averageTlsInMs = metrics?.avgTls,
+                    averageTtfbInMs = metrics?.avgTtfb,
+                    averageTransferInMs = metrics?.avgTransfer,
                     latencyLogs = latencyLogRepository.fetchLatestByMonitorId(monitor.id, period)
                 )
             }
@@ -1,6 +1,7 @@
 package com.kuvaszuptime.kuvasz.services
 
 import com.kuvaszuptime.kuvasz.config.MonitorConfig
+import com.kuvaszuptime.kuvasz.jooq.tables.records.MonitorRecord
 import com.kuvaszuptime.kuvasz.models.dto.MonitorImportResultDto
 import com.kuvaszuptime.kuvasz.models.toMonitorRecord
 import com.kuvaszuptime.kuvasz.repositories.MonitorRepository
@@ -14,31 +15,38 @@ class MonitorImporter(
     private val integrationIdValidator: IntegrationIdValidator,
     private val monitorRepository: MonitorRepository,
     private val dslContext: DSLContext,
+    private val monitorRegistry: MonitorRegistry,
 ) {
 
     private val logger = LoggerFactory.getLogger(this.javaClass)
 
-    fun importMonitorConfigs(monitorConfigs: List<MonitorConfig>): MonitorImportResultDto =
-        dslContext.transactionResult { config ->
+    fun importMonitorConfigs(monitorConfigs: List<MonitorConfig>): MonitorImportResultDto {
+        val upsertedMonitors = mutableListOf<MonitorRecord>()
+        val result = dslContext.transactionResult { config ->
             val txCtx = config.dsl()
-            val upsertedMonitorIds = monitorConfigs.map { importedMonitor ->
+            upsertedMonitors.clear()
+            monitorConfigs.mapTo(upsertedMonitors) { importedMonitor ->
                 // Validating the monitor's integrations to ensure they are configured correctly
                 val validatedIntegrations =
                     integrationIdValidator.validateIntegrationIds(importedMonitor.integrations.orEmpty())
 
                 // Upserting the monitor from the provided configs
-                monitorRepository.upsert(importedMonitor.toMonitorRecord(validatedIntegrations), txCtx).id
+                monitorRepository.upsert(importedMonitor.toMonitorRecord(validatedIntegrations), txCtx)
             }
             logger.info("Loaded ${monitorConfigs.size} monitors from external config")
 
             // Removing all monitors that are not in the provided configs
-            val deletedCnt = monitorRepository.deleteAllExcept(ignoredIds = upsertedMonitorIds, txCtx)
+            val deletedCnt = monitorRepository.deleteAllExcept(ignoredIds = upsertedMonitors.map { it.id }, txCtx)
             logger.info("Deleted $deletedCnt monitors that were not in the external config")
 
             MonitorImportResultDto(
                 receivedMonitorCnt = monitorConfigs.size,
-                importedMonitorCnt = upsertedMonitorIds.size,
+                importedMonitorCnt = upsertedMonitors.size,
                 deletedMonitorCount = deletedCnt,
             )
         }
+        // The registry is updated only after the transaction was committed
+        monitorRegistry.replaceAll(upsertedMonitors)
+        return result
+    }
 }
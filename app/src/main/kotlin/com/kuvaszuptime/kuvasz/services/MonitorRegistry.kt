@@ -0,0 +1,83 @@
+package com.kuvaszuptime.kuvasz.services
+
+import com.kuvaszuptime.kuvasz.jooq.tables.records.MonitorRecord
+import com.kuvaszuptime.kuvasz.models.events.MonitorDeleteEvent
+import com.kuvaszuptime.kuvasz.repositories.MonitorRepository
+import jakarta.annotation.PostConstruct
+import jakarta.inject.Singleton
+import org.slf4j.LoggerFactory
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Holds the canonical [MonitorRecord] of the monitors in memory, so the hot paths (the checks, the scheduler and the
+ * metrics exporters) don't have to read them from the database over and over again.
+ *
+ * The registry is filled while the monitors are loaded on startup, and it's kept up to date by the services that
+ * write the monitors (i.e. [MonitorCrudService] and [MonitorImporter]). The CRUD service does it before dispatching
+ * the lifecycle event of the change, so the subscribers of the event already see the new state. The deletions are
+ * also applied from the lifecycle event stream. A monitor that is not in the registry (e.g. a disabled one) is loaded
+ * lazily from the database on its first access.
+ *
+ * The [CheckRequestTemplates] of the monitors are kept in sync with the registry, so they're built once per change.
+ */
+@Singleton
+class MonitorRegistry(
+    private val monitorRepository: MonitorRepository,
+    private val eventDispatcher: EventDispatcher,
+    private val requestTemplates: CheckRequestTemplates,
+) {
+
+    companion object {
+        private val logger = LoggerFactory.getLogger(MonitorRegistry::class.java)
+    }
+
+    private val monitors = ConcurrentHashMap<Long, MonitorRecord>()
+
+    @PostConstruct
+    fun subscribeToLifecycleEvents() {
+        eventDispatcher.subscribeToMonitorLifecycleEvents { event ->
+            if (event is MonitorDeleteEvent) remove(event.monitorId)
+        }
+    }
+
+    /**
+     * Returns the monitor with the given ID, or null if it doesn't exist
+     */
+    fun get(monitorId: Long): MonitorRecord? =
+        monitors[monitorId] ?: monitorRepository.findById(monitorId)?.also { loaded ->
+            logger.debug("Monitor with ID: $monitorId was not in the registry, it has been loaded from the database")
+            if (monitors.putIfAbsent(monitorId, loaded) == null) requestTemplates.update(loaded)
+        }
+
+    fun put(monitor: MonitorRecord) {
+        monitors[monitor.id] = monitor
+        requestTemplates.update(monitor)
+    }
+
+    fun putAll(monitors: Collection<MonitorRecord>) {
+        monitors.forEach(::put)
+    }
+
+    /**
+     * Puts the monitor into the registry, unless it's already there, and returns the one that is in the registry
+     */
+    fun putIfAbsent(monitor: MonitorRecord): MonitorRecord =
+        monitors.putIfAbsent(monitor.id, monitor) ?: monitor.also(requestTemplates::update)
+
+    fun remove(monitorId: Long) {
+        monitors.remove(monitorId)
+        requestTemplates.remove(monitorId)
+    }
+
+    /**
+     * Replaces the whole content of the registry, e.g. after the monitors were imported from an external config
+     */
+    fun replaceAll(monitors: Collection<MonitorRecord>) {
+        val ids = monitors.mapTo(HashSet()) { it.id }
+        putAll(monitors)
+        this.monitors.keys.retainAll(ids)
+        requestTemplates.retainAll(ids)
+    }
+
+    fun size(): Int = monitors.size
+}
@@ -1,57 +1,108 @@
 package com.kuvaszuptime.kuvasz.services
 
+import arrow.core.Either
 import com.kuvaszuptime.kuvasz.jooq.tables.records.MonitorRecord
+import com.kuvaszuptime.kuvasz.models.CertificateInfo
+import com.kuvaszuptime.kuvasz.models.SSLValidationError
+import com.kuvaszuptime.kuvasz.models.events.MonitorDeleteEvent
 import com.kuvaszuptime.kuvasz.models.events.SSLInvalidEvent
 import com.kuvaszuptime.kuvasz.models.events.SSLValidEvent
 import com.kuvaszuptime.kuvasz.models.events.SSLWillExpireEvent
 import com.kuvaszuptime.kuvasz.repositories.SSLEventRepository
 import com.kuvaszuptime.kuvasz.repositories.UptimeEventRepository
+import com.kuvaszuptime.kuvasz.services.tls.PeerCertificateCache
 import com.kuvaszuptime.kuvasz.util.getCurrentTimestamp
+import jakarta.annotation.PostConstruct
 import jakarta.inject.Singleton
 import java.net.URI
+import java.util.concurrent.ConcurrentHashMap
 
+/**
+ * Checks the SSL certificate of the monitors. If the certificate chain of the monitor's origin was captured recently
+ * by an uptime check (see [PeerCertificateCache]), it's validated without connecting to the server, otherwise the
+ * chain is fetched with a TLS handshake of its own.
+ */
 @Singleton
 class SSLChecker(
     private val sslValidator: SSLValidator,
     private val uptimeEventRepository: UptimeEventRepository,
     private val eventDispatcher: EventDispatcher,
-    private val sslEventRepository: SSLEventRepository
+    private val sslEventRepository: SSLEventRepository,
+    private val requestTemplates: CheckRequestTemplates,
+    private val peerCertificateCache: PeerCertificateCache,
 ) {
 
-    fun check(monitor: MonitorRecord) {
-        if (uptimeEventRepository.isMonitorUp(monitor.id, nullAsUp = true)) {
-            val previousEvent = sslEventRepository.getPreviousEventByMonitorId(monitorId = monitor.id)
-            sslValidator.validate(URI(monitor.url).toURL()).fold(
-                { error ->
+    // The fingerprint of the leaf certificate that was checked the last time, per monitor
+    private val checkedFingerprints = ConcurrentHashMap<Long, String>()
+
+    @PostConstruct
+    fun subscribeToLifecycleEvents() {
+        eventDispatcher.subscribeToMonitorLifecycleEvents { event ->
+            if (event is MonitorDeleteEvent) checkedFingerprints.remove(event.monitorId)
+        }
+    }
+
+    /**
+     * Checks the SSL certificate of the monitor, if it's up, and dispatches the event of the result
+     *
+     * @return The result of the validation, or null if the monitor is down, so it wasn't checked
+     */
+    suspend fun check(monitor: MonitorRecord): Either<SSLValidationError, CertificateInfo>? {
+        if (!uptimeEventRepository.isMonitorUp(monitor.id, nullAsUp = true)) return null
+        val previousEvent = sslEventRepository.getPreviousEventByMonitorId(monitorId = monitor.id)
+        val url = URI(monitor.url).toURL()
+        val origin = requestTemplates.forMonitor(monitor).tlsOrigin
+        val capturedChain = origin?.let { peerCertificateCache.get(it) }
+        val result = if (capturedChain != null) {
+            sslValidator.validate(url, capturedChain.certificates, capturedChain.stapledOcspResponse)
+        } else {
+            sslValidator.validate(url)
+        }
+        // The dial-out records the chain too, so the rotation of the certificate can be told from now on
+        origin?.let { peerCertificateCache.leafFingerprint(it) }?.let { checkedFingerprints[monitor.id] = it }
+        result.fold(
+            { error ->
+                eventDispatcher.dispatch(
+                    SSLInvalidEvent(
+                        monitor = monitor,
+                        error = error,
+                        previousEvent = previousEvent
+                    )
+                )
+            },
+            { certInfo ->
+                val expiryThresholdDays = monitor.sslExpiryThreshold.toLong()
+                if (certInfo.validTo.isBefore(getCurrentTimestamp().plusDays(expiryThresholdDays))) {
                     eventDispatcher.dispatch(
-                        SSLInvalidEvent(
+                        SSLWillExpireEvent(
                             monitor = monitor,
-                            error = error,
+                            certInfo = certInfo,
                             previousEvent = previousEvent
                         )
                     )
-                },
-                { certInfo ->
-                    val expiryThresholdDays = monitor.sslExpiryThreshold.toLong()
-                    if (certInfo.validTo.isBefore(getCurrentTimestamp().plusDays(expiryThresholdDays))) {
-                        eventDispatcher.dispatch(
-                            SSLWillExpireEvent(
-                                monitor = monitor,
-                                certInfo = certInfo,
-                                previousEvent = previousEvent
-                            )
-                        )
-                    } else {
-                        eventDispatcher.dispatch(
-                            SSLValidEvent(
-                                monitor = monitor,
-                                certInfo = certInfo,
-                                previousEvent = previousEvent
-                            )
+                } else {
+                    eventDispatcher.dispatch(
+                        SSLValidEvent(
+                            monitor = monitor,
+                            certInfo = certInfo,
+                            previousEvent = previousEvent
                         )
-                    }
+                    )
                 }
-            )
-        }
+            }
+        )
+        return result
+    }
+
+    /**
+     * Tells whether the certificate of the monitor's origin has been rotated since its last SSL check, based on the
+     * chains that were captured by the uptime checks in the meantime. A rotation is reported only once, so the SSL
+     * check is triggered only once per rotation. It doesn't connect to the server.
+     */
+    fun claimCertificateRotation(monitor: MonitorRecord): Boolean {
+        val current = requestTemplates.forMonitor(monitor).tlsOrigin?.let { peerCertificateCache.leafFingerprint(it) }
+        val checked = checkedFingerprints[monitor.id]
+        return current != null && checked != null && checked != current &&
+            checkedFingerprints.replace(monitor.id, checked, current)
     }
 }
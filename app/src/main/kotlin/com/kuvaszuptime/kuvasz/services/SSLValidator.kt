@@ -1,12 +1,21 @@
 package com.kuvaszuptime.kuvasz.services
 
 import arrow.core.Either
+import com.kuvaszuptime.kuvasz.config.AppConfig
 import com.kuvaszuptime.kuvasz.models.CertificateInfo
 import com.kuvaszuptime.kuvasz.models.SSLValidationError
+import com.kuvaszuptime.kuvasz.services.tls.CertificateHandshakeProbe
+import com.kuvaszuptime.kuvasz.services.tls.ChainValidationCache
+import com.kuvaszuptime.kuvasz.services.tls.RevocationEvidence
+import com.kuvaszuptime.kuvasz.services.tls.RevocationLookup
 import com.kuvaszuptime.kuvasz.util.toOffsetDateTime
+import io.netty.channel.ConnectTimeoutException
+import jakarta.annotation.PreDestroy
 import jakarta.inject.Singleton
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.asCoroutineDispatcher
+import kotlinx.coroutines.withContext
 import org.slf4j.LoggerFactory
-import java.net.SocketTimeoutException
 import java.net.URL
 import java.net.UnknownHostException
 import java.security.InvalidAlgorithmParameterException
@@ -15,18 +24,34 @@ import java.security.NoSuchAlgorithmException
 import java.security.cert.CertPath
 import java.security.cert.CertPathValidator
 import java.security.cert.CertPathValidatorException
+import java.security.cert.CertStore
 import java.security.cert.CertificateException
 import java.security.cert.CertificateFactory
+import java.security.cert.CollectionCertStoreParameters
 import java.security.cert.PKIXParameters
+import java.security.cert.PKIXRevocationChecker
 import java.security.cert.TrustAnchor
 import java.security.cert.X509Certificate
-import javax.net.ssl.HttpsURLConnection
+import java.util.concurrent.Executors
 import javax.net.ssl.SSLHandshakeException
 import javax.net.ssl.TrustManagerFactory
 import javax.net.ssl.X509TrustManager
 
+/**
+ * Validates the SSL certificate chains of the monitors against the default JVM trust store, and checks the revocation
+ * of their certificates (if [AppConfig.sslRevocationCheckEnabled]) with the information that is collected by the
+ * [RevocationLookup]. The results of the chain validations are memoized by [ChainValidationCache], so a chain that is
+ * presented by more monitors is validated only once a day. The revocation is checked on every check, because a
+ * certificate can be revoked any time, but its revocation information is cached until its `nextUpdate`, see
+ * [com.kuvaszuptime.kuvasz.services.tls.RevocationResponseCache].
+ */
 @Singleton
-class SSLValidator {
+class SSLValidator(
+    private val handshakeProbe: CertificateHandshakeProbe,
+    private val validationCache: ChainValidationCache,
+    private val revocationLookup: RevocationLookup,
+    private val appConfig: AppConfig,
+) {
 
     private val logger = LoggerFactory.getLogger(SSLValidator::class.java)
 
@@ -34,108 +59,203 @@ class SSLValidator {
     private val trustManagerFactory = TrustManagerFactory
         .getInstance(TrustManagerFactory.getDefaultAlgorithm())
         .also { it.init(null as KeyStore?) } // null initializes with the default JVM trust store
-    private val certPathValidator = CertPathValidator.getInstance(CERT_PATH_VALIDATOR_TYPE)
-    private val certFactory = CertificateFactory.getInstance(CERT_TYPE)
-    private val trustAnchors = mutableSetOf<TrustAnchor>()
-    private lateinit var pkixParams: PKIXParameters
+    private val trustedCAs = trustManagerFactory.trustManagers
+        .filterIsInstance<X509TrustManager>()
+        // Extract trusted CAs from the default TrustManager
+        .flatMap { it.acceptedIssuers.toList() }
+        .distinct()
 
     init {
-        trustManagerFactory.trustManagers.forEach { trustManager ->
-            if (trustManager is X509TrustManager) {
-                // Extract trusted CAs from the default TrustManager
-                trustManager.acceptedIssuers.forEach { issuer ->
-                    trustAnchors.add(TrustAnchor(issuer, null))
-                }
-            }
-        }
-        check(trustAnchors.isNotEmpty()) {
+        check(trustedCAs.isNotEmpty()) {
             logger.error("No trust anchors found in default JVM trust store for SSL validation")
             "Configuration error: No trusted CAs found in the system"
         }
+    }
+
+    // Identifies the set of the trusted CAs, so the memoized results are never reused with a different trust store
+    private val trustStoreVersion = ChainValidationCache.fingerprintOf(
+        trustedCAs.sortedBy { ChainValidationCache.fingerprintOf(listOf(it)) }
+    )
+    private val trustAnchors = trustedCAs.mapTo(HashSet()) { TrustAnchor(it, null) }
+    private val trustedCAsBySubject = trustedCAs.associateBy { it.subjectX500Principal }
 
-        pkixParams = PKIXParameters(trustAnchors)
-        // Disable CRL/OCSP checks for simplicity
-        pkixParams.isRevocationEnabled = false
+    // Neither the validator, nor the factory, nor the parameters are thread-safe, so every validation thread has its
+    // own instances of them
+    private val pkix = ThreadLocal.withInitial {
+        Pkix(
+            certPathValidator = CertPathValidator.getInstance(CERT_PATH_VALIDATOR_TYPE),
+            certFactory = CertificateFactory.getInstance(CERT_TYPE),
+            pkixParams = PKIXParameters(trustAnchors).apply {
+                // The revocation is checked separately, only with the information of the RevocationLookup, so the
+                // JDK never goes to the network on its own
+                isRevocationEnabled = false
+            },
+        )
     }
 
+    private data class Pkix(
+        val certPathValidator: CertPathValidator,
+        val certFactory: CertificateFactory,
+        val pkixParams: PKIXParameters,
+    )
+
     companion object {
-        private const val CONNECT_TIMEOUT_MS = 5000
-        private const val READ_TIMEOUT_MS = 5000
+        private const val VALIDATION_THREADS = 2
+        private const val VALIDATION_THREAD_PREFIX = "ssl-validation-"
         private const val CERT_TYPE = "X.509"
         private const val CERT_PATH_VALIDATOR_TYPE = "PKIX"
+        private const val CERT_STORE_TYPE = "Collection"
     }
 
+    // The chain validation is CPU-bound, so it's offloaded to a small pool, instead of the event loop of the handshake
+    private val validationDispatcher = Executors
+        .newFixedThreadPool(
+            VALIDATION_THREADS,
+            Thread.ofPlatform().name(VALIDATION_THREAD_PREFIX, 0).daemon().factory(),
+        )
+        .asCoroutineDispatcher()
+
     /**
      * Validates the SSL certificate chain of the given HTTPS URL using the default JVM trust store.
-     * It first attempts connection using HttpsURLConnection (which performs default checks).
-     * If successful, it then explicitly validates the certificate chain using CertPathValidator.
+     * It first fetches the server's certificates with a TLS handshake (which performs the default checks), see
+     * [CertificateHandshakeProbe]. If it's successful, it then explicitly validates the certificate chain using
+     * CertPathValidator.
      *
      * @param url The HTTPS URL to validate.
      * @return Either an SSLValidationError or CertificateInfo containing details of the server's certificate
-     * if the connection and chain validation succeed.
+     * if the handshake and chain validation succeed.
      */
-    @Suppress("TooGenericExceptionCaught", "ReturnCount")
-    fun validate(url: URL): Either<SSLValidationError, CertificateInfo> {
+    @Suppress("TooGenericExceptionCaught")
+    suspend fun validate(url: URL): Either<SSLValidationError, CertificateInfo> {
         if (url.protocol.lowercase() != "https") {
             return Either.Left(SSLValidationError("URL protocol must be HTTPS, but was: ${url.protocol}"))
         }
 
-        var conn: HttpsURLConnection? = null
         return try {
-            // Establish Connection & Initial Handshake
-            conn = url.openConnection() as HttpsURLConnection
-            conn.connectTimeout = CONNECT_TIMEOUT_MS
-            conn.readTimeout = READ_TIMEOUT_MS
-
-            logger.debug("Attempting SSL connection to: {}", url)
-            // connect() performs default handshake, including basic chain and hostname checks
-            conn.connect()
-            logger.debug("Initial SSL connection successful, proceeding with explicit chain validation for: {}", url)
-
-            // Get Certificates Presented by Server
-            val serverCertsRaw = conn.serverCertificates
-            if (serverCertsRaw.isNullOrEmpty()) {
-                logger.debug("No server certificates received from: {}", url)
-                Either.Left(SSLValidationError("Server did not return any certificates"))
-            }
+            logger.debug("Attempting TLS handshake with: {}", url)
+            // The handshake includes the default chain and hostname checks
+            val peerCertificates = handshakeProbe.fetchCertificates(url.toURI())
+            val serverCertsRaw = peerCertificates.certificates
+            logger.debug("TLS handshake successful, proceeding with explicit chain validation for: {}", url)
 
             val serverCertsX509 = serverCertsRaw.mapNotNull { it as? X509Certificate }
-            // Ensure all certificates were of the expected type
-            if (serverCertsX509.size != serverCertsRaw.size) {
-                logger.debug("Received non-X509 certificates in the chain from {}", url)
-                Either.Left(SSLValidationError("Certificate chain contains non-X509 certificates"))
+            when {
+                serverCertsRaw.isEmpty() -> {
+                    logger.debug("No server certificates received from: {}", url)
+                    Either.Left(SSLValidationError("Server did not return any certificates"))
+                }
+                // Ensure all certificates were of the expected type
+                serverCertsX509.size != serverCertsRaw.size -> {
+                    logger.debug("Received non-X509 certificates in the chain from {}", url)
+                    Either.Left(SSLValidationError("Certificate chain contains non-X509 certificates"))
+                }
+                else -> validate(url, serverCertsX509, peerCertificates.stapledOcspResponse)
             }
-
-            return serverCertsX509.validate(url)
+        } catch (e: CancellationException) {
+            throw e
         } catch (e: SSLHandshakeException) {
-            // This indicates a failure during the initial TLS handshake, which could be due to various reasons
+            // This indicates a failure during the TLS handshake, which could be due to various reasons
             // including certificate issues (expiry, untrusted, name mismatch) detected by the default
-            // TrustManager/HostnameVerifier.
+            // TrustManager/HostnameVerifier, or a handshake that timed out.
             val errorMessage = e.message ?: "Unknown handshake error"
-            logger.debug("Initial SSL Handshake failed for {}: {}", url, errorMessage)
+            logger.debug("SSL Handshake failed for {}: {}", url, errorMessage)
             val causeMessage = e.cause?.message?.let { " (Cause: $it)" }.orEmpty()
             Either.Left(SSLValidationError("SSL Handshake failed: $errorMessage$causeMessage"))
         } catch (e: UnknownHostException) {
             logger.debug("Unknown host for {}: {}", url, e.message)
             Either.Left(SSLValidationError("Unknown host: ${e.message}"))
-        } catch (e: SocketTimeoutException) {
-            logger.debug("Timeout connecting to or reading from {}: {}", url, e.message)
+        } catch (e: ConnectTimeoutException) {
+            logger.debug("Timeout connecting to {}: {}", url, e.message)
             Either.Left(SSLValidationError("Connection timed out (${e.message})"))
         } catch (e: Exception) {
             val errorMessage = e.message ?: "Unknown error"
             logger.error("Unexpected error during SSL validation for {}: {}", url, errorMessage)
             Either.Left(SSLValidationError("An unexpected error occurred: $errorMessage"))
-        } finally {
-            conn?.disconnect()
         }
     }
 
     /**
-     * Performs explicit chain validation using CertPathValidator
+     * Validates a certificate chain of the given HTTPS URL that was already captured during a TLS handshake (see
+     * [com.kuvaszuptime.kuvasz.services.tls.PeerCertificateCache]), without connecting to the server. The handshake
+     * has already performed the default checks, so only the explicit chain validation and the revocation check are
+     * done.
+     *
+     * @param url The HTTPS URL whose server presented the chain.
+     * @param certificates The chain, starting with the server's own certificate.
+     * @param stapledOcspResponse The OCSP response that the server stapled to the handshake, if any.
+     */
+    suspend fun validate(
+        url: URL,
+        certificates: List<X509Certificate>,
+        stapledOcspResponse: ByteArray? = null,
+    ): Either<SSLValidationError, CertificateInfo> {
+        val memoized = validationCache.get(certificates, trustStoreVersion)
+        if (memoized != null && (memoized.isLeft() || !appConfig.sslRevocationCheckEnabled)) return memoized
+        // The revocation information is looked up before the validation, because it's mostly I/O, that shouldn't
+        // block the validation threads
+        val evidence = if (appConfig.sslRevocationCheckEnabled) {
+            revocationLookup.lookUp(certificates, certificates.issuers(), stapledOcspResponse)
+        } else {
+            null
+        }
+        return withContext(validationDispatcher) { certificates.validate(url, evidence) }
+    }
+
+    @PreDestroy
+    fun close() {
+        validationDispatcher.close()
+    }
+
+    /**
+     * The issuer of every certificate of the chain: the next certificate, or a trusted CA, or null if it's not known,
+     * or the certificate is self-issued (e.g. a root)
+     */
+    private fun List<X509Certificate>.issuers(): List<X509Certificate?> = mapIndexed { index, certificate ->
+        val issuer = certificate.issuerX500Principal
+        when {
+            issuer == certificate.subjectX500Principal -> null
+            getOrNull(index + 1)?.subjectX500Principal == issuer -> this[index + 1]
+            else -> trustedCAsBySubject[issuer]
+        }
+    }
+
+    /**
+     * Performs explicit chain validation using CertPathValidator (or takes the memoized result of the same chain's
+     * validation), then checks the revocation of the chain's certificates against the current evidence
      */
-    @Suppress("TooGenericExceptionCaught", "ReturnCount")
-    private fun List<X509Certificate>.validate(url: URL): Either<SSLValidationError, CertificateInfo> =
+    @Suppress("TooGenericExceptionCaught")
+    private fun List<X509Certificate>.validate(
+        url: URL,
+        evidence: RevocationEvidence?,
+    ): Either<SSLValidationError, CertificateInfo> =
         try {
+            val result = validationCache.getOrValidate(this, trustStoreVersion) { validateCertPath(url) }
+            if (result.isRight() && evidence != null) checkRevocation(url, evidence) ?: result else result
+        } catch (e: NoSuchAlgorithmException) {
+            logger.error("Chain validation setup failed for {}: Algorithm not found ({})", url, e.message, e)
+            Either.Left(SSLValidationError("Certificate validation setup failed (Algorithm): ${e.message}"))
+        } catch (e: InvalidAlgorithmParameterException) {
+            logger.error("Chain validation setup failed for {}: Invalid parameters ({})", url, e.message, e)
+            Either.Left(SSLValidationError("Certificate validation setup failed (Parameters): ${e.message}"))
+        } catch (e: CertificateException) { // Catch CertificateFactory or CertPath generation issues
+            logger.error(
+                "Chain validation setup failed for {}: Certificate processing error ({})",
+                url,
+                e.message,
+                e
+            )
+            Either.Left(SSLValidationError("Certificate processing error: ${e.message}"))
+        } catch (e: Exception) { // Catch other potential errors during validation setup (e.g., KeyStoreException)
+            logger.error("Unexpected error during chain validation setup for {}: {}", url, e.message, e)
+            Either.Left(SSLValidationError("Unexpected error during certificate processing: ${e.message}"))
+        }
+
+    /**
+     * The core validation step. Only its outcome is memoized, the errors of the validation setup are thrown.
+     */
+    private fun List<X509Certificate>.validateCertPath(url: URL): Either<SSLValidationError, CertificateInfo> {
+        val (certPathValidator, certFactory, pkixParams) = pkix.get()
+        return try {
             val certPath: CertPath = certFactory.generateCertPath(this)
             logger.debug(
                 "Validating certificate chain for {} using {}",
@@ -143,7 +263,6 @@ class SSLValidator {
                 CERT_PATH_VALIDATOR_TYPE,
             )
 
-            // *** The core validation step ***
             // Throws CertPathValidatorException if the chain is invalid
             certPathValidator.validate(certPath, pkixParams)
             logger.debug("Certificate chain validation successful for {}", url)
@@ -160,35 +279,80 @@ class SSLValidator {
         } catch (e: CertPathValidatorException) {
             // Chain validation failed
             logger.debug("Certificate chain validation failed for {}: {}", url, e.message)
-            val reason = e.reason
-            val errorIndex = e.index // Index of the failing certificate (-1 if not specific)
-            val failedCertSubject = if (errorIndex >= 0 && errorIndex < this.size) {
-                "Subject='${this[errorIndex].subjectX500Principal.name}'"
-            } else {
-                "N/A"
-            }
-            Either.Left(
-                SSLValidationError(
-                    "Certificate chain validation failed: ${reason ?: "Unknown reason"} " +
-                        "(Certificate index: $errorIndex, $failedCertSubject). Details: ${e.message}"
+            validationErrorOf(e)
+        }
+    }
+
+    /**
+     * Checks the revocation of the chain's certificates that have revocation information, one by one: every
+     * certificate is validated as the end entity of the rest of the chain, with the JDK's revocation checker that is
+     * given only the certificate's own OCSP response or CRL. Only a revoked certificate fails the check, the ones whose
+     * status can't be determined (e.g. the response can't be verified) are let through (soft-fail).
+     *
+     * @return The error of the first revoked certificate, or null if none of them is revoked
+     */
+    private fun List<X509Certificate>.checkRevocation(
+        url: URL,
+        evidence: RevocationEvidence,
+    ): Either.Left<SSLValidationError>? {
+        val (certPathValidator, certFactory, pkixParams) = pkix.get()
+        return indices.firstNotNullOfOrNull { index ->
+            val certificate = this[index]
+            val ocspResponse = evidence.ocspResponses[certificate]
+            val crl = evidence.crls[certificate]
+            if (ocspResponse == null && crl == null) return@firstNotNullOfOrNull null
+            val revocationChecker = (certPathValidator.revocationChecker as PKIXRevocationChecker).apply {
+                options = setOfNotNull(
+                    PKIXRevocationChecker.Option.ONLY_END_ENTITY,
+                    PKIXRevocationChecker.Option.NO_FALLBACK,
+                    PKIXRevocationChecker.Option.SOFT_FAIL,
+                    PKIXRevocationChecker.Option.PREFER_CRLS.takeIf { ocspResponse == null },
                 )
-            )
-        } catch (e: NoSuchAlgorithmException) {
-            logger.error("Chain validation setup failed for {}: Algorithm not found ({})", url, e.message, e)
-            Either.Left(SSLValidationError("Certificate validation setup failed (Algorithm): ${e.message}"))
-        } catch (e: InvalidAlgorithmParameterException) {
-            logger.error("Chain validation setup failed for {}: Invalid parameters ({})", url, e.message, e)
-            Either.Left(SSLValidationError("Certificate validation setup failed (Parameters): ${e.message}"))
-        } catch (e: CertificateException) { // Catch CertificateFactory or CertPath generation issues
-            logger.error(
-                "Chain validation setup failed for {}: Certificate processing error ({})",
-                url,
-                e.message,
-                e
-            )
-            Either.Left(SSLValidationError("Certificate processing error: ${e.message}"))
-        } catch (e: Exception) { // Catch other potential errors during validation setup (e.g., KeyStoreException)
-            logger.error("Unexpected error during chain validation setup for {}: {}", url, e.message, e)
-            Either.Left(SSLValidationError("Unexpected error during certificate processing: ${e.message}"))
+                ocspResponses = ocspResponse?.let { mapOf(certificate to it) }.orEmpty()
+            }
+            val revocationParams = (pkixParams.clone() as PKIXParameters).apply {
+                addCertPathChecker(revocationChecker)
+                if (crl != null) {
+                    addCertStore(CertStore.getInstance(CERT_STORE_TYPE, CollectionCertStoreParameters(listOf(crl))))
+                }
+            }
+            try {
+                certPathValidator.validate(certFactory.generateCertPath(subList(index, size)), revocationParams)
+                null
+            } catch (e: CertPathValidatorException) {
+                if (e.reason == CertPathValidatorException.BasicReason.REVOKED) {
+                    logger.debug("A certificate of the chain of {} is revoked: {}", url, e.message)
+                    validationErrorOf(e, indexOffset = index)
+                } else {
+                    logger.debug("The revocation status of the chain of {} can't be determined: {}", url, e.message)
+                    null
+                }
+            }
+        }
+    }
+
+    /**
+     * The error of a failed chain validation
+     *
+     * @param indexOffset The index of the validated path's first certificate in the chain
+     */
+    private fun List<X509Certificate>.validationErrorOf(
+        e: CertPathValidatorException,
+        indexOffset: Int = 0,
+    ): Either.Left<SSLValidationError> {
+        val reason = e.reason
+        // Index of the failing certificate (-1 if not specific)
+        val errorIndex = if (e.index >= 0) e.index + indexOffset else e.index
+        val failedCertSubject = if (errorIndex >= 0 && errorIndex < this.size) {
+            "Subject='${this[errorIndex].subjectX500Principal.name}'"
+        } else {
+            "N/A"
         }
+        return Either.Left(
+            SSLValidationError(
+                "Certificate chain validation failed: ${reason ?: "Unknown reason"} " +
+                    "(Certificate index: $errorIndex, $failedCertSubject). Details: ${e.message}"
+            )
+        )
+    }
 }
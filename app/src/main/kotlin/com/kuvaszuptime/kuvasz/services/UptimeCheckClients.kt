@@ -0,0 +1,153 @@
+package com.kuvaszuptime.kuvasz.services
+
+import com.kuvaszuptime.kuvasz.config.AppConfig
+import com.kuvaszuptime.kuvasz.jooq.tables.records.MonitorRecord
+import com.kuvaszuptime.kuvasz.services.tls.UptimeCheckSslConfiguration
+import io.micronaut.http.client.HttpClientConfiguration
+import io.micronaut.http.client.ProxyHttpClient
+import io.micronaut.http.client.annotation.Client
+import io.micronaut.http.ssl.SslConfiguration
+import io.micronaut.runtime.ApplicationConfiguration
+import io.netty.handler.ssl.ApplicationProtocolNames
+import jakarta.inject.Singleton
+import java.time.Duration
+import java.util.Optional
+
+/**
+ * The HTTP clients of the uptime checks. Whether a check reuses the pooled connections of its origin, and whether it
+ * resumes the TLS sessions of its origin, are set per monitor. Every combination has its own client, so the checks
+ * that opt out of something never share a connection pool or a TLS session cache with the other checks.
+ */
+@Singleton
+class UptimeCheckClients(
+    @Client(configuration = HttpCheckerClientConfiguration::class)
+    private val pooledClient: ProxyHttpClient,
+    @Client(configuration = FullHandshakeHttpCheckerClientConfiguration::class)
+    private val pooledFullHandshakeClient: ProxyHttpClient,
+    @Client(configuration = ColdConnectionClientConfiguration::class)
+    private val coldConnectionClient: ProxyHttpClient,
+    @Client(configuration = FullHandshakeColdConnectionClientConfiguration::class)
+    private val coldConnectionFullHandshakeClient: ProxyHttpClient,
+) {
+
+    fun forMonitor(monitor: MonitorRecord): ProxyHttpClient {
+        val connectionReuseEnabled = monitor.connectionReuseEnabled != false
+        val tlsSessionResumptionEnabled = monitor.tlsSessionResumptionEnabled != false
+        return when {
+            connectionReuseEnabled && tlsSessionResumptionEnabled -> pooledClient
+            connectionReuseEnabled -> pooledFullHandshakeClient
+            tlsSessionResumptionEnabled -> coldConnectionClient
+            else -> coldConnectionFullHandshakeClient
+        }
+    }
+}
+
+/**
+ * The settings that are shared by the HTTP clients of the uptime checks
+ */
+abstract class UptimeCheckClientConfiguration(
+    config: ApplicationConfiguration,
+    tlsSessionResumptionEnabled: Boolean,
+) : HttpClientConfiguration(config) {
+
+    private val sslConfiguration = UptimeCheckSslConfiguration(tlsSessionResumptionEnabled)
+
+    override fun getEventLoopGroup(): String = UptimeCheckEventLoopGroup.NAME
+
+    override fun isFollowRedirects(): Boolean = false
+
+    override fun getReadTimeout(): Optional<Duration> = Optional.of(Duration.ofSeconds(READ_TIMEOUT_SECONDS))
+
+    override fun getSslConfiguration(): SslConfiguration = sslConfiguration
+
+    companion object {
+        private const val READ_TIMEOUT_SECONDS = 30L
+    }
+}
+
+/**
+ * The settings of the clients of the checks that reuse the connections. The connections are pooled per origin, and
+ * if HTTP/2 is enabled and negotiated, the concurrent checks against the same origin are multiplexed over them.
+ */
+abstract class PooledConnectionClientConfiguration(
+    config: ApplicationConfiguration,
+    appConfig: AppConfig,
+    tlsSessionResumptionEnabled: Boolean,
+) : UptimeCheckClientConfiguration(config, tlsSessionResumptionEnabled) {
+
+    private val alpnModes = if (appConfig.checkHttp2Enabled) {
+        listOf(ApplicationProtocolNames.HTTP_2, ApplicationProtocolNames.HTTP_1_1)
+    } else {
+        listOf(ApplicationProtocolNames.HTTP_1_1)
+    }
+
+    private val connectionPoolConfiguration = ConnectionPoolConfiguration().apply {
+        maxConcurrentHttp1Connections = appConfig.checkMaxConnectionsPerOrigin.orUnlimited()
+        maxConcurrentHttp2Connections = appConfig.checkMaxHttp2ConnectionsPerOrigin
+        maxConcurrentRequestsPerHttp2Connection = appConfig.checkMaxStreamsPerHttp2Connection.orUnlimited()
+    }
+
+    init {
+        connectionPoolIdleTimeout = Duration.ofSeconds(appConfig.checkConnectionIdleTimeoutSeconds.toLong())
+    }
+
+    override fun getAlpnModes(): List<String> = alpnModes
+
+    override fun getConnectionPoolConfiguration(): ConnectionPoolConfiguration = connectionPoolConfiguration
+
+    private fun Int.orUnlimited(): Int = takeIf { it > 0 } ?: Int.MAX_VALUE
+}
+
+/**
+ * The client of the checks that reuse the connections and resume the TLS sessions of their origin
+ */
+@Singleton
+class HttpCheckerClientConfiguration(
+    config: ApplicationConfiguration,
+    appConfig: AppConfig,
+) : PooledConnectionClientConfiguration(config, appConfig, tlsSessionResumptionEnabled = true)
+
+/**
+ * The client of the checks that reuse the connections, but do a full TLS handshake whenever they open a new one
+ */
+@Singleton
+class FullHandshakeHttpCheckerClientConfiguration(
+    config: ApplicationConfiguration,
+    appConfig: AppConfig,
+) : PooledConnectionClientConfiguration(config, appConfig, tlsSessionResumptionEnabled = false)
+
+/**
+ * The settings of the clients of the checks that don't reuse the connections. Every such client has its own pool, so
+ * it never gets a connection of the other checks, and it speaks only HTTP/1.1, so the connection of every check is
+ * closed after its response (see
+ * [com.kuvaszuptime.kuvasz.services.timing.CheckTimingClientCustomizer.CLOSE_CONNECTION_HEADER]).
+ */
+abstract class ColdConnectionClientConfigurationBase(
+    config: ApplicationConfiguration,
+    tlsSessionResumptionEnabled: Boolean,
+) : UptimeCheckClientConfiguration(config, tlsSessionResumptionEnabled) {
+
+    override fun getAlpnModes(): List<String> = ALPN_MODES
+
+    override fun getConnectionPoolConfiguration(): ConnectionPoolConfiguration = ConnectionPoolConfiguration()
+
+    companion object {
+        private val ALPN_MODES = listOf(ApplicationProtocolNames.HTTP_1_1)
+    }
+}
+
+/**
+ * The client of the checks that open a new connection every time, but resume the TLS sessions of their origin
+ */
+@Singleton
+class ColdConnectionClientConfiguration(
+    config: ApplicationConfiguration,
+) : ColdConnectionClientConfigurationBase(config, tlsSessionResumptionEnabled = true)
+
+/**
+ * The client of the checks that open a new connection with a full TLS handshake every time
+ */
+@Singleton
+class FullHandshakeColdConnectionClientConfiguration(
+    config: ApplicationConfiguration,
+) : ColdConnectionClientConfigurationBase(config, tlsSessionResumptionEnabled = false)
@@ -0,0 +1,46 @@
+package com.kuvaszuptime.kuvasz.services
+
+import io.micronaut.http.netty.channel.EventLoopGroupFactory
+import io.micronaut.http.netty.channel.EventLoopGroupRegistry
+import io.micronaut.http.netty.channel.NettyChannelType
+import io.netty.bootstrap.Bootstrap
+import io.netty.channel.EventLoopGroup
+import jakarta.inject.Provider
+import jakarta.inject.Singleton
+
+/**
+ * The `uptime-check` event loop group, which the connections of the uptime checks and the SSL checks are opened on,
+ * both by Micronaut's HTTP client (see [UptimeCheckClientConfiguration]) and by the checks' own Netty clients.
+ *
+ * The registry of the event loop groups is created by the HTTP client infrastructure, so it's looked up lazily, when
+ * the group is needed for the first time.
+ */
+@Singleton
+class UptimeCheckEventLoopGroup(
+    private val eventLoopGroupRegistry: Provider<EventLoopGroupRegistry>,
+    private val eventLoopGroupFactory: EventLoopGroupFactory,
+) {
+
+    companion object {
+        const val NAME = "uptime-check"
+    }
+
+    /**
+     * The group, or null, if it's not configured
+     */
+    val group: EventLoopGroup? by lazy {
+        eventLoopGroupRegistry.get().getEventLoopGroup(NAME).orElse(null)
+    }
+
+    /**
+     * Returns a new bootstrap of a client connection on the group (or on the default group, if it's not configured),
+     * with the channel class of the group's configuration
+     */
+    fun newBootstrap(): Bootstrap {
+        val registry = eventLoopGroupRegistry.get()
+        val groupConfiguration = registry.getEventLoopGroupConfiguration(NAME).orElse(null)
+        return Bootstrap()
+            .group(group ?: registry.defaultEventLoopGroup)
+            .channel(eventLoopGroupFactory.channelClass(NettyChannelType.CLIENT_SOCKET, groupConfiguration))
+    }
+}
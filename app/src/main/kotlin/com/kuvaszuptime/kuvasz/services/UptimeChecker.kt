@@ -1,108 +1,174 @@
 package com.kuvaszuptime.kuvasz.services
 
+import com.kuvaszuptime.kuvasz.config.AppConfig
 import com.kuvaszuptime.kuvasz.jooq.tables.records.MonitorRecord
+import com.kuvaszuptime.kuvasz.models.CheckDeadlineExceededException
 import com.kuvaszuptime.kuvasz.models.checks.HttpCheckResponse
 import com.kuvaszuptime.kuvasz.models.checks.HttpCheckResult
-import com.kuvaszuptime.kuvasz.repositories.MonitorRepository
-import io.micronaut.http.client.HttpClient
-import io.micronaut.http.client.HttpClientConfiguration
-import io.micronaut.http.client.annotation.Client
-import io.micronaut.retry.annotation.Retryable
-import io.micronaut.runtime.ApplicationConfiguration
+import com.kuvaszuptime.kuvasz.services.concurrency.AdaptiveConcurrencyLimiter
+import com.kuvaszuptime.kuvasz.services.concurrency.HostBulkhead
+import com.kuvaszuptime.kuvasz.services.dns.UptimeCheckDnsResolver
+import com.kuvaszuptime.kuvasz.services.probe.CheckProbes
+import com.kuvaszuptime.kuvasz.services.timing.CheckTimingRecorder
+import io.micronaut.http.client.exceptions.HttpClientResponseException
 import jakarta.inject.Singleton
-import kotlinx.coroutines.reactive.awaitSingle
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.withTimeoutOrNull
 import org.slf4j.LoggerFactory
 import java.net.URI
 import java.time.Duration
-import java.util.Optional
+import java.util.concurrent.TimeUnit
 
 @Singleton
 class UptimeChecker(
-    @Client(configuration = HttpCheckerClientConfiguration::class)
-    private val httpClient: HttpClient,
-    private val monitorRepository: MonitorRepository,
-    private val checkRequestConfigurator: HttpCheckRequestConfigurator,
+    private val checkProbes: CheckProbes,
+    private val requestTemplates: CheckRequestTemplates,
+    private val monitorRegistry: MonitorRegistry,
     private val checkResponseEvaluator: HttpCheckResponseEvaluator,
+    private val hostBulkhead: HostBulkhead,
+    private val concurrencyLimiter: AdaptiveConcurrencyLimiter,
+    private val checkTimingRecorder: CheckTimingRecorder,
+    private val dnsResolver: UptimeCheckDnsResolver,
+    private val appConfig: AppConfig,
 ) {
 
     companion object {
-        private const val RETRY_COUNT = 2L
-        private const val RETRY_INITIAL_DELAY = "500ms"
+        private const val RETRY_COUNT = 2
+        private const val RETRY_INITIAL_DELAY_MS = 500L
         private const val RETRY_BACKOFF_MULTIPLIER = 3L
+        private const val HTTP_ERROR_THRESHOLD = 400
         private val logger = LoggerFactory.getLogger(UptimeChecker::class.java)
     }
 
+    /**
+     * Runs the uptime check of the monitor. The whole check (DNS, connect, TLS, every redirect hop and every retry)
+     * must finish within the monitor's deadline, otherwise it's cancelled (which aborts the in-flight request and
+     * closes its connection too), and the monitor is considered DOWN with a [CheckDeadlineExceededException].
+     */
     suspend fun check(
         monitor: MonitorRecord,
         uriOverride: URI? = null,
         visitedUrls: MutableList<URI> = mutableListOf(),
         doAfter: ((monitor: MonitorRecord) -> Unit)? = null,
     ) {
-        if (uriOverride == null) {
+        // The messages of the hot path are built only if they're logged
+        if (uriOverride == null && logger.isDebugEnabled) {
             logger.debug("Starting uptime check for monitor (${monitor.name}) on URL: ${monitor.url}")
         }
 
+        val deadline = monitor.checkDeadline()
+        val finishedInTime = withTimeoutOrNull(deadline.toMillis()) {
+            checkUrl(monitor, uriOverride, visitedUrls)
+        } != null
+        if (!finishedInTime) {
+            logger.info("Uptime check for monitor (${monitor.name}) was cancelled, it exceeded its deadline: $deadline")
+            checkResponseEvaluator.evaluateError(monitor, CheckDeadlineExceededException(deadline.seconds))
+        }
+        if (logger.isDebugEnabled) logger.debug("Uptime check for monitor (${monitor.name}) finished")
+        if (doAfter != null) {
+            monitorRegistry.get(monitor.id)?.let { upToDateMonitor ->
+                if (logger.isDebugEnabled) {
+                    logger.debug("Calling doAfter() hook on monitor with name [${upToDateMonitor.name}]")
+                }
+                doAfter(upToDateMonitor)
+            }
+        }
+    }
+
+    private suspend fun checkUrl(monitor: MonitorRecord, uriOverride: URI?, visitedUrls: MutableList<URI>) {
         @Suppress("TooGenericExceptionCaught")
         try {
-            val effectiveUrl = uriOverride ?: URI(monitor.url)
+            val effectiveUrl = uriOverride ?: requestTemplates.forMonitor(monitor).uri
             visitedUrls.add(effectiveUrl)
 
-            val checkResponse = sendHttpRequest(monitor, uri = effectiveUrl)
+            val checkResponse = sendHttpRequestWithRetries(monitor, uri = effectiveUrl)
             val result = checkResponseEvaluator.evaluateResponse(monitor, checkResponse, visitedUrls)
             when (result) {
-                is HttpCheckResult.Redirected -> check(monitor, result.redirectionUri, result.visitedUrls)
+                is HttpCheckResult.Redirected -> checkUrl(monitor, result.redirectionUri, result.visitedUrls)
                 HttpCheckResult.Continue -> {
                     logger.warn("HTTP uptime check for monitor with ID: ${monitor.id} returned Continue unexpectedly")
                 }
 
                 HttpCheckResult.Finished -> {
-                    logger.debug("HTTP uptime check for monitor with ID: ${monitor.id} finished successfully")
+                    if (logger.isDebugEnabled) {
+                        logger.debug("HTTP uptime check for monitor with ID: ${monitor.id} finished successfully")
+                    }
                 }
             }
+        } catch (ex: CancellationException) {
+            // E.g. the check exceeded its deadline, it must not be evaluated as a regular error
+            throw ex
         } catch (error: Exception) {
             checkResponseEvaluator.evaluateError(monitor, error)
         }
-        logger.debug("Uptime check for monitor (${monitor.name}) finished")
-        if (doAfter != null) {
-            monitorRepository.findById(monitor.id)?.let { upToDateMonitor ->
-                logger.debug("Calling doAfter() hook on monitor with name [${upToDateMonitor.name}]")
-                doAfter(upToDateMonitor)
-            }
-        }
     }
 
-    @Retryable(
-        delay = RETRY_INITIAL_DELAY,
-        attempts = "$RETRY_COUNT",
-        multiplier = "$RETRY_BACKOFF_MULTIPLIER",
-    )
-    suspend fun sendHttpRequest(monitor: MonitorRecord, uri: URI): HttpCheckResponse {
-        logger.debug("Sending HTTP request to $uri (${monitor.name})")
-        val request = checkRequestConfigurator.fromMonitor(monitor, uri)
-        val start = System.currentTimeMillis()
-        val httpResponse = httpClient.exchange(request).awaitSingle()
-        val latency = (System.currentTimeMillis() - start).toInt()
+    private fun MonitorRecord.checkDeadline(): Duration =
+        Duration.ofSeconds((checkDeadlineSeconds?.takeIf { it > 0 } ?: appConfig.checkDeadlineSeconds).toLong())
 
-        return HttpCheckResponse(
-            httpResponse = httpResponse,
-            latency = latency
-        )
+    /**
+     * Retries the failed requests with an exponential backoff. The delays are suspending, so a check that exceeds its
+     * deadline is cancelled while it's waiting for the next attempt too.
+     */
+    @Suppress("TooGenericExceptionCaught")
+    private suspend fun sendHttpRequestWithRetries(monitor: MonitorRecord, uri: URI): HttpCheckResponse {
+        var retryDelayMs = RETRY_INITIAL_DELAY_MS
+        repeat(RETRY_COUNT) { attempt ->
+            try {
+                return sendHttpRequest(monitor, uri)
+            } catch (ex: CancellationException) {
+                throw ex
+            } catch (ex: Exception) {
+                logger.debug("Attempt #${attempt + 1} to $uri failed (${ex.message}), retrying in ${retryDelayMs}ms")
+                delay(retryDelayMs)
+                retryDelayMs *= RETRY_BACKOFF_MULTIPLIER
+            }
+        }
+        return sendHttpRequest(monitor, uri)
     }
-}
-
-@Singleton
-class HttpCheckerClientConfiguration(config: ApplicationConfiguration) : HttpClientConfiguration(config) {
-
-    override fun getEventLoopGroup(): String = EVENT_LOOP_GROUP
-
-    override fun isFollowRedirects(): Boolean = false
-
-    override fun getReadTimeout(): Optional<Duration> = Optional.of(Duration.ofSeconds(READ_TIMEOUT_SECONDS))
 
-    override fun getConnectionPoolConfiguration(): ConnectionPoolConfiguration = ConnectionPoolConfiguration()
+    suspend fun sendHttpRequest(monitor: MonitorRecord, uri: URI): HttpCheckResponse {
+        if (logger.isDebugEnabled) logger.debug("Sending HTTP request to $uri (${monitor.name})")
+        // The time spent waiting for a per-host permit is not part of the latency
+        return hostBulkhead.withPermit(uri, monitor.hostConcurrencyLimit ?: 0) {
+            val saturatedAtStart = concurrencyLimiter.isSaturated()
+            // It affects only the new connections, a pooled connection doesn't need to resolve its host again
+            if (monitor.dnsCacheEnabled == false) uri.host?.let { dnsResolver.evict(it) }
+            val timing = checkTimingRecorder.start()
+            val start = System.nanoTime()
+            val result = try {
+                checkProbes.forMonitor(monitor).probe(monitor, uri, timing).also { result ->
+                    if (result.truncated) {
+                        if (logger.isDebugEnabled) {
+                            logger.debug("The rest of the body of $uri was discarded, read ${result.bodyBytes} bytes")
+                        }
+                        timing.completeResponse()
+                    }
+                }
+            } finally {
+                checkTimingRecorder.finish(timing)
+            }
+            val httpResponse = result.response
+            val timings = timing.toCheckTimings()
+            // The phases don't include the time spent waiting for a pooled connection, so they're preferred
+            val latencyNanos = timings?.totalNanos ?: (System.nanoTime() - start)
+            val latency = TimeUnit.NANOSECONDS.toMillis(latencyNanos).toInt()
+            // The same way as exchange() fails, so these responses are retried and evaluated like before
+            if (httpResponse.code() >= HTTP_ERROR_THRESHOLD) {
+                throw HttpClientResponseException(httpResponse.reason(), httpResponse)
+            }
+            // The error responses are often much faster than the regular ones, they'd drag the baseline down
+            concurrencyLimiter.recordRtt(monitor.id, latency)
 
-    companion object {
-        private const val EVENT_LOOP_GROUP = "uptime-check"
-        private const val READ_TIMEOUT_SECONDS = 30L
+            HttpCheckResponse(
+                httpResponse = httpResponse,
+                latency = latency,
+                proberSaturated = saturatedAtStart || concurrencyLimiter.isSaturated(),
+                timings = timings,
+                contentAssertions = result.bodyScan?.contentResult(),
+                jsonAssertions = result.bodyScan?.jsonResult(endOfBody = !result.truncated),
+            )
+        }
     }
 }
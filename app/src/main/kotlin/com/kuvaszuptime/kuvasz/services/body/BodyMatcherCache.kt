@@ -0,0 +1,110 @@
+package com.kuvaszuptime.kuvasz.services.body
+
+import com.kuvaszuptime.kuvasz.jooq.tables.records.MonitorRecord
+import com.kuvaszuptime.kuvasz.models.events.MonitorDeleteEvent
+import com.kuvaszuptime.kuvasz.services.EventDispatcher
+import io.netty.buffer.ByteBuf
+import jakarta.annotation.PostConstruct
+import jakarta.inject.Singleton
+import org.slf4j.LoggerFactory
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * The compiled body assertions of a monitor
+ */
+class BodyMatchers(
+    val content: ContentMatcher?,
+    val json: JsonAssertionMatcher?,
+) {
+    fun newScan(): BodyScan = BodyScan(content?.newScan(), json?.newScan())
+}
+
+/**
+ * Feeds the chunks of a single response body to every assertion of the monitor at once
+ */
+class BodyScan(
+    private val content: ContentMatcher.Scan?,
+    private val json: JsonAssertionMatcher.Scan?,
+) {
+    /**
+     * @return Whether the rest of the body is still needed by any of the assertions
+     */
+    fun feed(chunk: ByteBuf, length: Int): Boolean {
+        val contentNeedsMore = content?.feed(chunk, length) ?: false
+        val jsonNeedsMore = json?.feed(chunk, length) ?: false
+        return contentNeedsMore || jsonNeedsMore
+    }
+
+    fun contentResult() = content?.result()
+
+    fun jsonResult(endOfBody: Boolean) = json?.result(endOfBody)
+}
+
+/**
+ * Keeps the compiled [BodyMatchers] of the monitors, so the automaton and the JSON Pointers are built only once per
+ * monitor, and not on every check. The matchers are rebuilt if the assertions of the monitor have changed since they
+ * were compiled.
+ */
+@Singleton
+class BodyMatcherCache(private val eventDispatcher: EventDispatcher) {
+
+    companion object {
+        private val logger = LoggerFactory.getLogger(BodyMatcherCache::class.java)
+    }
+
+    private data class Assertions(
+        val mustContain: List<String>,
+        val mustNotContain: List<String>,
+        val json: List<String>,
+    )
+
+    private class CachedMatchers(
+        val assertions: Assertions,
+        val matchers: BodyMatchers,
+    )
+
+    private val matchers = ConcurrentHashMap<Long, CachedMatchers>()
+
+    @PostConstruct
+    fun subscribeToLifecycleEvents() {
+        eventDispatcher.subscribeToMonitorLifecycleEvents { event ->
+            if (event is MonitorDeleteEvent) matchers.remove(event.monitorId)
+        }
+    }
+
+    /**
+     * Returns the matchers of the monitor's body assertions, or null if the monitor doesn't have any
+     */
+    fun forMonitor(monitor: MonitorRecord): BodyMatchers? {
+        val assertions = Assertions(
+            mustContain = monitor.bodyMustContain.toPatterns(),
+            mustNotContain = monitor.bodyMustNotContain.toPatterns(),
+            json = monitor.bodyJsonAssertions.orEmpty().distinct(),
+        )
+        if (assertions.mustContain.isEmpty() && assertions.mustNotContain.isEmpty() && assertions.json.isEmpty()) {
+            matchers.remove(monitor.id)
+            return null
+        }
+        return matchers.compute(monitor.id) { _, cached ->
+            cached?.takeIf { it.assertions == assertions } ?: CachedMatchers(assertions, assertions.compile(monitor))
+        }?.matchers?.takeIf { it.content != null || it.json != null }
+    }
+
+    private fun Assertions.compile(monitor: MonitorRecord): BodyMatchers {
+        val jsonAssertions = json.mapNotNull { raw ->
+            JsonAssertion.fromString(raw).also { parsed ->
+                if (parsed == null) logger.warn("Invalid JSON assertion of monitor (${monitor.name}) is ignored: $raw")
+            }
+        }
+        return BodyMatchers(
+            content = if (mustContain.isNotEmpty() || mustNotContain.isNotEmpty()) {
+                ContentMatcher(mustContain, mustNotContain)
+            } else {
+                null
+            },
+            json = if (jsonAssertions.isNotEmpty()) JsonAssertionMatcher(jsonAssertions) else null,
+        )
+    }
+
+    private fun Array<String>?.toPatterns(): List<String> = orEmpty().filter { it.isNotEmpty() }.distinct()
+}
@@ -0,0 +1,129 @@
+package com.kuvaszuptime.kuvasz.services.body
+
+import com.kuvaszuptime.kuvasz.models.checks.ContentAssertionResult
+import io.netty.buffer.ByteBuf
+import io.netty.util.ByteProcessor
+
+/**
+ * An Aho-Corasick automaton, that matches every content assertion of a monitor in a single pass over the response
+ * body, no matter how many patterns there are. The patterns are matched as case-sensitive UTF-8 byte sequences, so
+ * the body doesn't need to be decoded, and a pattern that is split between two chunks is matched too.
+ *
+ * The automaton is compiled into a dense transition table (256 transitions per state), so matching a byte is a single
+ * array lookup, and it doesn't allocate. The matcher is immutable, so it can be shared between the checks, and every
+ * check matches the body with its own [Scan].
+ */
+class ContentMatcher(
+    val mustContain: List<String>,
+    val mustNotContain: List<String>,
+) {
+
+    private val patternCount = mustContain.size + mustNotContain.size
+    private val transitions: IntArray
+    private val outputs: Array<IntArray?>
+
+    init {
+        val patterns = (mustContain + mustNotContain).map { it.toByteArray(Charsets.UTF_8) }
+        val trie = mutableListOf(newState())
+        val trieOutputs = mutableListOf(mutableListOf<Int>())
+        patterns.forEachIndexed { patternIndex, pattern ->
+            var state = 0
+            pattern.forEach { byte ->
+                val symbol = byte.toSymbol()
+                if (trie[state][symbol] == NO_STATE) {
+                    trie[state][symbol] = trie.size
+                    trie.add(newState())
+                    trieOutputs.add(mutableListOf())
+                }
+                state = trie[state][symbol]
+            }
+            trieOutputs[state].add(patternIndex)
+        }
+
+        // The missing transitions are resolved along the failure links breadth-first, which turns the trie into a DFA
+        transitions = IntArray(trie.size * ALPHABET_SIZE)
+        val failures = IntArray(trie.size)
+        val queue = ArrayDeque<Int>()
+        for (symbol in 0 until ALPHABET_SIZE) {
+            val child = trie[0][symbol]
+            if (child != NO_STATE) {
+                transitions[symbol] = child
+                queue.add(child)
+            }
+        }
+        while (queue.isNotEmpty()) {
+            val state = queue.removeFirst()
+            // A pattern ending in the longest proper suffix of the state ends in the state too
+            trieOutputs[state].addAll(trieOutputs[failures[state]])
+            for (symbol in 0 until ALPHABET_SIZE) {
+                val child = trie[state][symbol]
+                val fallback = transitions[failures[state] * ALPHABET_SIZE + symbol]
+                if (child == NO_STATE) {
+                    transitions[state * ALPHABET_SIZE + symbol] = fallback
+                } else {
+                    transitions[state * ALPHABET_SIZE + symbol] = child
+                    failures[child] = fallback
+                    queue.add(child)
+                }
+            }
+        }
+        outputs = Array(trie.size) { state -> trieOutputs[state].takeIf { it.isNotEmpty() }?.distinct()?.toIntArray() }
+    }
+
+    fun newScan(): Scan = Scan()
+
+    /**
+     * The state of matching a single response body, fed chunk by chunk
+     */
+    inner class Scan : ByteProcessor {
+
+        private var state = 0
+        private val found = BooleanArray(patternCount)
+        private var missingCount = mustContain.size
+        private var forbiddenFound = false
+
+        /**
+         * Whether the outcome can't change anymore, i.e. a forbidden pattern was found, or every required pattern was
+         * found and there is nothing forbidden, so the rest of the body doesn't need to be read
+         */
+        val isDecided: Boolean
+            get() = forbiddenFound || (missingCount == 0 && mustNotContain.isEmpty())
+
+        /**
+         * Matches the first [length] readable bytes of the chunk, without changing its reader index
+         *
+         * @return Whether the rest of the body is still needed
+         */
+        fun feed(chunk: ByteBuf, length: Int): Boolean {
+            if (length > 0 && !isDecided) chunk.forEachByte(chunk.readerIndex(), length, this)
+            return !isDecided
+        }
+
+        override fun process(value: Byte): Boolean {
+            state = transitions[state * ALPHABET_SIZE + value.toSymbol()]
+            outputs[state]?.forEach { patternIndex ->
+                if (!found[patternIndex]) {
+                    found[patternIndex] = true
+                    if (patternIndex < mustContain.size) missingCount-- else forbiddenFound = true
+                }
+            }
+            return !isDecided
+        }
+
+        fun result(): ContentAssertionResult =
+            ContentAssertionResult(
+                missing = mustContain.filterIndexed { index, _ -> !found[index] },
+                forbiddenFound = mustNotContain.filterIndexed { index, _ -> found[mustContain.size + index] },
+            )
+    }
+
+    private companion object {
+        private const val ALPHABET_SIZE = 256
+        private const val NO_STATE = -1
+        private const val BYTE_MASK = 0xFF
+
+        private fun newState() = IntArray(ALPHABET_SIZE) { NO_STATE }
+
+        private fun Byte.toSymbol() = toInt() and BYTE_MASK
+    }
+}
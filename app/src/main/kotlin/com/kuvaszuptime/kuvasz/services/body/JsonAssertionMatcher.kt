@@ -0,0 +1,167 @@
+package com.kuvaszuptime.kuvasz.services.body
+
+import com.fasterxml.jackson.core.JsonFactory
+import com.fasterxml.jackson.core.JsonPointer
+import com.fasterxml.jackson.core.JsonProcessingException
+import com.fasterxml.jackson.core.JsonStreamContext
+import com.fasterxml.jackson.core.JsonToken
+import com.fasterxml.jackson.core.async.ByteBufferFeeder
+import com.kuvaszuptime.kuvasz.models.checks.JsonAssertionResult
+import com.kuvaszuptime.kuvasz.models.checks.JsonValueMismatch
+import io.netty.buffer.ByteBuf
+import java.io.IOException
+
+/**
+ * An assertion on a single value of a JSON body, e.g. `/db/status=UP`
+ *
+ * @property pointer The JSON Pointer (RFC 6901) of the value, an empty pointer means the whole body
+ * @property expected The expected value in its textual form, i.e. the content of a string, or the literal of a number,
+ * a boolean or null
+ */
+data class JsonAssertion(
+    val pointer: String,
+    val expected: String,
+) {
+    override fun toString(): String = "$pointer$SEPARATOR$expected"
+
+    companion object {
+        private const val SEPARATOR = '='
+
+        /**
+         * Parses an assertion from its `{JSON Pointer}={expected value}` form, or returns null if it's invalid
+         */
+        fun fromString(value: String): JsonAssertion? =
+            value.indexOf(SEPARATOR)
+                .takeIf { it >= 0 }
+                ?.let { index -> JsonAssertion(value.substring(0, index), value.substring(index + 1)) }
+                ?.takeIf { runCatching { JsonPointer.compile(it.pointer) }.isSuccess }
+    }
+}
+
+/**
+ * Evaluates the JSON assertions of a monitor on the bytes of a streamed response body, with Jackson's non-blocking
+ * parser, so neither the body nor a tree of it is ever built. The path of every value is compared to the pointers by
+ * walking the parsing context of the parser, so the per check allocations don't depend on the size of the body, and
+ * the body isn't parsed any further once every pointer is resolved. The field names are canonicalized by the parser,
+ * so a repeated name doesn't allocate, but a body with many unique names (e.g. a map keyed by IDs) does.
+ *
+ * The matcher is immutable, so it can be shared between the checks, and every check evaluates the body with its own
+ * [Scan].
+ */
+class JsonAssertionMatcher(val assertions: List<JsonAssertion>) {
+
+    private val pointers: Array<Array<PointerSegment>> = Array(assertions.size) { index ->
+        val segments = mutableListOf<PointerSegment>()
+        var pointer = JsonPointer.compile(assertions[index].pointer)
+        while (!pointer.matches()) {
+            segments.add(PointerSegment(pointer.matchingProperty, pointer.matchingIndex))
+            pointer = pointer.tail()
+        }
+        segments.toTypedArray()
+    }
+
+    fun newScan(): Scan = Scan()
+
+    /**
+     * The state of evaluating a single response body, fed chunk by chunk
+     */
+    inner class Scan {
+
+        private val parser = JSON_FACTORY.createNonBlockingByteBufferParser()
+        private val feeder = parser.nonBlockingInputFeeder as ByteBufferFeeder
+        private val actualValues = arrayOfNulls<String>(assertions.size)
+        private var resolvedCount = 0
+        private var parseError: String? = null
+
+        /**
+         * Whether the outcome can't change anymore, i.e. every pointer is resolved, or the body is not a valid JSON
+         */
+        val isDecided: Boolean
+            get() = resolvedCount == assertions.size || parseError != null
+
+        /**
+         * Parses the first [length] readable bytes of the chunk, without changing its reader index. The chunk is not
+         * referenced after this call returns.
+         *
+         * @return Whether the rest of the body is still needed
+         */
+        fun feed(chunk: ByteBuf, length: Int): Boolean {
+            if (length > 0 && !isDecided) {
+                parse { feeder.feedInput(chunk.nioBuffer(chunk.readerIndex(), length)) }
+            }
+            return !isDecided
+        }
+
+        /**
+         * @param endOfBody Whether the whole body was fed, in which case the values at its very end are resolved too.
+         * Otherwise the pointers that weren't resolved yet are considered missing.
+         */
+        fun result(endOfBody: Boolean): JsonAssertionResult {
+            if (endOfBody && !isDecided) parse { feeder.endOfInput() }
+            parser.close()
+            return JsonAssertionResult(
+                missing = assertions.filterIndexed { index, _ -> actualValues[index] == null }.map { it.pointer },
+                mismatched = assertions.mapIndexedNotNull { index, assertion ->
+                    actualValues[index]
+                        ?.takeIf { it != assertion.expected }
+                        ?.let { JsonValueMismatch(assertion.pointer, assertion.expected, actual = it) }
+                },
+                parseError = parseError,
+            )
+        }
+
+        private inline fun parse(feed: () -> Unit) {
+            try {
+                feed()
+                while (!isDecided) {
+                    val token = parser.nextToken()
+                    if (token == null || token == JsonToken.NOT_AVAILABLE) break
+                    if (token.isScalarValue || token.isStructStart) resolve(token)
+                }
+            } catch (ex: IOException) {
+                parseError = (ex as? JsonProcessingException)?.originalMessage ?: ex.message ?: ex.javaClass.simpleName
+            }
+        }
+
+        private fun resolve(token: JsonToken) {
+            // The context of an object or an array is the value itself, its location is in the enclosing context
+            val location = if (token.isStructStart) parser.parsingContext.parent else parser.parsingContext
+            for (index in pointers.indices) {
+                if (actualValues[index] == null && location.matches(pointers[index])) {
+                    actualValues[index] = when (token) {
+                        JsonToken.START_OBJECT -> OBJECT_VALUE
+                        JsonToken.START_ARRAY -> ARRAY_VALUE
+                        else -> parser.text
+                    }
+                    resolvedCount++
+                }
+            }
+        }
+    }
+
+    private class PointerSegment(
+        val property: String,
+        val index: Int,
+    )
+
+    private companion object {
+        private val JSON_FACTORY = JsonFactory()
+        private const val OBJECT_VALUE = "{...}"
+        private const val ARRAY_VALUE = "[...]"
+
+        private fun JsonStreamContext.matches(segments: Array<PointerSegment>): Boolean {
+            var context: JsonStreamContext = this
+            for (segmentIndex in segments.lastIndex downTo 0) {
+                val segment = segments[segmentIndex]
+                val segmentMatches = when {
+                    context.inObject() -> context.currentName == segment.property
+                    context.inArray() -> context.currentIndex == segment.index
+                    else -> false
+                }
+                if (!segmentMatches) return false
+                context = context.parent ?: return false
+            }
+            return context.inRoot()
+        }
+    }
+}
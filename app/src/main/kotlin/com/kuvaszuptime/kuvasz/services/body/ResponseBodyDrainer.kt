@@ -0,0 +1,121 @@
+package com.kuvaszuptime.kuvasz.services.body
+
+import io.netty.buffer.ByteBuf
+import io.netty.handler.codec.http.HttpContent
+import io.netty.util.ReferenceCountUtil
+import kotlinx.coroutines.suspendCancellableCoroutine
+import org.reactivestreams.Publisher
+import org.reactivestreams.Subscriber
+import org.reactivestreams.Subscription
+import kotlin.coroutines.resume
+import kotlin.coroutines.resumeWithException
+
+/**
+ * The outcome of draining a response body
+ *
+ * @param bytes The number of the body bytes that were read
+ * @param truncated Whether the rest of the body was discarded by closing the connection, because the body was longer
+ * than the cap, or the chunk consumer didn't need more of it
+ */
+data class DrainedBody(
+    val bytes: Long,
+    val truncated: Boolean,
+)
+
+/**
+ * Reads the body of a streamed response chunk by chunk, and releases every chunk right away, so the body is never
+ * aggregated in memory. The chunks are requested one by one, so at most one chunk is buffered at a time.
+ *
+ * If the body is longer than [maxBytes], the subscription is cancelled, which closes the connection instead of
+ * downloading the rest of the body. Cancelling the calling coroutine (e.g. because the check exceeded its deadline)
+ * cancels the subscription too.
+ *
+ * @param onChunk Called with every chunk before it's released, along with the number of its readable bytes that are
+ * within the cap. It must not retain the chunk. If it returns false, the rest of the body is discarded.
+ */
+suspend fun Publisher<out HttpContent>.drain(
+    maxBytes: Long,
+    onChunk: ((chunk: ByteBuf, length: Int) -> Boolean)? = null,
+): DrainedBody =
+    suspendCancellableCoroutine { continuation ->
+        val subscriber = DrainingSubscriber(maxBytes, onChunk) { result ->
+            result.fold(
+                onSuccess = { continuation.resume(it) },
+                onFailure = { continuation.resumeWithException(it) },
+            )
+        }
+        continuation.invokeOnCancellation { subscriber.cancel() }
+        subscribe(subscriber)
+    }
+
+private class DrainingSubscriber(
+    private val maxBytes: Long,
+    private val onChunk: ((chunk: ByteBuf, length: Int) -> Boolean)?,
+    private val onDone: (Result<DrainedBody>) -> Unit,
+) : Subscriber<HttpContent> {
+
+    @Volatile
+    private var subscription: Subscription? = null
+
+    @Volatile
+    private var cancelled = false
+
+    private var bytes = 0L
+    private var done = false
+
+    override fun onSubscribe(subscription: Subscription) {
+        this.subscription = subscription
+        if (cancelled) {
+            subscription.cancel()
+        } else if (maxBytes <= 0) {
+            // Not even a single byte is wanted, so the body isn't requested at all
+            finish(truncated = true)
+        } else {
+            subscription.request(1)
+        }
+    }
+
+    override fun onNext(content: HttpContent) {
+        var needsMore = true
+        try {
+            if (done) return
+            val chunk = content.content()
+            val readable = chunk.readableBytes()
+            if (onChunk != null) {
+                val withinCap = minOf(readable.toLong(), maxBytes - bytes).toInt()
+                needsMore = onChunk.invoke(chunk, withinCap)
+            }
+            bytes += readable
+        } finally {
+            ReferenceCountUtil.release(content)
+        }
+        if (bytes > maxBytes || !needsMore) {
+            finish(truncated = true)
+        } else {
+            subscription?.request(1)
+        }
+    }
+
+    override fun onError(error: Throwable) {
+        if (done) return
+        done = true
+        onDone(Result.failure(error))
+    }
+
+    override fun onComplete() {
+        if (done) return
+        done = true
+        onDone(Result.success(DrainedBody(bytes, truncated = false)))
+    }
+
+    fun cancel() {
+        cancelled = true
+        subscription?.cancel()
+    }
+
+    private fun finish(truncated: Boolean) {
+        done = true
+        subscription?.cancel()
+        onDone(Result.success(DrainedBody(bytes, truncated)))
+    }
+}
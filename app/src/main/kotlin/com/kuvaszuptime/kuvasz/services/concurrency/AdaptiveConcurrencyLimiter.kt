@@ -0,0 +1,192 @@
+package com.kuvaszuptime.kuvasz.services.concurrency
+
+import com.kuvaszuptime.kuvasz.config.AppConfig
+import com.kuvaszuptime.kuvasz.models.events.MonitorDeleteEvent
+import com.kuvaszuptime.kuvasz.services.EventDispatcher
+import com.kuvaszuptime.kuvasz.services.UptimeCheckEventLoopGroup
+import io.micronaut.http.netty.channel.EventLoopGroupRegistry
+import io.micronaut.scheduling.annotation.Scheduled
+import jakarta.annotation.PostConstruct
+import jakarta.inject.Singleton
+import kotlinx.coroutines.CoroutineDispatcher
+import org.slf4j.LoggerFactory
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+import kotlin.coroutines.EmptyCoroutineContext
+import kotlin.math.ceil
+import kotlin.math.sqrt
+
+/**
+ * Watches whether the prober itself is saturated, and throttles the number of the concurrent checks (through the
+ * [CheckAdmissionController]) before the self-induced delays leak into the measured latencies.
+ *
+ * The saturation is detected by two signals:
+ * - the task latency of the `uptime-check` Netty event loop and of the check dispatcher, i.e. how long a no-op task
+ * waits until it's executed
+ * - the inflation of the observed round-trip times: if the majority of the recent checks are much slower than their
+ * monitor's baseline, it's more likely that the prober got slower than that every target did at the same time
+ *
+ * When adaptive concurrency is enabled, the limit is adjusted in an AIMD manner: it's cut multiplicatively while the
+ * prober is saturated, and it's increased additively while it's healthy, and the limit is actually reached.
+ */
+@Singleton
+class AdaptiveConcurrencyLimiter(
+    private val appConfig: AppConfig,
+    private val admissionController: CheckAdmissionController,
+    private val eventLoopGroupRegistry: EventLoopGroupRegistry,
+    private val dispatcher: CoroutineDispatcher,
+    private val eventDispatcher: EventDispatcher,
+) {
+
+    companion object {
+        private val logger = LoggerFactory.getLogger(AdaptiveConcurrencyLimiter::class.java)
+
+        internal const val DECREASE_FACTOR = 0.75
+        internal const val UNLIMITED_CEILING = 1000
+        internal const val MIN_RTT_SAMPLES = 10
+        private const val INFLATION_RATIO = 2
+        private const val MIN_INFLATION_MS = 50
+        private const val BASELINE_DRIFT_DIVISOR = 64
+    }
+
+    private val minLimit = appConfig.adaptiveConcurrencyMinLimit
+    private val lagThresholdNanos = TimeUnit.MILLISECONDS.toNanos(appConfig.proberLagThresholdMs)
+    private val maxLimit = appConfig.maxConcurrentChecks.takeIf { it > 0 } ?: UNLIMITED_CEILING
+
+    @Volatile
+    private var saturated = false
+
+    // The highest task latencies that were measured by the probes since the last adjustment
+    private val eventLoopLagNanos = AtomicLong()
+    private val dispatcherLagNanos = AtomicLong()
+
+    // The latest measured task latencies, exposed as metrics
+    @Volatile
+    private var lastEventLoopLagNanos = 0L
+
+    @Volatile
+    private var lastDispatcherLagNanos = 0L
+
+    private val rttBaselines = ConcurrentHashMap<Long, Int>()
+    private val rttSamples = AtomicInteger()
+    private val inflatedRttSamples = AtomicInteger()
+
+    init {
+        if (appConfig.adaptiveConcurrencyEnabled) {
+            admissionController.updateLimit(maxLimit)
+        }
+    }
+
+    @PostConstruct
+    fun subscribeToLifecycleEvents() {
+        eventDispatcher.subscribeToMonitorLifecycleEvents { event ->
+            if (event is MonitorDeleteEvent) rttBaselines.remove(event.monitorId)
+        }
+    }
+
+    /**
+     * Whether the prober is saturated right now, so the latencies measured in the meantime might be inflated
+     */
+    fun isSaturated(): Boolean = saturated
+
+    /**
+     * The current concurrency limit of the checks, 0 means unlimited
+     */
+    fun currentLimit(): Int = admissionController.currentLimit()
+
+    fun eventLoopLagNanos(): Long = lastEventLoopLagNanos
+
+    fun dispatcherLagNanos(): Long = lastDispatcherLagNanos
+
+    /**
+     * Records the round-trip time of a successful check, and compares it to the baseline of the monitor. The baseline
+     * is the lowest RTT seen so far that slowly drifts upwards, so it can follow a permanent change of the target.
+     */
+    fun recordRtt(monitorId: Long, latencyMs: Int) {
+        var previousBaseline = 0
+        rttBaselines.compute(monitorId) { _, baseline ->
+            previousBaseline = baseline ?: 0
+            if (baseline == null || latencyMs <= baseline) {
+                latencyMs
+            } else {
+                minOf(latencyMs, baseline + baseline / BASELINE_DRIFT_DIVISOR + 1)
+            }
+        }
+        if (previousBaseline > 0) {
+            rttSamples.incrementAndGet()
+            if (latencyMs > previousBaseline * INFLATION_RATIO && latencyMs - previousBaseline > MIN_INFLATION_MS) {
+                inflatedRttSamples.incrementAndGet()
+            }
+        }
+    }
+
+    @Scheduled(fixedDelay = "1s")
+    fun probeAndAdjust() {
+        adjust(
+            eventLoopLagNanos = eventLoopLagNanos.getAndSet(0),
+            dispatcherLagNanos = dispatcherLagNanos.getAndSet(0),
+        )
+        probe()
+    }
+
+    /**
+     * Decides whether the prober is saturated based on the latest measurements, and adjusts the limit if it's enabled
+     */
+    internal fun adjust(eventLoopLagNanos: Long, dispatcherLagNanos: Long) {
+        lastEventLoopLagNanos = eventLoopLagNanos
+        lastDispatcherLagNanos = dispatcherLagNanos
+
+        val samples = rttSamples.getAndSet(0)
+        val inflated = inflatedRttSamples.getAndSet(0)
+        val rttInflated = samples >= MIN_RTT_SAMPLES && inflated * 2 > samples
+        val lagging = maxOf(eventLoopLagNanos, dispatcherLagNanos) > lagThresholdNanos
+
+        val wasSaturated = saturated
+        saturated = lagging || rttInflated
+        if (saturated != wasSaturated) {
+            logger.info(
+                "The prober is ${if (saturated) "saturated" else "not saturated anymore"} " +
+                    "(event loop lag: ${TimeUnit.NANOSECONDS.toMillis(eventLoopLagNanos)}ms, " +
+                    "dispatcher lag: ${TimeUnit.NANOSECONDS.toMillis(dispatcherLagNanos)}ms, " +
+                    "inflated RTTs: $inflated/$samples)"
+            )
+        }
+        if (appConfig.adaptiveConcurrencyEnabled) {
+            adjustLimit()
+        }
+    }
+
+    private fun adjustLimit() {
+        val limit = admissionController.currentLimit().takeIf { it > 0 } ?: maxLimit
+        val newLimit = when {
+            saturated -> maxOf(minLimit, (limit * DECREASE_FACTOR).toInt())
+            admissionController.pendingCount() > 0 || admissionController.runningCount() >= limit ->
+                minOf(maxLimit, limit + ceil(sqrt(limit.toDouble())).toInt())
+
+            else -> limit
+        }
+        if (newLimit != limit) {
+            logger.debug("Adjusting the concurrency limit of the checks from $limit to $newLimit")
+            admissionController.updateLimit(newLimit)
+        }
+    }
+
+    /**
+     * Submits a no-op task to every event loop of the uptime checks and to the check dispatcher, and records how long
+     * they were waiting to be executed. The results are evaluated in the next round.
+     */
+    private fun probe() {
+        eventLoopGroupRegistry.getEventLoopGroup(UptimeCheckEventLoopGroup.NAME).ifPresent { group ->
+            group.forEach { executor ->
+                val submittedAt = System.nanoTime()
+                executor.execute { eventLoopLagNanos.accumulateAndGet(System.nanoTime() - submittedAt, ::maxOf) }
+            }
+        }
+        val submittedAt = System.nanoTime()
+        dispatcher.dispatch(EmptyCoroutineContext) {
+            dispatcherLagNanos.accumulateAndGet(System.nanoTime() - submittedAt, ::maxOf)
+        }
+    }
+}
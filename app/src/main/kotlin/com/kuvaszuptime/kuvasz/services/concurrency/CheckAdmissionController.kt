@@ -0,0 +1,237 @@
+package com.kuvaszuptime.kuvasz.services.concurrency
+
+import com.kuvaszuptime.kuvasz.config.AppConfig
+import com.kuvaszuptime.kuvasz.models.CheckType
+import jakarta.inject.Singleton
+import org.slf4j.LoggerFactory
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.locks.ReentrantLock
+import kotlin.concurrent.withLock
+
+/**
+ * The outcome of submitting a check to the [CheckAdmissionController]
+ */
+enum class Admission {
+    /**
+     * The check was started right away
+     */
+    STARTED,
+
+    /**
+     * The check was put into the pending queue, it's going to be started when a running check finishes
+     */
+    DEFERRED,
+
+    /**
+     * The check was dropped, because the pending queue was full, or the same check was already pending
+     */
+    REJECTED,
+}
+
+/**
+ * The counters of the submitted checks of a type, and the scheduler lag of the started ones
+ */
+class AdmissionStats internal constructor() {
+    private val rejected = AtomicLong()
+    private val deferred = AtomicLong()
+    private val started = AtomicLong()
+    private val totalLagNanos = AtomicLong()
+    private val maxLagNanos = AtomicLong()
+
+    fun rejectedCount(): Long = rejected.get()
+
+    fun deferredCount(): Long = deferred.get()
+
+    /**
+     * The number of the started checks, whose scheduler lag was recorded
+     */
+    fun startedCount(): Long = started.get()
+
+    /**
+     * The total scheduler lag of the started checks in nanoseconds
+     */
+    fun totalLagNanos(): Long = totalLagNanos.get()
+
+    /**
+     * The highest scheduler lag in nanoseconds that was recorded so far
+     */
+    fun maxLagNanos(): Long = maxLagNanos.get()
+
+    internal fun recordRejected() {
+        rejected.incrementAndGet()
+    }
+
+    internal fun recordDeferred() {
+        deferred.incrementAndGet()
+    }
+
+    internal fun recordStarted(lagNanos: Long) {
+        started.incrementAndGet()
+        totalLagNanos.addAndGet(lagNanos)
+        maxLagNanos.accumulateAndGet(lagNanos, ::maxOf)
+    }
+}
+
+/**
+ * Bounds the number of the checks that are running at the same time, so under a mass outage (when every check is
+ * waiting out its timeout) the work can't pile up unbounded. The checks over the limit are waiting in a bounded FIFO
+ * queue, and when the queue is full, the new checks are rejected, i.e. they are skipped in the current round and
+ * they'll be tried again at their next planned execution.
+ *
+ * It also records the scheduler lag of every started check, i.e. how much later it was started than it was planned.
+ */
+@Singleton
+class CheckAdmissionController(appConfig: AppConfig) {
+
+    companion object {
+        private val logger = LoggerFactory.getLogger(CheckAdmissionController::class.java)
+    }
+
+    @Volatile
+    private var maxConcurrentChecks = appConfig.maxConcurrentChecks
+    private val maxPendingChecks = appConfig.maxPendingChecks
+
+    private val lock = ReentrantLock()
+
+    // Guarded by the lock
+    private val pending = ArrayDeque<PendingCheck>()
+    private val pendingKeys = HashSet<CheckKey>()
+    private var running = 0
+
+    private val statsByType: Map<CheckType, AdmissionStats> = CheckType.entries.associateWith { AdmissionStats() }
+
+    /**
+     * Submits a check for execution. The [start] function is called when the check is admitted, either immediately on
+     * the caller's thread, or later on the thread that released the previous permit, so it must not block (e.g. it
+     * should launch a coroutine). The started check must call [release] when it's finished, regardless of its outcome.
+     *
+     * @param plannedAtNanos When the check was planned to start, based on [System.nanoTime]
+     */
+    fun submit(checkType: CheckType, monitorId: Long, plannedAtNanos: Long, start: () -> Unit): Admission {
+        val check = PendingCheck(CheckKey(checkType, monitorId), plannedAtNanos, start)
+        val admission = lock.withLock {
+            when {
+                maxConcurrentChecks <= 0 || running < maxConcurrentChecks && pending.isEmpty() -> {
+                    running++
+                    Admission.STARTED
+                }
+
+                check.key in pendingKeys || pending.size >= maxPendingChecks -> Admission.REJECTED
+
+                else -> {
+                    pending.addLast(check)
+                    pendingKeys.add(check.key)
+                    Admission.DEFERRED
+                }
+            }
+        }
+        when (admission) {
+            Admission.STARTED -> startCheck(check)
+            Admission.DEFERRED -> stats(checkType).recordDeferred()
+            Admission.REJECTED -> {
+                stats(checkType).recordRejected()
+                logger.warn("$checkType check of monitor with ID: $monitorId was rejected, the prober is overloaded")
+            }
+        }
+        return admission
+    }
+
+    /**
+     * Gives back the permit of a finished check, and starts the next pending one, if there is any
+     */
+    fun release() {
+        val next = lock.withLock {
+            // The permit is handed over to the next pending check only if the (possibly lowered) limit allows it
+            val limit = maxConcurrentChecks
+            if (limit > 0 && running > limit) {
+                running--
+                null
+            } else {
+                pending.removeFirstOrNull()
+                    ?.also { pendingKeys.remove(it.key) }
+                    ?: run {
+                        running--
+                        null
+                    }
+            }
+        }
+        next?.let { startCheck(it) }
+    }
+
+    /**
+     * Changes the concurrency limit at runtime (e.g. by the [AdaptiveConcurrencyLimiter]). When the limit is raised,
+     * the pending checks that fit into the new limit are started right away; when it's lowered, the running checks
+     * are not interrupted, the new ones are just deferred until the running count drops below the new limit.
+     */
+    fun updateLimit(newLimit: Int) {
+        val toStart = lock.withLock {
+            maxConcurrentChecks = newLimit
+            buildList {
+                while (pending.isNotEmpty() && (newLimit <= 0 || running < newLimit)) {
+                    val next = pending.removeFirst()
+                    pendingKeys.remove(next.key)
+                    running++
+                    add(next)
+                }
+            }
+        }
+        toStart.forEach { startCheck(it) }
+    }
+
+    /**
+     * The current concurrency limit, 0 or less means unlimited
+     */
+    fun currentLimit(): Int = maxConcurrentChecks
+
+    /**
+     * Drops the pending checks of the monitor, e.g. because it was deleted or disabled in the meantime
+     */
+    fun discardPending(monitorId: Long) {
+        lock.withLock {
+            if (pending.removeAll { it.key.monitorId == monitorId }) {
+                pendingKeys.removeAll { it.monitorId == monitorId }
+            }
+        }
+    }
+
+    /**
+     * Drops all the pending checks
+     */
+    fun discardAllPending() {
+        lock.withLock {
+            pending.clear()
+            pendingKeys.clear()
+        }
+    }
+
+    /**
+     * The number of the checks that were admitted and haven't finished yet
+     */
+    fun runningCount(): Int = lock.withLock { running }
+
+    /**
+     * The number of the checks that are waiting in the queue
+     */
+    fun pendingCount(): Int = lock.withLock { pending.size }
+
+    /**
+     * The counters and the scheduler lag of the checks of the given type
+     */
+    fun stats(checkType: CheckType): AdmissionStats = statsByType.getValue(checkType)
+
+    @Suppress("TooGenericExceptionCaught")
+    private fun startCheck(check: PendingCheck) {
+        val lagNanos = (System.nanoTime() - check.plannedAtNanos).coerceAtLeast(0)
+        stats(check.key.checkType).recordStarted(lagNanos)
+        try {
+            check.start()
+        } catch (ex: Exception) {
+            logger.error("${check.key.checkType} check of monitor with ID: ${check.key.monitorId} couldn't start", ex)
+            release()
+        }
+    }
+
+    private data class CheckKey(val checkType: CheckType, val monitorId: Long)
+
+    private class PendingCheck(val key: CheckKey, val plannedAtNanos: Long, val start: () -> Unit)
+}
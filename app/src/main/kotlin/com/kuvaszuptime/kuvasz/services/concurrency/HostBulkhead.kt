@@ -0,0 +1,147 @@
+package com.kuvaszuptime.kuvasz.services.concurrency
+
+import com.kuvaszuptime.kuvasz.config.AppConfig
+import jakarta.inject.Singleton
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CompletableDeferred
+import java.net.URI
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Limits the number of the concurrent uptime checks per target host, so a synchronized burst of checks against the
+ * same origin (e.g. hundreds of monitors on different paths of the same API gateway) can't open hundreds of concurrent
+ * connections, which would skew the measured latencies.
+ *
+ * The hosts are identified by their scheme, host and port. The checks that are over the limit are waiting in a strict
+ * FIFO queue per host, so every monitor gets its turn in the order of arrival. Every waiter carries its own limit (the
+ * per-monitor one, or the global one), and a waiter is let in only if the number of the in-flight checks against the
+ * host is below its limit.
+ */
+@Singleton
+class HostBulkhead(private val appConfig: AppConfig) {
+
+    companion object {
+        private const val HTTP_PORT = 80
+        private const val HTTPS_PORT = 443
+    }
+
+    private val hosts = ConcurrentHashMap<String, HostState>()
+    private val waiting = AtomicInteger()
+    private val queuedTotal = AtomicLong()
+    private val waitNanosTotal = AtomicLong()
+
+    /**
+     * Runs the given block once a permit for the host of the URI is available. The time spent in the queue is not
+     * part of the block, so it's not included in the latency measured inside.
+     *
+     * @param monitorLimit The per-monitor limit, 0 means that the global limit should be used
+     */
+    suspend fun <T> withPermit(uri: URI, monitorLimit: Int, block: suspend () -> T): T {
+        val limit = effectiveLimit(monitorLimit)
+        if (limit <= 0) return block()
+
+        val hostKey = hostKeyOf(uri)
+        acquire(hostKey, limit)
+        return try {
+            block()
+        } finally {
+            release(hostKey)
+        }
+    }
+
+    /**
+     * The number of the checks that are waiting for a permit right now, across all the hosts
+     */
+    fun waitingCount(): Int = waiting.get()
+
+    /**
+     * The number of the checks that had to wait for a permit since the application is running
+     */
+    fun queuedCount(): Long = queuedTotal.get()
+
+    /**
+     * The total time in nanoseconds that the checks spent waiting for a permit
+     */
+    fun totalWaitNanos(): Long = waitNanosTotal.get()
+
+    /**
+     * The number of the in-flight checks against the host of the URI
+     */
+    fun inFlight(uri: URI): Int = hosts[hostKeyOf(uri)]?.inFlight ?: 0
+
+    internal fun effectiveLimit(monitorLimit: Int): Int =
+        if (monitorLimit > 0) monitorLimit else appConfig.maxConcurrentChecksPerHost
+
+    private suspend fun acquire(hostKey: String, limit: Int) {
+        var waiter: Waiter? = null
+        hosts.compute(hostKey) { _, existing ->
+            val state = existing ?: HostState()
+            if (state.queue.isEmpty() && state.inFlight < limit) {
+                state.inFlight++
+            } else {
+                waiter = Waiter(limit).also { state.queue.addLast(it) }
+            }
+            state
+        }
+        val queued = waiter ?: return
+
+        waiting.incrementAndGet()
+        queuedTotal.incrementAndGet()
+        val start = System.nanoTime()
+        try {
+            queued.permit.await()
+        } catch (ex: CancellationException) {
+            abandon(hostKey, queued)
+            throw ex
+        } finally {
+            waiting.decrementAndGet()
+            waitNanosTotal.addAndGet(System.nanoTime() - start)
+        }
+    }
+
+    /**
+     * Gives up waiting, or if the permit was granted in the meantime, hands it over to the next waiter
+     */
+    private fun abandon(hostKey: String, waiter: Waiter) {
+        var granted = false
+        hosts.computeIfPresent(hostKey) { _, state ->
+            if (!state.queue.remove(waiter)) {
+                granted = true
+            }
+            if (state.inFlight == 0 && state.queue.isEmpty()) null else state
+        }
+        if (granted) release(hostKey)
+    }
+
+    private fun release(hostKey: String) {
+        hosts.computeIfPresent(hostKey) { _, state ->
+            state.inFlight--
+            while (state.queue.isNotEmpty() && state.inFlight < state.queue.first().limit) {
+                state.inFlight++
+                state.queue.removeFirst().permit.complete(Unit)
+            }
+            if (state.inFlight == 0 && state.queue.isEmpty()) null else state
+        }
+    }
+
+    private fun hostKeyOf(uri: URI): String {
+        val scheme = uri.scheme?.lowercase().orEmpty()
+        val port = if (uri.port != -1) uri.port else if (scheme == "https") HTTPS_PORT else HTTP_PORT
+        return "$scheme://${uri.host?.lowercase().orEmpty()}:$port"
+    }
+
+    private class Waiter(val limit: Int) {
+        val permit = CompletableDeferred<Unit>()
+    }
+
+    /**
+     * Only modified inside the atomic compute functions of the map, so it doesn't need further synchronization
+     */
+    private class HostState {
+        @Volatile
+        var inFlight = 0
+        val queue = ArrayDeque<Waiter>()
+    }
+}
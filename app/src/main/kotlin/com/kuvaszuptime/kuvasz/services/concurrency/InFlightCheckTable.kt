@@ -0,0 +1,222 @@
+package com.kuvaszuptime.kuvasz.services.concurrency
+
+import com.kuvaszuptime.kuvasz.config.AppConfig
+import io.micronaut.scheduling.annotation.Scheduled
+import jakarta.inject.Singleton
+import kotlinx.coroutines.Job
+import org.slf4j.LoggerFactory
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * A point-in-time view of a running uptime check
+ *
+ * @property remainingNanos The time left until the deadline of the check, negative if it has overrun it
+ */
+data class InFlightCheck(
+    val monitorId: Long,
+    val runningForNanos: Long,
+    val remainingNanos: Long,
+)
+
+/**
+ * Guarantees that at most one uptime check of a monitor is running at a time, without any locks.
+ *
+ * Every monitor has a slot, whose state goes through `IDLE -> RUNNING -> COMPLETING -> IDLE` transitions by CAS
+ * operations. The slot state is packed into a single [AtomicLong] together with a generation number, which is
+ * unique across the whole table, and it's handed out to the check that acquired the slot as a ticket. Only the
+ * holder of the current ticket can release the slot, so a check that was taken over because it overran its
+ * deadline can't release the slot of its successor (i.e. there is no ABA problem).
+ *
+ * The deadlines are based on [System.nanoTime], and the checks that overrun them are cancelled (so their connections
+ * and coroutines are freed up), either when the next check of the monitor tries to acquire the slot, or by the
+ * periodic sweep, whichever comes first.
+ */
+@Singleton
+class InFlightCheckTable(appConfig: AppConfig) {
+
+    companion object {
+        private val logger = LoggerFactory.getLogger(InFlightCheckTable::class.java)
+
+        /**
+         * Returned by [tryAcquire] when the slot couldn't be acquired
+         */
+        const val NOT_ACQUIRED = -1L
+
+        private const val STATE_BITS = 2
+        private const val STATE_MASK = (1L shl STATE_BITS) - 1
+        private const val IDLE = 0L
+        private const val RUNNING = 1L
+        private const val COMPLETING = 2L
+
+        // Marks that the deadline of the current holder hasn't been published yet
+        private const val NO_DEADLINE = Long.MIN_VALUE
+
+        private fun stampOf(generation: Long, state: Long) = (generation shl STATE_BITS) or state
+        private fun generationOf(stamp: Long) = stamp ushr STATE_BITS
+        private fun stateOf(stamp: Long) = stamp and STATE_MASK
+    }
+
+    private val timeoutNanos = TimeUnit.MILLISECONDS.toNanos(appConfig.uptimeCheckLockTimeoutMs)
+
+    private val generations = AtomicLong()
+    private val slots = ConcurrentHashMap<Long, Slot>()
+
+    /**
+     * Tries to acquire the slot of the monitor. If the slot is held by a check that overran its deadline, that check
+     * is cancelled, and the slot is taken over.
+     *
+     * @param job The job of the check, which is cancelled if it overruns its deadline
+     * @return The ticket that must be passed to [release], or [NOT_ACQUIRED]
+     */
+    fun tryAcquire(monitorId: Long, job: Job? = null): Long {
+        val slot = slots.computeIfAbsent(monitorId) { Slot(stampOf(generations.incrementAndGet(), IDLE)) }
+        val stamp = slot.stamp.get()
+        val ticket = when {
+            stateOf(stamp) == IDLE -> slot.tryAcquireIdle(stamp)
+            stateOf(stamp) == RUNNING && slot.cancelIfOverrun(monitorId, stamp, System.nanoTime()) ->
+                slot.tryAcquireIdle(slot.stamp.get())
+
+            else -> NOT_ACQUIRED
+        }
+        if (ticket == NOT_ACQUIRED) {
+            logger.debug("Uptime check for monitor with ID: $monitorId is already running, failed to acquire its slot")
+            return NOT_ACQUIRED
+        }
+        val now = System.nanoTime()
+        slot.job = job
+        slot.startedAtNanos = now
+        slot.deadlineNanos = now + timeoutNanos
+        // The slot might have been taken over in the meantime (e.g. it was removed), the job mustn't outlive its ticket
+        if (slot.stamp.get() != stampOf(ticket, RUNNING)) {
+            job?.cancel()
+        }
+        logger.debug("Uptime check for monitor with ID: $monitorId is not running, acquired its slot")
+        return ticket
+    }
+
+    /**
+     * Releases the slot of the monitor, if it's still held by the given ticket
+     *
+     * @return false if the slot was taken over in the meantime, because the check overran its deadline
+     */
+    fun release(monitorId: Long, ticket: Long): Boolean {
+        val slot = slots[monitorId] ?: return false
+        if (!slot.stamp.compareAndSet(stampOf(ticket, RUNNING), stampOf(ticket, COMPLETING))) {
+            logger.debug("Uptime check for monitor with ID: $monitorId doesn't hold its slot anymore")
+            return false
+        }
+        slot.reset()
+        slot.stamp.set(stampOf(generations.incrementAndGet(), IDLE))
+        logger.debug("Uptime check for monitor with ID: $monitorId is completed, released its slot")
+        return true
+    }
+
+    /**
+     * Cancels the running check of the monitor (if there is any) and drops its slot, e.g. because it was deleted
+     */
+    fun remove(monitorId: Long) {
+        slots.remove(monitorId)?.let { slot ->
+            val stamp = slot.stamp.get()
+            if (stateOf(stamp) == RUNNING) slot.takeOver(stamp)
+        }
+    }
+
+    /**
+     * Cancels every running check and drops every slot, e.g. because all the checks were removed from the scheduler
+     */
+    fun clear() {
+        slots.keys.forEach(::remove)
+    }
+
+    /**
+     * Cancels the checks that overran their deadline
+     */
+    @Scheduled(fixedDelay = "5s")
+    fun cancelOverrunChecks() {
+        val now = System.nanoTime()
+        slots.forEach { (monitorId, slot) ->
+            val stamp = slot.stamp.get()
+            if (stateOf(stamp) == RUNNING) slot.cancelIfOverrun(monitorId, stamp, now)
+        }
+    }
+
+    /**
+     * Returns the checks that are running right now, the longest running first
+     */
+    fun snapshot(): List<InFlightCheck> {
+        val now = System.nanoTime()
+        return slots.mapNotNull { (monitorId, slot) ->
+            val stamp = slot.stamp.get()
+            if (stateOf(stamp) != RUNNING) return@mapNotNull null
+            val startedAt = slot.startedAtNanos
+            val deadline = slot.deadlineNanos
+            // The holder might have changed while reading the fields, or it hasn't published its deadline yet
+            if (slot.stamp.get() != stamp || deadline == NO_DEADLINE) return@mapNotNull null
+            InFlightCheck(
+                monitorId = monitorId,
+                runningForNanos = now - startedAt,
+                remainingNanos = deadline - now,
+            )
+        }.sortedByDescending { it.runningForNanos }
+    }
+
+    /**
+     * The number of the checks that are holding their slot right now
+     */
+    fun runningCount(): Int = slots.values.count { stateOf(it.stamp.get()) != IDLE }
+
+    private fun Slot.tryAcquireIdle(stamp: Long): Long {
+        val generation = generationOf(stamp)
+        return if (stateOf(stamp) == IDLE && this.stamp.compareAndSet(stamp, stampOf(generation, RUNNING))) {
+            generation
+        } else {
+            NOT_ACQUIRED
+        }
+    }
+
+    private fun Slot.cancelIfOverrun(monitorId: Long, stamp: Long, now: Long): Boolean {
+        val deadline = deadlineNanos
+        // Re-checking the stamp makes sure that the deadline belongs to the same holder
+        if (deadline == NO_DEADLINE || now - deadline < 0 || this.stamp.get() != stamp) return false
+        if (!takeOver(stamp)) return false
+        logger.warn(
+            "Uptime check for monitor with ID: $monitorId overran its deadline by " +
+                "${TimeUnit.NANOSECONDS.toMillis(now - deadline)}ms, it has been cancelled"
+        )
+        return true
+    }
+
+    /**
+     * Takes the slot away from the holder of the given stamp, cancels its job, and makes the slot idle again. The
+     * generations are never reused, so if the CAS succeeds, the job that was read before belongs to the same holder.
+     */
+    private fun Slot.takeOver(stamp: Long): Boolean {
+        val previousJob = job
+        if (!this.stamp.compareAndSet(stamp, stampOf(generationOf(stamp), COMPLETING))) return false
+        reset()
+        this.stamp.set(stampOf(generations.incrementAndGet(), IDLE))
+        previousJob?.cancel()
+        return true
+    }
+
+    private class Slot(initialStamp: Long) {
+        val stamp = AtomicLong(initialStamp)
+
+        // Written only by the holder of the slot, after a successful CAS to RUNNING
+        @Volatile
+        var job: Job? = null
+
+        @Volatile
+        var startedAtNanos = 0L
+
+        @Volatile
+        var deadlineNanos = NO_DEADLINE
+
+        fun reset() {
+            job = null
+            deadlineNanos = NO_DEADLINE
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.kuvaszuptime.kuvasz.services.dns
+
+import io.netty.channel.EventLoop
+import io.netty.handler.codec.dns.DnsRecord
+import io.netty.resolver.dns.DnsCache
+import io.netty.resolver.dns.DnsCacheEntry
+import java.net.InetAddress
+import java.util.concurrent.atomic.LongAdder
+
+/**
+ * Bounds the number of the hostnames in a TTL-respecting [DnsCache] (e.g. Netty's `DefaultDnsCache`, which isn't
+ * bounded on its own), by evicting the least recently used hostname, and counts the hits and the misses of the cache.
+ */
+class BoundedDnsCache(
+    private val delegate: DnsCache,
+    private val maxEntries: Int,
+) : DnsCache {
+
+    private val hits = LongAdder()
+    private val misses = LongAdder()
+
+    // The cached hostnames in their access order. The expired ones are evicted only by the delegate, so they might
+    // still take a slot here until they're pushed out, which is fine for a soft bound.
+    private val hostnames = LinkedHashMap<String, Unit>(INITIAL_CAPACITY, LOAD_FACTOR, true)
+
+    override fun get(hostname: String, additionals: Array<out DnsRecord>?): List<DnsCacheEntry>? {
+        val entries = delegate.get(hostname, additionals)
+        if (entries.isNullOrEmpty()) {
+            misses.increment()
+        } else {
+            hits.increment()
+            synchronized(hostnames) { hostnames[hostname] }
+        }
+        return entries
+    }
+
+    override fun cache(
+        hostname: String,
+        additionals: Array<out DnsRecord>?,
+        address: InetAddress,
+        originalTtl: Long,
+        loop: EventLoop,
+    ): DnsCacheEntry? = delegate.cache(hostname, additionals, address, originalTtl, loop).also { track(hostname) }
+
+    override fun cache(
+        hostname: String,
+        additionals: Array<out DnsRecord>?,
+        cause: Throwable,
+        loop: EventLoop,
+    ): DnsCacheEntry? = delegate.cache(hostname, additionals, cause, loop).also { track(hostname) }
+
+    override fun clear() {
+        synchronized(hostnames) { hostnames.clear() }
+        delegate.clear()
+    }
+
+    override fun clear(hostname: String): Boolean {
+        synchronized(hostnames) { hostnames.remove(hostname) }
+        return delegate.clear(hostname)
+    }
+
+    fun hitCount(): Long = hits.sum()
+
+    fun missCount(): Long = misses.sum()
+
+    fun size(): Int = synchronized(hostnames) { hostnames.size }
+
+    private fun track(hostname: String) {
+        val evicted = synchronized(hostnames) {
+            hostnames[hostname] = Unit
+            if (hostnames.size > maxEntries) hostnames.keys.first().also { hostnames.remove(it) } else null
+        }
+        evicted?.let { delegate.clear(it) }
+    }
+
+    private companion object {
+        const val INITIAL_CAPACITY = 16
+        const val LOAD_FACTOR = 0.75f
+    }
+}
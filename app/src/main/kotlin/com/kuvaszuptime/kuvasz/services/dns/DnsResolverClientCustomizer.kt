@@ -0,0 +1,35 @@
+package com.kuvaszuptime.kuvasz.services.dns
+
+import com.kuvaszuptime.kuvasz.services.UptimeCheckEventLoopGroup
+import io.micronaut.context.event.BeanCreatedEvent
+import io.micronaut.context.event.BeanCreatedEventListener
+import io.micronaut.http.client.netty.NettyClientCustomizer
+import io.netty.bootstrap.Bootstrap
+import io.netty.resolver.NoopAddressResolverGroup
+import jakarta.inject.Singleton
+
+/**
+ * Replaces the resolver of the connections that are opened on the `uptime-check` event loop group with the
+ * [UptimeCheckDnsResolver], so only the HTTP client of the checks is affected. The connections through a proxy are
+ * left intact, since their target is resolved by the proxy.
+ */
+@Singleton
+class DnsResolverClientCustomizer(
+    private val dnsResolver: UptimeCheckDnsResolver,
+    private val uptimeCheckEventLoopGroup: UptimeCheckEventLoopGroup,
+) : NettyClientCustomizer, BeanCreatedEventListener<NettyClientCustomizer.Registry> {
+
+    override fun onCreated(event: BeanCreatedEvent<NettyClientCustomizer.Registry>): NettyClientCustomizer.Registry {
+        event.bean.register(this)
+        return event.bean
+    }
+
+    override fun specializeForBootstrap(bootstrap: Bootstrap): NettyClientCustomizer {
+        val config = bootstrap.config()
+        val uptimeCheckGroup = uptimeCheckEventLoopGroup.group
+        if (config.resolver() !== NoopAddressResolverGroup.INSTANCE && config.group() === uptimeCheckGroup) {
+            bootstrap.resolver(dnsResolver.addressResolverGroup)
+        }
+        return this
+    }
+}
@@ -0,0 +1,114 @@
+package com.kuvaszuptime.kuvasz.services.dns
+
+import com.kuvaszuptime.kuvasz.config.AppConfig
+import io.netty.channel.socket.nio.NioDatagramChannel
+import io.netty.channel.socket.nio.NioSocketChannel
+import io.netty.resolver.AddressResolver
+import io.netty.resolver.AddressResolverGroup
+import io.netty.resolver.dns.DefaultDnsCache
+import io.netty.resolver.dns.DnsAddressResolverGroup
+import io.netty.resolver.dns.DnsNameResolverBuilder
+import io.netty.resolver.dns.NoopDnsCache
+import io.netty.util.concurrent.EventExecutor
+import io.netty.util.concurrent.Future
+import io.netty.util.concurrent.Promise
+import jakarta.annotation.PreDestroy
+import jakarta.inject.Singleton
+import java.net.InetSocketAddress
+import java.net.SocketAddress
+import java.util.concurrent.atomic.LongAdder
+
+/**
+ * The DNS resolver of the uptime checks. It uses Netty's asynchronous resolver instead of the JDK's blocking one, so
+ * a slow name server can't stall the event loops of the checks, and it caches the records for their TTL (bounded by
+ * [AppConfig.dnsCacheMaxTtlSeconds]), so the same hosts aren't resolved again and again.
+ */
+@Singleton
+class UptimeCheckDnsResolver(appConfig: AppConfig) {
+
+    private val cache = BoundedDnsCache(
+        delegate = if (appConfig.dnsCacheMaxEntries > 0) {
+            DefaultDnsCache(0, appConfig.dnsCacheMaxTtlSeconds, appConfig.dnsNegativeCacheTtlSeconds)
+        } else {
+            NoopDnsCache.INSTANCE
+        },
+        maxEntries = appConfig.dnsCacheMaxEntries,
+    )
+
+    private val resolutions = LongAdder()
+    private val totalResolutionNanos = LongAdder()
+
+    val addressResolverGroup: AddressResolverGroup<InetSocketAddress> = TimedAddressResolverGroup(
+        DnsAddressResolverGroup(
+            DnsNameResolverBuilder()
+                .channelType(NioDatagramChannel::class.java)
+                .socketChannelType(NioSocketChannel::class.java)
+                .resolveCache(cache)
+        )
+    )
+
+    /**
+     * Drops the cached records of the host, so the next connection to it has to resolve it from scratch
+     */
+    fun evict(hostname: String) {
+        cache.clear(hostname)
+    }
+
+    /**
+     * The ratio of the cache lookups that were hits, or 0 if there wasn't any lookup yet
+     */
+    fun cacheHitRatio(): Double {
+        val hits = cache.hitCount()
+        val lookups = hits + cache.missCount()
+        return if (lookups == 0L) 0.0 else hits.toDouble() / lookups
+    }
+
+    fun cacheSize(): Int = cache.size()
+
+    fun resolutionCount(): Long = resolutions.sum()
+
+    fun totalResolutionNanos(): Long = totalResolutionNanos.sum()
+
+    @PreDestroy
+    fun close() {
+        addressResolverGroup.close()
+    }
+
+    /**
+     * Measures how long the resolutions take, including the ones that are served from the cache
+     */
+    private inner class TimedAddressResolverGroup(
+        private val delegate: AddressResolverGroup<InetSocketAddress>,
+    ) : AddressResolverGroup<InetSocketAddress>() {
+
+        override fun newResolver(executor: EventExecutor): AddressResolver<InetSocketAddress> =
+            TimedAddressResolver(delegate.getResolver(executor))
+
+        override fun close() {
+            super.close()
+            delegate.close()
+        }
+    }
+
+    private inner class TimedAddressResolver(
+        private val delegate: AddressResolver<InetSocketAddress>,
+    ) : AddressResolver<InetSocketAddress> by delegate {
+
+        override fun resolve(address: SocketAddress): Future<InetSocketAddress> =
+            delegate.resolve(address).timed()
+
+        override fun resolve(address: SocketAddress, promise: Promise<InetSocketAddress>): Future<InetSocketAddress> =
+            delegate.resolve(address, promise).timed()
+
+        // The resolvers are closed by their group
+        override fun close() = Unit
+
+        private fun Future<InetSocketAddress>.timed(): Future<InetSocketAddress> {
+            val start = System.nanoTime()
+            return addListener {
+                resolutions.increment()
+                totalResolutionNanos.add(System.nanoTime() - start)
+            }
+        }
+    }
+}
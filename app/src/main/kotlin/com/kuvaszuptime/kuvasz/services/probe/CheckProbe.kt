@@ -0,0 +1,38 @@
+package com.kuvaszuptime.kuvasz.services.probe
+
+import com.kuvaszuptime.kuvasz.jooq.tables.records.MonitorRecord
+import com.kuvaszuptime.kuvasz.models.checks.RawHttpResponse
+import com.kuvaszuptime.kuvasz.services.body.BodyScan
+import com.kuvaszuptime.kuvasz.services.timing.PendingCheckTiming
+import java.net.URI
+
+/**
+ * Sends the request of a single uptime check, and reads its response
+ */
+interface CheckProbe {
+
+    /**
+     * Sends the monitor's request to the given URI, and reads the response, whose body is never kept in memory. The
+     * phases of the request are recorded into the given [timing].
+     *
+     * @param uri The URI to which the request will be sent. Because of possible redirects, this URI may differ from
+     * the one stored in the monitor.
+     */
+    suspend fun probe(monitor: MonitorRecord, uri: URI, timing: PendingCheckTiming): ProbeResult
+}
+
+/**
+ * The outcome of a [CheckProbe]
+ *
+ * @param response The status and the headers of the response
+ * @param bodyBytes The number of the body bytes that were read
+ * @param truncated Whether the rest of the body was discarded by closing the connection
+ * @param bodyScan The assertions that were matched against the body, if the monitor has any, and the response was
+ * successful
+ */
+class ProbeResult(
+    val response: RawHttpResponse,
+    val bodyBytes: Long,
+    val truncated: Boolean,
+    val bodyScan: BodyScan? = null,
+)
@@ -0,0 +1,30 @@
+package com.kuvaszuptime.kuvasz.services.probe
+
+import com.kuvaszuptime.kuvasz.config.AppConfig
+import com.kuvaszuptime.kuvasz.config.CheckProbeEngine
+import com.kuvaszuptime.kuvasz.jooq.tables.records.MonitorRecord
+import jakarta.inject.Singleton
+
+/**
+ * Picks the [CheckProbe] of a monitor according to [AppConfig.checkProbeEngine]. The [NettyCheckProbe] never reads the
+ * body of the responses, so the monitors with body assertions are always checked by the [HttpClientCheckProbe].
+ */
+@Singleton
+class CheckProbes(
+    private val httpClientProbe: HttpClientCheckProbe,
+    private val nettyProbe: NettyCheckProbe,
+    private val appConfig: AppConfig,
+) {
+
+    fun forMonitor(monitor: MonitorRecord): CheckProbe =
+        if (appConfig.checkProbeEngine == CheckProbeEngine.NETTY && !monitor.hasBodyAssertions()) {
+            nettyProbe
+        } else {
+            httpClientProbe
+        }
+
+    private fun MonitorRecord.hasBodyAssertions(): Boolean =
+        bodyMustContain.hasAny() || bodyMustNotContain.hasAny() || bodyJsonAssertions.hasAny()
+
+    private fun Array<String>?.hasAny(): Boolean = this?.any { it.isNotEmpty() } == true
+}
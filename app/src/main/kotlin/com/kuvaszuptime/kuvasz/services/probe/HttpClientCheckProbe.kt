@@ -0,0 +1,47 @@
+package com.kuvaszuptime.kuvasz.services.probe
+
+import com.kuvaszuptime.kuvasz.config.AppConfig
+import com.kuvaszuptime.kuvasz.jooq.tables.records.MonitorRecord
+import com.kuvaszuptime.kuvasz.services.HttpCheckRequestConfigurator
+import com.kuvaszuptime.kuvasz.services.UptimeCheckClients
+import com.kuvaszuptime.kuvasz.services.body.BodyMatcherCache
+import com.kuvaszuptime.kuvasz.services.body.BodyScan
+import com.kuvaszuptime.kuvasz.services.body.drain
+import com.kuvaszuptime.kuvasz.services.timing.CheckTimingRecorder
+import com.kuvaszuptime.kuvasz.services.timing.PendingCheckTiming
+import io.micronaut.http.netty.NettyHttpResponseBuilder
+import jakarta.inject.Singleton
+import kotlinx.coroutines.reactive.awaitSingle
+import java.net.URI
+
+/**
+ * Sends the requests of the uptime checks with Micronaut's HTTP client (see [UptimeCheckClients]), whose phases are
+ * captured by the [com.kuvaszuptime.kuvasz.services.timing.CheckTimingClientCustomizer]
+ */
+@Singleton
+class HttpClientCheckProbe(
+    private val uptimeCheckClients: UptimeCheckClients,
+    private val checkRequestConfigurator: HttpCheckRequestConfigurator,
+    private val bodyMatcherCache: BodyMatcherCache,
+    private val appConfig: AppConfig,
+) : CheckProbe {
+
+    companion object {
+        private val HTTP_SUCCESS_RANGE = 200..299
+    }
+
+    override suspend fun probe(monitor: MonitorRecord, uri: URI, timing: PendingCheckTiming): ProbeResult {
+        val request = checkRequestConfigurator.fromMonitor(monitor, uri)
+            .header(CheckTimingRecorder.TIMING_HEADER, timing.token)
+        val client = uptimeCheckClients.forMonitor(monitor)
+        // Unlike exchange(), proxy() doesn't aggregate the body, so it can be drained without keeping it
+        val response = client.proxy(request).awaitSingle()
+        // Only the successful responses are evaluated further, so only their bodies are matched
+        val bodyScan: BodyScan? = bodyMatcherCache.forMonitor(monitor)
+            ?.takeIf { response.code() in HTTP_SUCCESS_RANGE }
+            ?.newScan()
+        val body = NettyHttpResponseBuilder.toStreamResponse(response)
+            .drain(appConfig.checkBodyMaxBytes, bodyScan?.let { scan -> scan::feed })
+        return ProbeResult(response, body.bytes, body.truncated, bodyScan)
+    }
+}
@@ -0,0 +1,278 @@
+package com.kuvaszuptime.kuvasz.services.probe
+
+import com.kuvaszuptime.kuvasz.config.AppConfig
+import com.kuvaszuptime.kuvasz.config.CheckConnectionCloseStrategy
+import com.kuvaszuptime.kuvasz.jooq.enums.HttpMethod
+import com.kuvaszuptime.kuvasz.jooq.tables.records.MonitorRecord
+import com.kuvaszuptime.kuvasz.services.CheckRequestTemplate
+import com.kuvaszuptime.kuvasz.services.CheckRequestTemplates
+import com.kuvaszuptime.kuvasz.services.UptimeCheckEventLoopGroup
+import com.kuvaszuptime.kuvasz.services.dns.UptimeCheckDnsResolver
+import com.kuvaszuptime.kuvasz.services.socket.LocalAddressHandler
+import com.kuvaszuptime.kuvasz.services.socket.LocalAddressPool
+import com.kuvaszuptime.kuvasz.services.timing.ChannelTimingState
+import com.kuvaszuptime.kuvasz.services.timing.CheckConnectionStats
+import com.kuvaszuptime.kuvasz.services.timing.ConnectionTimingHandler
+import com.kuvaszuptime.kuvasz.services.timing.PendingCheckTiming
+import com.kuvaszuptime.kuvasz.services.tls.PeerCertificateCache
+import com.kuvaszuptime.kuvasz.services.tls.UptimeCheckSslBuilder
+import com.kuvaszuptime.kuvasz.services.tls.UptimeCheckSslConfiguration
+import io.micronaut.http.HttpVersion
+import io.micronaut.http.client.HttpVersionSelection
+import io.micronaut.scheduling.annotation.Scheduled
+import io.netty.bootstrap.Bootstrap
+import io.netty.channel.Channel
+import io.netty.channel.ChannelInitializer
+import io.netty.channel.ChannelOption
+import io.netty.channel.pool.AbstractChannelPoolHandler
+import io.netty.channel.pool.ChannelPool
+import io.netty.channel.pool.FixedChannelPool
+import io.netty.handler.ssl.SslContext
+import io.netty.handler.timeout.IdleStateHandler
+import io.netty.util.concurrent.Future
+import jakarta.annotation.PreDestroy
+import jakarta.inject.Singleton
+import kotlinx.coroutines.suspendCancellableCoroutine
+import java.net.URI
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import kotlin.coroutines.resume
+import kotlin.coroutines.resumeWithException
+
+/**
+ * A lean HTTP/1.1 client of the uptime checks on top of Netty, which skips everything of Micronaut's HTTP client that
+ * the checks don't need: it writes the precomputed request of the monitor (see [CheckRequestTemplate]), it parses only
+ * the status line and the few headers that the checks need (see [ProbeResponseParser]), and it releases every buffer
+ * of the response right away, without building any request or response objects, header maps or reactive streams.
+ *
+ * The connections are opened on the `uptime-check` event loop group with the same DNS resolver, socket policy and SSL
+ * contexts as the ones of Micronaut's HTTP client, and the certificate chains of their handshakes are recorded in the
+ * [PeerCertificateCache] the same way. They're pooled per origin (up to [AppConfig.checkMaxConnectionsPerOrigin]),
+ * unless the monitor doesn't reuse its connections, and they never speak HTTP/2. The monitors that don't resume their
+ * TLS sessions have their own pools, just like with the other engine. The pooled connections are closed after being
+ * idle for [AppConfig.checkConnectionIdleTimeoutSeconds], and so are the pools of the origins that aren't checked
+ * anymore. The time of a request is bounded only by the deadline of its check, which closes the connection, if it's
+ * exceeded.
+ */
+@Singleton
+class NettyCheckProbe(
+    private val appConfig: AppConfig,
+    private val requestTemplates: CheckRequestTemplates,
+    private val sslBuilder: UptimeCheckSslBuilder,
+    private val dnsResolver: UptimeCheckDnsResolver,
+    private val localAddressPool: LocalAddressPool,
+    private val checkConnectionStats: CheckConnectionStats,
+    private val peerCertificateCache: PeerCertificateCache,
+    private val uptimeCheckEventLoopGroup: UptimeCheckEventLoopGroup,
+) : CheckProbe {
+
+    companion object {
+        private const val HTTP_DEFAULT_PORT = 80
+        private const val HTTPS_DEFAULT_PORT = 443
+        private const val CONNECTION_HANDLER = "kuvasz-connection-timing"
+        private const val LOCAL_ADDRESS_HANDLER = "kuvasz-local-address"
+        private const val IDLE_STATE_HANDLER = "kuvasz-idle-state"
+        private const val SSL_HANDLER = "ssl"
+        private const val PROBE_HANDLER = "kuvasz-probe"
+        private const val ENDPOINT_IDENTIFICATION_ALGORITHM = "HTTPS"
+    }
+
+    /**
+     * The connections of an origin are shared only by the checks with the same TLS session resumption setting
+     */
+    private data class ProbeOrigin(
+        val host: String,
+        val port: Int,
+        val tls: Boolean,
+        val tlsSessionResumptionEnabled: Boolean,
+    )
+
+    /**
+     * The pool of an origin, with the number of the checks that are using it, so it's closed only if it's unused
+     */
+    private class OriginPool(val pool: FixedChannelPool) {
+        val users = AtomicInteger()
+
+        @Volatile
+        var lastUsedAt = System.nanoTime()
+    }
+
+    private val bootstrap: Bootstrap by lazy {
+        uptimeCheckEventLoopGroup.newBootstrap()
+            .resolver(dnsResolver.addressResolverGroup)
+            .option(ChannelOption.TCP_NODELAY, appConfig.checkTcpNoDelay)
+            .apply {
+                if (appConfig.checkConnectionCloseStrategy == CheckConnectionCloseStrategy.RESET) {
+                    option(ChannelOption.SO_LINGER, 0)
+                }
+            }
+    }
+
+    private val sslConfigurations = listOf(true, false).associateWith { UptimeCheckSslConfiguration(it) }
+
+    // Built only when the first HTTPS origin is checked
+    private val sslContexts = ConcurrentHashMap<Boolean, SslContext>()
+
+    private val pools = ConcurrentHashMap<ProbeOrigin, OriginPool>()
+
+    private val idleTimeoutNanos = TimeUnit.SECONDS.toNanos(appConfig.checkConnectionIdleTimeoutSeconds.toLong())
+
+    override suspend fun probe(monitor: MonitorRecord, uri: URI, timing: PendingCheckTiming): ProbeResult {
+        val origin = uri.toOrigin(tlsSessionResumptionEnabled = monitor.tlsSessionResumptionEnabled != false)
+        val template = requestTemplates.forMonitor(monitor)
+        val connectionReuseEnabled = template.connectionReuseEnabled
+        val exchange = ProbeExchange(
+            // Only the request to the monitor's own URL is precomputed, the ones of the redirects are encoded here
+            request = if (uri == template.uri) template.http1Request else template.encodeHttp1Request(uri),
+            timing = timing,
+            headRequest = template.method == HttpMethod.HEAD,
+            maxBodyBytes = appConfig.checkBodyMaxBytes,
+        )
+        // The pool is taken under the lock of its origin, so it can't be evicted until it's used
+        val originPool = if (connectionReuseEnabled) pools.compute(origin, ::useOriginPool) else null
+        val pool = originPool?.pool
+        try {
+            val channel = if (pool != null) {
+                val acquired = pool.acquire()
+                acquired.awaitChannel(pool) { acquired.now }
+            } else {
+                connect(origin)
+            }
+            var reusable = false
+            try {
+                val handler = channel.pipeline().get(ProbeChannelHandler::class.java)
+                channel.eventLoop().execute { handler.send(exchange) }
+                return exchange.result.await().also { reusable = exchange.reusable }
+            } finally {
+                release(channel, pool, reusable)
+            }
+        } finally {
+            if (originPool != null) {
+                originPool.lastUsedAt = System.nanoTime()
+                originPool.users.decrementAndGet()
+            }
+        }
+    }
+
+    /**
+     * Closes the pools of the origins that weren't checked for longer than the idle timeout of the connections
+     */
+    @Scheduled(fixedDelay = "1m")
+    fun evictIdlePools() {
+        evictIdlePools(System.nanoTime())
+    }
+
+    internal fun evictIdlePools(now: Long) {
+        pools.keys.forEach { origin ->
+            pools.computeIfPresent(origin) { _, originPool ->
+                if (originPool.users.get() == 0 && now - originPool.lastUsedAt > idleTimeoutNanos) {
+                    originPool.pool.closeAsync()
+                    null
+                } else {
+                    originPool
+                }
+            }
+        }
+    }
+
+    internal fun poolCount(): Int = pools.size
+
+    @PreDestroy
+    fun close() {
+        pools.values.forEach { it.pool.close() }
+        pools.clear()
+    }
+
+    private fun URI.toOrigin(tlsSessionResumptionEnabled: Boolean): ProbeOrigin {
+        val tls = when {
+            scheme.equals("https", ignoreCase = true) -> true
+            scheme.equals("http", ignoreCase = true) -> false
+            else -> throw IllegalArgumentException("Unsupported URL scheme: $scheme")
+        }
+        val host = requireNotNull(host) { "The URL doesn't have a host: $this" }.removeSurrounding("[", "]")
+        val port = port.takeIf { it >= 0 } ?: if (tls) HTTPS_DEFAULT_PORT else HTTP_DEFAULT_PORT
+        return ProbeOrigin(host, port, tls, tlsSessionResumptionEnabled)
+    }
+
+    private fun useOriginPool(origin: ProbeOrigin, current: OriginPool?): OriginPool =
+        (current ?: OriginPool(newPool(origin))).apply { users.incrementAndGet() }
+
+    private fun newPool(origin: ProbeOrigin): FixedChannelPool =
+        FixedChannelPool(
+            bootstrap.clone().remoteAddress(origin.host, origin.port),
+            object : AbstractChannelPoolHandler() {
+                override fun channelCreated(channel: Channel) = initChannel(channel, origin, pooled = true)
+            },
+            appConfig.checkMaxConnectionsPerOrigin.takeIf { it > 0 } ?: Int.MAX_VALUE,
+        )
+
+    private suspend fun connect(origin: ProbeOrigin): Channel {
+        val connected = bootstrap.clone()
+            .handler(object : ChannelInitializer<Channel>() {
+                override fun initChannel(channel: Channel) = initChannel(channel, origin, pooled = false)
+            })
+            .connect(origin.host, origin.port)
+        return connected.awaitChannel(pool = null) { connected.channel() }
+    }
+
+    private fun initChannel(channel: Channel, origin: ProbeOrigin, pooled: Boolean) {
+        val timingState = ChannelTimingState(registeredAt = System.nanoTime())
+        val pipeline = channel.pipeline()
+        // At the head of the pipeline, so it sees the connection attempt, after the address is resolved
+        pipeline.addFirst(CONNECTION_HANDLER, ConnectionTimingHandler(timingState))
+        if (!localAddressPool.isEmpty) pipeline.addLast(LOCAL_ADDRESS_HANDLER, LocalAddressHandler(localAddressPool))
+        if (origin.tls) {
+            val sslConfiguration = sslConfigurations.getValue(origin.tlsSessionResumptionEnabled)
+            val sslHandler = sslContextOf(sslConfiguration).newHandler(channel.alloc(), origin.host, origin.port)
+            sslHandler.setHandshakeTimeoutMillis(sslConfiguration.handshakeTimeout.toMillis())
+            val engine = sslHandler.engine()
+            engine.sslParameters = engine.sslParameters.apply {
+                endpointIdentificationAlgorithm = ENDPOINT_IDENTIFICATION_ALGORITHM
+            }
+            timingState.handshakeWatched = true
+            sslHandler.handshakeFuture().addListener { future ->
+                if (future.isSuccess) {
+                    timingState.handshakeCompletedAt = System.nanoTime()
+                    peerCertificateCache.record(channel, sslHandler)
+                }
+            }
+            pipeline.addLast(SSL_HANDLER, sslHandler)
+        }
+        if (pooled) {
+            // The probe handler closes the connection on the idle event, unless a request is in flight over it
+            val idleTimeout = appConfig.checkConnectionIdleTimeoutSeconds.toLong()
+            pipeline.addLast(IDLE_STATE_HANDLER, IdleStateHandler(0, 0, idleTimeout, TimeUnit.SECONDS))
+        }
+        pipeline.addLast(PROBE_HANDLER, ProbeChannelHandler(timingState, checkConnectionStats))
+    }
+
+    private fun sslContextOf(sslConfiguration: UptimeCheckSslConfiguration): SslContext =
+        sslContexts.computeIfAbsent(sslConfiguration.sessionResumptionEnabled) {
+            sslBuilder.build(sslConfiguration, HttpVersionSelection.forLegacyVersion(HttpVersion.HTTP_1_1))
+        }
+
+    /**
+     * Awaits the connection, and gives it back (or closes it) if the check was cancelled in the meantime
+     */
+    private suspend fun <T> Future<T>.awaitChannel(pool: ChannelPool?, channelOf: () -> Channel): Channel =
+        suspendCancellableCoroutine { continuation ->
+            addListener { _ ->
+                if (isSuccess) {
+                    val channel = channelOf()
+                    continuation.resume(channel) { _, _, _ -> release(channel, pool, reusable = false) }
+                } else {
+                    continuation.resumeWithException(cause())
+                }
+            }
+            continuation.invokeOnCancellation { cancel(false) }
+        }
+
+    private fun release(channel: Channel, pool: ChannelPool?, reusable: Boolean) {
+        when {
+            pool == null -> channel.close()
+            reusable -> pool.release(channel)
+            else -> channel.close().addListener { pool.release(channel) }
+        }
+    }
+}
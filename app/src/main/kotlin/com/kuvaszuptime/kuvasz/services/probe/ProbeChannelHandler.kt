@@ -0,0 +1,161 @@
+package com.kuvaszuptime.kuvasz.services.probe
+
+import com.kuvaszuptime.kuvasz.models.InvalidResponseException
+import com.kuvaszuptime.kuvasz.services.timing.ChannelTimingState
+import com.kuvaszuptime.kuvasz.services.timing.CheckConnectionStats
+import com.kuvaszuptime.kuvasz.services.timing.PendingCheckTiming
+import io.netty.buffer.ByteBuf
+import io.netty.buffer.Unpooled
+import io.netty.channel.ChannelFutureListener
+import io.netty.channel.ChannelHandlerContext
+import io.netty.channel.ChannelInboundHandlerAdapter
+import io.netty.handler.codec.PrematureChannelClosureException
+import io.netty.handler.ssl.SslHandler
+import io.netty.handler.timeout.IdleStateEvent
+import io.netty.util.ReferenceCountUtil
+import kotlinx.coroutines.CompletableDeferred
+
+/**
+ * The request of a single check that's in flight over a connection of the [NettyCheckProbe]
+ *
+ * @param headRequest Whether the request is a HEAD one, whose response never has a body
+ * @param maxBodyBytes The number of the body bytes that are read at most
+ */
+internal class ProbeExchange(
+    val request: ByteArray,
+    val timing: PendingCheckTiming,
+    val headRequest: Boolean,
+    val maxBodyBytes: Long,
+) {
+    val result = CompletableDeferred<ProbeResult>()
+
+    /**
+     * Whether the connection can be reused after the response, it's set before the [result] is completed
+     */
+    @Volatile
+    var reusable = false
+}
+
+/**
+ * Sends the requests of the checks over a connection, one at a time, and parses their responses with a
+ * [ProbeResponseParser]. Every buffer that's read from the connection is released right away, only the status and the
+ * few headers that the checks need are kept. The phases of the requests are recorded the same way as the
+ * [com.kuvaszuptime.kuvasz.services.timing.CheckTimingClientCustomizer] does for Micronaut's HTTP client.
+ *
+ * It's the last handler of the pipeline, and it's accessed only from the event loop of the connection.
+ */
+internal class ProbeChannelHandler(
+    private val timingState: ChannelTimingState,
+    private val checkConnectionStats: CheckConnectionStats,
+) : ChannelInboundHandlerAdapter() {
+
+    private val parser = ProbeResponseParser()
+    private var context: ChannelHandlerContext? = null
+    private var exchange: ProbeExchange? = null
+
+    private val writeListener = ChannelFutureListener { future ->
+        if (!future.isSuccess) fail(future.cause())
+    }
+
+    override fun handlerAdded(ctx: ChannelHandlerContext) {
+        context = ctx
+    }
+
+    /**
+     * Sends the request of the exchange, once the TLS handshake of the connection (if any) is completed, so the
+     * handshake is never part of the TTFB. It must be called on the event loop of the connection.
+     */
+    fun send(exchange: ProbeExchange) {
+        val ctx = checkNotNull(context) { "The handler is not added to a pipeline" }
+        this.exchange = exchange
+        parser.reset(exchange.headRequest, exchange.maxBodyBytes)
+        val handshake = ctx.pipeline().get(SslHandler::class.java)?.handshakeFuture()
+        if (handshake == null || handshake.isSuccess) {
+            write(ctx, exchange)
+        } else {
+            handshake.addListener { future ->
+                if (future.isSuccess) write(ctx, exchange) else fail(future.cause())
+            }
+        }
+    }
+
+    private fun write(ctx: ChannelHandlerContext, exchange: ProbeExchange) {
+        if (this.exchange !== exchange) return
+        val timing = exchange.timing
+        if (timingState.used) {
+            checkConnectionStats.recordReusedConnection()
+        } else {
+            timing.connection = timingState.connectionTiming()
+            checkConnectionStats.recordNewConnection(tls = timingState.handshakeWatched)
+        }
+        timingState.used = true
+        timing.requestWrittenAt = System.nanoTime()
+        ctx.writeAndFlush(Unpooled.wrappedBuffer(exchange.request)).addListener(writeListener)
+    }
+
+    override fun channelRead(ctx: ChannelHandlerContext, msg: Any) {
+        val current = exchange
+        try {
+            if (current == null || msg !is ByteBuf) {
+                // Nothing is expected while the connection is idle, so it can't be reused anymore
+                ctx.close()
+            } else if (parser.feed(msg)) {
+                current.timing.onResponseStarted()
+                // Whatever follows the response means that the connection is out of sync
+                complete(reusable = parser.keepAlive && !msg.isReadable)
+            } else {
+                current.timing.onResponseStarted()
+            }
+        } catch (e: InvalidResponseException) {
+            fail(e)
+            ctx.close()
+        } finally {
+            ReferenceCountUtil.release(msg)
+        }
+    }
+
+    override fun channelInactive(ctx: ChannelHandlerContext) {
+        if (exchange != null) {
+            if (parser.endOfInput()) {
+                complete(reusable = false)
+            } else {
+                fail(PrematureChannelClosureException("The connection was closed before the response was complete"))
+            }
+        }
+        ctx.fireChannelInactive()
+    }
+
+    override fun userEventTriggered(ctx: ChannelHandlerContext, evt: Any) {
+        // A pooled connection that has been idle for too long is closed, a slow response is bounded by the deadline
+        if (evt is IdleStateEvent && exchange == null) ctx.close() else ctx.fireUserEventTriggered(evt)
+    }
+
+    override fun exceptionCaught(ctx: ChannelHandlerContext, cause: Throwable) {
+        fail(cause)
+        ctx.close()
+    }
+
+    private fun PendingCheckTiming.onResponseStarted() {
+        if (parser.headComplete && responseStartedAt == 0L) responseStartedAt = System.nanoTime()
+    }
+
+    private fun complete(reusable: Boolean) {
+        val current = exchange ?: return
+        exchange = null
+        current.timing.responseCompletedAt = System.nanoTime()
+        current.reusable = reusable
+        current.result.complete(
+            ProbeResult(
+                response = ProbeHttpResponse(parser.code, parser.reason, parser.location),
+                bodyBytes = parser.bodyBytes,
+                truncated = parser.truncated,
+            )
+        )
+    }
+
+    private fun fail(cause: Throwable) {
+        val current = exchange ?: return
+        exchange = null
+        current.result.completeExceptionally(cause)
+    }
+}
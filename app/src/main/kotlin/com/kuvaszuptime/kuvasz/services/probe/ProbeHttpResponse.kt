@@ -0,0 +1,38 @@
+package com.kuvaszuptime.kuvasz.services.probe
+
+import io.micronaut.core.convert.value.MutableConvertibleValues
+import io.micronaut.core.convert.value.MutableConvertibleValuesMap
+import io.micronaut.http.HttpHeaders
+import io.micronaut.http.HttpResponse
+import io.micronaut.http.simple.SimpleHttpHeaders
+import java.util.Optional
+
+/**
+ * The response of a [NettyCheckProbe], which holds only the status and the headers that are evaluated by the checks,
+ * so the response can be evaluated the same way as the ones of Micronaut's HTTP client
+ */
+internal class ProbeHttpResponse(
+    private val code: Int,
+    private val reason: String,
+    location: String?,
+) : HttpResponse<Any> {
+
+    private val headers: HttpHeaders = SimpleHttpHeaders().apply {
+        if (location != null) add(HttpHeaders.LOCATION, location)
+    }
+
+    private var attributes: MutableConvertibleValues<Any>? = null
+
+    override fun code(): Int = code
+
+    override fun reason(): String = reason
+
+    override fun getHeaders(): HttpHeaders = headers
+
+    override fun getAttributes(): MutableConvertibleValues<Any> =
+        attributes ?: MutableConvertibleValuesMap<Any>().also { attributes = it }
+
+    override fun getBody(): Optional<Any> = Optional.empty()
+
+    override fun toString(): String = "$code $reason"
+}
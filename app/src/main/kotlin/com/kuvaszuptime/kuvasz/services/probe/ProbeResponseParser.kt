@@ -0,0 +1,398 @@
+package com.kuvaszuptime.kuvasz.services.probe
+
+import com.kuvaszuptime.kuvasz.models.InvalidResponseException
+import io.netty.buffer.ByteBuf
+import kotlin.math.min
+
+/**
+ * A minimal parser of HTTP/1.x responses, which reads only what the uptime checks need: the status line, and the
+ * `Content-Length`, `Transfer-Encoding`, `Connection` and `Location` headers. Every other header is skipped without
+ * being decoded, and the body is only counted and skipped, it's never copied.
+ *
+ * A parser belongs to a single connection, and it's reset before every request that's sent over it, so its line
+ * buffer is reused by every response of the connection. It's accessed only from the event loop of the connection.
+ */
+internal class ProbeResponseParser {
+
+    companion object {
+        private const val STATUS_CODE_OFFSET = 9
+        private const val STATUS_CODE_LENGTH = 3
+        private const val MAX_DECIMAL_DIGITS = 18
+        private const val MAX_HEX_DIGITS = 15
+        private const val DECIMAL_RADIX = 10
+        private const val HEX_RADIX = 16
+        private const val SWITCHING_PROTOCOLS = 101
+        private const val NO_CONTENT = 204
+        private const val NOT_MODIFIED = 304
+        private val INTERIM_STATUS_RANGE = 100..199
+        private val HTTP_1_PREFIX = "HTTP/1.".toAsciiBytes()
+        private val HTTP_1_0 = "HTTP/1.0".toAsciiBytes()
+        private val CONTENT_LENGTH = "content-length".toAsciiBytes()
+        private val TRANSFER_ENCODING = "transfer-encoding".toAsciiBytes()
+        private val CONNECTION = "connection".toAsciiBytes()
+        private val LOCATION = "location".toAsciiBytes()
+        private val CHUNKED = "chunked".toAsciiBytes()
+        private val CLOSE = "close".toAsciiBytes()
+        private val KEEP_ALIVE = "keep-alive".toAsciiBytes()
+        private val PARSED_HEADERS = arrayOf(CONTENT_LENGTH, TRANSFER_ENCODING, CONNECTION, LOCATION)
+
+        private fun String.toAsciiBytes() = toByteArray(Charsets.US_ASCII)
+    }
+
+    private enum class State {
+        STATUS_LINE,
+        HEADERS,
+        BODY,
+        BODY_UNTIL_CLOSE,
+        CHUNK_SIZE,
+        CHUNK_DATA,
+        CHUNK_END,
+        TRAILERS,
+        DONE,
+    }
+
+    private val line = LineBuffer()
+    private var state = State.DONE
+    private var headRequest = false
+    private var maxBodyBytes = 0L
+    private var http11 = false
+    private var contentLength = -1L
+    private var transferEncoding = false
+    private var chunked = false
+    private var connectionClose = false
+    private var connectionKeepAlive = false
+    private var remaining = 0L
+
+    var code = 0
+        private set
+
+    var reason = ""
+        private set
+
+    var location: String? = null
+        private set
+
+    /**
+     * Whether the head of the response (the status line and the headers) is parsed
+     */
+    var headComplete = false
+        private set
+
+    /**
+     * Whether the connection can be reused after the response, it's known only once the response is complete
+     */
+    var keepAlive = false
+        private set
+
+    var bodyBytes = 0L
+        private set
+
+    /**
+     * Whether the rest of the body was skipped, because it's longer than the cap, in which case the connection can't
+     * be reused
+     */
+    var truncated = false
+        private set
+
+    val isComplete: Boolean
+        get() = state == State.DONE
+
+    /**
+     * Prepares the parser for the response of the next request
+     *
+     * @param headRequest Whether the request was a HEAD one, whose response never has a body
+     * @param maxBodyBytes The number of the body bytes that are read at most, the connection of a longer body can't
+     * be reused
+     */
+    fun reset(headRequest: Boolean, maxBodyBytes: Long) {
+        this.headRequest = headRequest
+        this.maxBodyBytes = maxBodyBytes
+        resetHead()
+        bodyBytes = 0L
+        truncated = false
+        keepAlive = false
+        state = State.STATUS_LINE
+    }
+
+    /**
+     * Consumes the bytes of the response from the buffer, and leaves the bytes after the end of the response unread
+     *
+     * @return Whether the response is complete
+     * @throws InvalidResponseException If the response is not a valid HTTP/1.x response
+     */
+    fun feed(buffer: ByteBuf): Boolean {
+        while (state != State.DONE && buffer.isReadable) {
+            when (state) {
+                State.BODY, State.BODY_UNTIL_CLOSE, State.CHUNK_DATA -> skipBody(buffer)
+                else -> if (line.read(buffer)) onLine() else break
+            }
+        }
+        return state == State.DONE
+    }
+
+    /**
+     * Signals that the connection was closed by the server
+     *
+     * @return Whether the response is complete, i.e. its body was delimited by the end of the connection
+     */
+    fun endOfInput(): Boolean {
+        if (state == State.BODY_UNTIL_CLOSE) {
+            keepAlive = false
+            state = State.DONE
+        }
+        return state == State.DONE
+    }
+
+    private fun resetHead() {
+        code = 0
+        reason = ""
+        location = null
+        headComplete = false
+        http11 = false
+        contentLength = -1L
+        transferEncoding = false
+        chunked = false
+        connectionClose = false
+        connectionKeepAlive = false
+        line.clear()
+    }
+
+    private fun onLine() {
+        when (state) {
+            State.STATUS_LINE -> if (line.length > 0) parseStatusLine()
+            State.HEADERS -> if (line.length == 0) onHeadComplete() else parseHeader()
+            State.CHUNK_SIZE -> parseChunkSize()
+            State.CHUNK_END -> {
+                if (line.length != 0) throw InvalidResponseException("Invalid chunked response body")
+                state = State.CHUNK_SIZE
+            }
+            State.TRAILERS -> if (line.length == 0) state = State.DONE
+            else -> Unit
+        }
+        line.clear()
+    }
+
+    private fun parseStatusLine() {
+        val codeEnd = STATUS_CODE_OFFSET + STATUS_CODE_LENGTH
+        val valid = line.length >= codeEnd &&
+            line.regionEqualsIgnoreCase(0, HTTP_1_PREFIX.size, HTTP_1_PREFIX) &&
+            line.isWhitespace(STATUS_CODE_OFFSET - 1) &&
+            (line.length == codeEnd || line.isWhitespace(codeEnd))
+        val parsedCode = if (valid) {
+            line.parseNumber(STATUS_CODE_OFFSET, codeEnd, DECIMAL_RADIX, STATUS_CODE_LENGTH)
+        } else {
+            -1L
+        }
+        if (parsedCode < 0) throw InvalidResponseException("Invalid HTTP status line")
+        code = parsedCode.toInt()
+        http11 = !line.regionEqualsIgnoreCase(0, HTTP_1_0.size, HTTP_1_0)
+        reason = if (line.length > codeEnd) line.string(codeEnd + 1, line.length) else ""
+        state = State.HEADERS
+    }
+
+    private fun parseHeader() {
+        val colon = line.indexOf(':'.code.toByte())
+        if (colon < 0) return
+        val nameEnd = line.trimEnd(0, colon)
+        val valueStart = line.trimStart(colon + 1, line.length)
+        val valueEnd = line.trimEnd(valueStart, line.length)
+        // The other headers are not needed, so they're not even decoded
+        val name = PARSED_HEADERS.firstOrNull { line.regionEqualsIgnoreCase(0, nameEnd, it) } ?: return
+        if (line.overflow) throw InvalidResponseException("The ${String(name, Charsets.US_ASCII)} header is too long")
+        when (name) {
+            CONTENT_LENGTH -> {
+                val length = line.parseNumber(valueStart, valueEnd, DECIMAL_RADIX, MAX_DECIMAL_DIGITS)
+                if (length < 0 || (contentLength >= 0 && contentLength != length)) {
+                    throw InvalidResponseException("Invalid Content-Length header")
+                }
+                contentLength = length
+            }
+            TRANSFER_ENCODING -> {
+                transferEncoding = true
+                // Only the last coding tells whether the body is chunked
+                chunked = valueEnd - valueStart >= CHUNKED.size &&
+                    line.regionEqualsIgnoreCase(valueEnd - CHUNKED.size, valueEnd, CHUNKED)
+            }
+            CONNECTION -> {
+                connectionClose = connectionClose || line.containsToken(valueStart, valueEnd, CLOSE)
+                connectionKeepAlive = connectionKeepAlive || line.containsToken(valueStart, valueEnd, KEEP_ALIVE)
+            }
+            LOCATION -> location = line.string(valueStart, valueEnd)
+        }
+    }
+
+    private fun onHeadComplete() {
+        // The interim responses (e.g. 100 Continue) are followed by the final one
+        if (code in INTERIM_STATUS_RANGE && code != SWITCHING_PROTOCOLS) {
+            resetHead()
+            state = State.STATUS_LINE
+            return
+        }
+        headComplete = true
+        keepAlive = !connectionClose && (http11 || connectionKeepAlive)
+        when {
+            headRequest || code in INTERIM_STATUS_RANGE || code == NO_CONTENT || code == NOT_MODIFIED -> {
+                state = State.DONE
+            }
+            chunked -> state = State.CHUNK_SIZE
+            // A body without a known length is delimited by the end of the connection
+            transferEncoding || contentLength < 0 -> {
+                keepAlive = false
+                remaining = Long.MAX_VALUE
+                state = State.BODY_UNTIL_CLOSE
+            }
+            contentLength == 0L -> state = State.DONE
+            else -> {
+                remaining = contentLength
+                state = State.BODY
+            }
+        }
+        // Not even a single byte of the body is wanted
+        if (state != State.DONE && maxBodyBytes <= 0) truncate()
+    }
+
+    private fun parseChunkSize() {
+        var end = 0
+        while (end < line.length && line[end] != ';'.code.toByte() && !line.isWhitespace(end)) end++
+        val size = line.parseNumber(0, end, HEX_RADIX, MAX_HEX_DIGITS)
+        when {
+            size < 0 -> throw InvalidResponseException("Invalid chunked response body")
+            size == 0L -> state = State.TRAILERS
+            else -> {
+                remaining = size
+                state = State.CHUNK_DATA
+            }
+        }
+    }
+
+    private fun skipBody(buffer: ByteBuf) {
+        val skipped = min(buffer.readableBytes().toLong(), remaining).toInt()
+        buffer.skipBytes(skipped)
+        remaining -= skipped
+        bodyBytes += skipped
+        when {
+            bodyBytes > maxBodyBytes -> truncate()
+            remaining > 0L -> Unit
+            state == State.CHUNK_DATA -> state = State.CHUNK_END
+            else -> state = State.DONE
+        }
+    }
+
+    private fun truncate() {
+        truncated = true
+        keepAlive = false
+        state = State.DONE
+    }
+}
+
+/**
+ * The current line of the head of a response, or of a chunked body. The lines that are longer than [MAX_LINE_BYTES]
+ * are cut, which is a problem only if the checks need their value.
+ */
+private class LineBuffer {
+
+    companion object {
+        private const val MAX_LINE_BYTES = 8 * 1024
+        private const val LF = '\n'.code.toByte()
+        private const val CR = '\r'.code.toByte()
+        private const val SP = ' '.code.toByte()
+        private const val HTAB = '\t'.code.toByte()
+        private const val COMMA = ','.code.toByte()
+        private const val CASE_OFFSET = 'a' - 'A'
+    }
+
+    private val bytes = ByteArray(MAX_LINE_BYTES)
+
+    var length = 0
+        private set
+
+    var overflow = false
+        private set
+
+    operator fun get(index: Int): Byte = bytes[index]
+
+    fun clear() {
+        length = 0
+        overflow = false
+    }
+
+    /**
+     * Appends the bytes of the buffer to the line, until the end of the line
+     *
+     * @return Whether the line is complete, in which case its line terminator is consumed, but it's not appended
+     */
+    fun read(buffer: ByteBuf): Boolean {
+        val start = buffer.readerIndex()
+        val lineFeed = buffer.indexOf(start, buffer.writerIndex(), LF)
+        val available = (if (lineFeed < 0) buffer.writerIndex() else lineFeed) - start
+        val copied = min(available, MAX_LINE_BYTES - length)
+        buffer.getBytes(start, bytes, length, copied)
+        length += copied
+        overflow = overflow || copied < available
+        buffer.skipBytes(if (lineFeed < 0) available else available + 1)
+        if (lineFeed >= 0 && !overflow && length > 0 && bytes[length - 1] == CR) length--
+        return lineFeed >= 0
+    }
+
+    fun indexOf(value: Byte): Int {
+        var index = 0
+        while (index < length && bytes[index] != value) index++
+        return if (index < length) index else -1
+    }
+
+    fun isWhitespace(index: Int): Boolean = bytes[index] == SP || bytes[index] == HTAB
+
+    fun trimStart(start: Int, end: Int): Int {
+        var index = start
+        while (index < end && isWhitespace(index)) index++
+        return index
+    }
+
+    fun trimEnd(start: Int, end: Int): Int {
+        var index = end
+        while (index > start && isWhitespace(index - 1)) index--
+        return index
+    }
+
+    fun regionEqualsIgnoreCase(start: Int, end: Int, expected: ByteArray): Boolean {
+        var equal = end - start == expected.size
+        var index = 0
+        while (equal && index < expected.size) {
+            equal = bytes[start + index].lowercase() == expected[index].lowercase()
+            index++
+        }
+        return equal
+    }
+
+    /**
+     * Whether the comma-separated list between [start] and [end] contains the token, case-insensitively
+     */
+    fun containsToken(start: Int, end: Int, token: ByteArray): Boolean {
+        var found = false
+        var tokenStart = start
+        while (!found && tokenStart < end) {
+            var tokenEnd = tokenStart
+            while (tokenEnd < end && bytes[tokenEnd] != COMMA) tokenEnd++
+            found = regionEqualsIgnoreCase(trimStart(tokenStart, tokenEnd), trimEnd(tokenStart, tokenEnd), token)
+            tokenStart = tokenEnd + 1
+        }
+        return found
+    }
+
+    /**
+     * Parses a non-negative number of the given radix, or returns -1 if it's not a valid one
+     */
+    fun parseNumber(start: Int, end: Int, radix: Int, maxDigits: Int): Long {
+        var value = if (end > start && end - start <= maxDigits) 0L else -1L
+        var index = start
+        while (value >= 0 && index < end) {
+            val digit = Character.digit(bytes[index++].toInt(), radix)
+            value = if (digit < 0) -1L else value * radix + digit
+        }
+        return value
+    }
+
+    fun string(start: Int, end: Int): String = String(bytes, start, end - start, Charsets.ISO_8859_1)
+
+    private fun Byte.lowercase(): Int = toInt().let { if (it in 'A'.code..'Z'.code) it + CASE_OFFSET else it }
+}
@@ -0,0 +1,66 @@
+package com.kuvaszuptime.kuvasz.services.scheduling
+
+import jakarta.inject.Singleton
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * A point-in-time view of the initial scheduling of the monitors
+ */
+data class BootstrapStatus(
+    val ready: Boolean,
+    val totalMonitors: Int,
+    val scheduledMonitors: Int,
+    val elapsedMs: Long,
+)
+
+/**
+ * Tracks the initial scheduling of the enabled monitors. The application is considered ready only when every monitor
+ * that was enabled on startup has its checks scheduled, which can take a while if the bootstrap is ramped up.
+ */
+@Singleton
+class BootstrapProgress {
+
+    @Volatile
+    private var ready = false
+
+    @Volatile
+    private var totalMonitors = 0
+
+    @Volatile
+    private var startedAtNanos = 0L
+
+    @Volatile
+    private var completedAtNanos = 0L
+
+    private val scheduledMonitors = AtomicInteger()
+
+    fun start(totalMonitors: Int) {
+        this.totalMonitors = totalMonitors
+        scheduledMonitors.set(0)
+        startedAtNanos = System.nanoTime()
+        ready = false
+    }
+
+    fun advance(scheduledCount: Int) {
+        scheduledMonitors.addAndGet(scheduledCount)
+    }
+
+    fun complete() {
+        completedAtNanos = System.nanoTime()
+        ready = true
+    }
+
+    fun isReady(): Boolean = ready
+
+    fun status(): BootstrapStatus {
+        val isReady = ready
+        val until = if (isReady) completedAtNanos else System.nanoTime()
+        return BootstrapStatus(
+            ready = isReady,
+            totalMonitors = totalMonitors,
+            scheduledMonitors = scheduledMonitors.get(),
+            elapsedMs = if (startedAtNanos == 0L) 0 else TimeUnit.NANOSECONDS.toMillis(until - startedAtNanos),
+        )
+    }
+}
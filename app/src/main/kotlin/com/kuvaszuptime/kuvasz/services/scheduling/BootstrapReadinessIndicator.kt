@@ -0,0 +1,37 @@
+package com.kuvaszuptime.kuvasz.services.scheduling
+
+import io.micronaut.core.async.publisher.Publishers
+import io.micronaut.health.HealthStatus
+import io.micronaut.management.health.indicator.HealthIndicator
+import io.micronaut.management.health.indicator.HealthResult
+import io.micronaut.management.health.indicator.annotation.Readiness
+import jakarta.inject.Singleton
+import org.reactivestreams.Publisher
+
+/**
+ * Reports the application as not ready (through the health endpoint) while the checks of the monitors are still being
+ * scheduled on startup
+ */
+@Readiness
+@Singleton
+class BootstrapReadinessIndicator(private val bootstrapProgress: BootstrapProgress) : HealthIndicator {
+
+    companion object {
+        private const val NAME = "bootstrap"
+    }
+
+    override fun getResult(): Publisher<HealthResult> {
+        val status = bootstrapProgress.status()
+        return Publishers.just(
+            HealthResult.builder(NAME, if (status.ready) HealthStatus.UP else HealthStatus.DOWN)
+                .details(
+                    mapOf(
+                        "totalMonitors" to status.totalMonitors,
+                        "scheduledMonitors" to status.scheduledMonitors,
+                        "elapsedMs" to status.elapsedMs,
+                    )
+                )
+                .build()
+        )
+    }
+}
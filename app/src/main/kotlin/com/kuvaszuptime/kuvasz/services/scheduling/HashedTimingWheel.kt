@@ -0,0 +1,339 @@
+package com.kuvaszuptime.kuvasz.services.scheduling
+
+import org.slf4j.LoggerFactory
+import java.time.Duration
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.Delayed
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * A hashed timing wheel (Varghese & Lauck) that is driving the periodic checks of the monitors.
+ *
+ * Every scheduled task is represented by a single, re-usable [WheelTimeout] (a slot), which is linked into one of the
+ * buckets of the wheel. Inserting, re-arming and cancelling a slot are O(1) operations, and the periodic re-arming of
+ * a slot after it fired doesn't allocate anything, unlike a [java.util.concurrent.ScheduledThreadPoolExecutor], which
+ * has to re-balance its heap on every insert and cancellation.
+ *
+ * The buckets and the deadlines of the slots are only touched by the single worker thread of the wheel. Other threads
+ * are communicating with it through a lock-free queue of pending updates, which is drained at the beginning of every
+ * tick, so a slot that is re-armed by the worker can't overwrite a concurrent re-schedule. The precision of the
+ * scheduling is therefore bound to the tick duration, which is totally fine for checks that are running every few
+ * seconds at most.
+ *
+ * The tasks are executed on the worker thread, so they are expected to be non-blocking and short-lived (e.g. launching
+ * a coroutine), otherwise they would delay the processing of the next ticks.
+ *
+ * @param tickDuration The duration of a single tick, which is the precision of the scheduling
+ * @param wheelSize The number of buckets on the wheel, it's rounded up to the next power of two
+ * @param threadName The name of the worker thread
+ */
+class HashedTimingWheel(
+    tickDuration: Duration,
+    wheelSize: Int,
+    private val threadName: String = DEFAULT_THREAD_NAME,
+) : AutoCloseable {
+
+    companion object {
+        private const val DEFAULT_THREAD_NAME = "check-timing-wheel"
+        private const val MAX_WHEEL_SIZE = 1 shl 30
+        private const val MAX_PENDING_UPDATES_PER_TICK = 100_000
+        private const val NANOS_PER_MILLI = 1_000_000L
+        private const val STATE_INIT = 0
+        private const val STATE_STARTED = 1
+        private const val STATE_SHUTDOWN = 2
+        private val logger = LoggerFactory.getLogger(HashedTimingWheel::class.java)
+    }
+
+    private val tickNanos: Long = tickDuration.toNanos()
+    private val wheel: Array<Bucket>
+    private val mask: Long
+    private val pendingUpdates = ConcurrentLinkedQueue<WheelTimeout>()
+    private val workerState = AtomicInteger(STATE_INIT)
+    private val startTime: Long = System.nanoTime()
+    private val worker: Thread = Thread.ofPlatform().name(threadName).daemon(true).unstarted { runWorker() }
+
+    // Only accessed by the worker thread
+    private var tick: Long = 0
+
+    init {
+        require(tickNanos > 0) { "The tick duration must be positive, but was: $tickDuration" }
+        require(wheelSize in 1..MAX_WHEEL_SIZE) { "The wheel size must be in 1..$MAX_WHEEL_SIZE, but was: $wheelSize" }
+        val normalizedSize = Integer.highestOneBit(wheelSize - 1).shl(1).coerceAtLeast(1)
+        wheel = Array(normalizedSize) { Bucket() }
+        mask = (normalizedSize - 1).toLong()
+    }
+
+    /**
+     * Schedules a periodic task on the wheel. The first execution happens after [initialDelay], and the subsequent
+     * ones are following each other by [period], measured from the start of the previous execution.
+     *
+     * @return The slot of the task, which can be used to re-arm or cancel it later
+     */
+    fun schedule(initialDelay: Duration, period: Duration, task: WheelTask): WheelTimeout {
+        require(!initialDelay.isNegative) { "The initial delay must not be negative, but was: $initialDelay" }
+        require(period.toNanos() > 0) { "The period must be positive, but was: $period" }
+        check(workerState.get() != STATE_SHUTDOWN) { "The timing wheel ($threadName) has already been shut down" }
+        startIfNeeded()
+
+        return WheelTimeout(this, task, period.toNanos(), System.nanoTime() + initialDelay.toNanos())
+            .also { enqueue(it) }
+    }
+
+    /**
+     * The number of updates (inserts, re-arms, cancellations) that are waiting to be processed by the worker
+     */
+    fun pendingUpdateCount(): Int = pendingUpdates.size
+
+    /**
+     * Stops the worker thread. The slots that are still on the wheel won't fire anymore.
+     */
+    override fun close() {
+        if (workerState.getAndSet(STATE_SHUTDOWN) == STATE_STARTED) {
+            worker.interrupt()
+            worker.join()
+        }
+        pendingUpdates.clear()
+    }
+
+    internal fun enqueue(timeout: WheelTimeout) {
+        pendingUpdates.add(timeout)
+    }
+
+    private fun startIfNeeded() {
+        if (workerState.compareAndSet(STATE_INIT, STATE_STARTED)) {
+            worker.start()
+        }
+    }
+
+    @Suppress("TooGenericExceptionCaught")
+    private fun runWorker() {
+        while (workerState.get() == STATE_STARTED) {
+            if (!waitForNextTick()) break
+            try {
+                processPendingUpdates()
+                expireBucket(wheel[(tick and mask).toInt()])
+            } catch (ex: Exception) {
+                logger.error("Unexpected error in the timing wheel ($threadName): ${ex.message}", ex)
+            }
+            tick++
+        }
+    }
+
+    /**
+     * Sleeps until the deadline of the next tick. Returns false if the wheel was shut down in the meantime.
+     */
+    private fun waitForNextTick(): Boolean {
+        val tickDeadline = tickNanos * (tick + 1)
+        while (true) {
+            val currentTime = System.nanoTime() - startTime
+            val sleepMs = (tickDeadline - currentTime + NANOS_PER_MILLI - 1) / NANOS_PER_MILLI
+            if (sleepMs <= 0) {
+                return true
+            }
+            try {
+                Thread.sleep(sleepMs)
+            } catch (_: InterruptedException) {
+                if (workerState.get() == STATE_SHUTDOWN) {
+                    return false
+                }
+            }
+        }
+    }
+
+    private fun processPendingUpdates() {
+        repeat(MAX_PENDING_UPDATES_PER_TICK) {
+            val timeout = pendingUpdates.poll() ?: return
+            timeout.bucket?.remove(timeout)
+            timeout.applyRequestedDeadline()
+            if (!timeout.isCancelled) {
+                place(timeout)
+            }
+        }
+    }
+
+    /**
+     * Links the timeout into the bucket that corresponds to its current deadline
+     */
+    private fun place(timeout: WheelTimeout) {
+        val calculatedTicks = (timeout.deadline - startTime).coerceAtLeast(0) / tickNanos
+        timeout.remainingRounds = (calculatedTicks - tick) / wheel.size
+        // Deadlines in the past are going to the current bucket, so they'll be fired during this tick
+        val ticks = maxOf(calculatedTicks, tick)
+        wheel[(ticks and mask).toInt()].add(timeout)
+    }
+
+    /**
+     * Fires all the due timeouts of the bucket, and re-arms them for their next execution.
+     * The fired timeouts are collected into an intrusive list first, so a re-armed timeout can't be visited twice
+     * during the same tick, even if it lands in the same bucket again.
+     */
+    private fun expireBucket(bucket: Bucket) {
+        var expired: WheelTimeout? = null
+        var timeout = bucket.head
+        while (timeout != null) {
+            val next = timeout.next
+            if (timeout.isCancelled) {
+                bucket.remove(timeout)
+            } else if (timeout.remainingRounds <= 0) {
+                bucket.remove(timeout)
+                timeout.nextExpired = expired
+                expired = timeout
+            } else {
+                timeout.remainingRounds--
+            }
+            timeout = next
+        }
+
+        while (expired != null) {
+            val current: WheelTimeout = expired
+            expired = current.nextExpired
+            current.nextExpired = null
+            current.plannedExecutionNanos = current.deadline
+            current.deadline = System.nanoTime() + current.periodNanos
+            current.fire()
+            if (!current.isCancelled && current.bucket == null) {
+                place(current)
+            }
+        }
+    }
+
+    /**
+     * A doubly linked list of timeouts, making the removal of an arbitrary timeout O(1)
+     */
+    internal class Bucket {
+        var head: WheelTimeout? = null
+        private var tail: WheelTimeout? = null
+
+        fun add(timeout: WheelTimeout) {
+            timeout.bucket = this
+            timeout.prev = tail
+            timeout.next = null
+            if (tail == null) {
+                head = timeout
+            } else {
+                tail?.next = timeout
+            }
+            tail = timeout
+        }
+
+        fun remove(timeout: WheelTimeout) {
+            val prev = timeout.prev
+            val next = timeout.next
+            if (prev == null) head = next else prev.next = next
+            if (next == null) tail = prev else next.prev = prev
+            timeout.prev = null
+            timeout.next = null
+            timeout.bucket = null
+        }
+    }
+}
+
+/**
+ * A periodic task on a [HashedTimingWheel], which gets its own slot when it's fired
+ */
+fun interface WheelTask {
+    fun run(timeout: WheelTimeout)
+}
+
+/**
+ * A re-usable slot of a periodic task on a [HashedTimingWheel]
+ */
+class WheelTimeout internal constructor(
+    private val timingWheel: HashedTimingWheel,
+    private val task: WheelTask,
+    internal val periodNanos: Long,
+    initialDeadline: Long,
+) : Delayed {
+
+    companion object {
+        private const val STATE_ACTIVE = 0
+        private const val STATE_CANCELLED = 1
+        private const val NO_REQUESTED_DEADLINE = Long.MIN_VALUE
+        private val logger = LoggerFactory.getLogger(WheelTimeout::class.java)
+    }
+
+    private val state = AtomicInteger(STATE_ACTIVE)
+
+    /**
+     * The absolute deadline of the next execution, based on [System.nanoTime]. It's only written by the worker thread
+     * of the wheel.
+     */
+    @Volatile
+    internal var deadline: Long = initialDeadline
+
+    /**
+     * The deadline that was requested by [reschedule], it's applied by the worker thread, when it processes the update
+     */
+    private val requestedDeadline = AtomicLong(NO_REQUESTED_DEADLINE)
+
+    /**
+     * The deadline (based on [System.nanoTime]) of the execution that was fired last, i.e. when it was planned to
+     * happen. Comparing it to the actual start of the work reveals how late the execution was.
+     */
+    @Volatile
+    var plannedExecutionNanos: Long = initialDeadline
+        internal set
+
+    // Only accessed by the worker thread of the wheel
+    internal var remainingRounds: Long = 0
+    internal var bucket: HashedTimingWheel.Bucket? = null
+    internal var prev: WheelTimeout? = null
+    internal var next: WheelTimeout? = null
+    internal var nextExpired: WheelTimeout? = null
+
+    val isCancelled: Boolean
+        get() = state.get() == STATE_CANCELLED
+
+    /**
+     * A periodic task is only done if it was cancelled
+     */
+    val isDone: Boolean
+        get() = isCancelled
+
+    /**
+     * Cancels the task, it won't be fired anymore. The slot is unlinked from the wheel during the next tick.
+     *
+     * @return true if the task was active before
+     */
+    fun cancel(): Boolean =
+        state.compareAndSet(STATE_ACTIVE, STATE_CANCELLED).also { wasActive ->
+            if (wasActive) timingWheel.enqueue(this)
+        }
+
+    /**
+     * Re-arms the slot, so its next execution will happen after the given delay, instead of the original one.
+     *
+     * @return false if the task was already cancelled
+     */
+    fun reschedule(delay: Duration): Boolean {
+        if (isCancelled) return false
+        requestedDeadline.set(System.nanoTime() + delay.toNanos())
+        timingWheel.enqueue(this)
+        return true
+    }
+
+    override fun getDelay(unit: TimeUnit): Long {
+        val requested = requestedDeadline.get()
+        val nextDeadline = if (requested != NO_REQUESTED_DEADLINE) requested else deadline
+        return unit.convert(nextDeadline - System.nanoTime(), TimeUnit.NANOSECONDS)
+    }
+
+    override fun compareTo(other: Delayed): Int =
+        getDelay(TimeUnit.NANOSECONDS).compareTo(other.getDelay(TimeUnit.NANOSECONDS))
+
+    internal fun applyRequestedDeadline() {
+        val requested = requestedDeadline.getAndSet(NO_REQUESTED_DEADLINE)
+        if (requested != NO_REQUESTED_DEADLINE) deadline = requested
+    }
+
+    @Suppress("TooGenericExceptionCaught")
+    internal fun fire() {
+        try {
+            task.run(this)
+        } catch (ex: Exception) {
+            logger.error("A task scheduled on the timing wheel failed: ${ex.message}", ex)
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.kuvaszuptime.kuvasz.services.scheduling
+
+import com.kuvaszuptime.kuvasz.models.CheckType
+import jakarta.inject.Singleton
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Keeps track of the number of checks that are currently being executed, per check type
+ */
+@Singleton
+class InFlightCheckCounter {
+
+    private val inFlight: Map<CheckType, AtomicInteger> = CheckType.entries.associateWith { AtomicInteger() }
+    private val started: Map<CheckType, AtomicLong> = CheckType.entries.associateWith { AtomicLong() }
+
+    /**
+     * Runs the given check and counts it as in-flight until it's finished, regardless of its outcome
+     */
+    suspend fun <T> track(checkType: CheckType, check: suspend () -> T): T {
+        started.getValue(checkType).incrementAndGet()
+        val counter = inFlight.getValue(checkType)
+        counter.incrementAndGet()
+        return try {
+            check()
+        } finally {
+            counter.decrementAndGet()
+        }
+    }
+
+    /**
+     * The number of checks of the given type that are being executed right now
+     */
+    fun inFlight(checkType: CheckType): Int = inFlight.getValue(checkType).get()
+
+    /**
+     * The number of checks of the given type that were started since the application is running
+     */
+    fun started(checkType: CheckType): Long = started.getValue(checkType).get()
+}
@@ -0,0 +1,210 @@
+package com.kuvaszuptime.kuvasz.services.scheduling
+
+import jakarta.inject.Singleton
+import java.time.Duration
+import java.time.Instant
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * The phase of a monitor's uptime check, i.e. the second within its check interval when the check should happen.
+ * The phases are aligned to the epoch, so the same phase means the same wall-clock seconds after a restart too.
+ */
+data class PhaseAssignment(
+    val interval: Int,
+    val phase: Int,
+)
+
+/**
+ * Another monitor's phase that had to be changed to keep the placement balanced
+ */
+data class PhaseMove(
+    val monitorId: Long,
+    val assignment: PhaseAssignment,
+)
+
+data class PhasePlan(
+    val assignment: PhaseAssignment,
+    val moves: List<PhaseMove>,
+)
+
+/**
+ * Spreads the uptime checks of the monitors deterministically and evenly across their check interval, instead of
+ * picking random initial delays, which are clustering a lot if there are thousands of monitors.
+ *
+ * The monitors with the same interval are sharing the same group of slots (one slot per second). A monitor's preferred
+ * slot is derived from the hash of its ID, but it's only used if it has no more monitors than the least occupied slot
+ * of the group, otherwise the next such slot is picked. This way the difference between the occupancy of any two slots
+ * of a group is at most one. When a monitor is released and the difference would grow to two, a monitor of a fully
+ * occupied slot is moved to the vacated one.
+ */
+@Singleton
+class PhasePlanner {
+
+    companion object {
+        private const val MILLIS_PER_SECOND = 1000L
+    }
+
+    private val groups = HashMap<Int, PhaseGroup>()
+    private val assignments = ConcurrentHashMap<Long, PhaseAssignment>()
+
+    /**
+     * Returns the phase of the monitor. An existing assignment is kept as long as the interval is the same, otherwise
+     * the monitor is re-planned, which might move other monitors too.
+     */
+    @Synchronized
+    fun plan(monitorId: Long, interval: Int): PhasePlan {
+        require(interval > 0) { "The check interval must be positive, but was: $interval" }
+        assignments[monitorId]?.let { existing ->
+            if (existing.interval == interval) return PhasePlan(existing, emptyList())
+        }
+        val moves = release(monitorId)
+        val group = groups.getOrPut(interval) { PhaseGroup(interval) }
+        val assignment = PhaseAssignment(interval, group.add(monitorId, preferredSlot(monitorId, interval)))
+        assignments[monitorId] = assignment
+
+        return PhasePlan(assignment, moves)
+    }
+
+    /**
+     * Frees up the slot of the monitor, and returns the monitors that had to be moved to keep the balance
+     */
+    @Synchronized
+    fun release(monitorId: Long): List<PhaseMove> {
+        val assignment = assignments.remove(monitorId) ?: return emptyList()
+        val group = groups.getValue(assignment.interval)
+        val moves = group.remove(monitorId, assignment.phase)?.let { (movedMonitorId, newPhase) ->
+            val newAssignment = PhaseAssignment(assignment.interval, newPhase)
+            assignments[movedMonitorId] = newAssignment
+            listOf(PhaseMove(movedMonitorId, newAssignment))
+        }.orEmpty()
+        if (group.isEmpty()) groups.remove(assignment.interval)
+
+        return moves
+    }
+
+    @Synchronized
+    fun clear() {
+        groups.clear()
+        assignments.clear()
+    }
+
+    fun getAssignment(monitorId: Long): PhaseAssignment? = assignments[monitorId]
+
+    /**
+     * The delay until the next occurrence of the monitor's phase, or null if the monitor doesn't have a phase
+     */
+    fun delayUntilNextPhase(monitorId: Long, now: Instant = Instant.now()): Duration? =
+        assignments[monitorId]?.let { delayUntilNextPhase(it, now) }
+
+    /**
+     * The delay until the next occurrence of the phase, strictly after now. The phases are aligned to the epoch.
+     */
+    fun delayUntilNextPhase(assignment: PhaseAssignment, now: Instant = Instant.now()): Duration {
+        val intervalMs = assignment.interval * MILLIS_PER_SECOND
+        val delayMs = Math.floorMod(assignment.phase * MILLIS_PER_SECOND - now.toEpochMilli(), intervalMs)
+        return Duration.ofMillis(if (delayMs == 0L) intervalMs else delayMs)
+    }
+
+    /**
+     * The number of the uptime checks that are planned for the next [seconds] seconds, second by second
+     */
+    @Synchronized
+    fun plannedChecksPerSecond(from: Instant, seconds: Int): IntArray {
+        val result = IntArray(seconds)
+        val fromSecond = from.epochSecond
+        groups.values.forEach { group ->
+            for (i in 0 until seconds) {
+                result[i] += group.occupancy(Math.floorMod(fromSecond + i, group.interval))
+            }
+        }
+        return result
+    }
+
+    /**
+     * Mixing the bits of the ID (MurmurHash3's finalizer), because the IDs are sequential
+     */
+    @Suppress("MagicNumber")
+    private fun preferredSlot(monitorId: Long, interval: Int): Int {
+        var hash = monitorId
+        hash = hash xor (hash ushr 33)
+        hash *= -0xae502812aa7333L
+        hash = hash xor (hash ushr 33)
+        hash *= -0x3b314601e57a13adL
+        hash = hash xor (hash ushr 33)
+        return Math.floorMod(hash, interval)
+    }
+
+    /**
+     * The slots of the monitors with the same check interval. It keeps track of the number of slots on each occupancy
+     * level, so the least and the most occupied levels are always known without scanning all the slots.
+     */
+    private class PhaseGroup(val interval: Int) {
+        private val slots = arrayOfNulls<LinkedHashSet<Long>>(interval)
+        private val slotsPerLevel = HashMap<Int, Int>().apply { put(0, interval) }
+        private var minLevel = 0
+        private var maxLevel = 0
+        private var size = 0
+
+        fun isEmpty() = size == 0
+
+        fun occupancy(slot: Int): Int = slots[slot]?.size ?: 0
+
+        /**
+         * Adds the monitor to its preferred slot, or to the next least occupied one, and returns the chosen slot
+         */
+        fun add(monitorId: Long, preferredSlot: Int): Int {
+            val slot = nextSlotOnLevel(preferredSlot, minLevel)
+            addToSlot(monitorId, slot)
+            return slot
+        }
+
+        /**
+         * Removes the monitor from its slot, and moves another monitor there if it's necessary to keep the balance
+         *
+         * @return The moved monitor and its new slot
+         */
+        fun remove(monitorId: Long, slot: Int): Pair<Long, Int>? {
+            removeFromSlot(monitorId, slot)
+            if (maxLevel - minLevel <= 1) return null
+
+            val donorSlot = nextSlotOnLevel(slot, maxLevel)
+            val movedMonitorId = slots[donorSlot]!!.first()
+            removeFromSlot(movedMonitorId, donorSlot)
+            addToSlot(movedMonitorId, slot)
+            return movedMonitorId to slot
+        }
+
+        private fun nextSlotOnLevel(fromSlot: Int, level: Int): Int {
+            var slot = fromSlot
+            while (occupancy(slot) != level) {
+                slot = (slot + 1) % interval
+            }
+            return slot
+        }
+
+        private fun addToSlot(monitorId: Long, slot: Int) {
+            val members = slots[slot] ?: LinkedHashSet<Long>().also { slots[slot] = it }
+            val level = members.size
+            members.add(monitorId)
+            changeLevel(from = level, to = level + 1)
+            size++
+        }
+
+        private fun removeFromSlot(monitorId: Long, slot: Int) {
+            val members = slots[slot]!!
+            val level = members.size
+            members.remove(monitorId)
+            if (members.isEmpty()) slots[slot] = null
+            changeLevel(from = level, to = level - 1)
+            size--
+        }
+
+        private fun changeLevel(from: Int, to: Int) {
+            slotsPerLevel.merge(from, -1, Int::plus)
+            slotsPerLevel.merge(to, 1, Int::plus)
+            if (slotsPerLevel[from] == 0) slotsPerLevel.remove(from)
+            minLevel = minOf(minLevel, to).let { if (slotsPerLevel.containsKey(it)) it else it + 1 }
+            maxLevel = maxOf(maxLevel, to).let { if (slotsPerLevel.containsKey(it)) it else it - 1 }
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.kuvaszuptime.kuvasz.services.scheduling
+
+import arrow.core.Either
+import com.kuvaszuptime.kuvasz.config.AppConfig
+import com.kuvaszuptime.kuvasz.jooq.enums.SslStatus
+import com.kuvaszuptime.kuvasz.models.CertificateInfo
+import com.kuvaszuptime.kuvasz.models.SSLValidationError
+import io.micronaut.scheduling.annotation.Scheduled
+import jakarta.inject.Singleton
+import java.time.Duration
+import java.time.Instant
+import java.time.OffsetDateTime
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Plans the SSL checks of the monitors.
+ *
+ * Every monitor has a fixed second of the day (in UTC), its slot, that is derived from its ID with the golden ratio,
+ * so the slots of the consecutive IDs are spread evenly over the day, and they're the same after a restart too. The
+ * SSL checks are happening in their monitor's slot, except for the ones that have to be repeated sooner:
+ *
+ * - the certificates that were found invalid are checked again after [INVALID_RECHECK_DELAY]
+ * - the certificates that will expire within the monitor's expiry threshold are checked again after
+ *   [EXPIRING_RECHECK_DELAY]
+ * - the valid certificates are checked again after a quarter of the time that is left until they reach their expiry
+ *   threshold, rounded down to whole days, but at least after a day, and at most after
+ *   [AppConfig.sslCheckMaxIntervalDays]
+ *
+ * After a restart, the first checks of the invalid and the expiring certificates are planned by their last persisted
+ * status the same way, counted from their last check, so they don't have to wait for their slot.
+ *
+ * It also counts the SSL checks that were planned for and executed in every hour, by their planned time, so a gap
+ * between the two reveals the checks that couldn't be executed in time.
+ */
+@Singleton
+class SSLCheckPlanner(private val appConfig: AppConfig) {
+
+    companion object {
+        val INVALID_RECHECK_DELAY: Duration = Duration.ofHours(1)
+        val EXPIRING_RECHECK_DELAY: Duration = Duration.ofHours(6)
+        private val DAY = Duration.ofDays(1)
+        private val HOUR = Duration.ofHours(1)
+        private const val GOLDEN_RATIO_FRACTION = 0.6180339887498949
+        private const val EXPIRY_MARGIN_DIVISOR = 4L
+    }
+
+    private val plannedRuns = ConcurrentHashMap<Long, Long>()
+    private val plannedPerHour = ConcurrentHashMap<Long, AtomicLong>()
+    private val executedPerHour = ConcurrentHashMap<Long, AtomicLong>()
+
+    /**
+     * The second of the day (in UTC) when the SSL checks of the monitor should happen
+     */
+    fun slotOf(monitorId: Long): Duration =
+        Duration.ofSeconds(((monitorId * GOLDEN_RATIO_FRACTION).mod(1.0) * DAY.toSeconds()).toLong())
+
+    /**
+     * Plans the first SSL check of the monitor to the next occurrence of its slot, or after the given delay, if it's
+     * sooner
+     *
+     * @return The delay of the check
+     */
+    fun planFirst(monitorId: Long, maxDelay: Duration? = null, now: Instant = Instant.now()): Duration {
+        val untilSlot = delayUntilSlot(monitorId, now, minDelay = Duration.ZERO)
+        return plan(monitorId, maxDelay?.takeIf { it < untilSlot } ?: untilSlot, now)
+    }
+
+    /**
+     * The delay of the monitor's first SSL check after a restart, if its certificate has to be checked again sooner
+     * than its slot, based on the status of its last check
+     *
+     * @param lastStatus The status of the monitor's ongoing SSL event
+     * @param lastCheckedAt When the ongoing SSL event was last updated by a check
+     * @return The delay of the recheck, or null if the check can wait for the slot
+     */
+    fun recheckDelayOf(lastStatus: SslStatus, lastCheckedAt: OffsetDateTime, now: Instant = Instant.now()): Duration? {
+        val recheckDelay = when (lastStatus) {
+            SslStatus.INVALID -> INVALID_RECHECK_DELAY
+            SslStatus.WILL_EXPIRE -> EXPIRING_RECHECK_DELAY
+            SslStatus.VALID -> return null
+        }
+        return Duration.between(now, lastCheckedAt.toInstant().plus(recheckDelay)).coerceAtLeast(Duration.ZERO)
+    }
+
+    /**
+     * Plans the next SSL check of the monitor based on the result of its last one. The checks that were skipped
+     * (e.g. because the monitor was down) are planned to the next day.
+     *
+     * @param result The result of the last check, or null if it was skipped
+     * @param expiryThresholdDays The number of days before the expiry, when the monitor should be notified
+     * @return The delay of the check
+     */
+    fun planNext(
+        monitorId: Long,
+        result: Either<SSLValidationError, CertificateInfo>?,
+        expiryThresholdDays: Int,
+        now: Instant = Instant.now(),
+    ): Duration {
+        val delay = when (result) {
+            is Either.Left -> INVALID_RECHECK_DELAY
+            is Either.Right -> {
+                val marginDays = Duration.between(
+                    now,
+                    result.value.validTo.toInstant().minus(Duration.ofDays(expiryThresholdDays.toLong())),
+                ).toDays()
+                if (marginDays < 0) {
+                    EXPIRING_RECHECK_DELAY
+                } else {
+                    val intervalDays = (marginDays / EXPIRY_MARGIN_DIVISOR)
+                        .coerceIn(1L, appConfig.sslCheckMaxIntervalDays.toLong())
+                    delayUntilSlot(monitorId, now, minDelay = DAY.multipliedBy(intervalDays).minus(DAY.dividedBy(2)))
+                }
+            }
+            else -> delayUntilSlot(monitorId, now, minDelay = DAY.dividedBy(2))
+        }
+        return plan(monitorId, delay, now)
+    }
+
+    /**
+     * Counts the execution of the monitor's planned check in the hour when it was planned to happen
+     */
+    fun executed(monitorId: Long) {
+        val plannedAt = plannedRuns.remove(monitorId) ?: return
+        executedPerHour.computeIfAbsent(hourOf(plannedAt)) { AtomicLong() }.incrementAndGet()
+    }
+
+    /**
+     * Forgets the planned check of the monitor, if it's still ahead, e.g. because the monitor was deleted
+     */
+    fun release(monitorId: Long, now: Instant = Instant.now()) {
+        plannedRuns.remove(monitorId)?.let { unplan(it, now) }
+    }
+
+    /**
+     * The number of the SSL checks that were planned for the hour of the given time
+     */
+    fun plannedInHourOf(time: Instant): Long = plannedPerHour[hourOf(time.toEpochMilli())]?.get() ?: 0
+
+    /**
+     * The number of the SSL checks that were planned for the hour of the given time, and were executed
+     */
+    fun executedInHourOf(time: Instant): Long = executedPerHour[hourOf(time.toEpochMilli())]?.get() ?: 0
+
+    /**
+     * Evicts the counts of the hours that are over for more than a day
+     */
+    @Scheduled(fixedDelay = "1h")
+    fun evictPastHours() {
+        evictPastHours(Instant.now())
+    }
+
+    internal fun evictPastHours(now: Instant) {
+        val oldestKept = hourOf(now.minus(DAY).toEpochMilli())
+        plannedPerHour.keys.removeIf { it < oldestKept }
+        executedPerHour.keys.removeIf { it < oldestKept }
+    }
+
+    private fun plan(monitorId: Long, delay: Duration, now: Instant): Duration {
+        val plannedAt = now.plus(delay).toEpochMilli()
+        plannedRuns.put(monitorId, plannedAt)?.let { unplan(it, now) }
+        plannedPerHour.computeIfAbsent(hourOf(plannedAt)) { AtomicLong() }.incrementAndGet()
+        return delay
+    }
+
+    // A replaced or released check is counted as planned only if its time has already come
+    private fun unplan(plannedAt: Long, now: Instant) {
+        if (plannedAt > now.toEpochMilli()) plannedPerHour[hourOf(plannedAt)]?.decrementAndGet()
+    }
+
+    /**
+     * The delay until the first occurrence of the monitor's slot, that is at least the given delay away
+     */
+    private fun delayUntilSlot(monitorId: Long, now: Instant, minDelay: Duration): Duration {
+        val earliest = now.plus(minDelay)
+        val startOfDay = Instant.ofEpochSecond(earliest.epochSecond - earliest.epochSecond.mod(DAY.toSeconds()))
+        val slot = startOfDay.plus(slotOf(monitorId)).let { if (it < earliest) it.plus(DAY) else it }
+        return Duration.between(now, slot)
+    }
+
+    private fun hourOf(epochMilli: Long): Long = epochMilli / HOUR.toMillis()
+}
@@ -0,0 +1,18 @@
+package com.kuvaszuptime.kuvasz.services.scheduling
+
+import com.kuvaszuptime.kuvasz.config.AppConfig
+import io.micronaut.context.annotation.Bean
+import io.micronaut.context.annotation.Factory
+import jakarta.inject.Singleton
+import java.time.Duration
+
+@Factory
+class TimingWheelFactory {
+
+    @Singleton
+    @Bean(preDestroy = "close")
+    fun provideCheckTimingWheel(appConfig: AppConfig) = HashedTimingWheel(
+        tickDuration = Duration.ofMillis(appConfig.schedulerTickMs),
+        wheelSize = appConfig.schedulerWheelSize,
+    )
+}
@@ -0,0 +1,80 @@
+package com.kuvaszuptime.kuvasz.services.socket
+
+import com.kuvaszuptime.kuvasz.config.AppConfig
+import com.kuvaszuptime.kuvasz.config.CheckConnectionCloseStrategy
+import com.kuvaszuptime.kuvasz.services.UptimeCheckEventLoopGroup
+import io.micronaut.context.event.BeanCreatedEvent
+import io.micronaut.context.event.BeanCreatedEventListener
+import io.micronaut.http.client.netty.NettyClientCustomizer
+import io.micronaut.http.client.netty.NettyClientCustomizer.ChannelRole
+import io.netty.bootstrap.Bootstrap
+import io.netty.channel.Channel
+import io.netty.channel.ChannelHandlerContext
+import io.netty.channel.ChannelOption
+import io.netty.channel.ChannelOutboundHandlerAdapter
+import io.netty.channel.ChannelPromise
+import jakarta.inject.Singleton
+import java.net.InetSocketAddress
+import java.net.SocketAddress
+
+/**
+ * Applies the socket policy of the uptime checks to the connections that are opened on the `uptime-check` event loop
+ * group, so the other clients are not affected:
+ * - TCP_NODELAY, see [AppConfig.checkTcpNoDelay]
+ * - SO_LINGER, according to the [CheckConnectionCloseStrategy]
+ * - the local address of the connection, which is picked from the [LocalAddressPool], if it's configured
+ *
+ * The bootstrap is cloned for every connection, so the options are set per connection, but the local address can be
+ * picked only when the target is already resolved, i.e. when the channel connects.
+ */
+@Singleton
+class CheckSocketPolicyCustomizer(
+    private val appConfig: AppConfig,
+    private val localAddressPool: LocalAddressPool,
+    private val uptimeCheckEventLoopGroup: UptimeCheckEventLoopGroup,
+) : NettyClientCustomizer, BeanCreatedEventListener<NettyClientCustomizer.Registry> {
+
+    companion object {
+        private const val LOCAL_ADDRESS_HANDLER = "kuvasz-local-address"
+    }
+
+    private val localAddressCustomizer = object : NettyClientCustomizer {
+        override fun specializeForChannel(channel: Channel, role: ChannelRole): NettyClientCustomizer {
+            if (role == ChannelRole.CONNECTION) {
+                channel.pipeline().addFirst(LOCAL_ADDRESS_HANDLER, LocalAddressHandler(localAddressPool))
+            }
+            return this
+        }
+    }
+
+    override fun onCreated(event: BeanCreatedEvent<NettyClientCustomizer.Registry>): NettyClientCustomizer.Registry {
+        event.bean.register(this)
+        return event.bean
+    }
+
+    override fun specializeForBootstrap(bootstrap: Bootstrap): NettyClientCustomizer {
+        if (bootstrap.config().group() !== uptimeCheckEventLoopGroup.group) return this
+        bootstrap.option(ChannelOption.TCP_NODELAY, appConfig.checkTcpNoDelay)
+        if (appConfig.checkConnectionCloseStrategy == CheckConnectionCloseStrategy.RESET) {
+            bootstrap.option(ChannelOption.SO_LINGER, 0)
+        }
+        return if (localAddressPool.isEmpty) this else localAddressCustomizer
+    }
+}
+
+/**
+ * Binds the connection to the next local address of the pool, unless it's already bound to a specific one
+ */
+internal class LocalAddressHandler(private val localAddressPool: LocalAddressPool) : ChannelOutboundHandlerAdapter() {
+
+    override fun connect(
+        ctx: ChannelHandlerContext,
+        remoteAddress: SocketAddress?,
+        localAddress: SocketAddress?,
+        promise: ChannelPromise?,
+    ) {
+        val boundAddress = localAddress ?: (remoteAddress as? InetSocketAddress)?.let { localAddressPool.next(it) }
+        ctx.connect(remoteAddress, boundAddress, promise)
+        ctx.pipeline().remove(this)
+    }
+}
@@ -0,0 +1,59 @@
+package com.kuvaszuptime.kuvasz.services.socket
+
+import com.kuvaszuptime.kuvasz.config.AppConfig
+import io.netty.util.NetUtil
+import jakarta.inject.Singleton
+import java.net.Inet4Address
+import java.net.InetAddress
+import java.net.InetSocketAddress
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * The local addresses that the connections of the uptime checks are bound to, see [AppConfig.checkLocalAddresses].
+ * An ephemeral port has to be unique only per source address (and target), so spreading the connections over several
+ * source addresses multiplies the number of the ephemeral ports that can be used at the same time. The addresses are
+ * picked in a round-robin fashion, separately for IPv4 and IPv6, since a connection can be bound only to an address
+ * of the same family as its target.
+ */
+@Singleton
+class LocalAddressPool(appConfig: AppConfig) {
+
+    private val ipv4Addresses: Array<InetAddress>
+    private val ipv6Addresses: Array<InetAddress>
+    private val ipv4Cursor = AtomicInteger()
+    private val ipv6Cursor = AtomicInteger()
+
+    init {
+        val addresses = appConfig.checkLocalAddresses
+            .map { it.trim() }
+            .filter { it.isNotEmpty() }
+            .distinct()
+            .map { literal ->
+                // Only literals are accepted, so the addresses are never resolved
+                requireNotNull(NetUtil.createInetAddressFromIpAddressString(literal)) {
+                    "Invalid local address for the uptime checks, it should be an IP address: $literal"
+                }
+            }
+        ipv4Addresses = addresses.filterIsInstance<Inet4Address>().toTypedArray()
+        ipv6Addresses = addresses.filterNot { it is Inet4Address }.toTypedArray()
+    }
+
+    val isEmpty: Boolean
+        get() = ipv4Addresses.isEmpty() && ipv6Addresses.isEmpty()
+
+    /**
+     * Returns the local address (with an ephemeral port) that the next connection to the given target should be
+     * bound to, or null if the OS should pick it, i.e. there isn't any address of the target's family, or the target
+     * is not resolved (e.g. it's resolved by a proxy)
+     */
+    fun next(remoteAddress: InetSocketAddress): InetSocketAddress? {
+        val target = remoteAddress.address ?: return null
+        val (addresses, cursor) = if (target is Inet4Address) {
+            ipv4Addresses to ipv4Cursor
+        } else {
+            ipv6Addresses to ipv6Cursor
+        }
+        if (addresses.isEmpty()) return null
+        return InetSocketAddress(addresses[Math.floorMod(cursor.getAndIncrement(), addresses.size)], 0)
+    }
+}
@@ -0,0 +1,37 @@
+package com.kuvaszuptime.kuvasz.services.socket
+
+import io.micronaut.http.client.exceptions.HttpClientResponseException
+import java.net.BindException
+
+/**
+ * The messages of the socket errors (with the NIO and the native transports too) that are caused by the resources of
+ * the prober, and not by the target
+ */
+private val LOCAL_SOCKET_ERROR_MESSAGES = listOf(
+    // EADDRNOTAVAIL: the ephemeral ports are exhausted, or the local address is not available
+    "Cannot assign requested address",
+    // EADDRINUSE: the local address and port are already in use
+    "Address already in use",
+    // EMFILE, ENFILE: the prober ran out of file descriptors
+    "Too many open files",
+    // ENOBUFS: the kernel ran out of socket buffers
+    "No buffer space available",
+)
+
+private const val MAX_CAUSE_DEPTH = 10
+
+/**
+ * Whether the error (or any of its causes) is a local socket error, i.e. the prober couldn't open a connection because
+ * of its own resources (e.g. it ran out of ephemeral ports or file descriptors), so it says nothing about the target.
+ * The connection errors are wrapped by Netty and the HTTP client, so the whole chain of the causes is inspected. A
+ * response is never a local error, even if its reason looks like one.
+ */
+fun Throwable.isLocalSocketError(): Boolean {
+    if (this is HttpClientResponseException) return false
+    return generateSequence(this) { error -> error.cause?.takeIf { it !== error } }
+        .take(MAX_CAUSE_DEPTH)
+        .any { error -> error is BindException || error.message?.let(::isLocalSocketErrorMessage) == true }
+}
+
+private fun isLocalSocketErrorMessage(message: String): Boolean =
+    LOCAL_SOCKET_ERROR_MESSAGES.any { message.contains(it) }
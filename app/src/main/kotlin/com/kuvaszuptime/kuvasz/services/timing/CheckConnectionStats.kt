@@ -0,0 +1,49 @@
+package com.kuvaszuptime.kuvasz.services.timing
+
+import jakarta.inject.Singleton
+import java.util.concurrent.atomic.LongAdder
+
+/**
+ * Counts the connections that the requests of the uptime checks were sent over, i.e. whether a request needed a new
+ * connection (and a TLS handshake), or it was sent over a pooled or a multiplexed (HTTP/2) one. It's fed by the
+ * [CheckTimingClientCustomizer], so only the timed requests of the checks are counted. The checks that couldn't even
+ * open a connection, because of a local socket error of the prober (e.g. ephemeral port exhaustion) are counted too.
+ */
+@Singleton
+class CheckConnectionStats {
+
+    private val newConnections = LongAdder()
+    private val reusedConnections = LongAdder()
+    private val tlsHandshakes = LongAdder()
+    private val localSocketErrors = LongAdder()
+
+    internal fun recordNewConnection(tls: Boolean) {
+        newConnections.increment()
+        if (tls) tlsHandshakes.increment()
+    }
+
+    internal fun recordReusedConnection() {
+        reusedConnections.increment()
+    }
+
+    internal fun recordLocalSocketError() {
+        localSocketErrors.increment()
+    }
+
+    fun newConnectionCount(): Long = newConnections.sum()
+
+    fun reusedConnectionCount(): Long = reusedConnections.sum()
+
+    fun tlsHandshakeCount(): Long = tlsHandshakes.sum()
+
+    fun localSocketErrorCount(): Long = localSocketErrors.sum()
+
+    /**
+     * The ratio of the requests that were sent over an already established connection
+     */
+    fun reuseRatio(): Double {
+        val reused = reusedConnectionCount()
+        val total = reused + newConnectionCount()
+        return if (total == 0L) 0.0 else reused.toDouble() / total
+    }
+}
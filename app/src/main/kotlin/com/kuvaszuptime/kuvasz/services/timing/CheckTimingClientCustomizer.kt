@@ -0,0 +1,212 @@
+package com.kuvaszuptime.kuvasz.services.timing
+
+import com.kuvaszuptime.kuvasz.services.tls.PeerCertificateCache
+import io.micronaut.context.event.BeanCreatedEvent
+import io.micronaut.context.event.BeanCreatedEventListener
+import io.micronaut.http.client.netty.NettyClientCustomizer
+import io.micronaut.http.client.netty.NettyClientCustomizer.ChannelRole
+import io.netty.channel.Channel
+import io.netty.channel.ChannelDuplexHandler
+import io.netty.channel.ChannelHandler
+import io.netty.channel.ChannelHandlerContext
+import io.netty.channel.ChannelPromise
+import io.netty.handler.codec.http.HttpClientCodec
+import io.netty.handler.codec.http.HttpRequest
+import io.netty.handler.codec.http.HttpResponse
+import io.netty.handler.codec.http.HttpUtil
+import io.netty.handler.codec.http.LastHttpContent
+import io.netty.handler.codec.http2.Http2StreamFrameToHttpObjectCodec
+import io.netty.handler.ssl.SslHandler
+import jakarta.inject.Singleton
+import java.net.SocketAddress
+
+/**
+ * Captures the phases of the requests that are sent by the uptime checks from the Netty channel pipeline, based on
+ * [System.nanoTime]:
+ * - DNS: from the registration of the channel until it starts to connect to the resolved address
+ * - connect: until the channel becomes active
+ * - TLS: until the handshake is completed, the certificate chain of the handshake is recorded in the
+ *   [PeerCertificateCache] too
+ * - TTFB: from writing the request until the head of the response is decoded
+ * - transfer: until the last content of the response is decoded
+ *
+ * The connection related phases are attributed only to the first request of the connection, the subsequent ones
+ * (including the requests that are multiplexed over an HTTP/2 connection) are counted as reused in the
+ * [CheckConnectionStats]. The time spent waiting for a pooled connection is not part of any phase. Only the requests
+ * that carry the [CheckTimingRecorder.TIMING_HEADER] are timed, the other clients' requests are left intact.
+ *
+ * The connection of a request that carries the [CLOSE_CONNECTION_HEADER] is closed after its response, even if the
+ * server would keep it alive, so it's never returned to the pool. It's needed, because the `Connection` header of the
+ * requests is managed by the client itself.
+ */
+@Singleton
+class CheckTimingClientCustomizer(
+    private val checkTimingRecorder: CheckTimingRecorder,
+    private val checkConnectionStats: CheckConnectionStats,
+    private val peerCertificateCache: PeerCertificateCache,
+) : NettyClientCustomizer, BeanCreatedEventListener<NettyClientCustomizer.Registry> {
+
+    companion object {
+        const val CLOSE_CONNECTION_HEADER = "X-Kuvasz-Close-Connection"
+        private const val CONNECTION_HANDLER = "kuvasz-connection-timing"
+        private const val REQUEST_HANDLER = "kuvasz-request-timing"
+    }
+
+    override fun onCreated(event: BeanCreatedEvent<NettyClientCustomizer.Registry>): NettyClientCustomizer.Registry {
+        event.bean.register(this)
+        return event.bean
+    }
+
+    override fun specializeForChannel(channel: Channel, role: ChannelRole): NettyClientCustomizer {
+        if (role != ChannelRole.CONNECTION) return this
+        val state = ChannelTimingState(registeredAt = System.nanoTime())
+        // At the head of the pipeline, so it sees the connection attempt, before the address is resolved
+        channel.pipeline().addFirst(CONNECTION_HANDLER, ConnectionTimingHandler(state))
+        return ConnectionCustomizer(channel, state)
+    }
+
+    private inner class ConnectionCustomizer(
+        private val channel: Channel,
+        private val state: ChannelTimingState,
+    ) : NettyClientCustomizer {
+
+        override fun specializeForChannel(channel: Channel, role: ChannelRole): NettyClientCustomizer {
+            // The pipeline of an HTTP/2 stream is already built at this point, and its events are handled on the event
+            // loop of the connection, so the streams can share the state of the connection
+            if (role == ChannelRole.HTTP2_STREAM) {
+                addRequestHandler(channel, Http2StreamFrameToHttpObjectCodec::class.java)
+            }
+            return this
+        }
+
+        override fun onInitialPipelineBuilt() {
+            watchHandshake()
+        }
+
+        override fun onStreamPipelineBuilt() {
+            watchHandshake()
+            addRequestHandler(channel, HttpClientCodec::class.java)
+        }
+
+        private fun addRequestHandler(channel: Channel, codecType: Class<out ChannelHandler>) {
+            val pipeline = channel.pipeline()
+            val codec = pipeline.context(codecType) ?: return
+            if (pipeline.get(REQUEST_HANDLER) == null) {
+                // Right after the codec, so it sees the request before it's encoded, and the decoded response
+                pipeline.addAfter(
+                    codec.name(),
+                    REQUEST_HANDLER,
+                    RequestTimingHandler(checkTimingRecorder, checkConnectionStats, state),
+                )
+            }
+        }
+
+        private fun watchHandshake() {
+            if (state.handshakeWatched) return
+            val sslHandler = channel.pipeline().get(SslHandler::class.java) ?: return
+            val handshake = sslHandler.handshakeFuture()
+            state.handshakeWatched = true
+            // If the handshake is already done, its duration can't be told anymore, but its chain can be captured
+            val alreadyDone = handshake.isDone
+            handshake.addListener { future ->
+                if (future.isSuccess) {
+                    if (!alreadyDone) state.handshakeCompletedAt = System.nanoTime()
+                    peerCertificateCache.record(channel, sslHandler)
+                }
+            }
+        }
+    }
+}
+
+/**
+ * The timestamps of a channel, it's accessed only from the event loop of the channel
+ */
+internal class ChannelTimingState(val registeredAt: Long) {
+    var connectStartedAt = 0L
+    var activeAt = 0L
+    var handshakeCompletedAt = 0L
+    var handshakeWatched = false
+    var used = false
+
+    fun connectionTiming() = ConnectionTiming(
+        dnsNanos = (connectStartedAt - registeredAt).takeIf { connectStartedAt > 0 },
+        connectNanos = (activeAt - connectStartedAt).takeIf { connectStartedAt > 0 && activeAt > 0 },
+        tlsNanos = (handshakeCompletedAt - activeAt).takeIf { activeAt > 0 && handshakeCompletedAt > 0 },
+    )
+}
+
+internal class ConnectionTimingHandler(private val state: ChannelTimingState) : ChannelDuplexHandler() {
+
+    override fun connect(
+        ctx: ChannelHandlerContext,
+        remoteAddress: SocketAddress?,
+        localAddress: SocketAddress?,
+        promise: ChannelPromise?,
+    ) {
+        state.connectStartedAt = System.nanoTime()
+        super.connect(ctx, remoteAddress, localAddress, promise)
+    }
+
+    override fun channelActive(ctx: ChannelHandlerContext) {
+        state.activeAt = System.nanoTime()
+        super.channelActive(ctx)
+    }
+}
+
+/**
+ * Times the requests of an HTTP/1.1 connection, or of an HTTP/2 stream (i.e. one request at a time), and keeps the
+ * connection out of the pool if the request asked for it
+ */
+private class RequestTimingHandler(
+    private val checkTimingRecorder: CheckTimingRecorder,
+    private val checkConnectionStats: CheckConnectionStats,
+    private val state: ChannelTimingState,
+) : ChannelDuplexHandler() {
+
+    private var current: PendingCheckTiming? = null
+    private var closeAfterResponse = false
+
+    override fun write(ctx: ChannelHandlerContext, msg: Any?, promise: ChannelPromise?) {
+        if (msg is HttpRequest) {
+            closeAfterResponse = msg.headers().contains(CheckTimingClientCustomizer.CLOSE_CONNECTION_HEADER)
+            if (closeAfterResponse) {
+                msg.headers().remove(CheckTimingClientCustomizer.CLOSE_CONNECTION_HEADER)
+                HttpUtil.setKeepAlive(msg, false)
+            }
+            val timing = msg.headers().get(CheckTimingRecorder.TIMING_HEADER)?.let { token ->
+                msg.headers().remove(CheckTimingRecorder.TIMING_HEADER)
+                checkTimingRecorder.pending(token)
+            }
+            if (timing != null) {
+                if (state.used) {
+                    checkConnectionStats.recordReusedConnection()
+                } else {
+                    timing.connection = state.connectionTiming()
+                    checkConnectionStats.recordNewConnection(tls = state.handshakeWatched)
+                }
+                timing.requestWrittenAt = System.nanoTime()
+            }
+            state.used = true
+            current = timing
+        }
+        super.write(ctx, msg, promise)
+    }
+
+    override fun channelRead(ctx: ChannelHandlerContext, msg: Any?) {
+        if (msg is HttpResponse && closeAfterResponse) {
+            // The client doesn't return the connection of a non keep-alive response to the pool
+            HttpUtil.setKeepAlive(msg, false)
+            closeAfterResponse = false
+        }
+        current?.let { timing ->
+            if (msg is HttpResponse && timing.responseStartedAt == 0L) {
+                timing.responseStartedAt = System.nanoTime()
+            }
+            if (msg is LastHttpContent) {
+                timing.responseCompletedAt = System.nanoTime()
+                current = null
+            }
+        }
+        super.channelRead(ctx, msg)
+    }
+}
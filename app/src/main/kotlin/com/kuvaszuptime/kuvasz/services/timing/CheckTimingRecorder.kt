@@ -0,0 +1,90 @@
+package com.kuvaszuptime.kuvasz.services.timing
+
+import com.kuvaszuptime.kuvasz.models.checks.CheckTimings
+import jakarta.inject.Singleton
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Keeps track of the timings of the requests that are sent by the uptime checks.
+ *
+ * A request is correlated with its Netty channel by a temporary header (holding the token of its timing), which is
+ * stripped by the [CheckTimingClientCustomizer] before the request is encoded, so it's never sent to the target.
+ */
+@Singleton
+class CheckTimingRecorder {
+
+    companion object {
+        const val TIMING_HEADER = "X-Kuvasz-Check-Timing"
+    }
+
+    private val tokens = AtomicLong()
+    private val pendingTimings = ConcurrentHashMap<String, PendingCheckTiming>()
+
+    /**
+     * Starts recording the timings of a request, the returned token must be sent in the [TIMING_HEADER]
+     */
+    fun start(): PendingCheckTiming =
+        PendingCheckTiming(tokens.incrementAndGet().toString()).also { pendingTimings[it.token] = it }
+
+    /**
+     * Stops recording the timings of the request, it must be called even if the request failed
+     */
+    fun finish(timing: PendingCheckTiming) {
+        pendingTimings.remove(timing.token)
+    }
+
+    internal fun pending(token: String): PendingCheckTiming? = pendingTimings[token]
+}
+
+/**
+ * The timestamps of a request, which are written on the event loop of its channel, and read by the check
+ */
+class PendingCheckTiming(val token: String) {
+
+    @Volatile
+    internal var connection: ConnectionTiming? = null
+
+    @Volatile
+    internal var requestWrittenAt = 0L
+
+    @Volatile
+    internal var responseStartedAt = 0L
+
+    @Volatile
+    internal var responseCompletedAt = 0L
+
+    /**
+     * Marks the response as completed, if its body was abandoned before its last content could arrive
+     */
+    internal fun completeResponse() {
+        if (responseStartedAt != 0L && responseCompletedAt == 0L) responseCompletedAt = System.nanoTime()
+    }
+
+    /**
+     * Returns the timings of the request, if all of its phases could be captured
+     */
+    fun toCheckTimings(): CheckTimings? {
+        val written = requestWrittenAt
+        val started = responseStartedAt
+        val completed = responseCompletedAt
+        if (written == 0L || started == 0L || completed == 0L) return null
+        val connection = connection
+        return CheckTimings(
+            dnsNanos = connection?.dnsNanos,
+            connectNanos = connection?.connectNanos,
+            tlsNanos = connection?.tlsNanos,
+            ttfbNanos = started - written,
+            transferNanos = completed - started,
+        )
+    }
+}
+
+/**
+ * The phases of establishing a new connection, they're attributed to the first request that is sent over it
+ */
+internal data class ConnectionTiming(
+    val dnsNanos: Long?,
+    val connectNanos: Long?,
+    val tlsNanos: Long?,
+)
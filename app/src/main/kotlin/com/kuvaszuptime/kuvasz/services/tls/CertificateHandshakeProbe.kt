@@ -0,0 +1,145 @@
+package com.kuvaszuptime.kuvasz.services.tls
+
+import com.kuvaszuptime.kuvasz.config.AppConfig
+import com.kuvaszuptime.kuvasz.services.UptimeCheckEventLoopGroup
+import com.kuvaszuptime.kuvasz.services.dns.UptimeCheckDnsResolver
+import io.micronaut.http.HttpVersion
+import io.micronaut.http.client.HttpVersionSelection
+import io.netty.bootstrap.Bootstrap
+import io.netty.channel.Channel
+import io.netty.channel.ChannelFuture
+import io.netty.channel.ChannelInitializer
+import io.netty.channel.ChannelOption
+import io.netty.handler.ssl.SslContext
+import io.netty.handler.ssl.SslHandler
+import jakarta.inject.Singleton
+import kotlinx.coroutines.suspendCancellableCoroutine
+import kotlinx.coroutines.sync.Semaphore
+import kotlinx.coroutines.sync.withPermit
+import java.net.URI
+import java.security.cert.Certificate
+import java.security.cert.X509Certificate
+import javax.net.ssl.ExtendedSSLSession
+import javax.net.ssl.SSLSession
+import kotlin.coroutines.resume
+import kotlin.coroutines.resumeWithException
+
+/**
+ * The certificates that were presented by a server during a TLS handshake, starting with the server's own one, and the
+ * OCSP response that the server stapled to the handshake, if any
+ */
+class PeerCertificates(
+    val certificates: List<Certificate>,
+    val stapledOcspResponse: ByteArray?,
+)
+
+/**
+ * Fetches the certificate chain of an HTTPS origin with a TLS handshake only: it connects, completes the handshake
+ * (including the default trust and hostname checks), captures the certificates presented by the server and closes the
+ * connection, without sending any HTTP request. The captured chain is recorded in the [PeerCertificateCache] too.
+ *
+ * The connections are opened on the `uptime-check` event loop group with the same DNS resolver and TLS provider as the
+ * uptime checks, so no thread is blocked while a handshake is in progress. The TLS sessions are never resumed, so every
+ * handshake sees the chain that the server currently presents. The number of the concurrent handshakes is bounded by
+ * [AppConfig.sslCheckMaxConcurrency], the rest of the callers are suspended until a handshake is finished.
+ */
+@Singleton
+class CertificateHandshakeProbe(
+    private val appConfig: AppConfig,
+    private val sslBuilder: UptimeCheckSslBuilder,
+    private val dnsResolver: UptimeCheckDnsResolver,
+    private val peerCertificateCache: PeerCertificateCache,
+    private val uptimeCheckEventLoopGroup: UptimeCheckEventLoopGroup,
+) {
+
+    companion object {
+        private const val HTTPS_DEFAULT_PORT = 443
+        private const val CONNECT_TIMEOUT_MS = 5000
+        private const val HANDSHAKE_TIMEOUT_MS = 5000L
+        private const val SSL_HANDLER = "ssl"
+        private const val ENDPOINT_IDENTIFICATION_ALGORITHM = "HTTPS"
+    }
+
+    private val permits = Semaphore(appConfig.sslCheckMaxConcurrency)
+
+    private val bootstrap: Bootstrap by lazy {
+        uptimeCheckEventLoopGroup.newBootstrap()
+            .resolver(dnsResolver.addressResolverGroup)
+            .option(ChannelOption.TCP_NODELAY, appConfig.checkTcpNoDelay)
+            .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, CONNECT_TIMEOUT_MS)
+    }
+
+    // Built only when the first certificate is fetched
+    private val sslContext: SslContext by lazy {
+        sslBuilder.build(
+            UptimeCheckSslConfiguration(sessionResumptionEnabled = false),
+            HttpVersionSelection.forLegacyVersion(HttpVersion.HTTP_1_1),
+        )
+    }
+
+    /**
+     * Returns the certificates presented by the server of the given HTTPS URL, and its stapled OCSP response.
+     * It throws the error of the connection attempt or the handshake (e.g. an
+     * [javax.net.ssl.SSLHandshakeException] if the certificate isn't trusted or doesn't match the host).
+     */
+    suspend fun fetchCertificates(uri: URI): PeerCertificates {
+        val host = requireNotNull(uri.host) { "The URL doesn't have a host: $uri" }.removeSurrounding("[", "]")
+        val port = uri.port.takeIf { it >= 0 } ?: HTTPS_DEFAULT_PORT
+        return permits.withPermit { handshake(host, port) }
+    }
+
+    private suspend fun handshake(host: String, port: Int): PeerCertificates {
+        val connected = bootstrap.clone()
+            .handler(object : ChannelInitializer<Channel>() {
+                override fun initChannel(channel: Channel) {
+                    val sslHandler = sslContext.newHandler(channel.alloc(), host, port)
+                    sslHandler.setHandshakeTimeoutMillis(HANDSHAKE_TIMEOUT_MS)
+                    val engine = sslHandler.engine()
+                    engine.sslParameters = engine.sslParameters.apply {
+                        endpointIdentificationAlgorithm = ENDPOINT_IDENTIFICATION_ALGORITHM
+                    }
+                    channel.pipeline().addLast(SSL_HANDLER, sslHandler)
+                }
+            })
+            .connect(host, port)
+        return connected.awaitPeerCertificates().also { peer ->
+            peerCertificateCache.record(
+                origin = PeerCertificateCache.originOf(host, port),
+                certificates = peer.certificates.filterIsInstance<X509Certificate>(),
+                stapledOcspResponse = peer.stapledOcspResponse,
+            )
+        }
+    }
+
+    /**
+     * Awaits the handshake of the connection, and closes the connection right after it, whatever its outcome is
+     */
+    private suspend fun ChannelFuture.awaitPeerCertificates(): PeerCertificates =
+        suspendCancellableCoroutine { continuation ->
+            addListener { _ ->
+                if (isSuccess) {
+                    val sslHandler = channel().pipeline().get(SslHandler::class.java)
+                    sslHandler.handshakeFuture().addListener { handshake ->
+                        val certificates = if (handshake.isSuccess) {
+                            runCatching { sslHandler.engine().session.toPeerCertificates() }
+                        } else {
+                            Result.failure(handshake.cause())
+                        }
+                        channel().close()
+                        certificates.fold({ continuation.resume(it) }, { continuation.resumeWithException(it) })
+                    }
+                } else {
+                    continuation.resumeWithException(cause())
+                }
+            }
+            continuation.invokeOnCancellation {
+                cancel(false)
+                channel().close()
+            }
+        }
+
+    private fun SSLSession.toPeerCertificates() = PeerCertificates(
+        certificates = peerCertificates.toList(),
+        stapledOcspResponse = (this as? ExtendedSSLSession)?.statusResponses?.firstOrNull(),
+    )
+}
@@ -0,0 +1,95 @@
+package com.kuvaszuptime.kuvasz.services.tls
+
+import arrow.core.Either
+import com.kuvaszuptime.kuvasz.models.CertificateInfo
+import com.kuvaszuptime.kuvasz.models.SSLValidationError
+import io.micronaut.scheduling.annotation.Scheduled
+import jakarta.inject.Singleton
+import java.security.MessageDigest
+import java.security.cert.X509Certificate
+import java.time.Duration
+import java.util.HexFormat
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Memoizes the results of the certificate chain validations, so the monitors that share a certificate (e.g. on the
+ * same host or with a wildcard certificate) cost only one validation.
+ *
+ * The results are keyed by the fingerprint of the whole chain and the version of the trust store that the chain was
+ * validated against, so a changed intermediate or a different set of trusted CAs always leads to a new validation.
+ * A result is kept until the earliest expiry in its chain, but for at most [MAX_AGE]. The concurrent validations of
+ * the same chain are not duplicated: the later callers wait for the result of the first one.
+ */
+@Singleton
+class ChainValidationCache {
+
+    companion object {
+        private const val FINGERPRINT_ALGORITHM = "SHA-256"
+
+        /**
+         * The age of a validation result, after which the chain is validated again, even if it hasn't expired yet
+         */
+        val MAX_AGE: Duration = Duration.ofDays(1)
+
+        /**
+         * The SHA-256 fingerprint of the given certificates (in their order), in hex
+         */
+        fun fingerprintOf(certificates: Collection<X509Certificate>): String {
+            val digest = MessageDigest.getInstance(FINGERPRINT_ALGORITHM)
+            certificates.forEach { digest.update(it.encoded) }
+            return HexFormat.of().formatHex(digest.digest())
+        }
+    }
+
+    private data class Key(val chainFingerprint: String, val trustStoreVersion: String)
+
+    private class Entry(val result: Either<SSLValidationError, CertificateInfo>, val expiresAt: Long)
+
+    private val entries = ConcurrentHashMap<Key, Entry>()
+
+    /**
+     * Returns the memoized result of the chain's validation against the given version of the trust store, if it
+     * hasn't expired yet
+     */
+    fun get(
+        certificates: List<X509Certificate>,
+        trustStoreVersion: String,
+        now: Long = System.currentTimeMillis(),
+    ): Either<SSLValidationError, CertificateInfo>? =
+        entries[Key(fingerprintOf(certificates), trustStoreVersion)]?.takeIf { it.expiresAt > now }?.result
+
+    /**
+     * Returns the memoized result of the chain's validation against the given version of the trust store, if it
+     * hasn't expired yet, otherwise it validates the chain with [validate] and memoizes its result. If [validate]
+     * throws, nothing is memoized and the exception is propagated.
+     */
+    fun getOrValidate(
+        certificates: List<X509Certificate>,
+        trustStoreVersion: String,
+        now: Long = System.currentTimeMillis(),
+        validate: () -> Either<SSLValidationError, CertificateInfo>,
+    ): Either<SSLValidationError, CertificateInfo> {
+        val key = Key(fingerprintOf(certificates), trustStoreVersion)
+        val entry = entries.compute(key) { _, current ->
+            current?.takeIf { it.expiresAt > now } ?: Entry(validate(), expiresAt = certificates.expiresAt(now))
+        }
+        return checkNotNull(entry).result
+    }
+
+    fun size(): Int = entries.size
+
+    /**
+     * Evicts the results that have expired
+     */
+    @Scheduled(fixedDelay = "1h")
+    fun evictExpired() {
+        evictExpired(System.currentTimeMillis())
+    }
+
+    internal fun evictExpired(now: Long) {
+        entries.values.removeIf { it.expiresAt <= now }
+    }
+
+    private fun List<X509Certificate>.expiresAt(now: Long): Long =
+        minOfOrNull { it.notAfter.time }?.coerceAtMost(now + MAX_AGE.toMillis()) ?: now
+}
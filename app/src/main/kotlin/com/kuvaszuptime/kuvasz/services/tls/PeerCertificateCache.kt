@@ -0,0 +1,145 @@
+package com.kuvaszuptime.kuvasz.services.tls
+
+import io.micronaut.scheduling.annotation.Scheduled
+import io.netty.channel.Channel
+import io.netty.handler.ssl.SslHandler
+import jakarta.inject.Singleton
+import org.slf4j.LoggerFactory
+import java.net.InetSocketAddress
+import java.security.MessageDigest
+import java.security.cert.X509Certificate
+import java.time.Duration
+import java.util.HexFormat
+import java.util.concurrent.ConcurrentHashMap
+import javax.net.ssl.ExtendedSSLSession
+import javax.net.ssl.SSLPeerUnverifiedException
+
+/**
+ * A certificate chain that was presented by a server during a TLS handshake
+ *
+ * @property certificates The chain, starting with the server's own certificate
+ * @property leafFingerprint The SHA-256 fingerprint of the server's own certificate, in hex
+ * @property stapledOcspResponse The last OCSP response of the server's own certificate that was stapled to a handshake
+ */
+class CapturedCertificateChain(
+    val certificates: List<X509Certificate>,
+    val leafFingerprint: String,
+) {
+    @Volatile
+    var stapledOcspResponse: ByteArray? = null
+}
+
+/**
+ * Keeps the certificate chains that were captured during the TLS handshakes of the uptime checks (and of the SSL
+ * checks), per origin, so the SSL checks can validate them without opening a connection of their own.
+ *
+ * The chains are stored by the fingerprint of their leaf certificate, so the origins that present the same
+ * certificate (e.g. behind the same CDN or with a wildcard certificate) share a single chain. A repeated handshake with
+ * an unchanged certificate only refreshes the capture time of its origin. The chains that weren't captured in the last
+ * [MAX_AGE] are not considered fresh anymore, and they're evicted periodically.
+ *
+ * The chains are recorded from the event loops of the connections, so recording must stay cheap: the fingerprint is
+ * computed only when the leaf certificate of an origin has changed.
+ */
+@Singleton
+class PeerCertificateCache {
+
+    companion object {
+        private val logger = LoggerFactory.getLogger(PeerCertificateCache::class.java)
+        private const val FINGERPRINT_ALGORITHM = "SHA-256"
+
+        /**
+         * The age of a captured chain, after which it's not used by the SSL checks anymore
+         */
+        val MAX_AGE: Duration = Duration.ofHours(1)
+
+        /**
+         * The cache key of an HTTPS origin
+         */
+        fun originOf(host: String, port: Int): String = "${host.removeSurrounding("[", "]").lowercase()}:$port"
+    }
+
+    private class OriginEntry(val chain: CapturedCertificateChain, @Volatile var capturedAt: Long)
+
+    private val origins = ConcurrentHashMap<String, OriginEntry>()
+    private val chains = ConcurrentHashMap<String, CapturedCertificateChain>()
+
+    /**
+     * Records the chain of a completed handshake. The origin is told by the host that the handshake was initiated for
+     * (SNI) and the port of the remote address, because the engines of the contexts that don't resume their sessions
+     * don't know the port of the peer. The chain is as old as its session, so the chain of a resumed session isn't
+     * considered fresher than the full handshake that it was presented in.
+     */
+    fun record(channel: Channel, sslHandler: SslHandler) {
+        val engine = sslHandler.engine()
+        val host = engine.peerHost ?: return
+        val port = (channel.remoteAddress() as? InetSocketAddress)?.port ?: return
+        val session = engine.session
+        val certificates = try {
+            session.peerCertificates
+        } catch (e: SSLPeerUnverifiedException) {
+            logger.debug("The peer of $host:$port was not verified, its chain can't be captured: ${e.message}")
+            return
+        }
+        record(
+            origin = originOf(host, port),
+            certificates = certificates.mapNotNull { it as? X509Certificate },
+            stapledOcspResponse = (session as? ExtendedSSLSession)?.statusResponses?.firstOrNull(),
+            now = session.creationTime,
+        )
+    }
+
+    /**
+     * Records the chain that was presented by the given origin (see [originOf]) at the given time, with the OCSP
+     * response that was stapled to the handshake, if any
+     */
+    fun record(
+        origin: String,
+        certificates: List<X509Certificate>,
+        stapledOcspResponse: ByteArray? = null,
+        now: Long = System.currentTimeMillis(),
+    ) {
+        val leaf = certificates.firstOrNull() ?: return
+        val current = origins[origin]
+        val chain = if (current != null && current.chain.certificates.first() == leaf) {
+            if (now > current.capturedAt) current.capturedAt = now
+            current.chain
+        } else {
+            chains.computeIfAbsent(leaf.fingerprint()) { CapturedCertificateChain(certificates, it) }
+                .also { origins[origin] = OriginEntry(it, capturedAt = now) }
+        }
+        stapledOcspResponse?.let { chain.stapledOcspResponse = it }
+    }
+
+    /**
+     * Returns the chain of the origin, if it was captured in the last [MAX_AGE]
+     */
+    fun get(origin: String, now: Long = System.currentTimeMillis()): CapturedCertificateChain? =
+        origins[origin]?.takeIf { it.isFresh(now) }?.chain
+
+    /**
+     * Returns the fingerprint of the leaf certificate that was captured the last time from the origin, fresh or not
+     */
+    fun leafFingerprint(origin: String): String? = origins[origin]?.chain?.leafFingerprint
+
+    fun size(): Int = origins.size
+
+    /**
+     * Evicts the origins whose chain isn't fresh anymore, and the chains that aren't presented by any origin
+     */
+    @Scheduled(fixedDelay = "10m")
+    fun evictStale() {
+        evictStale(System.currentTimeMillis())
+    }
+
+    internal fun evictStale(now: Long) {
+        origins.values.removeIf { !it.isFresh(now) }
+        val presented = origins.values.mapTo(HashSet()) { it.chain.leafFingerprint }
+        chains.keys.retainAll(presented)
+    }
+
+    private fun OriginEntry.isFresh(now: Long) = now - capturedAt <= MAX_AGE.toMillis()
+
+    private fun X509Certificate.fingerprint(): String =
+        HexFormat.of().formatHex(MessageDigest.getInstance(FINGERPRINT_ALGORITHM).digest(encoded))
+}
@@ -0,0 +1,198 @@
+package com.kuvaszuptime.kuvasz.services.tls
+
+import java.io.ByteArrayOutputStream
+import java.security.MessageDigest
+import java.security.cert.X509Certificate
+import java.time.Instant
+import java.time.LocalDateTime
+import java.time.ZoneOffset
+import java.time.format.DateTimeFormatter
+import java.util.HexFormat
+
+/**
+ * The bits of ASN.1 (DER) that the revocation lookups need and the JDK doesn't expose: encoding an OCSP request,
+ * reading the validity of an OCSP response, and reading the OCSP responders and the CRL distribution points of a
+ * certificate. The responses and the CRLs themselves are verified by the JDK's PKIX revocation checker.
+ */
+internal object RevocationAsn1 {
+
+    private const val TAG_INTEGER = 0x02
+    private const val TAG_BIT_STRING = 0x03
+    private const val TAG_OCTET_STRING = 0x04
+    private const val TAG_NULL = 0x05
+    private const val TAG_OID = 0x06
+    private const val TAG_ENUMERATED = 0x0A
+    private const val TAG_GENERALIZED_TIME = 0x18
+    private const val TAG_SEQUENCE = 0x30
+    private const val TAG_CONTEXT_0 = 0xA0
+    private const val TAG_URI = 0x86
+    private const val LONG_LENGTH_FLAG = 0x80
+    private const val BYTE_MASK = 0xFF
+    private const val BITS_PER_BYTE = 8
+    private const val OCSP_SUCCESSFUL = 0
+    private const val GENERALIZED_TIME_LENGTH = 14
+
+    private const val AUTHORITY_INFO_ACCESS_OID = "1.3.6.1.5.5.7.1.1"
+    private const val CRL_DISTRIBUTION_POINTS_OID = "2.5.29.31"
+
+    // 1.3.14.3.2.26 (SHA-1) and 1.3.6.1.5.5.7.48.1 (OCSP), encoded
+    private val SHA1_OID = byteArrayOf(0x2B, 0x0E, 0x03, 0x02, 0x1A)
+    private val OCSP_OID = byteArrayOf(0x2B, 0x06, 0x01, 0x05, 0x05, 0x07, 0x30, 0x01)
+    private val GENERALIZED_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMddHHmmss")
+
+    /**
+     * The identifier of a certificate in the OCSP requests and responses (a CertID with SHA-1), in hex, which
+     * identifies the certificate by its issuer, so it's the key of the cached OCSP responses too
+     */
+    fun certIdOf(certificate: X509Certificate, issuer: X509Certificate): String =
+        HexFormat.of().formatHex(encodeCertId(certificate, issuer))
+
+    /**
+     * Encodes an OCSP request (RFC 6960) of a single certificate, without a nonce, so the responders can serve it
+     * from their cache
+     */
+    fun ocspRequestOf(certificate: X509Certificate, issuer: X509Certificate): ByteArray {
+        val request = sequence(encodeCertId(certificate, issuer))
+        val tbsRequest = sequence(sequence(request))
+        return sequence(tbsRequest)
+    }
+
+    /**
+     * Whether the OCSP response is successful, i.e. it has the status of the certificate, and not an error (e.g. the
+     * responder doesn't know the issuer, or it's overloaded)
+     */
+    fun isSuccessfulOcspResponse(response: ByteArray): Boolean = runCatching {
+        val status = Der.parse(response).children().first().takeIf { it.tag == TAG_ENUMERATED }?.content
+        status?.singleOrNull()?.toInt() == OCSP_SUCCESSFUL
+    }.getOrDefault(false)
+
+    /**
+     * Returns the earliest `nextUpdate` of the single responses of a successful OCSP response, or null if the
+     * response is not successful, or any of its single responses doesn't have a `nextUpdate`, which means that the
+     * responder has newer information all the time, so the response shouldn't be cached.
+     */
+    fun ocspNextUpdateOf(response: ByteArray): Instant? = runCatching {
+        if (!isSuccessfulOcspResponse(response)) return null
+        val ocspResponse = Der.parse(response).children()
+        val responseBytes = ocspResponse.first { it.tag == TAG_CONTEXT_0 }.children().first().children()
+        val basicResponse = Der.parse(responseBytes.first { it.tag == TAG_OCTET_STRING }.content)
+        val tbsResponseData = basicResponse.children().first()
+        val singleResponses = tbsResponseData.children().last { it.tag == TAG_SEQUENCE }.children()
+        singleResponses
+            .map { single -> single.children().firstOrNull { it.tag == TAG_CONTEXT_0 }?.children()?.first() }
+            .map { nextUpdate -> nextUpdate?.takeIf { it.tag == TAG_GENERALIZED_TIME }?.toInstant() ?: return null }
+            .minOrNull()
+    }.getOrNull()
+
+    /**
+     * The URLs of the OCSP responders of the certificate, from its Authority Information Access extension
+     */
+    fun ocspResponderUrisOf(certificate: X509Certificate): List<String> =
+        certificate.extensionOf(AUTHORITY_INFO_ACCESS_OID)
+            ?.children()
+            ?.map { it.children() }
+            ?.filter { (accessMethod) -> accessMethod.tag == TAG_OID && accessMethod.content.contentEquals(OCSP_OID) }
+            ?.mapNotNull { accessDescription -> accessDescription.getOrNull(1)?.uri() }
+            .orEmpty()
+
+    /**
+     * The URLs of the CRL distribution points of the certificate, from its CRL Distribution Points extension
+     */
+    fun crlDistributionPointsOf(certificate: X509Certificate): List<String> =
+        certificate.extensionOf(CRL_DISTRIBUTION_POINTS_OID)
+            ?.children()
+            ?.flatMap { distributionPoint ->
+                // DistributionPoint -> [0] DistributionPointName -> [0] fullName -> GeneralNames
+                distributionPoint.children()
+                    .filter { it.tag == TAG_CONTEXT_0 }
+                    .flatMap { name -> name.children().filter { it.tag == TAG_CONTEXT_0 } }
+                    .flatMap { fullName -> fullName.children().mapNotNull { it.uri() } }
+            }
+            .orEmpty()
+
+    private fun encodeCertId(certificate: X509Certificate, issuer: X509Certificate): ByteArray {
+        val sha1 = MessageDigest.getInstance("SHA-1")
+        val issuerNameHash = sha1.digest(issuer.subjectX500Principal.encoded)
+        // The hash of the issuer's public key, without the tag, the length and the unused bits of the BIT STRING
+        val issuerKey = Der.parse(issuer.publicKey.encoded).children().first { it.tag == TAG_BIT_STRING }.content
+        val issuerKeyHash = sha1.digest(issuerKey.copyOfRange(1, issuerKey.size))
+        return sequence(
+            sequence(Der.encode(TAG_OID, SHA1_OID), Der.encode(TAG_NULL, ByteArray(0))),
+            Der.encode(TAG_OCTET_STRING, issuerNameHash),
+            Der.encode(TAG_OCTET_STRING, issuerKeyHash),
+            Der.encode(TAG_INTEGER, certificate.serialNumber.toByteArray()),
+        )
+    }
+
+    private fun sequence(vararg elements: ByteArray): ByteArray =
+        Der.encode(TAG_SEQUENCE, elements.fold(ByteArray(0)) { acc, element -> acc + element })
+
+    // The value of an extension is wrapped into an OCTET STRING
+    private fun X509Certificate.extensionOf(oid: String): Der? =
+        getExtensionValue(oid)?.let { runCatching { Der.parse(Der.parse(it).content) }.getOrNull() }
+
+    private fun Der.uri(): String? = if (tag == TAG_URI) String(content, Charsets.US_ASCII) else null
+
+    private fun Der.toInstant(): Instant =
+        LocalDateTime.parse(String(content, Charsets.US_ASCII).take(GENERALIZED_TIME_LENGTH), GENERALIZED_TIME_FORMAT)
+            .toInstant(ZoneOffset.UTC)
+
+    /**
+     * A DER encoded value (tag, length, content) in a byte array
+     */
+    private class Der(val tag: Int, private val bytes: ByteArray, private val offset: Int, private val length: Int) {
+
+        val content: ByteArray
+            get() = bytes.copyOfRange(offset, offset + length)
+
+        /**
+         * The values that are encoded in the content, e.g. the elements of a SEQUENCE
+         */
+        fun children(): List<Der> {
+            val children = mutableListOf<Der>()
+            var position = offset
+            while (position < offset + length) {
+                val child = parse(bytes, position)
+                children.add(child)
+                position = child.offset + child.length
+            }
+            return children
+        }
+
+        companion object {
+            fun parse(bytes: ByteArray, position: Int = 0): Der {
+                val tag = bytes[position].toInt() and BYTE_MASK
+                val firstLengthByte = bytes[position + 1].toInt() and BYTE_MASK
+                var length = firstLengthByte
+                var contentOffset = position + 2
+                if (firstLengthByte and LONG_LENGTH_FLAG != 0) {
+                    val lengthBytes = firstLengthByte and LONG_LENGTH_FLAG.inv()
+                    length = (0 until lengthBytes).fold(0) { acc, i ->
+                        (acc shl BITS_PER_BYTE) or (bytes[contentOffset + i].toInt() and BYTE_MASK)
+                    }
+                    contentOffset += lengthBytes
+                }
+                require(length >= 0 && contentOffset + length <= bytes.size) { "Malformed DER value at $position" }
+                return Der(tag, bytes, contentOffset, length)
+            }
+
+            fun encode(tag: Int, content: ByteArray): ByteArray {
+                val output = ByteArrayOutputStream(content.size + BITS_PER_BYTE)
+                output.write(tag)
+                if (content.size < LONG_LENGTH_FLAG) {
+                    output.write(content.size)
+                } else {
+                    val lengthBytes = generateSequence(content.size) { it ushr BITS_PER_BYTE }
+                        .takeWhile { it > 0 }
+                        .map { it and BYTE_MASK }
+                        .toList()
+                        .asReversed()
+                    output.write(LONG_LENGTH_FLAG or lengthBytes.size)
+                    lengthBytes.forEach { output.write(it) }
+                }
+                output.write(content)
+                return output.toByteArray()
+            }
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.kuvaszuptime.kuvasz.services.tls
+
+import com.kuvaszuptime.kuvasz.config.AppConfig
+import com.kuvaszuptime.kuvasz.services.body.drain
+import io.micronaut.http.HttpRequest
+import io.micronaut.http.MutableHttpRequest
+import io.micronaut.http.client.ProxyHttpClient
+import io.micronaut.http.client.annotation.Client
+import io.micronaut.http.netty.NettyHttpResponseBuilder
+import jakarta.inject.Singleton
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.reactive.awaitSingle
+import kotlinx.coroutines.withContext
+import kotlinx.coroutines.withTimeoutOrNull
+import org.slf4j.LoggerFactory
+import java.io.ByteArrayOutputStream
+import java.net.Inet6Address
+import java.net.InetAddress
+import java.net.URI
+import java.security.cert.CertificateFactory
+import java.security.cert.X509CRL
+import java.security.cert.X509Certificate
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.LongAdder
+
+/**
+ * The revocation information that was collected for the certificates of a chain: an OCSP response, or if there isn't
+ * any, a CRL per certificate. The certificates without any information are missing from both.
+ */
+class RevocationEvidence(
+    val ocspResponses: Map<X509Certificate, ByteArray>,
+    val crls: Map<X509Certificate, X509CRL>,
+)
+
+/**
+ * Collects the revocation information of the certificate chains, so they can be verified by the JDK's PKIX revocation
+ * checker without letting it go to the network on its own (with blocking calls and without caching).
+ *
+ * For every certificate, whose issuer is known, it takes the first of:
+ *
+ * 1. the OCSP response that was stapled by the server to the handshake (only for the server's own certificate)
+ * 2. the cached OCSP response of the certificate, see [RevocationResponseCache]
+ * 3. a fresh OCSP response from the responder of the certificate
+ * 4. the cached CRL of the certificate's distribution point
+ * 5. a fresh CRL from the distribution point (only HTTP(S) ones), that is downloaded only once, even if more chains
+ *    are looked up concurrently
+ *
+ * The certificates of a chain are looked up concurrently, and every request is bounded by [FETCH_TIMEOUT_MS], so a
+ * slow responder can delay an SSL check only a little. The failed lookups leave the certificate without information.
+ *
+ * The URIs of the responders and the distribution points come from the (untrusted) certificates of the checked
+ * servers, so they're requested only if their host resolves to public addresses (unless
+ * [AppConfig.sslRevocationPrivateTargetsAllowed]), the redirects aren't followed, and the downloads are capped at
+ * [AppConfig.sslRevocationMaxDownloadBytes].
+ */
+@Singleton
+class RevocationLookup(
+    private val responseCache: RevocationResponseCache,
+    @Client private val httpClient: ProxyHttpClient,
+    private val appConfig: AppConfig,
+) {
+
+    companion object {
+        private val logger = LoggerFactory.getLogger(RevocationLookup::class.java)
+        const val FETCH_TIMEOUT_MS = 5000L
+        private const val OCSP_REQUEST_CONTENT_TYPE = "application/ocsp-request"
+        private const val OCSP_RESPONSE_CONTENT_TYPE = "application/ocsp-response"
+        private const val CERT_TYPE = "X.509"
+        private val HTTP_SCHEMES = listOf("http://", "https://")
+        private val HTTP_SUCCESS_RANGE = 200..299
+        private const val UNIQUE_LOCAL_PREFIX_MASK = 0xFE
+        private const val UNIQUE_LOCAL_PREFIX = 0xFC
+    }
+
+    private val crlDownloads = ConcurrentHashMap<String, CompletableDeferred<X509CRL?>>()
+    private val lookups = LongAdder()
+    private val totalLookupNanos = LongAdder()
+
+    /**
+     * Collects the revocation information of the chain's certificates
+     *
+     * @param certificates The chain, starting with the server's own certificate.
+     * @param issuers The issuer of every certificate of the chain (at the same index), or null if it's not known, or
+     * the certificate is self-issued, so its revocation can't (and needn't) be checked.
+     * @param stapledOcspResponse The OCSP response that was stapled by the server to the handshake, if any.
+     */
+    suspend fun lookUp(
+        certificates: List<X509Certificate>,
+        issuers: List<X509Certificate?>,
+        stapledOcspResponse: ByteArray? = null,
+    ): RevocationEvidence {
+        val start = System.nanoTime()
+        try {
+            val ocspResponses = HashMap<X509Certificate, ByteArray>()
+            val crls = HashMap<X509Certificate, X509CRL>()
+            coroutineScope {
+                certificates.zip(issuers).mapIndexed { index, (certificate, issuer) ->
+                    async {
+                        issuer?.let { lookUp(certificate, it, stapledOcspResponse?.takeIf { index == 0 }) }
+                    }
+                }.awaitAll()
+            }.filterNotNull().forEach { (certificate, ocspResponse, crl) ->
+                ocspResponse?.let { ocspResponses[certificate] = it }
+                crl?.let { crls[certificate] = it }
+            }
+            return RevocationEvidence(ocspResponses, crls)
+        } finally {
+            lookups.increment()
+            totalLookupNanos.add(System.nanoTime() - start)
+        }
+    }
+
+    fun lookupCount(): Long = lookups.sum()
+
+    fun totalLookupNanos(): Long = totalLookupNanos.sum()
+
+    @Suppress("TooGenericExceptionCaught")
+    private suspend fun lookUp(
+        certificate: X509Certificate,
+        issuer: X509Certificate,
+        stapledOcspResponse: ByteArray?,
+    ): Triple<X509Certificate, ByteArray?, X509CRL?>? =
+        try {
+            val ocspResponse = ocspResponseOf(certificate, issuer, stapledOcspResponse)
+            Triple(certificate, ocspResponse, if (ocspResponse == null) crlOf(certificate) else null)
+        } catch (e: CancellationException) {
+            throw e
+        } catch (e: Exception) {
+            logger.debug("The revocation of ${certificate.subjectX500Principal} couldn't be looked up: ${e.message}")
+            null
+        }
+
+    private suspend fun ocspResponseOf(
+        certificate: X509Certificate,
+        issuer: X509Certificate,
+        stapledOcspResponse: ByteArray?,
+    ): ByteArray? {
+        val certId = RevocationAsn1.certIdOf(certificate, issuer)
+        val response = stapledOcspResponse?.takeIf { RevocationAsn1.isSuccessfulOcspResponse(it) }
+            ?: responseCache.ocspResponse(certId)?.let { return it }
+            ?: RevocationAsn1.ocspResponderUrisOf(certificate)
+                .filter { uri -> HTTP_SCHEMES.any { uri.startsWith(it, ignoreCase = true) } }
+                .firstNotNullOfOrNull { uri -> fetchOcspResponse(uri, certificate, issuer) }
+        if (response != null) {
+            RevocationAsn1.ocspNextUpdateOf(response)?.let { responseCache.putOcspResponse(certId, response, it) }
+        }
+        return response
+    }
+
+    private suspend fun fetchOcspResponse(uri: String, certificate: X509Certificate, issuer: X509Certificate) =
+        fetch(
+            HttpRequest.POST(uri, RevocationAsn1.ocspRequestOf(certificate, issuer))
+                .contentType(OCSP_REQUEST_CONTENT_TYPE)
+                .accept(OCSP_RESPONSE_CONTENT_TYPE)
+        )?.takeIf { RevocationAsn1.isSuccessfulOcspResponse(it) }
+
+    private suspend fun crlOf(certificate: X509Certificate): X509CRL? =
+        RevocationAsn1.crlDistributionPointsOf(certificate)
+            .filter { uri -> HTTP_SCHEMES.any { uri.startsWith(it, ignoreCase = true) } }
+            .firstNotNullOfOrNull { distributionPoint ->
+                responseCache.crl(distributionPoint) ?: downloadCrl(distributionPoint)
+            }
+
+    /**
+     * Downloads the CRL of the distribution point and caches it, or waits for the download that is already in progress
+     */
+    private suspend fun downloadCrl(distributionPoint: String): X509CRL? {
+        val download = CompletableDeferred<X509CRL?>()
+        crlDownloads.putIfAbsent(distributionPoint, download)?.let { return it.await() }
+        return try {
+            fetchCrl(distributionPoint)
+                ?.also { responseCache.putCrl(distributionPoint, it) }
+                .also { download.complete(it) }
+        } finally {
+            // The waiters of a failed or cancelled download aren't left hanging
+            download.complete(null)
+            crlDownloads.remove(distributionPoint, download)
+        }
+    }
+
+    private suspend fun fetchCrl(distributionPoint: String): X509CRL? =
+        fetch(HttpRequest.GET<Any>(distributionPoint))?.let { bytes ->
+            runCatching {
+                CertificateFactory.getInstance(CERT_TYPE).generateCRL(bytes.inputStream()) as X509CRL
+            }.onFailure {
+                logger.debug("The CRL of $distributionPoint couldn't be parsed: ${it.message}")
+            }.getOrNull()
+        }
+
+    @Suppress("TooGenericExceptionCaught")
+    private suspend fun fetch(request: MutableHttpRequest<*>): ByteArray? =
+        try {
+            if (!isAllowedTarget(request.uri)) {
+                logger.debug("The revocation lookup of ${request.uri} was skipped, its host is not public")
+                return null
+            }
+            val body = withTimeoutOrNull(FETCH_TIMEOUT_MS) { download(request) }
+            if (body == null) logger.debug("The revocation lookup of ${request.uri} timed out or was rejected")
+            body
+        } catch (e: CancellationException) {
+            throw e
+        } catch (e: Exception) {
+            logger.debug("The revocation lookup of ${request.uri} failed: ${e.message}")
+            null
+        }
+
+    /**
+     * Downloads the body of a successful response, or returns null if it's longer than the cap
+     */
+    private suspend fun download(request: MutableHttpRequest<*>): ByteArray? {
+        // Unlike retrieve(), proxy() neither aggregates the body, nor follows the redirects to another host
+        val response = httpClient.proxy(request).awaitSingle()
+        val stream = NettyHttpResponseBuilder.toStreamResponse(response)
+        if (response.code() !in HTTP_SUCCESS_RANGE) {
+            // Closing the connection without reading the body
+            stream.drain(maxBytes = 0)
+            logger.debug("The revocation lookup of ${request.uri} got a response with status ${response.code()}")
+            return null
+        }
+        val maxBytes = appConfig.sslRevocationMaxDownloadBytes
+        val body = ByteArrayOutputStream()
+        val drained = stream.drain(maxBytes) { chunk, length ->
+            chunk.getBytes(chunk.readerIndex(), body, length)
+            true
+        }
+        if (drained.truncated) {
+            logger.debug("The response of the revocation lookup of ${request.uri} is longer than $maxBytes bytes")
+            return null
+        }
+        return body.toByteArray()
+    }
+
+    private suspend fun isAllowedTarget(uri: URI): Boolean {
+        if (appConfig.sslRevocationPrivateTargetsAllowed) return true
+        val host = uri.host ?: return false
+        // The lookups are rare and their responses are cached, so the blocking resolver of the JDK is fine here
+        val addresses = withContext(Dispatchers.IO) { runCatching { InetAddress.getAllByName(host) }.getOrNull() }
+        return !addresses.isNullOrEmpty() && addresses.none { it.isNonPublic() }
+    }
+
+    private fun InetAddress.isNonPublic(): Boolean =
+        isAnyLocalAddress || isLoopbackAddress || isLinkLocalAddress || isSiteLocalAddress || isMulticastAddress ||
+            (this is Inet6Address && (address[0].toInt() and UNIQUE_LOCAL_PREFIX_MASK) == UNIQUE_LOCAL_PREFIX)
+}
@@ -0,0 +1,109 @@
+package com.kuvaszuptime.kuvasz.services.tls
+
+import com.kuvaszuptime.kuvasz.config.AppConfig
+import io.micronaut.scheduling.annotation.Scheduled
+import jakarta.inject.Singleton
+import java.security.cert.X509CRL
+import java.time.Instant
+import java.util.concurrent.atomic.LongAdder
+
+/**
+ * Caches the OCSP responses (by the CertID of their certificate, see [RevocationAsn1.certIdOf]) and the CRLs (by their
+ * distribution point) of the revocation checks, until their `nextUpdate`, so the monitors that share an intermediate
+ * or a CDN certificate cost only one lookup. The responses and the CRLs that don't tell when they're updated are not
+ * cached.
+ *
+ * Both of them are bounded by [AppConfig.sslRevocationCacheMaxEntries] (the CRLs by at most [MAX_CACHED_CRLS] too,
+ * because they can be large), by evicting the least recently used entry.
+ */
+@Singleton
+class RevocationResponseCache(appConfig: AppConfig) {
+
+    companion object {
+        const val MAX_CACHED_CRLS = 256
+        private const val INITIAL_CAPACITY = 16
+        private const val LOAD_FACTOR = 0.75f
+    }
+
+    private class Entry<T>(val value: T, val expiresAt: Long)
+
+    private val maxOcspResponses = appConfig.sslRevocationCacheMaxEntries
+    private val maxCrls = minOf(appConfig.sslRevocationCacheMaxEntries, MAX_CACHED_CRLS)
+
+    // The cached values in their access order
+    private val ocspResponses = LinkedHashMap<String, Entry<ByteArray>>(INITIAL_CAPACITY, LOAD_FACTOR, true)
+    private val crls = LinkedHashMap<String, Entry<X509CRL>>(INITIAL_CAPACITY, LOAD_FACTOR, true)
+
+    private val hits = LongAdder()
+    private val misses = LongAdder()
+
+    /**
+     * Returns the cached OCSP response of the certificate with the given CertID, if it's still up to date
+     */
+    fun ocspResponse(certId: String, now: Long = System.currentTimeMillis()): ByteArray? =
+        ocspResponses.lookUp(certId, now)
+
+    /**
+     * Caches the OCSP response of the certificate with the given CertID until its `nextUpdate`
+     */
+    fun putOcspResponse(
+        certId: String,
+        response: ByteArray,
+        nextUpdate: Instant,
+        now: Long = System.currentTimeMillis(),
+    ) {
+        ocspResponses.store(certId, Entry(response, nextUpdate.toEpochMilli()), maxOcspResponses, now)
+    }
+
+    /**
+     * Returns the cached CRL of the distribution point, if it's still up to date
+     */
+    fun crl(distributionPoint: String, now: Long = System.currentTimeMillis()): X509CRL? =
+        crls.lookUp(distributionPoint, now)
+
+    /**
+     * Caches the CRL of the distribution point until its `nextUpdate`, if it has one
+     */
+    fun putCrl(distributionPoint: String, crl: X509CRL, now: Long = System.currentTimeMillis()) {
+        val nextUpdate = crl.nextUpdate ?: return
+        crls.store(distributionPoint, Entry(crl, nextUpdate.time), maxCrls, now)
+    }
+
+    /**
+     * The ratio of the cache lookups that were hits, or 0 if there wasn't any lookup yet
+     */
+    fun hitRatio(): Double {
+        val hitCount = hits.sum()
+        val lookups = hitCount + misses.sum()
+        return if (lookups == 0L) 0.0 else hitCount.toDouble() / lookups
+    }
+
+    fun size(): Int = synchronized(ocspResponses) { ocspResponses.size } + synchronized(crls) { crls.size }
+
+    /**
+     * Evicts the responses and the CRLs that are not up to date anymore
+     */
+    @Scheduled(fixedDelay = "1h")
+    fun evictExpired() {
+        evictExpired(System.currentTimeMillis())
+    }
+
+    internal fun evictExpired(now: Long) {
+        synchronized(ocspResponses) { ocspResponses.values.removeIf { it.expiresAt <= now } }
+        synchronized(crls) { crls.values.removeIf { it.expiresAt <= now } }
+    }
+
+    private fun <T> LinkedHashMap<String, Entry<T>>.lookUp(key: String, now: Long): T? {
+        val value = synchronized(this) { this[key]?.takeIf { it.expiresAt > now }?.value }
+        if (value == null) misses.increment() else hits.increment()
+        return value
+    }
+
+    private fun <T> LinkedHashMap<String, Entry<T>>.store(key: String, entry: Entry<T>, maxEntries: Int, now: Long) {
+        if (entry.expiresAt <= now || maxEntries <= 0) return
+        synchronized(this) {
+            this[key] = entry
+            if (size > maxEntries) remove(keys.first())
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.kuvaszuptime.kuvasz.services.tls
+
+import com.kuvaszuptime.kuvasz.config.AppConfig
+import com.kuvaszuptime.kuvasz.config.CheckTlsProvider
+import io.micronaut.context.annotation.Replaces
+import io.micronaut.core.io.ResourceResolver
+import io.micronaut.http.client.HttpVersionSelection
+import io.micronaut.http.client.netty.ssl.ClientSslBuilder
+import io.micronaut.http.client.netty.ssl.NettyClientSslBuilder
+import io.micronaut.http.ssl.SslConfiguration
+import io.micronaut.http.ssl.SslConfigurationException
+import io.netty.buffer.ByteBufAllocator
+import io.netty.handler.codec.http2.Http2SecurityUtil
+import io.netty.handler.ssl.ApplicationProtocolConfig
+import io.netty.handler.ssl.ApplicationProtocolNegotiator
+import io.netty.handler.ssl.OpenSsl
+import io.netty.handler.ssl.OpenSslSessionContext
+import io.netty.handler.ssl.SslContext
+import io.netty.handler.ssl.SslContextBuilder
+import io.netty.handler.ssl.SslProvider
+import io.netty.handler.ssl.SupportedCipherSuiteFilter
+import jakarta.inject.Singleton
+import org.slf4j.LoggerFactory
+import javax.net.ssl.SSLEngine
+import javax.net.ssl.SSLException
+import javax.net.ssl.SSLSessionContext
+import javax.net.ssl.TrustManagerFactory
+
+/**
+ * Builds the SSL contexts of the HTTP clients. The uptime checks' clients (see [UptimeCheckSslConfiguration]) get the
+ * TLS provider of [AppConfig.checkTlsProvider], and their TLS sessions are resumed only if it's enabled for them. The
+ * other clients (e.g. the ones of the integrations) always use the JDK's provider.
+ *
+ * The contexts are built the same way as Micronaut's default builder does, except for the provider: Micronaut picks
+ * OpenSSL for every client that negotiates the protocol via ALPN if netty-tcnative is available, which would
+ * silently change the TLS implementation of the integrations too.
+ */
+@Singleton
+@Replaces(NettyClientSslBuilder::class)
+class UptimeCheckSslBuilder(resourceResolver: ResourceResolver, private val appConfig: AppConfig) : ClientSslBuilder {
+
+    companion object {
+        private val logger = LoggerFactory.getLogger(UptimeCheckSslBuilder::class.java)
+    }
+
+    private val defaultBuilder = DefaultSslBuilder(resourceResolver)
+
+    // Resolved only when the first client of the checks is built, so the native library isn't loaded before
+    private val checkSslProvider: SslProvider by lazy { resolveSslProvider(appConfig.checkTlsProvider) }
+
+    override fun build(sslConfiguration: SslConfiguration, versionSelection: HttpVersionSelection): SslContext =
+        if (sslConfiguration is UptimeCheckSslConfiguration) {
+            buildForChecks(sslConfiguration, versionSelection)
+        } else {
+            buildContext(contextBuilderOf(sslConfiguration, versionSelection, SslProvider.JDK), "the HTTP clients")
+        }
+
+    private fun buildForChecks(
+        sslConfiguration: UptimeCheckSslConfiguration,
+        versionSelection: HttpVersionSelection,
+    ): SslContext {
+        val builder = contextBuilderOf(sslConfiguration, versionSelection, checkSslProvider)
+        // The JDK requests the stapled OCSP responses by default, OpenSSL only if it's asked to, see RevocationLookup
+        val stapling = appConfig.sslRevocationCheckEnabled && checkSslProvider == SslProvider.OPENSSL
+        if (stapling && OpenSsl.isOcspSupported()) builder.enableOcsp(true)
+        val sslContext = buildContext(builder, "the uptime checks")
+        return if (sslConfiguration.sessionResumptionEnabled) sslContext else sslContext.withoutSessionResumption()
+    }
+
+    private fun contextBuilderOf(
+        sslConfiguration: SslConfiguration,
+        versionSelection: HttpVersionSelection,
+        sslProvider: SslProvider,
+    ): SslContextBuilder {
+        val builder = SslContextBuilder.forClient()
+            .keyManager(defaultBuilder.keyManagerFactoryOf(sslConfiguration))
+            .trustManager(defaultBuilder.trustManagerFactoryOf(sslConfiguration))
+            .sslProvider(sslProvider)
+        sslConfiguration.protocols.ifPresent { builder.protocols(*it) }
+        sslConfiguration.ciphers.ifPresentOrElse({ builder.ciphers(it.asList()) }) {
+            if (versionSelection.isHttp2CipherSuites) {
+                builder.ciphers(Http2SecurityUtil.CIPHERS, SupportedCipherSuiteFilter.INSTANCE)
+            }
+        }
+        if (versionSelection.isAlpn) {
+            builder.applicationProtocolConfig(
+                ApplicationProtocolConfig(
+                    ApplicationProtocolConfig.Protocol.ALPN,
+                    ApplicationProtocolConfig.SelectorFailureBehavior.NO_ADVERTISE,
+                    ApplicationProtocolConfig.SelectedListenerFailureBehavior.ACCEPT,
+                    *versionSelection.alpnSupportedProtocols,
+                )
+            )
+        }
+        return builder
+    }
+
+    private fun buildContext(builder: SslContextBuilder, target: String): SslContext = try {
+        builder.build()
+    } catch (e: SSLException) {
+        throw SslConfigurationException("An error occurred while setting up SSL for $target", e)
+    }
+
+    private fun resolveSslProvider(provider: CheckTlsProvider): SslProvider = when (provider) {
+        CheckTlsProvider.JDK -> SslProvider.JDK
+        CheckTlsProvider.OPENSSL -> if (OpenSsl.isAvailable()) {
+            logger.info("The uptime checks use ${OpenSsl.versionString()} as their TLS provider")
+            SslProvider.OPENSSL
+        } else {
+            logger.warn(
+                "OpenSSL is not available on this platform, the uptime checks fall back to the JDK's TLS provider",
+                OpenSsl.unavailabilityCause(),
+            )
+            SslProvider.JDK
+        }
+    }
+
+    /**
+     * Micronaut's default builder, which exposes the key and trust managers of the configuration
+     */
+    private class DefaultSslBuilder(resourceResolver: ResourceResolver) : NettyClientSslBuilder(resourceResolver) {
+
+        fun keyManagerFactoryOf(sslConfiguration: SslConfiguration) = getKeyManagerFactory(sslConfiguration)
+
+        fun trustManagerFactoryOf(sslConfiguration: SslConfiguration): TrustManagerFactory? =
+            getTrustManagerFactory(sslConfiguration)
+    }
+}
+
+/**
+ * Returns an SSL context that never resumes a previous TLS session, so every connection does a full handshake.
+ * OpenSSL's session cache can be simply disabled, but the JDK caches the sessions of a client regardless of its
+ * settings, so its engines are created without the peer's port, because the JDK caches (and looks up) a session only
+ * if both the host and the port of the peer are known. The host is still used for SNI and the hostname verification.
+ */
+internal fun SslContext.withoutSessionResumption(): SslContext {
+    val sessionContext = sessionContext()
+    if (sessionContext is OpenSslSessionContext) {
+        sessionContext.isSessionCacheEnabled = false
+        return this
+    }
+    return NoSessionResumptionSslContext(this)
+}
+
+private class NoSessionResumptionSslContext(private val delegate: SslContext) : SslContext() {
+
+    companion object {
+        private const val UNKNOWN_PORT = -1
+    }
+
+    override fun isClient(): Boolean = delegate.isClient
+
+    override fun cipherSuites(): List<String> = delegate.cipherSuites()
+
+    override fun sessionCacheSize(): Long = delegate.sessionCacheSize()
+
+    override fun sessionTimeout(): Long = delegate.sessionTimeout()
+
+    @Deprecated("Deprecated in Netty")
+    @Suppress("DEPRECATION")
+    override fun applicationProtocolNegotiator(): ApplicationProtocolNegotiator =
+        delegate.applicationProtocolNegotiator()
+
+    override fun newEngine(alloc: ByteBufAllocator): SSLEngine = delegate.newEngine(alloc)
+
+    override fun newEngine(alloc: ByteBufAllocator, peerHost: String?, peerPort: Int): SSLEngine =
+        delegate.newEngine(alloc, peerHost, UNKNOWN_PORT)
+
+    override fun sessionContext(): SSLSessionContext = delegate.sessionContext()
+}
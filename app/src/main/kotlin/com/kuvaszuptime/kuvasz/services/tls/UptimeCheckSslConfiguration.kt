@@ -0,0 +1,11 @@
+package com.kuvaszuptime.kuvasz.services.tls
+
+import io.micronaut.http.ssl.AbstractClientSslConfiguration
+
+/**
+ * The SSL configuration of the uptime checks' HTTP clients. It marks the clients whose SSL context is built by
+ * [UptimeCheckSslBuilder], and determines whether their TLS sessions are resumed.
+ *
+ * Every client has its own SSL context, so its own session cache too, in which the sessions are cached per origin.
+ */
+class UptimeCheckSslConfiguration(val sessionResumptionEnabled: Boolean) : AbstractClientSslConfiguration()
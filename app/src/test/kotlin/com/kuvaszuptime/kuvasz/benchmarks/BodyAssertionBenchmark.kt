@@ -0,0 +1,74 @@
+package com.kuvaszuptime.kuvasz.benchmarks
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.kuvaszuptime.kuvasz.services.body.JsonAssertion
+import com.kuvaszuptime.kuvasz.services.body.JsonAssertionMatcher
+import com.kuvaszuptime.kuvasz.testutils.benchmarksEnabled
+import com.kuvaszuptime.kuvasz.testutils.measureAllocations
+import com.kuvaszuptime.kuvasz.testutils.measureBenchmark
+import io.kotest.core.spec.style.StringSpec
+import io.kotest.matchers.shouldBe
+import io.netty.buffer.Unpooled
+
+/**
+ * Compares the allocations of evaluating a JSON assertion on a small and on a large health payload, when the body is
+ * parsed into a tree, and when it's evaluated on the fly with the streaming matcher. The asserted value is at the end
+ * of the payload, so the whole body has to be read in every case.
+ */
+class BodyAssertionBenchmark : StringSpec({
+
+    fun healthPayload(components: Int): ByteArray =
+        (1..components).joinToString(
+            separator = ",",
+            prefix = "{\"components\":[",
+            postfix = "],\"status\":\"UP\"}",
+        ) {
+            "{\"name\":\"component-$it\",\"status\":\"UP\",\"details\":{\"latencyMs\":$it,\"region\":\"eu-central-1\"}}"
+        }.toByteArray()
+
+    val payloads = mapOf(
+        "small" to healthPayload(components = SMALL_PAYLOAD_COMPONENTS),
+        "large" to healthPayload(components = LARGE_PAYLOAD_COMPONENTS),
+    )
+    val matcher = JsonAssertionMatcher(listOf(JsonAssertion("/status", "UP")))
+    val objectMapper = ObjectMapper()
+
+    payloads.forEach { (size, payload) ->
+        val chunks = payload.toList().chunked(CHUNK_BYTES).map { Unpooled.wrappedBuffer(it.toByteArray()) }
+
+        "streamed JSON assertion on a $size payload (${payload.size / 1024} KiB)"
+            .config(enabledIf = benchmarksEnabled) {
+                fun check() = matcher.newScan()
+                    .apply { chunks.forEach { chunk -> feed(chunk, chunk.readableBytes()) } }
+                    .result(endOfBody = true)
+                    .also { it.passed shouldBe true }
+
+                repeat(WARM_UP_CHECKS) { check() }
+                measureAllocations("json assertion/streamed/$size/allocations", CHECKS) {
+                    measureBenchmark("json assertion/streamed/$size/time", CHECKS) {
+                        repeat(CHECKS) { check() }
+                    }
+                }
+            }
+
+        "tree-parsed JSON assertion on a $size payload (${payload.size / 1024} KiB)"
+            .config(enabledIf = benchmarksEnabled) {
+                fun check() = objectMapper.readTree(payload).at("/status").asText().also { it shouldBe "UP" }
+
+                repeat(WARM_UP_CHECKS) { check() }
+                measureAllocations("json assertion/tree/$size/allocations", CHECKS) {
+                    measureBenchmark("json assertion/tree/$size/time", CHECKS) {
+                        repeat(CHECKS) { check() }
+                    }
+                }
+            }
+    }
+}) {
+    companion object {
+        private const val SMALL_PAYLOAD_COMPONENTS = 10
+        private const val LARGE_PAYLOAD_COMPONENTS = 10_000
+        private const val CHUNK_BYTES = 16 * 1024
+        private const val CHECKS = 200
+        private const val WARM_UP_CHECKS = 50
+    }
+}
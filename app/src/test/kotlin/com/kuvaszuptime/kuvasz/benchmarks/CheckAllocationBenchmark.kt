@@ -0,0 +1,78 @@
+package com.kuvaszuptime.kuvasz.benchmarks
+
+import com.kuvaszuptime.kuvasz.jooq.enums.HttpMethod
+import com.kuvaszuptime.kuvasz.jooq.tables.records.MonitorRecord
+import com.kuvaszuptime.kuvasz.services.CheckRequestTemplates
+import com.kuvaszuptime.kuvasz.services.isRedirected
+import com.kuvaszuptime.kuvasz.services.isSuccess
+import com.kuvaszuptime.kuvasz.services.probe.ProbeHttpResponse
+import com.kuvaszuptime.kuvasz.services.probe.ProbeResponseParser
+import com.kuvaszuptime.kuvasz.testutils.allocatedBytesPerOperation
+import com.kuvaszuptime.kuvasz.testutils.benchmarksEnabled
+import com.kuvaszuptime.kuvasz.testutils.reportAllocations
+import io.kotest.core.spec.style.StringSpec
+import io.kotest.matchers.longs.shouldBeLessThanOrEqual
+import io.netty.buffer.Unpooled
+
+/**
+ * Guards the allocations of the per-check hot path. The blocks are warmed up first, and the allocations of the
+ * current thread are measured. The results depend on the JIT's escape analysis, so they're asserted with a small
+ * tolerance, and only as part of the benchmarks. The allocations of a whole check are guarded by
+ * [com.kuvaszuptime.kuvasz.services.CheckAllocationRegressionTest] in the regular test suite.
+ */
+class CheckAllocationBenchmark : StringSpec({
+
+    fun measure(name: String, block: () -> Unit): Long {
+        allocatedBytesPerOperation(WARM_UP_OPERATIONS, block)
+        return allocatedBytesPerOperation(OPERATIONS, block)
+            .also { reportAllocations("check allocations/$name", OPERATIONS, it * OPERATIONS) }
+    }
+
+    "looking up the request template of a monitor should not allocate".config(enabledIf = benchmarksEnabled) {
+        val requestTemplates = CheckRequestTemplates()
+        val monitor = MonitorRecord()
+            .setId(1)
+            .setUrl("https://example.com/health?full=true")
+            .setRequestMethod(HttpMethod.GET)
+            .setForceNoCache(true)
+        requestTemplates.update(monitor)
+
+        measure("request template") { requestTemplates.forMonitor(monitor) } shouldBeLessThanOrEqual
+            NO_ALLOCATION_TOLERANCE_BYTES
+    }
+
+    "classifying the status of a response should not allocate".config(enabledIf = benchmarksEnabled) {
+        val responses = arrayOf(200, 301, 404, 498).map { ProbeHttpResponse(it, "", null) }.toTypedArray()
+
+        measure("status classification") {
+            for (response in responses) response.isSuccess() || response.isRedirected()
+        } shouldBeLessThanOrEqual NO_ALLOCATION_TOLERANCE_BYTES
+    }
+
+    "parsing a response by the Netty probe should allocate only its reason phrase"
+        .config(enabledIf = benchmarksEnabled) {
+            val parser = ProbeResponseParser()
+            val response = Unpooled.unreleasableBuffer(
+                Unpooled.copiedBuffer(
+                    "HTTP/1.1 200 OK\r\nContent-Type: text/html\r\nContent-Length: 5\r\n\r\nHello",
+                    Charsets.ISO_8859_1,
+                )
+            )
+
+            measure("response parser") {
+                parser.reset(headRequest = false, maxBodyBytes = 1024)
+                parser.feed(response.readerIndex(0))
+            } shouldBeLessThanOrEqual PARSER_BYTES_PER_RESPONSE + NO_ALLOCATION_TOLERANCE_BYTES
+        }
+}) {
+    companion object {
+        private const val WARM_UP_OPERATIONS = 20_000
+        private const val OPERATIONS = 10_000
+
+        // Less than a single object per operation, e.g. an allocation that wasn't eliminated in every iteration
+        private const val NO_ALLOCATION_TOLERANCE_BYTES = 8L
+
+        // The reason phrase of the status line (a String and its byte array)
+        private const val PARSER_BYTES_PER_RESPONSE = 64L
+    }
+}
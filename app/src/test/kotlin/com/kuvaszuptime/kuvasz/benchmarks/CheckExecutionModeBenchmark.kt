@@ -0,0 +1,81 @@
+package com.kuvaszuptime.kuvasz.benchmarks
+
+import com.kuvaszuptime.kuvasz.config.AppConfig
+import com.kuvaszuptime.kuvasz.config.CheckExecutionMode
+import com.kuvaszuptime.kuvasz.models.CheckType
+import com.kuvaszuptime.kuvasz.services.DispatcherFactory
+import com.kuvaszuptime.kuvasz.services.scheduling.InFlightCheckCounter
+import com.kuvaszuptime.kuvasz.testutils.benchmarksEnabled
+import com.kuvaszuptime.kuvasz.testutils.measureBenchmark
+import io.kotest.core.spec.style.StringSpec
+import io.kotest.matchers.shouldBe
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.joinAll
+import kotlinx.coroutines.launch
+import org.slf4j.LoggerFactory
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Fires a burst of simulated checks at the same time with both execution modes. Every simulated uptime check is
+ * awaiting a non-blocking HTTP request, then it's doing a blocking DB query (like getPreviousEvent), while every
+ * simulated SSL check is doing a blocking handshake, just like the real ones.
+ */
+class CheckExecutionModeBenchmark : StringSpec({
+
+    val burstSizes = listOf(1_000, 5_000)
+    val logger = LoggerFactory.getLogger(CheckExecutionModeBenchmark::class.java)
+
+    CheckExecutionMode.entries.forEach { mode ->
+        burstSizes.forEach { burstSize ->
+
+            "$mode with a burst of $burstSize checks".config(enabledIf = benchmarksEnabled) {
+                val appConfig = AppConfig().apply { checkExecutionMode = mode }
+                val dispatcher = DispatcherFactory().provideDispatcher(appConfig)
+                val scope = CoroutineScope(SupervisorJob() + dispatcher)
+                val counter = InFlightCheckCounter()
+                val peakInFlight = AtomicInteger()
+                val peakBlocked = AtomicInteger()
+                val blocked = AtomicInteger()
+
+                fun blockingCall(millis: Long) {
+                    peakBlocked.accumulateAndGet(blocked.incrementAndGet(), ::maxOf)
+                    Thread.sleep(millis)
+                    blocked.decrementAndGet()
+                }
+
+                measureBenchmark("$mode/burst [$burstSize]", burstSize) {
+                    List(burstSize) { index ->
+                        val checkType = if (index % SSL_CHECK_RATIO == 0) CheckType.SSL else CheckType.UPTIME
+                        scope.launch {
+                            counter.track(checkType) {
+                                peakInFlight.accumulateAndGet(
+                                    counter.inFlight(CheckType.UPTIME) + counter.inFlight(CheckType.SSL),
+                                    ::maxOf
+                                )
+                                when (checkType) {
+                                    CheckType.UPTIME -> {
+                                        delay(HTTP_REQUEST_MS)
+                                        blockingCall(DB_QUERY_MS)
+                                    }
+                                    CheckType.SSL -> blockingCall(SSL_HANDSHAKE_MS)
+                                }
+                            }
+                        }
+                    }.joinAll()
+                }
+                logger.info("$mode/burst [$burstSize]: peak in-flight: $peakInFlight, peak blocked: $peakBlocked")
+
+                counter.inFlight(CheckType.UPTIME) + counter.inFlight(CheckType.SSL) shouldBe 0
+            }
+        }
+    }
+}) {
+    companion object {
+        private const val SSL_CHECK_RATIO = 10
+        private const val HTTP_REQUEST_MS = 100L
+        private const val DB_QUERY_MS = 20L
+        private const val SSL_HANDSHAKE_MS = 150L
+    }
+}
@@ -0,0 +1,116 @@
+package com.kuvaszuptime.kuvasz.benchmarks
+
+import com.kuvaszuptime.kuvasz.services.scheduling.HashedTimingWheel
+import com.kuvaszuptime.kuvasz.services.scheduling.WheelTask
+import com.kuvaszuptime.kuvasz.services.scheduling.WheelTimeout
+import com.kuvaszuptime.kuvasz.testutils.benchmarksEnabled
+import com.kuvaszuptime.kuvasz.testutils.measureBenchmark
+import com.kuvaszuptime.kuvasz.testutils.reportHeapUsage
+import com.kuvaszuptime.kuvasz.testutils.usedHeapBytes
+import io.kotest.core.spec.style.StringSpec
+import io.kotest.matchers.booleans.shouldBeTrue
+import io.kotest.matchers.shouldBe
+import java.time.Duration
+import java.util.concurrent.ScheduledFuture
+import java.util.concurrent.ScheduledThreadPoolExecutor
+import java.util.concurrent.TimeUnit
+
+/**
+ * Compares the cost of scheduling, re-scheduling and cancelling the periodic checks of N monitors on the
+ * [HashedTimingWheel] versus a [ScheduledThreadPoolExecutor] (which is what Micronaut's TaskScheduler is backed by).
+ */
+class CheckSchedulingBenchmark : StringSpec({
+
+    val monitorCounts = listOf(10_000, 100_000, 1_000_000)
+    val noop = Runnable { }
+    val noopTask = WheelTask { }
+
+    monitorCounts.forEach { monitorCount ->
+
+        "HashedTimingWheel with $monitorCount monitors".config(enabledIf = benchmarksEnabled) {
+            val heapBefore = usedHeapBytes()
+            HashedTimingWheel(Duration.ofMillis(100), 1024, "benchmark-timing-wheel").use { wheel ->
+                val timeouts = arrayOfNulls<WheelTimeout>(monitorCount)
+
+                measureBenchmark("wheel/schedule [$monitorCount]", monitorCount) {
+                    for (i in 0 until monitorCount) {
+                        timeouts[i] = wheel.schedule(initialDelayOf(i), Duration.ofSeconds(60), noopTask)
+                    }
+                }
+                awaitDrained(wheel)
+                reportHeapUsage("wheel/heap [$monitorCount]", usedHeapBytes() - heapBefore)
+
+                measureBenchmark("wheel/reschedule [$monitorCount]", monitorCount) {
+                    for (i in 0 until monitorCount) {
+                        timeouts[i]!!.reschedule(initialDelayOf(monitorCount - i))
+                    }
+                }
+                measureBenchmark("wheel/drain reschedules [$monitorCount]", monitorCount) { awaitDrained(wheel) }
+
+                measureBenchmark("wheel/cancel [$monitorCount]", monitorCount) {
+                    for (i in 0 until monitorCount) {
+                        timeouts[i]!!.cancel()
+                    }
+                }
+                measureBenchmark("wheel/drain cancellations [$monitorCount]", monitorCount) { awaitDrained(wheel) }
+
+                timeouts.all { it!!.isCancelled }.shouldBeTrue()
+            }
+        }
+
+        "ScheduledThreadPoolExecutor with $monitorCount monitors".config(enabledIf = benchmarksEnabled) {
+            val heapBefore = usedHeapBytes()
+            val executor = ScheduledThreadPoolExecutor(1).apply { removeOnCancelPolicy = true }
+            try {
+                val futures = arrayOfNulls<ScheduledFuture<*>>(monitorCount)
+
+                measureBenchmark("executor/schedule [$monitorCount]", monitorCount) {
+                    for (i in 0 until monitorCount) {
+                        futures[i] = executor.scheduleWithFixedDelay(
+                            noop,
+                            initialDelayOf(i).toMillis(),
+                            Duration.ofSeconds(60).toMillis(),
+                            TimeUnit.MILLISECONDS
+                        )
+                    }
+                }
+                reportHeapUsage("executor/heap [$monitorCount]", usedHeapBytes() - heapBefore)
+
+                // The executor has no way to re-arm a future, it has to be cancelled and scheduled again
+                measureBenchmark("executor/reschedule [$monitorCount]", monitorCount) {
+                    for (i in 0 until monitorCount) {
+                        futures[i]!!.cancel(false)
+                        futures[i] = executor.scheduleWithFixedDelay(
+                            noop,
+                            initialDelayOf(monitorCount - i).toMillis(),
+                            Duration.ofSeconds(60).toMillis(),
+                            TimeUnit.MILLISECONDS
+                        )
+                    }
+                }
+
+                measureBenchmark("executor/cancel [$monitorCount]", monitorCount) {
+                    for (i in 0 until monitorCount) {
+                        futures[i]!!.cancel(false)
+                    }
+                }
+
+                executor.queue.size shouldBe 0
+            } finally {
+                executor.shutdownNow()
+            }
+        }
+    }
+}) {
+    companion object {
+        private const val SPREAD_SECONDS = 60L
+
+        private fun initialDelayOf(index: Int): Duration = Duration.ofSeconds(SPREAD_SECONDS + index % SPREAD_SECONDS)
+
+        private fun awaitDrained(wheel: HashedTimingWheel) {
+            while (wheel.pendingUpdateCount() > 0) {
+                Thread.sleep(10)
+            }
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.kuvaszuptime.kuvasz.benchmarks
+
+import com.kuvaszuptime.kuvasz.config.AppConfig
+import com.kuvaszuptime.kuvasz.jooq.enums.HttpMethod
+import com.kuvaszuptime.kuvasz.jooq.tables.records.MonitorRecord
+import com.kuvaszuptime.kuvasz.services.CheckRequestTemplates
+import com.kuvaszuptime.kuvasz.services.UptimeCheckEventLoopGroup
+import com.kuvaszuptime.kuvasz.services.body.drain
+import com.kuvaszuptime.kuvasz.services.dns.UptimeCheckDnsResolver
+import com.kuvaszuptime.kuvasz.services.probe.NettyCheckProbe
+import com.kuvaszuptime.kuvasz.services.socket.LocalAddressPool
+import com.kuvaszuptime.kuvasz.services.timing.CheckConnectionStats
+import com.kuvaszuptime.kuvasz.services.timing.PendingCheckTiming
+import com.kuvaszuptime.kuvasz.services.tls.PeerCertificateCache
+import com.kuvaszuptime.kuvasz.services.tls.UptimeCheckSslBuilder
+import com.kuvaszuptime.kuvasz.testutils.benchmarksEnabled
+import com.kuvaszuptime.kuvasz.testutils.measureAllocations
+import com.kuvaszuptime.kuvasz.testutils.measureBenchmark
+import com.kuvaszuptime.kuvasz.testutils.measureCpuTime
+import com.sun.net.httpserver.HttpServer
+import io.kotest.core.spec.style.StringSpec
+import io.kotest.matchers.shouldBe
+import io.micronaut.core.io.ResourceResolver
+import io.micronaut.http.HttpRequest
+import io.micronaut.http.client.ProxyHttpClient
+import io.micronaut.http.netty.NettyHttpResponseBuilder
+import io.micronaut.http.netty.channel.EventLoopGroupFactory
+import io.micronaut.http.netty.channel.EventLoopGroupRegistry
+import io.mockk.every
+import io.mockk.mockk
+import io.netty.channel.nio.NioEventLoopGroup
+import io.netty.channel.socket.nio.NioSocketChannel
+import io.netty.resolver.DefaultAddressResolverGroup
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.reactive.awaitSingle
+import kotlinx.coroutines.withContext
+import java.net.InetSocketAddress
+import java.net.URI
+import java.util.Optional
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Compares the throughput, the CPU time and the allocations of the uptime checks with both probe engines: Micronaut's
+ * HTTP client (with the streamed body, the way the checks use it), and the lean Netty probe. The checks are sent
+ * one by one, then [CONCURRENCY] at a time, over pooled connections to a local server, whose threads are excluded
+ * from the measurements. The ops/core/s column is the number of the checks that a single core could do per second.
+ */
+class ProbeEngineBenchmark : StringSpec({
+
+    // Otherwise the delayed ACKs of the server's segments would dominate the time of the checks
+    System.setProperty("sun.net.httpserver.nodelay", "true")
+    val page = ByteArray(PAGE_BYTES) { 'x'.code.toByte() }
+    val serverThreads = AtomicInteger()
+    val server = HttpServer.create(InetSocketAddress("localhost", 0), 0).apply {
+        executor = Executors.newFixedThreadPool(CONCURRENCY) { task ->
+            Thread(task, "$SERVER_THREAD_PREFIX-${serverThreads.incrementAndGet()}")
+        }
+        createContext("/") { exchange ->
+            exchange.sendResponseHeaders(200, page.size.toLong())
+            exchange.responseBody.use { it.write(page) }
+            exchange.close()
+        }
+        start()
+    }
+    val url = URI("http://localhost:${server.address.port}/").toURL()
+    val excludeServer = { threadName: String -> threadName.startsWith(SERVER_THREAD_PREFIX) }
+
+    afterSpec { server.stop(0) }
+
+    suspend fun benchmark(engine: String, check: suspend () -> Unit) {
+        repeat(WARM_UP_CHECKS) { check() }
+        measureAllocations("probe engine/$engine/sequential/allocations", CHECKS, excludeServer) {
+            measureCpuTime("probe engine/$engine/sequential/cpu", CHECKS, excludeServer) {
+                measureBenchmark("probe engine/$engine/sequential/time", CHECKS) {
+                    repeat(CHECKS) { check() }
+                }
+            }
+        }
+        withContext(Dispatchers.Default) {
+            measureAllocations("probe engine/$engine/concurrent/allocations", CHECKS, excludeServer) {
+                measureCpuTime("probe engine/$engine/concurrent/cpu", CHECKS, excludeServer) {
+                    measureBenchmark("probe engine/$engine/concurrent/time", CHECKS) {
+                        coroutineScope {
+                            repeat(CONCURRENCY) {
+                                launch { repeat(CHECKS / CONCURRENCY) { check() } }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    "Micronaut HTTP client with a ${PAGE_BYTES / 1024} KiB page".config(enabledIf = benchmarksEnabled) {
+        val client = ProxyHttpClient.create(url)
+        try {
+            benchmark("client") {
+                client.proxy(HttpRequest.GET<Any>(url.toString())).awaitSingle()
+                    .also { it.code() shouldBe 200 }
+                    .let { NettyHttpResponseBuilder.toStreamResponse(it).drain(BODY_CAP_BYTES) }
+            }
+        } finally {
+            (client as AutoCloseable).close()
+        }
+    }
+
+    "Netty probe with a ${PAGE_BYTES / 1024} KiB page".config(enabledIf = benchmarksEnabled) {
+        val eventLoopGroup = NioEventLoopGroup()
+        val appConfig = AppConfig().apply { checkBodyMaxBytes = BODY_CAP_BYTES }
+        val probe = NettyCheckProbe(
+            appConfig = appConfig,
+            requestTemplates = CheckRequestTemplates(),
+            sslBuilder = UptimeCheckSslBuilder(ResourceResolver(), appConfig),
+            dnsResolver = mockk<UptimeCheckDnsResolver> {
+                every { addressResolverGroup } returns DefaultAddressResolverGroup.INSTANCE
+            },
+            localAddressPool = LocalAddressPool(appConfig),
+            checkConnectionStats = CheckConnectionStats(),
+            peerCertificateCache = PeerCertificateCache(),
+            uptimeCheckEventLoopGroup = UptimeCheckEventLoopGroup(
+                eventLoopGroupRegistry = {
+                    mockk<EventLoopGroupRegistry> {
+                        every { getEventLoopGroup(any()) } returns Optional.of(eventLoopGroup)
+                        every { getEventLoopGroupConfiguration(any()) } returns Optional.empty()
+                    }
+                },
+                eventLoopGroupFactory = mockk<EventLoopGroupFactory> {
+                    every { channelClass(any(), any()) } returns NioSocketChannel::class.java
+                },
+            ),
+        )
+        val monitor = MonitorRecord()
+            .setId(1)
+            .setUrl(url.toString())
+            .setRequestMethod(HttpMethod.GET)
+            .setForceNoCache(false)
+        val uri = URI(monitor.url)
+        try {
+            benchmark("netty") {
+                probe.probe(monitor, uri, PendingCheckTiming("")).response.code() shouldBe 200
+            }
+        } finally {
+            probe.close()
+            eventLoopGroup.shutdownGracefully()
+        }
+    }
+}) {
+    companion object {
+        private const val PAGE_BYTES = 16 * 1024
+        private const val BODY_CAP_BYTES = 64 * 1024L
+        private const val CHECKS = 5_000
+        private const val WARM_UP_CHECKS = 1_000
+        private const val CONCURRENCY = 16
+        private const val SERVER_THREAD_PREFIX = "benchmark-server"
+    }
+}
@@ -0,0 +1,87 @@
+package com.kuvaszuptime.kuvasz.benchmarks
+
+import com.kuvaszuptime.kuvasz.services.body.drain
+import com.kuvaszuptime.kuvasz.testutils.benchmarksEnabled
+import com.kuvaszuptime.kuvasz.testutils.measureAllocations
+import com.kuvaszuptime.kuvasz.testutils.measureBenchmark
+import com.sun.net.httpserver.HttpServer
+import io.kotest.core.spec.style.StringSpec
+import io.kotest.matchers.shouldBe
+import io.micronaut.core.io.buffer.ByteBuffer
+import io.micronaut.http.HttpRequest
+import io.micronaut.http.client.HttpClient
+import io.micronaut.http.client.ProxyHttpClient
+import io.micronaut.http.netty.NettyHttpResponseBuilder
+import kotlinx.coroutines.reactive.awaitSingle
+import java.net.InetSocketAddress
+import java.net.URI
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Compares the allocations of an uptime check against a large page, when the response body is aggregated (the way
+ * `HttpClient.exchange()` works), and when it's streamed and abandoned after the cap (the way the checks work now).
+ * The page is served by a local server, whose threads are excluded from the measurement.
+ */
+class ResponseBodyBenchmark : StringSpec({
+
+    val page = ByteArray(PAGE_BYTES) { 'x'.code.toByte() }
+    val serverThreads = AtomicInteger()
+    val server = HttpServer.create(InetSocketAddress("localhost", 0), 0).apply {
+        executor = Executors.newFixedThreadPool(2) { task ->
+            Thread(task, "$SERVER_THREAD_PREFIX-${serverThreads.incrementAndGet()}")
+        }
+        createContext("/") { exchange ->
+            exchange.sendResponseHeaders(200, page.size.toLong())
+            // The client might close the connection before the whole page is sent
+            runCatching { exchange.responseBody.use { it.write(page) } }
+            exchange.close()
+        }
+        start()
+    }
+    val url = URI("http://localhost:${server.address.port}/").toURL()
+    val excludeServer = { threadName: String -> threadName.startsWith(SERVER_THREAD_PREFIX) }
+
+    afterSpec { server.stop(0) }
+
+    "aggregated body of a ${PAGE_BYTES / 1024} KiB page".config(enabledIf = benchmarksEnabled) {
+        HttpClient.create(url).use { client ->
+            suspend fun check() = client.exchange(HttpRequest.GET<Any>("/"), ByteBuffer::class.java).awaitSingle()
+                .also { response -> response.body()?.let { it.toByteArray().size shouldBe PAGE_BYTES } }
+
+            repeat(WARM_UP_CHECKS) { check() }
+            measureAllocations("response body/aggregated/allocations", CHECKS, excludeServer) {
+                measureBenchmark("response body/aggregated/time", CHECKS) {
+                    repeat(CHECKS) { check() }
+                }
+            }
+        }
+    }
+
+    "streamed body of a ${PAGE_BYTES / 1024} KiB page with a ${BODY_CAP_BYTES / 1024} KiB cap"
+        .config(enabledIf = benchmarksEnabled) {
+            val client = ProxyHttpClient.create(url)
+            suspend fun check() = client.proxy(HttpRequest.GET<Any>(url.toString())).awaitSingle()
+                .let { NettyHttpResponseBuilder.toStreamResponse(it).drain(BODY_CAP_BYTES) }
+                .also { it.truncated shouldBe true }
+
+            try {
+                repeat(WARM_UP_CHECKS) { check() }
+                measureAllocations("response body/streamed/allocations", CHECKS, excludeServer) {
+                    measureBenchmark("response body/streamed/time", CHECKS) {
+                        repeat(CHECKS) { check() }
+                    }
+                }
+            } finally {
+                (client as AutoCloseable).close()
+            }
+        }
+}) {
+    companion object {
+        private const val PAGE_BYTES = 4 * 1024 * 1024
+        private const val BODY_CAP_BYTES = 64 * 1024L
+        private const val CHECKS = 200
+        private const val WARM_UP_CHECKS = 20
+        private const val SERVER_THREAD_PREFIX = "benchmark-server"
+    }
+}
@@ -0,0 +1,127 @@
+package com.kuvaszuptime.kuvasz.benchmarks
+
+import com.kuvaszuptime.kuvasz.config.AppConfig
+import com.kuvaszuptime.kuvasz.jooq.tables.records.MonitorRecord
+import com.kuvaszuptime.kuvasz.repositories.MonitorRepository
+import com.kuvaszuptime.kuvasz.repositories.SSLEventRepository
+import com.kuvaszuptime.kuvasz.services.CheckRequestTemplates
+import com.kuvaszuptime.kuvasz.services.CheckScheduler
+import com.kuvaszuptime.kuvasz.services.EventDispatcher
+import com.kuvaszuptime.kuvasz.services.MonitorRegistry
+import com.kuvaszuptime.kuvasz.services.SSLChecker
+import com.kuvaszuptime.kuvasz.services.UptimeChecker
+import com.kuvaszuptime.kuvasz.services.concurrency.CheckAdmissionController
+import com.kuvaszuptime.kuvasz.services.concurrency.InFlightCheckTable
+import com.kuvaszuptime.kuvasz.services.scheduling.BootstrapProgress
+import com.kuvaszuptime.kuvasz.services.scheduling.HashedTimingWheel
+import com.kuvaszuptime.kuvasz.services.scheduling.InFlightCheckCounter
+import com.kuvaszuptime.kuvasz.services.scheduling.PhasePlanner
+import com.kuvaszuptime.kuvasz.services.scheduling.SSLCheckPlanner
+import com.kuvaszuptime.kuvasz.testutils.benchmarksEnabled
+import com.kuvaszuptime.kuvasz.testutils.measureBenchmark
+import com.kuvaszuptime.kuvasz.testutils.measurePeakHeap
+import io.kotest.assertions.nondeterministic.eventually
+import io.kotest.core.spec.style.StringSpec
+import io.kotest.matchers.longs.shouldBeGreaterThan
+import io.kotest.matchers.shouldBe
+import io.mockk.coEvery
+import io.mockk.every
+import io.mockk.mockk
+import kotlinx.coroutines.Dispatchers
+import org.slf4j.LoggerFactory
+import java.time.Duration
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
+import kotlin.time.Duration.Companion.seconds
+
+/**
+ * Measures the time to the first uptime check and the peak heap usage of the bootstrap with a large fleet of monitors,
+ * when they're loaded in one go (like a single big fetch), when they're streamed in batches, and when the streaming is
+ * ramped up over a warm-up window. The repository generates the records on the fly, so the results aren't skewed by
+ * the database.
+ */
+class StartupBenchmark : StringSpec({
+
+    val monitorCount = 100_000
+    val logger = LoggerFactory.getLogger(StartupBenchmark::class.java)
+
+    fun monitorRecord(id: Long) = MonitorRecord().apply {
+        this.id = id
+        name = "benchmark-$id"
+        url = "https://benchmark-$id.local"
+        uptimeCheckInterval = UPTIME_CHECK_INTERVAL
+        enabled = true
+        sslCheckEnabled = false
+    }
+
+    fun monitorRepository() = mockk<MonitorRepository> {
+        every { countByEnabled(true) } returns monitorCount
+        every { fetchBatchByEnabled(true, any(), any()) } answers {
+            val afterId = secondArg<Long>()
+            val lastId = minOf(afterId + thirdArg<Int>(), monitorCount.toLong())
+            (afterId + 1..lastId).map(::monitorRecord)
+        }
+    }
+
+    listOf(
+        Triple("eager", monitorCount, Duration.ZERO),
+        Triple("streaming", BATCH_SIZE, Duration.ZERO),
+        Triple("streaming with warm-up", BATCH_SIZE, Duration.ofSeconds(WARM_UP_SECONDS)),
+    ).forEach { (name, batchSize, warmUp) ->
+
+        "$name bootstrap with $monitorCount monitors".config(enabledIf = benchmarksEnabled) {
+            val appConfig = AppConfig().apply { bootstrapBatchSize = batchSize }
+            val startedAt = System.nanoTime()
+            val firstCheckAt = AtomicLong()
+            val uptimeChecker = mockk<UptimeChecker> {
+                coEvery { check(any(), any(), any(), any()) } answers {
+                    firstCheckAt.compareAndSet(0, System.nanoTime())
+                }
+            }
+            val bootstrapProgress = BootstrapProgress()
+
+            val monitorRepository = monitorRepository()
+
+            HashedTimingWheel(Duration.ofMillis(100), 1024, "benchmark-timing-wheel").use { wheel ->
+                val checkScheduler = CheckScheduler(
+                    timingWheel = wheel,
+                    monitorRepository = monitorRepository,
+                    sslEventRepository = mockk<SSLEventRepository>(relaxed = true),
+                    monitorRegistry = MonitorRegistry(monitorRepository, EventDispatcher(), CheckRequestTemplates()),
+                    uptimeChecker = uptimeChecker,
+                    sslChecker = mockk<SSLChecker>(relaxed = true),
+                    dispatcher = Dispatchers.Default,
+                    inFlightCheckTable = InFlightCheckTable(appConfig),
+                    inFlightCheckCounter = InFlightCheckCounter(),
+                    phasePlanner = PhasePlanner(),
+                    sslCheckPlanner = SSLCheckPlanner(appConfig),
+                    admissionController = CheckAdmissionController(appConfig),
+                    bootstrapProgress = bootstrapProgress,
+                    appConfig = appConfig,
+                )
+
+                measurePeakHeap("startup/$name/peak heap [$monitorCount]") {
+                    measureBenchmark("startup/$name/schedule [$monitorCount]", monitorCount) {
+                        checkScheduler.initialize(warmUp)
+                    }
+                }
+                eventually((UPTIME_CHECK_INTERVAL + WARM_UP_SECONDS).seconds) {
+                    firstCheckAt.get() shouldBeGreaterThan 0
+                }
+                logger.info(
+                    "startup/$name/time to first check [$monitorCount]: " +
+                        "${TimeUnit.NANOSECONDS.toMillis(firstCheckAt.get() - startedAt)} ms"
+                )
+
+                bootstrapProgress.status().scheduledMonitors shouldBe monitorCount
+                checkScheduler.removeAllChecks()
+            }
+        }
+    }
+}) {
+    companion object {
+        private const val BATCH_SIZE = 1000
+        private const val UPTIME_CHECK_INTERVAL = 60
+        private const val WARM_UP_SECONDS = 10L
+    }
+}
@@ -0,0 +1,203 @@
+package com.kuvaszuptime.kuvasz.benchmarks
+
+import com.kuvaszuptime.kuvasz.config.AppConfig
+import com.kuvaszuptime.kuvasz.config.CheckTlsProvider
+import com.kuvaszuptime.kuvasz.services.tls.UptimeCheckSslBuilder
+import com.kuvaszuptime.kuvasz.services.tls.UptimeCheckSslConfiguration
+import com.kuvaszuptime.kuvasz.testutils.benchmarksEnabled
+import com.kuvaszuptime.kuvasz.testutils.reportBenchmark
+import io.kotest.core.spec.style.StringSpec
+import io.kotest.matchers.shouldBe
+import io.micronaut.core.io.ResourceResolver
+import io.micronaut.http.HttpVersion
+import io.micronaut.http.client.HttpVersionSelection
+import io.netty.buffer.ByteBufAllocator
+import io.netty.handler.ssl.OpenSsl
+import io.netty.handler.ssl.SslContext
+import io.netty.handler.ssl.SslContextBuilder
+import io.netty.handler.ssl.SslProvider
+import io.netty.handler.ssl.util.SelfSignedCertificate
+import io.netty.util.ReferenceCountUtil
+import java.net.Socket
+import java.nio.ByteBuffer
+import java.security.KeyStore
+import java.security.Principal
+import java.security.PrivateKey
+import java.security.cert.X509Certificate
+import java.time.Duration
+import java.util.concurrent.atomic.AtomicInteger
+import javax.net.ssl.KeyManagerFactory
+import javax.net.ssl.SSLEngine
+import javax.net.ssl.SSLEngineResult
+import javax.net.ssl.X509ExtendedKeyManager
+
+/**
+ * Compares the CPU time of the TLS handshakes per uptime check with the JDK and the OpenSSL (BoringSSL) providers,
+ * with and without resuming the session of the previous check. The handshakes (and a request and a response) are
+ * done in memory, between two SSLEngines on the same thread, and only the prober's (the client's) share of the work is
+ * measured, so neither the server nor the network is part of the results. The client's SSL context is built by
+ * [UptimeCheckSslBuilder], like the contexts of the checks' clients.
+ */
+class TlsHandshakeBenchmark : StringSpec({
+
+    val certificate = SelfSignedCertificate(HOST)
+    val serverKeyManager = CountingKeyManager(certificate)
+    val serverContext = SslContextBuilder.forServer(serverKeyManager).sslProvider(SslProvider.JDK).build()
+
+    CheckTlsProvider.entries.forEach { provider ->
+        listOf(true, false).forEach { sessionResumptionEnabled ->
+            val mode = if (sessionResumptionEnabled) "resumed" else "full"
+
+            "TLS handshakes with the $provider provider, $mode".config(
+                enabledIf = { benchmarksEnabled(it) && (provider == CheckTlsProvider.JDK || OpenSsl.isAvailable()) }
+            ) {
+                val appConfig = AppConfig().apply { checkTlsProvider = provider }
+                val sslConfiguration = UptimeCheckSslConfiguration(sessionResumptionEnabled).apply {
+                    isInsecureTrustAllCertificates = true
+                }
+                val clientContext = UptimeCheckSslBuilder(ResourceResolver(), appConfig)
+                    .build(sslConfiguration, HttpVersionSelection.forLegacyVersion(HttpVersion.HTTP_1_1))
+
+                repeat(WARM_UP_CHECKS) { runCheck(clientContext, serverContext) }
+                val fullHandshakesBefore = serverKeyManager.fullHandshakes.get()
+                var clientNanos = 0L
+                repeat(CHECKS) { clientNanos += runCheck(clientContext, serverContext) }
+                val name = "tls handshake/${provider.name.lowercase()}/$mode/client"
+                reportBenchmark(name, CHECKS, Duration.ofNanos(clientNanos))
+
+                // Only the first handshake of an origin is a full one, if the sessions are resumed
+                val fullHandshakes = serverKeyManager.fullHandshakes.get() - fullHandshakesBefore
+                fullHandshakes shouldBe if (sessionResumptionEnabled) 0 else CHECKS
+            }
+        }
+    }
+}) {
+    companion object {
+        private const val HOST = "localhost"
+        private const val PORT = 443
+        private const val CHECKS = 1_000
+        private const val WARM_UP_CHECKS = 500
+        private const val BUFFER_BYTES = 64 * 1024
+        private const val MAX_FLIGHTS = 10
+        private val REQUEST = "HEAD / HTTP/1.1\r\nHost: $HOST\r\n\r\n".toByteArray()
+        private val RESPONSE = "HTTP/1.1 200 OK\r\nContent-Length: 0\r\n\r\n".toByteArray()
+
+        /**
+         * Runs a check over a new connection, and returns the nanoseconds that the client spent on it
+         */
+        private fun runCheck(clientContext: SslContext, serverContext: SslContext): Long {
+            var clientNanos = 0L
+            fun <T> client(block: () -> T): T {
+                val start = System.nanoTime()
+                return block().also { clientNanos += System.nanoTime() - start }
+            }
+
+            val clientEngine = client { clientContext.newEngine(ByteBufAllocator.DEFAULT, HOST, PORT) }
+            val serverEngine = serverContext.newEngine(ByteBufAllocator.DEFAULT)
+            try {
+                val request = ByteBuffer.wrap(REQUEST)
+                val response = ByteBuffer.wrap(RESPONSE)
+                val toServer = ByteBuffer.allocate(BUFFER_BYTES)
+                val toClient = ByteBuffer.allocate(BUFFER_BYTES)
+                val clientReceived = ByteBuffer.allocate(BUFFER_BYTES)
+                val serverReceived = ByteBuffer.allocate(BUFFER_BYTES)
+                client { clientEngine.beginHandshake() }
+                serverEngine.beginHandshake()
+
+                var flights = 0
+                // The response is sent after the request, and the server's session tickets (TLS 1.3) precede it
+                while (clientReceived.position() < RESPONSE.size) {
+                    check(flights++ < MAX_FLIGHTS) { "The TLS handshake didn't complete" }
+                    client { clientEngine.wrapAll(request, toServer) }
+                    serverEngine.unwrapAll(toServer, serverReceived)
+                    val serverSrc = if (serverReceived.position() >= REQUEST.size) response else EMPTY
+                    serverEngine.wrapAll(serverSrc, toClient)
+                    client { clientEngine.unwrapAll(toClient, clientReceived) }
+                }
+            } finally {
+                ReferenceCountUtil.release(clientEngine)
+                ReferenceCountUtil.release(serverEngine)
+            }
+            return clientNanos
+        }
+
+        private val EMPTY: ByteBuffer = ByteBuffer.allocate(0)
+
+        private fun SSLEngine.wrapAll(src: ByteBuffer, dst: ByteBuffer) {
+            do {
+                val result = wrap(src, dst)
+                runDelegatedTasks(result)
+            } while (result.bytesProduced() > 0)
+        }
+
+        private fun SSLEngine.unwrapAll(src: ByteBuffer, dst: ByteBuffer) {
+            src.flip()
+            try {
+                while (src.hasRemaining()) {
+                    val result = unwrap(src, dst)
+                    runDelegatedTasks(result)
+                    if (result.status != SSLEngineResult.Status.OK) break
+                    if (result.bytesConsumed() == 0 && result.bytesProduced() == 0) break
+                }
+            } finally {
+                src.compact()
+            }
+        }
+
+        private fun SSLEngine.runDelegatedTasks(result: SSLEngineResult) {
+            if (result.handshakeStatus == SSLEngineResult.HandshakeStatus.NEED_TASK) {
+                generateSequence { delegatedTask }.forEach { it.run() }
+            }
+        }
+    }
+
+    /**
+     * The server's key manager, which counts the full handshakes, since the private key of the server is used only
+     * when the session is not resumed
+     */
+    private class CountingKeyManager(certificate: SelfSignedCertificate) : X509ExtendedKeyManager() {
+
+        val fullHandshakes = AtomicInteger()
+
+        private val delegate = KeyStore.getInstance(KeyStore.getDefaultType())
+            .apply {
+                load(null, null)
+                setKeyEntry(HOST, certificate.key(), CharArray(0), arrayOf(certificate.cert()))
+            }
+            .let { keyStore ->
+                KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm())
+                    .apply { init(keyStore, CharArray(0)) }
+                    .keyManagers
+                    .filterIsInstance<X509ExtendedKeyManager>()
+                    .single()
+            }
+
+        override fun getPrivateKey(alias: String?): PrivateKey? {
+            fullHandshakes.incrementAndGet()
+            return delegate.getPrivateKey(alias)
+        }
+
+        override fun getCertificateChain(alias: String?): Array<X509Certificate>? = delegate.getCertificateChain(alias)
+
+        override fun getClientAliases(keyType: String?, issuers: Array<out Principal>?): Array<String>? =
+            delegate.getClientAliases(keyType, issuers)
+
+        override fun chooseClientAlias(
+            keyType: Array<out String>?,
+            issuers: Array<out Principal>?,
+            socket: Socket?,
+        ): String? = delegate.chooseClientAlias(keyType, issuers, socket)
+
+        override fun getServerAliases(keyType: String?, issuers: Array<out Principal>?): Array<String>? =
+            delegate.getServerAliases(keyType, issuers)
+
+        override fun chooseServerAlias(keyType: String?, issuers: Array<out Principal>?, socket: Socket?): String? =
+            delegate.chooseServerAlias(keyType, issuers, socket)
+
+        override fun chooseEngineServerAlias(
+            keyType: String?,
+            issuers: Array<out Principal>?,
+            engine: SSLEngine?,
+        ): String? = delegate.chooseEngineServerAlias(keyType, issuers, engine)
+    }
+}
@@ -15,6 +15,7 @@ import com.kuvaszuptime.kuvasz.mocks.createMonitor
 import com.kuvaszuptime.kuvasz.mocks.createSSLEventRecord
 import com.kuvaszuptime.kuvasz.mocks.createUptimeEventRecord
 import com.kuvaszuptime.kuvasz.models.CheckType
+import com.kuvaszuptime.kuvasz.models.checks.CheckTimings
 import com.kuvaszuptime.kuvasz.models.dto.IntegrationDetailsDto
 import com.kuvaszuptime.kuvasz.models.dto.MonitorCreateDto
 import com.kuvaszuptime.kuvasz.models.dto.MonitorExportDto
@@ -478,6 +479,14 @@ class MonitorControllerTest(
                     forceNoCache = false,
                     followRedirects = false,
                     sslExpiryThreshold = 15,
+                    hostConcurrencyLimit = 4,
+                    checkDeadlineSeconds = 20,
+                    dnsCacheEnabled = false,
+                    connectionReuseEnabled = false,
+                    tlsSessionResumptionEnabled = false,
+                    bodyMustContain = listOf("ok"),
+                    bodyMustNotContain = listOf("error", "maintenance"),
+                    bodyJsonAssertions = listOf("/status=UP"),
                     integrations = setUpIntegrations,
                 )
                 val now = getCurrentTimestamp()
@@ -516,6 +525,14 @@ class MonitorControllerTest(
                     response.forceNoCache shouldBe false
                     response.followRedirects shouldBe false
                     response.sslExpiryThreshold shouldBe 15
+                    response.hostConcurrencyLimit shouldBe 4
+                    response.checkDeadlineSeconds shouldBe 20
+                    response.dnsCacheEnabled shouldBe false
+                    response.connectionReuseEnabled shouldBe false
+                    response.tlsSessionResumptionEnabled shouldBe false
+                    response.bodyMustContain shouldBe listOf("ok")
+                    response.bodyMustNotContain shouldBe listOf("error", "maintenance")
+                    response.bodyJsonAssertions shouldBe listOf("/status=UP")
                     response.sslValidUntil shouldBe sslExpiryDate
 
                     // Integrations
@@ -676,6 +693,84 @@ class MonitorControllerTest(
                 }
             }
 
+            `when`("latency history enabled, some of the records were recorded while the prober was saturated") {
+                val monitor = createMonitor(
+                    monitorRepository,
+                    requestMethod = HttpMethod.HEAD,
+                    latencyHistoryEnabled = true,
+                    forceNoCache = false,
+                    followRedirects = false,
+                )
+                latencyLogRepository.insertLatencyForMonitor(monitorId = monitor.id, latency = 100)
+                latencyLogRepository.insertLatencyForMonitor(monitorId = monitor.id, latency = 300)
+                latencyLogRepository.insertLatencyForMonitor(
+                    monitorId = monitor.id,
+                    latency = 5000,
+                    proberSaturated = true,
+                )
+
+                then("it should exclude them from the stats, but return them flagged among the logs") {
+                    val response = monitorClient.getMonitorStats(monitorId = monitor.id, period = null)
+                    response.averageLatencyInMs shouldBe 200
+                    response.minLatencyInMs shouldBe 100
+                    response.maxLatencyInMs shouldBe 300
+
+                    response.latencyLogs shouldHaveSize 3
+                    response.latencyLogs[0].latencyInMs shouldBe 5000
+                    response.latencyLogs[0].proberSaturated shouldBe true
+                    response.latencyLogs[1].proberSaturated shouldBe false
+                    response.latencyLogs[2].proberSaturated shouldBe false
+                }
+            }
+
+            `when`("latency history enabled, records with timing breakdowns are present") {
+                val monitor = createMonitor(
+                    monitorRepository,
+                    requestMethod = HttpMethod.HEAD,
+                    latencyHistoryEnabled = true,
+                    forceNoCache = false,
+                    followRedirects = false,
+                )
+                latencyLogRepository.insertLatencyForMonitor(
+                    monitorId = monitor.id,
+                    latency = 100,
+                    timings = CheckTimings(
+                        dnsNanos = 10_000_000,
+                        connectNanos = 20_000_000,
+                        tlsNanos = 30_000_000,
+                        ttfbNanos = 35_500_000,
+                        transferNanos = 4_500_000,
+                    ),
+                )
+                // A pooled connection was reused, so the connection related phases didn't happen
+                latencyLogRepository.insertLatencyForMonitor(
+                    monitorId = monitor.id,
+                    latency = 50,
+                    timings = CheckTimings(
+                        dnsNanos = null,
+                        connectNanos = null,
+                        tlsNanos = null,
+                        ttfbNanos = 44_500_000,
+                        transferNanos = 5_500_000,
+                    ),
+                )
+
+                then("it should return the average phases, ignoring the ones that didn't happen") {
+                    val response = monitorClient.getMonitorStats(monitorId = monitor.id, period = null)
+                    response.averageDnsInMs shouldBe 10.0
+                    response.averageConnectInMs shouldBe 20.0
+                    response.averageTlsInMs shouldBe 30.0
+                    response.averageTtfbInMs shouldBe 40.0
+                    response.averageTransferInMs shouldBe 5.0
+
+                    response.latencyLogs shouldHaveSize 2
+                    response.latencyLogs[0].dnsInMs shouldBe null
+                    response.latencyLogs[0].ttfbInMs shouldBe 44.5
+                    response.latencyLogs[1].tlsInMs shouldBe 30.0
+                    response.latencyLogs[1].transferInMs shouldBe 4.5
+                }
+            }
+
             `when`("latency history enabled, but no records") {
                 val monitor = createMonitor(
                     monitorRepository,
@@ -912,6 +1007,24 @@ class MonitorControllerTest(
                 }
             }
 
+            `when`("it is called with an invalid JSON assertion") {
+                val monitorToCreate = MonitorCreateDto(
+                    name = "test_monitor",
+                    url = "https://valid-url.com",
+                    uptimeCheckInterval = 6000,
+                    bodyJsonAssertions = listOf("status=UP"),
+                )
+                val request = HttpRequest.POST("/api/v1/monitors", monitorToCreate)
+                val response = shouldThrow<HttpClientResponseException> {
+                    client.exchange(request).awaitFirst()
+                }
+
+                then("it should return a 400") {
+                    response.status shouldBe HttpStatus.BAD_REQUEST
+                    exceptionToMessage(response) shouldContain "bodyJsonAssertions"
+                }
+            }
+
             `when`("it is called with an invalid integration name") {
                 val monitorToCreate = MonitorCreateDto(
                     name = "test_monitor",
@@ -1037,6 +1150,20 @@ class MonitorControllerTest(
                     .put(MonitorUpdateDto::url.name, "https://updated-url.com")
                     .put(MonitorUpdateDto::uptimeCheckInterval.name, "5000")
                     .put(MonitorUpdateDto::sslExpiryThreshold.name, "20")
+                    .put(MonitorUpdateDto::hostConcurrencyLimit.name, 2)
+                    .put(MonitorUpdateDto::checkDeadlineSeconds.name, 30)
+                    .put(MonitorUpdateDto::dnsCacheEnabled.name, false)
+                    .put(MonitorUpdateDto::connectionReuseEnabled.name, false)
+                    .put(MonitorUpdateDto::tlsSessionResumptionEnabled.name, false)
+                    .set<ObjectNode>(
+                        MonitorUpdateDto::bodyMustContain.name,
+                        mapper.createArrayNode().add("ok").add("").add("ok")
+                    )
+                    .set<ObjectNode>(MonitorUpdateDto::bodyMustNotContain.name, mapper.createArrayNode().add("error"))
+                    .set<ObjectNode>(
+                        MonitorUpdateDto::bodyJsonAssertions.name,
+                        mapper.createArrayNode().add("/db/status=UP")
+                    )
                     .set<ObjectNode>(
                         MonitorUpdateDto::integrations.name,
                         mapper
@@ -1064,6 +1191,14 @@ class MonitorControllerTest(
                     monitorInDb.forceNoCache shouldBe false
                     monitorInDb.followRedirects shouldBe false
                     monitorInDb.sslExpiryThreshold shouldBe 20
+                    monitorInDb.hostConcurrencyLimit shouldBe 2
+                    monitorInDb.checkDeadlineSeconds shouldBe 30
+                    monitorInDb.dnsCacheEnabled shouldBe false
+                    monitorInDb.connectionReuseEnabled shouldBe false
+                    monitorInDb.tlsSessionResumptionEnabled shouldBe false
+                    monitorInDb.bodyMustContain shouldBe arrayOf("ok")
+                    monitorInDb.bodyMustNotContain shouldBe arrayOf("error")
+                    monitorInDb.bodyJsonAssertions shouldBe arrayOf("/db/status=UP")
                     monitorInDb.integrations.shouldNotBeNull() shouldContainExactlyInAnyOrder
                         arrayOf(
                             IntegrationID(IntegrationType.SLACK, "test_implicitly_enabled"),
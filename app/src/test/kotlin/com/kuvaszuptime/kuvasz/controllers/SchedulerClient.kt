@@ -0,0 +1,13 @@
+package com.kuvaszuptime.kuvasz.controllers
+
+import com.kuvaszuptime.kuvasz.models.dto.InFlightCheckDto
+import com.kuvaszuptime.kuvasz.models.dto.PlannedChecksDto
+import io.micronaut.http.client.annotation.Client
+
+@Client("/api/v1/scheduler")
+interface SchedulerClient : SchedulerOperations {
+
+    override fun getPlannedChecks(seconds: Int?): PlannedChecksDto
+
+    override fun getInFlightChecks(): List<InFlightCheckDto>
+}
@@ -0,0 +1,104 @@
+package com.kuvaszuptime.kuvasz.controllers
+
+import com.kuvaszuptime.kuvasz.DatabaseBehaviorSpec
+import com.kuvaszuptime.kuvasz.mocks.createMonitor
+import com.kuvaszuptime.kuvasz.repositories.MonitorRepository
+import com.kuvaszuptime.kuvasz.services.CheckScheduler
+import com.kuvaszuptime.kuvasz.services.concurrency.InFlightCheckTable
+import io.kotest.core.test.TestCase
+import io.kotest.core.test.TestResult
+import io.kotest.matchers.collections.shouldBeEmpty
+import io.kotest.matchers.collections.shouldHaveSize
+import io.kotest.matchers.longs.shouldBeGreaterThan
+import io.kotest.matchers.longs.shouldBeGreaterThanOrEqual
+import io.kotest.matchers.shouldBe
+import io.micronaut.test.extensions.kotest5.annotation.MicronautTest
+
+@MicronautTest
+class SchedulerControllerTest(
+    private val schedulerClient: SchedulerClient,
+    private val monitorRepository: MonitorRepository,
+    private val checkScheduler: CheckScheduler,
+    private val inFlightCheckTable: InFlightCheckTable,
+) : DatabaseBehaviorSpec() {
+
+    init {
+        given("SchedulerController's getPlannedChecks() endpoint") {
+
+            `when`("there are no scheduled monitors") {
+                val result = schedulerClient.getPlannedChecks(seconds = null)
+
+                then("it should return an empty histogram for the default period") {
+                    result.perSecond shouldHaveSize 60
+                    result.min shouldBe 0
+                    result.max shouldBe 0
+                    result.mean shouldBe 0.0
+                }
+            }
+
+            `when`("there are scheduled monitors") {
+                repeat(25) { index ->
+                    val monitor = createMonitor(
+                        monitorRepository,
+                        monitorName = "monitor-$index",
+                        uptimeCheckInterval = 10,
+                        sslCheckEnabled = false,
+                    )
+                    checkScheduler.createChecksForMonitor(monitor)
+                }
+
+                val result = schedulerClient.getPlannedChecks(seconds = 20)
+
+                then("it should return the evenly spread checks second by second") {
+                    result.perSecond shouldHaveSize 20
+                    result.perSecond.sum() shouldBe 50
+                    result.min shouldBe 2
+                    result.max shouldBe 3
+                    result.mean shouldBe 2.5
+                }
+            }
+
+            `when`("the requested period is out of bounds") {
+                val result = schedulerClient.getPlannedChecks(seconds = 100_000)
+
+                then("it should be capped") {
+                    result.perSecond shouldHaveSize 3600
+                }
+            }
+        }
+
+        given("SchedulerController's getInFlightChecks() endpoint") {
+
+            `when`("there are running uptime checks") {
+                val ticket = inFlightCheckTable.tryAcquire(IN_FLIGHT_MONITOR_ID)
+
+                val result = schedulerClient.getInFlightChecks()
+                inFlightCheckTable.release(IN_FLIGHT_MONITOR_ID, ticket)
+
+                then("it should return them") {
+                    val check = result.single { it.monitorId == IN_FLIGHT_MONITOR_ID }
+                    check.overrun shouldBe false
+                    check.runningForMs shouldBeGreaterThanOrEqual 0
+                    check.remainingMs shouldBeGreaterThan 0
+                }
+            }
+
+            `when`("there are no running uptime checks") {
+                val result = schedulerClient.getInFlightChecks()
+
+                then("it should return an empty list") {
+                    result.shouldBeEmpty()
+                }
+            }
+        }
+    }
+
+    override suspend fun afterTest(testCase: TestCase, result: TestResult) {
+        checkScheduler.removeAllChecks()
+        super.afterTest(testCase, result)
+    }
+
+    companion object {
+        private const val IN_FLIGHT_MONITOR_ID = 1_000_000L
+    }
+}
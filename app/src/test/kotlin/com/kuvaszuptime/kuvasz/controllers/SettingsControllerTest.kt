@@ -164,6 +164,7 @@ class SettingsControllerTest(settingsClient: SettingsClient, appGlobals: AppGlob
                     meters.latestLatency shouldBe true
                     meters.uptimeStatus shouldBe true
                     meters.sslStatus shouldBe true
+                    meters.checkExecution shouldBe true
 
                     with(exporters.prometheus) {
                         enabled shouldBe true
@@ -0,0 +1,43 @@
+package com.kuvaszuptime.kuvasz.metrics
+
+import io.kotest.inspectors.forAll
+import io.kotest.matchers.collections.shouldContain
+import io.kotest.matchers.collections.shouldContainExactlyInAnyOrder
+import io.micronaut.context.ApplicationContext
+
+class CheckAdmissionExporterTest : ExporterTest("enabled-metrics-check-execution") {
+
+    init {
+        given("an enabled check admission exporter") {
+
+            `when`("the exporter is initialized") {
+                appContext = ApplicationContext.run()
+
+                restartAppContextWithMetrics()
+
+                val registeredMeters = meterRegistry().meters
+                val admissionMeters = registeredMeters.filter {
+                    it.id.name.startsWith("kuvasz.scheduler.") ||
+                        it.id.name in listOf("kuvasz.checks.deferred", "kuvasz.checks.rejected")
+                }
+
+                then("it should register the lag, the deferred and the rejected meters for every check type") {
+                    val expectedNames = listOf(
+                        "kuvasz.scheduler.lag",
+                        "kuvasz.scheduler.lag.max",
+                        "kuvasz.checks.deferred",
+                        "kuvasz.checks.rejected",
+                    )
+                    admissionMeters.map { it.id.name to it.id.getTag("type") }.shouldContainExactlyInAnyOrder(
+                        expectedNames.flatMap { name -> listOf(name to "uptime", name to "ssl") }
+                    )
+                    admissionMeters.forAll { meter -> meter shouldHaveValue 0.0 }
+                }
+
+                then("it should register the meter of the pending checks") {
+                    registeredMeters.map { it.id.name } shouldContain "kuvasz.checks.pending"
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.kuvaszuptime.kuvasz.metrics
+
+import io.kotest.matchers.collections.shouldContainExactlyInAnyOrder
+import io.micronaut.context.ApplicationContext
+
+class CheckConnectionExporterTest : ExporterTest("enabled-metrics-check-execution") {
+
+    init {
+        given("an enabled check connection exporter") {
+
+            `when`("the exporter is initialized") {
+                appContext = ApplicationContext.run()
+
+                restartAppContextWithMetrics()
+
+                val connectionMeters = meterRegistry().meters.filter {
+                    it.id.name.startsWith("kuvasz.checks.connections.")
+                }
+
+                then("it should register the meters of the connections") {
+                    connectionMeters.map { it.id.name } shouldContainExactlyInAnyOrder listOf(
+                        "kuvasz.checks.connections.reuse_ratio",
+                        "kuvasz.checks.connections.opened",
+                        "kuvasz.checks.connections.reused",
+                        "kuvasz.checks.connections.tls_handshakes",
+                        "kuvasz.checks.connections.local_errors",
+                    )
+                }
+            }
+        }
+    }
+}
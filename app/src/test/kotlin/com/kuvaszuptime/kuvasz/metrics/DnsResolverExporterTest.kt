@@ -0,0 +1,28 @@
+package com.kuvaszuptime.kuvasz.metrics
+
+import io.kotest.matchers.collections.shouldContainExactlyInAnyOrder
+import io.micronaut.context.ApplicationContext
+
+class DnsResolverExporterTest : ExporterTest("enabled-metrics-check-execution") {
+
+    init {
+        given("an enabled DNS resolver exporter") {
+
+            `when`("the exporter is initialized") {
+                appContext = ApplicationContext.run()
+
+                restartAppContextWithMetrics()
+
+                val dnsMeters = meterRegistry().meters.filter { it.id.name.startsWith("kuvasz.checks.dns.") }
+
+                then("it should register the meters of the resolutions and the cache") {
+                    dnsMeters.map { it.id.name } shouldContainExactlyInAnyOrder listOf(
+                        "kuvasz.checks.dns.resolution",
+                        "kuvasz.checks.dns.cache.hit_ratio",
+                        "kuvasz.checks.dns.cache.size",
+                    )
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.kuvaszuptime.kuvasz.metrics
+
+import io.kotest.inspectors.forAll
+import io.kotest.matchers.collections.shouldContainExactlyInAnyOrder
+import io.micronaut.context.ApplicationContext
+
+class HostQueueExporterTest : ExporterTest("enabled-metrics-check-execution") {
+
+    init {
+        given("an enabled host queue exporter") {
+
+            `when`("the exporter is initialized") {
+                appContext = ApplicationContext.run()
+
+                restartAppContextWithMetrics()
+
+                val hostQueueMeters = meterRegistry().meters.filter {
+                    it.id.name.startsWith("kuvasz.checks.host_queue.")
+                }
+
+                then("it should register the meters of the per-host queue") {
+                    hostQueueMeters.map { it.id.name } shouldContainExactlyInAnyOrder listOf(
+                        "kuvasz.checks.host_queue.wait",
+                        "kuvasz.checks.host_queue.waiting",
+                    )
+                    hostQueueMeters.forAll { meter -> meter shouldHaveValue 0.0 }
+                }
+            }
+        }
+    }
+}
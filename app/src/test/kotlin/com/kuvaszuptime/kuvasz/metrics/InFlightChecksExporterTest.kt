@@ -0,0 +1,40 @@
+package com.kuvaszuptime.kuvasz.metrics
+
+import io.kotest.inspectors.forAll
+import io.kotest.matchers.collections.shouldContain
+import io.kotest.matchers.collections.shouldContainExactlyInAnyOrder
+import io.kotest.matchers.collections.shouldHaveSize
+import io.micrometer.core.instrument.Tag
+import io.micronaut.context.ApplicationContext
+
+class InFlightChecksExporterTest : ExporterTest("enabled-metrics-check-execution") {
+
+    init {
+        given("an enabled check execution exporter") {
+
+            `when`("the exporter is initialized") {
+                appContext = ApplicationContext.run()
+
+                restartAppContextWithMetrics()
+
+                val checkMeters = meterRegistry().meters.filter {
+                    it.id.name in listOf("kuvasz.checks.in_flight", "kuvasz.checks.started")
+                }
+
+                then("it should register an in-flight and a started meter for every check type") {
+                    checkMeters shouldHaveSize 4
+                    checkMeters.map { it.id.name to it.id.getTag("type") }.shouldContainExactlyInAnyOrder(
+                        "kuvasz.checks.in_flight" to "uptime",
+                        "kuvasz.checks.in_flight" to "ssl",
+                        "kuvasz.checks.started" to "uptime",
+                        "kuvasz.checks.started" to "ssl",
+                    )
+                    checkMeters.forAll { meter ->
+                        meter.id.tags shouldContain Tag.of("execution_mode", "virtual_threads")
+                        meter shouldHaveValue 0.0
+                    }
+                }
+            }
+        }
+    }
+}
@@ -106,6 +106,33 @@ class LatencyExporterTest : ExporterTest("enabled-metrics-latency") {
                 }
             }
 
+            `when`("there are latencies that were recorded while the prober was saturated") {
+                appContext = ApplicationContext.run()
+
+                val monitor = createMonitor(
+                    getMonitorRepository(),
+                    monitorName = "test-saturated",
+                    url = "https://test.saturated",
+                    enabled = true,
+                    latencyHistoryEnabled = true,
+                )
+                latencyLogRepository().insertLatencyForMonitor(monitor.id, 20)
+                latencyLogRepository().insertLatencyForMonitor(monitor.id, 900, proberSaturated = true)
+
+                restartAppContextWithMetrics()
+
+                val initialLatency = meterRegistry().meters.single().measure().single().value
+
+                eventDispatcher().dispatch(
+                    MonitorUpEvent(monitor, HttpStatus.OK, 1200, null, proberSaturated = true)
+                )
+
+                then("it should skip them both on initialization and on the new events") {
+                    initialLatency shouldBe 20.0
+                    meterRegistry().meters.single() shouldHaveValue 20.0
+                }
+            }
+
             `when`("monitors are updated/deleted after initialization") {
 
                 appContext = ApplicationContext.run()
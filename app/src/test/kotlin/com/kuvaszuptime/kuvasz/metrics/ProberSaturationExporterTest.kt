@@ -0,0 +1,34 @@
+package com.kuvaszuptime.kuvasz.metrics
+
+import io.kotest.matchers.collections.shouldContainAll
+import io.micronaut.context.ApplicationContext
+
+class ProberSaturationExporterTest : ExporterTest("enabled-metrics-check-execution") {
+
+    init {
+        given("an enabled prober saturation exporter") {
+
+            `when`("the exporter is initialized") {
+                appContext = ApplicationContext.run()
+
+                restartAppContextWithMetrics()
+
+                val registeredMeters = meterRegistry().meters
+                val meterNames = registeredMeters.map { it.id.name }
+
+                then("it should register the meters of the prober saturation and the concurrency limit") {
+                    meterNames shouldContainAll listOf(
+                        "kuvasz.prober.saturated",
+                        "kuvasz.prober.event_loop.lag",
+                        "kuvasz.prober.dispatcher.lag",
+                        "kuvasz.checks.concurrency_limit",
+                    )
+                }
+
+                then("the prober should not be saturated") {
+                    registeredMeters.single { it.id.name == "kuvasz.prober.saturated" } shouldHaveValue 0.0
+                }
+            }
+        }
+    }
+}
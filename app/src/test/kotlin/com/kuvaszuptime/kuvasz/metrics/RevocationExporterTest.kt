@@ -0,0 +1,30 @@
+package com.kuvaszuptime.kuvasz.metrics
+
+import io.kotest.matchers.collections.shouldContainExactlyInAnyOrder
+import io.micronaut.context.ApplicationContext
+
+class RevocationExporterTest : ExporterTest("enabled-metrics-check-execution") {
+
+    init {
+        given("an enabled revocation exporter") {
+
+            `when`("the exporter is initialized") {
+                appContext = ApplicationContext.run()
+
+                restartAppContextWithMetrics()
+
+                val revocationMeters = meterRegistry().meters.filter {
+                    it.id.name.startsWith("kuvasz.ssl_checks.revocation.")
+                }
+
+                then("it should register the meters of the revocation lookups") {
+                    revocationMeters.map { it.id.name } shouldContainExactlyInAnyOrder listOf(
+                        "kuvasz.ssl_checks.revocation.lookup",
+                        "kuvasz.ssl_checks.revocation.cache.hit_ratio",
+                        "kuvasz.ssl_checks.revocation.cache.size",
+                    )
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.kuvaszuptime.kuvasz.metrics
+
+import io.kotest.matchers.collections.shouldContainExactlyInAnyOrder
+import io.micronaut.context.ApplicationContext
+
+class SSLCheckPlanExporterTest : ExporterTest("enabled-metrics-check-execution") {
+
+    init {
+        given("an enabled SSL check plan exporter") {
+
+            `when`("the exporter is initialized") {
+                appContext = ApplicationContext.run()
+
+                restartAppContextWithMetrics()
+
+                val planMeters = meterRegistry().meters.filter {
+                    it.id.name in listOf("kuvasz.ssl_checks.planned", "kuvasz.ssl_checks.executed")
+                }
+
+                then("it should register the meters of the planned and the executed SSL checks") {
+                    planMeters.map { it.id.name to it.id.getTag("hour") }.shouldContainExactlyInAnyOrder(
+                        listOf("kuvasz.ssl_checks.planned", "kuvasz.ssl_checks.executed").flatMap { name ->
+                            listOf(name to "current", name to "previous")
+                        }
+                    )
+                }
+            }
+        }
+    }
+}
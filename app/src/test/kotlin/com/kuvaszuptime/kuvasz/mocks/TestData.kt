@@ -29,6 +29,14 @@ fun createMonitor(
     forceNoCache: Boolean = true,
     followRedirects: Boolean = true,
     sslExpiryThreshold: Int = 30,
+    hostConcurrencyLimit: Int = 0,
+    checkDeadlineSeconds: Int = 0,
+    dnsCacheEnabled: Boolean = true,
+    connectionReuseEnabled: Boolean = true,
+    tlsSessionResumptionEnabled: Boolean = true,
+    bodyMustContain: List<String> = emptyList(),
+    bodyMustNotContain: List<String> = emptyList(),
+    bodyJsonAssertions: List<String> = emptyList(),
     integrations: List<IntegrationID> = emptyList(),
 ): MonitorRecord {
     val monitor = MonitorRecord()
@@ -44,6 +52,14 @@ fun createMonitor(
         .setForceNoCache(forceNoCache)
         .setFollowRedirects(followRedirects)
         .setSslExpiryThreshold(sslExpiryThreshold)
+        .setHostConcurrencyLimit(hostConcurrencyLimit)
+        .setCheckDeadlineSeconds(checkDeadlineSeconds)
+        .setDnsCacheEnabled(dnsCacheEnabled)
+        .setConnectionReuseEnabled(connectionReuseEnabled)
+        .setTlsSessionResumptionEnabled(tlsSessionResumptionEnabled)
+        .setBodyMustContain(bodyMustContain.toTypedArray())
+        .setBodyMustNotContain(bodyMustNotContain.toTypedArray())
+        .setBodyJsonAssertions(bodyJsonAssertions.toTypedArray())
         .setIntegrations(integrations.toTypedArray())
     return repository.returningInsert(monitor).orNull().shouldNotBeNull()
 }
@@ -91,6 +91,14 @@ class AppBootstrappingYamlConfigTest : StringSpec({
             firstMonitor.forceNoCache shouldBe false
             firstMonitor.followRedirects shouldBe false
             firstMonitor.sslExpiryThreshold shouldBe 0
+            firstMonitor.hostConcurrencyLimit shouldBe 3
+            firstMonitor.checkDeadlineSeconds shouldBe 15
+            firstMonitor.dnsCacheEnabled shouldBe false
+            firstMonitor.connectionReuseEnabled shouldBe false
+            firstMonitor.tlsSessionResumptionEnabled shouldBe false
+            firstMonitor.bodyMustContain shouldBe arrayOf("ok", "healthy")
+            firstMonitor.bodyMustNotContain shouldBe arrayOf("error")
+            firstMonitor.bodyJsonAssertions shouldBe arrayOf("/status=UP")
 
             scheduledUptimeChecks[firstMonitor.id].shouldBeNull()
             scheduledSSLChecks[firstMonitor.id].shouldBeNull()
@@ -107,6 +115,14 @@ class AppBootstrappingYamlConfigTest : StringSpec({
             secondMonitor.forceNoCache shouldBe MonitorDefaults.FORCE_NO_CACHE
             secondMonitor.followRedirects shouldBe MonitorDefaults.FOLLOW_REDIRECTS
             secondMonitor.sslExpiryThreshold shouldBe 10
+            secondMonitor.hostConcurrencyLimit shouldBe MonitorDefaults.HOST_CONCURRENCY_LIMIT
+            secondMonitor.checkDeadlineSeconds shouldBe MonitorDefaults.CHECK_DEADLINE_SECONDS
+            secondMonitor.dnsCacheEnabled shouldBe MonitorDefaults.DNS_CACHE_ENABLED
+            secondMonitor.connectionReuseEnabled shouldBe MonitorDefaults.CONNECTION_REUSE_ENABLED
+            secondMonitor.tlsSessionResumptionEnabled shouldBe MonitorDefaults.TLS_SESSION_RESUMPTION_ENABLED
+            secondMonitor.bodyMustContain shouldBe emptyArray<String>()
+            secondMonitor.bodyMustNotContain shouldBe emptyArray<String>()
+            secondMonitor.bodyJsonAssertions shouldBe emptyArray<String>()
             secondMonitor.integrations shouldBe arrayOf(
                 IntegrationID(IntegrationType.SLACK, "test_implicitly_enabled")
             )
@@ -0,0 +1,106 @@
+package com.kuvaszuptime.kuvasz.services
+
+import com.kuvaszuptime.kuvasz.config.AppConfig
+import com.kuvaszuptime.kuvasz.jooq.enums.HttpMethod
+import com.kuvaszuptime.kuvasz.jooq.enums.UptimeStatus
+import com.kuvaszuptime.kuvasz.jooq.tables.records.MonitorRecord
+import com.kuvaszuptime.kuvasz.jooq.tables.records.UptimeEventRecord
+import com.kuvaszuptime.kuvasz.repositories.UptimeEventRepository
+import com.kuvaszuptime.kuvasz.services.concurrency.AdaptiveConcurrencyLimiter
+import com.kuvaszuptime.kuvasz.services.concurrency.CheckAdmissionController
+import com.kuvaszuptime.kuvasz.services.concurrency.HostBulkhead
+import com.kuvaszuptime.kuvasz.services.probe.CheckProbe
+import com.kuvaszuptime.kuvasz.services.probe.CheckProbes
+import com.kuvaszuptime.kuvasz.services.probe.ProbeHttpResponse
+import com.kuvaszuptime.kuvasz.services.probe.ProbeResult
+import com.kuvaszuptime.kuvasz.services.timing.CheckConnectionStats
+import com.kuvaszuptime.kuvasz.services.timing.CheckTimingRecorder
+import com.kuvaszuptime.kuvasz.services.timing.PendingCheckTiming
+import com.kuvaszuptime.kuvasz.testutils.allocatedBytesPerOperation
+import com.kuvaszuptime.kuvasz.testutils.reportAllocations
+import io.kotest.core.spec.style.BehaviorSpec
+import io.kotest.matchers.longs.shouldBeLessThanOrEqual
+import io.kotest.matchers.shouldBe
+import io.mockk.mockk
+import kotlinx.coroutines.Dispatchers
+import java.net.URI
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Guards the allocations of a whole uptime check, so a change that makes the hot path allocate noticeably more (e.g.
+ * parsing the URL or building a log message on every check) fails the build. Only the I/O is stubbed: the probe
+ * returns a prepared response, and the previous event of the monitor isn't queried from the database, everything
+ * else (the request template, the bulkhead, the timings, the RTT baseline, the evaluation and the event dispatching)
+ * is the real code. The check is warmed up first, and the allocations of the current thread are measured, with a
+ * tolerance, because the results depend on the JIT's escape analysis.
+ */
+class CheckAllocationRegressionTest : BehaviorSpec({
+
+    given("an uptime check of a monitor that is UP") {
+        val appConfig = AppConfig()
+        val eventDispatcher = EventDispatcher()
+        val requestTemplates = CheckRequestTemplates()
+        val monitor = MonitorRecord()
+            .setId(1)
+            .setName("allocations")
+            .setUrl("https://example.com/health?full=true")
+            .setRequestMethod(HttpMethod.GET)
+            .setFollowRedirects(true)
+            .setForceNoCache(true)
+        requestTemplates.update(monitor)
+        val probes = AtomicInteger()
+        val probe = object : CheckProbe {
+            private val result = ProbeResult(ProbeHttpResponse(200, "OK", null), bodyBytes = 0, truncated = false)
+
+            override suspend fun probe(monitor: MonitorRecord, uri: URI, timing: PendingCheckTiming): ProbeResult =
+                result.also { probes.incrementAndGet() }
+        }
+        val previousEvent = UptimeEventRecord().setMonitorId(monitor.id).setStatus(UptimeStatus.UP)
+        val uptimeChecker = UptimeChecker(
+            checkProbes = object : CheckProbes(mockk(), mockk(), appConfig) {
+                override fun forMonitor(monitor: MonitorRecord): CheckProbe = probe
+            },
+            requestTemplates = requestTemplates,
+            monitorRegistry = mockk(),
+            checkResponseEvaluator = HttpCheckResponseEvaluator(
+                eventDispatcher = eventDispatcher,
+                uptimeEventRepository = object : UptimeEventRepository(mockk()) {
+                    override fun getPreviousEventByMonitorId(monitorId: Long): UptimeEventRecord = previousEvent
+                },
+                checkConnectionStats = CheckConnectionStats(),
+            ),
+            hostBulkhead = HostBulkhead(appConfig),
+            concurrencyLimiter = AdaptiveConcurrencyLimiter(
+                appConfig,
+                CheckAdmissionController(appConfig),
+                mockk(),
+                Dispatchers.Unconfined,
+                eventDispatcher,
+            ),
+            checkTimingRecorder = CheckTimingRecorder(),
+            dnsResolver = mockk(),
+            appConfig = appConfig,
+        )
+
+        `when`("it's run many times") {
+
+            then("its allocations should stay within the budget of a check") {
+                allocatedBytesPerOperation(WARM_UP_OPERATIONS) { uptimeChecker.check(monitor) }
+                val bytesPerCheck = allocatedBytesPerOperation(OPERATIONS) { uptimeChecker.check(monitor) }
+                reportAllocations("check allocations/uptime check", OPERATIONS, bytesPerCheck * OPERATIONS)
+
+                probes.get() shouldBe WARM_UP_OPERATIONS + OPERATIONS
+                bytesPerCheck shouldBeLessThanOrEqual MAX_BYTES_PER_CHECK
+            }
+        }
+    }
+}) {
+    companion object {
+        private const val WARM_UP_OPERATIONS = 10_000
+        private const val OPERATIONS = 5_000
+
+        // The coroutine frames, the timeout of the deadline, the timing of the request, the response and the event of
+        // a check, with some headroom
+        private const val MAX_BYTES_PER_CHECK = 4096L
+    }
+}
@@ -0,0 +1,143 @@
+package com.kuvaszuptime.kuvasz.services
+
+import com.kuvaszuptime.kuvasz.jooq.enums.HttpMethod
+import com.kuvaszuptime.kuvasz.jooq.tables.records.MonitorRecord
+import com.kuvaszuptime.kuvasz.services.timing.CheckTimingClientCustomizer
+import com.kuvaszuptime.kuvasz.services.tls.PeerCertificateCache
+import io.kotest.assertions.throwables.shouldThrow
+import io.kotest.core.spec.style.BehaviorSpec
+import io.kotest.matchers.nulls.shouldBeNull
+import io.kotest.matchers.shouldBe
+import io.kotest.matchers.types.shouldBeSameInstanceAs
+import io.kotest.matchers.types.shouldNotBeSameInstanceAs
+import io.micronaut.http.HttpHeaders
+import java.net.URI
+import java.net.URISyntaxException
+
+class CheckRequestTemplatesTest : BehaviorSpec({
+
+    fun monitor(
+        url: String,
+        method: HttpMethod = HttpMethod.GET,
+        forceNoCache: Boolean = false,
+        connectionReuseEnabled: Boolean = true,
+    ) = MonitorRecord()
+        .setId(1)
+        .setUrl(url)
+        .setRequestMethod(method)
+        .setForceNoCache(forceNoCache)
+        .setConnectionReuseEnabled(connectionReuseEnabled)
+
+    fun ByteArray.lines() = toString(Charsets.US_ASCII).split("\r\n")
+
+    given("the request template of a monitor") {
+
+        `when`("it's built") {
+
+            then("it should have the parsed URL and the headers of the monitor") {
+                val monitor = monitor("https://example.com/path?q=1", forceNoCache = true)
+
+                val template = CheckRequestTemplate(monitor)
+
+                template.uri shouldBe URI(monitor.url)
+                template.clientMethod shouldBe io.micronaut.http.HttpMethod.GET
+                template.headers.toList() shouldBe listOf(
+                    HttpHeaders.ACCEPT to HttpCheckRequestConfigurator.ACCEPT,
+                    HttpHeaders.ACCEPT_ENCODING to HttpCheckRequestConfigurator.ACCEPT_ENCODING,
+                    HttpHeaders.USER_AGENT to HttpCheckRequestConfigurator.USER_AGENT,
+                    HttpHeaders.CACHE_CONTROL to "no-cache",
+                )
+                CheckRequestTemplate(monitor.setConnectionReuseEnabled(false)).headers.last() shouldBe
+                    (CheckTimingClientCustomizer.CLOSE_CONNECTION_HEADER to "true")
+            }
+
+            then("it should have the key of its origin in the certificate cache, if it's an HTTPS one") {
+                CheckRequestTemplate(monitor("https://Example.com/path")).tlsOrigin shouldBe
+                    PeerCertificateCache.originOf("example.com", 443)
+                CheckRequestTemplate(monitor("https://example.com:8443")).tlsOrigin shouldBe
+                    PeerCertificateCache.originOf("example.com", 8443)
+                CheckRequestTemplate(monitor("http://example.com")).tlsOrigin.shouldBeNull()
+            }
+
+            then("its URL should be validated") {
+                shouldThrow<URISyntaxException> { CheckRequestTemplate(monitor("https://exa mple.com")) }
+            }
+        }
+
+        `when`("it's encoded as an HTTP/1.1 request") {
+
+            then("it should have the same headers as the requests of the HTTP client") {
+                val monitor = monitor("https://example.com/path?q=1", forceNoCache = true)
+
+                CheckRequestTemplate(monitor.setConnectionReuseEnabled(false)).http1Request.lines() shouldBe listOf(
+                    "GET /path?q=1 HTTP/1.1",
+                    "Host: example.com",
+                    "Accept: ${HttpCheckRequestConfigurator.ACCEPT}",
+                    "Accept-Encoding: ${HttpCheckRequestConfigurator.ACCEPT_ENCODING}",
+                    "User-Agent: ${HttpCheckRequestConfigurator.USER_AGENT}",
+                    "Cache-Control: no-cache",
+                    "Connection: close",
+                    "",
+                    "",
+                )
+            }
+
+            then("it should have a root path, and the port only if it's not the default one") {
+                val lines = CheckRequestTemplate(monitor("http://example.com:8080", method = HttpMethod.HEAD))
+                    .http1Request
+                    .lines()
+
+                lines[0] shouldBe "HEAD / HTTP/1.1"
+                lines[1] shouldBe "Host: example.com:8080"
+            }
+
+            then("its non-ASCII characters should be percent-encoded") {
+                CheckRequestTemplate(monitor("https://example.com/árvíztűrő")).http1Request.lines()[0] shouldBe
+                    "GET /%C3%A1rv%C3%ADzt%C5%B1r%C5%91 HTTP/1.1"
+            }
+
+            then("the requests of the redirects should be encoded on the fly") {
+                val template = CheckRequestTemplate(monitor("https://example.com/"))
+
+                template.encodeHttp1Request(URI("https://example.com/moved")).lines()[0] shouldBe "GET /moved HTTP/1.1"
+            }
+        }
+    }
+
+    given("the request templates") {
+
+        `when`("the template of a monitor is requested again") {
+
+            then("it should be built again only if the settings of the monitor have changed") {
+                val requestTemplates = CheckRequestTemplates()
+                val monitor = monitor("https://example.com/cached")
+                requestTemplates.update(monitor)
+                val template = requestTemplates.forMonitor(monitor)
+
+                requestTemplates.forMonitor(monitor("https://example.com/cached")) shouldBeSameInstanceAs template
+
+                listOf(
+                    monitor("https://example.com/changed"),
+                    monitor("https://example.com/cached", method = HttpMethod.HEAD),
+                    monitor("https://example.com/cached", forceNoCache = true),
+                    monitor("https://example.com/cached", connectionReuseEnabled = false),
+                ).forEach { changed ->
+                    requestTemplates.forMonitor(changed) shouldNotBeSameInstanceAs template
+                }
+            }
+        }
+
+        `when`("a monitor is removed") {
+
+            then("its template should be dropped") {
+                val requestTemplates = CheckRequestTemplates()
+                val monitor = monitor("https://example.com/removed")
+                requestTemplates.update(monitor)
+
+                requestTemplates.remove(monitor.id)
+
+                requestTemplates.size() shouldBe 0
+            }
+        }
+    }
+})
@@ -1,18 +1,28 @@
 package com.kuvaszuptime.kuvasz.services
 
 import com.kuvaszuptime.kuvasz.DatabaseBehaviorSpec
+import com.kuvaszuptime.kuvasz.config.AppConfig
+import com.kuvaszuptime.kuvasz.jooq.enums.SslStatus
 import com.kuvaszuptime.kuvasz.jooq.tables.records.MonitorRecord
 import com.kuvaszuptime.kuvasz.mocks.createMonitor
+import com.kuvaszuptime.kuvasz.mocks.createSSLEventRecord
 import com.kuvaszuptime.kuvasz.models.CheckType
 import com.kuvaszuptime.kuvasz.repositories.MonitorRepository
+import com.kuvaszuptime.kuvasz.services.concurrency.InFlightCheckTable
+import com.kuvaszuptime.kuvasz.services.scheduling.BootstrapProgress
+import com.kuvaszuptime.kuvasz.util.getCurrentTimestamp
 import io.kotest.core.test.TestCase
 import io.kotest.core.test.TestResult
 import io.kotest.matchers.booleans.shouldBeFalse
+import io.kotest.matchers.booleans.shouldBeTrue
+import io.kotest.matchers.collections.shouldContainExactlyInAnyOrder
+import io.kotest.matchers.longs.shouldBeGreaterThanOrEqual
 import io.kotest.matchers.longs.shouldBeInRange
 import io.kotest.matchers.maps.shouldBeEmpty
 import io.kotest.matchers.nulls.shouldBeNull
 import io.kotest.matchers.nulls.shouldNotBeNull
-import io.kotest.matchers.shouldNotBe
+import io.kotest.matchers.shouldBe
+import io.kotest.matchers.types.shouldBeSameInstanceAs
 import io.micronaut.test.annotation.MockBean
 import io.micronaut.test.extensions.kotest5.MicronautKotest5Extension.getMock
 import io.micronaut.test.extensions.kotest5.annotation.MicronautTest
@@ -23,6 +33,7 @@ import io.mockk.coVerifyOrder
 import io.mockk.just
 import io.mockk.mockk
 import kotlinx.coroutines.delay
+import java.time.Duration
 import java.time.Instant
 import java.util.concurrent.TimeUnit
 
@@ -30,8 +41,11 @@ import java.util.concurrent.TimeUnit
 class CheckSchedulerTest(
     private val checkScheduler: CheckScheduler,
     private val monitorRepository: MonitorRepository,
+    private val monitorRegistry: MonitorRegistry,
     private val uptimeChecker: UptimeChecker,
-    private val uptimeCheckLockRegistry: UptimeCheckLockRegistry,
+    private val inFlightCheckTable: InFlightCheckTable,
+    private val bootstrapProgress: BootstrapProgress,
+    private val appConfig: AppConfig,
 ) : DatabaseBehaviorSpec() {
     init {
         given("the CheckScheduler service") {
@@ -52,6 +66,75 @@ class CheckSchedulerTest(
                 }
             }
 
+            `when`("there are more enabled monitors than the batch size, and there is a warm-up window") {
+                val monitors = (1..3).map { createMonitor(monitorRepository, monitorName = "monitor-$it") }
+                createMonitor(monitorRepository, monitorName = "disabled", enabled = false)
+                val originalBatchSize = appConfig.bootstrapBatchSize
+                appConfig.bootstrapBatchSize = 2
+
+                val startedAt = System.nanoTime()
+                try {
+                    checkScheduler.initialize(warmUp = Duration.ofSeconds(1))
+                } finally {
+                    appConfig.bootstrapBatchSize = originalBatchSize
+                }
+                val elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt)
+
+                then("it should schedule every enabled monitor, spreading the batches over the window") {
+                    checkScheduler.getScheduledUptimeChecks().keys shouldContainExactlyInAnyOrder monitors.map { it.id }
+                    // The second batch is due after 2/3 of the window
+                    elapsedMs shouldBeGreaterThanOrEqual 600
+                    with(bootstrapProgress.status()) {
+                        ready.shouldBeTrue()
+                        totalMonitors shouldBe 3
+                        scheduledMonitors shouldBe 3
+                    }
+                }
+            }
+
+            `when`("there are monitors with invalid, expiring and valid certificates, and initialize has been called") {
+                val invalid = createMonitor(monitorRepository, monitorName = "invalid")
+                val expiring = createMonitor(monitorRepository, monitorName = "expiring")
+                val valid = createMonitor(monitorRepository, monitorName = "valid")
+                val checkedAt = getCurrentTimestamp().minusMinutes(30)
+                listOf(invalid to SslStatus.INVALID, expiring to SslStatus.WILL_EXPIRE, valid to SslStatus.VALID)
+                    .forEach { (monitor, status) ->
+                        createSSLEventRecord(dslContext, monitor.id, status, startedAt = checkedAt, endedAt = null)
+                    }
+
+                checkScheduler.initialize()
+
+                fun sslCheckDelayMinutesOf(monitor: MonitorRecord) =
+                    checkScheduler.getScheduledSSLChecks()[monitor.id].shouldNotBeNull().getDelay(TimeUnit.MINUTES)
+
+                then("the invalid and the expiring certificates should be rechecked based on their last check") {
+                    sslCheckDelayMinutesOf(invalid) shouldBeInRange 28L..30L
+                    sslCheckDelayMinutesOf(expiring) shouldBeInRange 328L..330L
+                    // The valid one waits for its slot of the day
+                    sslCheckDelayMinutesOf(valid) shouldBeInRange 0L..(24 * 60L)
+                }
+            }
+
+            `when`("some monitors were updated through the API before their batch was scheduled") {
+                val updated = createMonitor(monitorRepository, monitorName = "updated")
+                val disabled = createMonitor(monitorRepository, monitorName = "disabled")
+                val updatedState = monitorRepository.findById(updated.id).shouldNotBeNull().setName("new-name")
+                val disabledState = monitorRepository.findById(disabled.id).shouldNotBeNull().setEnabled(false)
+                monitorRegistry.put(updatedState)
+                checkScheduler.createChecksForMonitor(updatedState)
+                monitorRegistry.put(disabledState)
+                val scheduledCheck = checkScheduler.getScheduledUptimeChecks()[updated.id]
+
+                checkScheduler.initialize()
+
+                then("their newer state should be kept, and their checks should not be rescheduled") {
+                    monitorRegistry.get(updated.id)?.name shouldBe "new-name"
+                    checkScheduler.getScheduledUptimeChecks()[updated.id] shouldBeSameInstanceAs scheduledCheck
+                    checkScheduler.getScheduledUptimeChecks()[disabled.id].shouldBeNull()
+                    monitorRegistry.get(disabled.id)?.enabled shouldBe false
+                }
+            }
+
             `when`("there is an enabled but unschedulable monitor in the database and initialize has been called") {
                 createMonitor(monitorRepository, uptimeCheckInterval = 0)
 
@@ -113,35 +196,35 @@ class CheckSchedulerTest(
                 val monitor = createMonitor(monitorRepository, uptimeCheckInterval = 3)
                 val uptimeCheckerMock = getMock(uptimeChecker)
                 coEvery { uptimeCheckerMock.check(monitor, any(), any(), any()) } just Runs
-                val lockRegistryMock = getMock(uptimeCheckLockRegistry)
-                coEvery { lockRegistryMock.tryAcquire(monitor.id) } returns true
-                coEvery { lockRegistryMock.release(monitor.id) } just Runs
+                val inFlightCheckTableMock = getMock(inFlightCheckTable)
+                coEvery { inFlightCheckTableMock.tryAcquire(monitor.id, any()) } returns TICKET
+                coEvery { inFlightCheckTableMock.release(monitor.id, TICKET) } returns true
 
                 checkScheduler.initialize()
                 delay(4000) // Wait for the check to be executed
 
-                then("it should try to acquire a lock for it & release it afterwards") {
+                then("it should try to acquire its in-flight slot & release it afterwards") {
                     coVerifyOrder {
-                        lockRegistryMock.tryAcquire(monitor.id)
+                        inFlightCheckTableMock.tryAcquire(monitor.id, any())
                         uptimeCheckerMock.check(monitor, any(), any(), any())
-                        lockRegistryMock.release(monitor.id)
+                        inFlightCheckTableMock.release(monitor.id, TICKET)
                     }
                 }
             }
 
-            `when`("a lock can't be acquired for an uptime check") {
+            `when`("the in-flight slot can't be acquired for an uptime check") {
                 val monitor = createMonitor(monitorRepository, uptimeCheckInterval = 3)
                 val uptimeCheckerMock = getMock(uptimeChecker)
-                val lockRegistryMock = getMock(uptimeCheckLockRegistry)
-                coEvery { lockRegistryMock.tryAcquire(monitor.id) } returns false
+                val inFlightCheckTableMock = getMock(inFlightCheckTable)
+                coEvery { inFlightCheckTableMock.tryAcquire(monitor.id, any()) } returns InFlightCheckTable.NOT_ACQUIRED
 
                 checkScheduler.initialize()
                 delay(4000) // Wait for the check to be executed
 
                 then("it should not run the check") {
-                    coVerify(atLeast = 1) { lockRegistryMock.tryAcquire(monitor.id) }
+                    coVerify(atLeast = 1) { inFlightCheckTableMock.tryAcquire(monitor.id, any()) }
                     coVerify(inverse = true) { uptimeCheckerMock.check(any(), any(), any(), any()) }
-                    coVerify(inverse = true) { lockRegistryMock.release(monitor.id) }
+                    coVerify(inverse = true) { inFlightCheckTableMock.release(monitor.id, any()) }
                 }
             }
 
@@ -151,22 +234,24 @@ class CheckSchedulerTest(
                 coEvery { uptimeCheckerMock.check(monitor, any(), any(), captureLambda()) } coAnswers {
                     lambda<(MonitorRecord) -> Unit>().captured.invoke(monitor)
                 }
-                val lockRegistryMock = getMock(uptimeCheckLockRegistry)
-                coEvery { lockRegistryMock.tryAcquire(monitor.id) } returns true
-                coEvery { lockRegistryMock.release(monitor.id) } just Runs
+                val inFlightCheckTableMock = getMock(inFlightCheckTable)
+                coEvery { inFlightCheckTableMock.tryAcquire(monitor.id, any()) } returns TICKET
+                coEvery { inFlightCheckTableMock.release(monitor.id, TICKET) } returns true
 
                 checkScheduler.initialize()
                 val checkBefore = checkScheduler.getScheduledUptimeChecks()[monitor.id].shouldNotBeNull()
                 delay(4000) // Wait for the check to be executed
 
-                then("the next check should be re-scheduled via the check's callback") {
+                then("the next check should be re-scheduled via the check's callback, re-using the same slot") {
                     coVerifyOrder {
-                        lockRegistryMock.tryAcquire(monitor.id)
+                        inFlightCheckTableMock.tryAcquire(monitor.id, any())
                         uptimeCheckerMock.check(monitor, any(), any(), any())
-                        lockRegistryMock.release(monitor.id)
+                        inFlightCheckTableMock.release(monitor.id, TICKET)
                     }
                     val checkAfter = checkScheduler.getScheduledUptimeChecks()[monitor.id].shouldNotBeNull()
-                    checkAfter.hashCode() shouldNotBe checkBefore.hashCode()
+                    checkAfter shouldBeSameInstanceAs checkBefore
+                    checkAfter.isCancelled.shouldBeFalse()
+                    checkAfter.getDelay(TimeUnit.SECONDS) shouldBeInRange 0L..3
                 }
             }
 
@@ -174,18 +259,18 @@ class CheckSchedulerTest(
                 val monitor = createMonitor(monitorRepository, uptimeCheckInterval = 3)
                 val uptimeCheckerMock = getMock(uptimeChecker)
                 coEvery { uptimeCheckerMock.check(monitor, any(), any(), captureLambda()) } throws Exception("bad")
-                val lockRegistryMock = getMock(uptimeCheckLockRegistry)
-                coEvery { lockRegistryMock.tryAcquire(monitor.id) } returns true
-                coEvery { lockRegistryMock.release(monitor.id) } just Runs
+                val inFlightCheckTableMock = getMock(inFlightCheckTable)
+                coEvery { inFlightCheckTableMock.tryAcquire(monitor.id, any()) } returns TICKET
+                coEvery { inFlightCheckTableMock.release(monitor.id, TICKET) } returns true
 
                 checkScheduler.initialize()
                 delay(4000) // Wait for the check to be executed
 
-                then("the lock should be released anyway") {
+                then("the in-flight slot should be released anyway") {
                     coVerifyOrder {
-                        lockRegistryMock.tryAcquire(monitor.id)
+                        inFlightCheckTableMock.tryAcquire(monitor.id, any())
                         uptimeCheckerMock.check(monitor, any(), any(), any())
-                        lockRegistryMock.release(monitor.id)
+                        inFlightCheckTableMock.release(monitor.id, TICKET)
                     }
                 }
             }
@@ -235,6 +320,10 @@ class CheckSchedulerTest(
     @MockBean(UptimeChecker::class)
     fun uptimeCheckerMock(): UptimeChecker = mockk()
 
-    @MockBean(UptimeCheckLockRegistry::class)
-    fun uptimeCheckLockRegistryMock(): UptimeCheckLockRegistry = mockk()
+    @MockBean(InFlightCheckTable::class)
+    fun inFlightCheckTableMock(): InFlightCheckTable = mockk(relaxed = true)
+
+    companion object {
+        private const val TICKET = 42L
+    }
 }
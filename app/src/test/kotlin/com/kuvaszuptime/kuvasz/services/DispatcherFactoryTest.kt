@@ -0,0 +1,38 @@
+package com.kuvaszuptime.kuvasz.services
+
+import com.kuvaszuptime.kuvasz.config.AppConfig
+import com.kuvaszuptime.kuvasz.config.CheckExecutionMode
+import io.kotest.core.spec.style.BehaviorSpec
+import io.kotest.matchers.booleans.shouldBeFalse
+import io.kotest.matchers.booleans.shouldBeTrue
+import io.kotest.matchers.shouldBe
+import io.kotest.matchers.string.shouldStartWith
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.withContext
+
+class DispatcherFactoryTest : BehaviorSpec({
+
+    given("the DispatcherFactory") {
+
+        `when`("the check execution mode is DISPATCHER") {
+            val appConfig = AppConfig().apply { checkExecutionMode = CheckExecutionMode.DISPATCHER }
+            val dispatcher = DispatcherFactory().provideDispatcher(appConfig)
+
+            then("it should provide the IO dispatcher") {
+                dispatcher shouldBe Dispatchers.IO
+                withContext(dispatcher) { Thread.currentThread().isVirtual }.shouldBeFalse()
+            }
+        }
+
+        `when`("the check execution mode is VIRTUAL_THREADS") {
+            val appConfig = AppConfig().apply { checkExecutionMode = CheckExecutionMode.VIRTUAL_THREADS }
+            val dispatcher = DispatcherFactory().provideDispatcher(appConfig)
+
+            then("it should run the coroutines on virtual threads") {
+                val thread = withContext(dispatcher) { Thread.currentThread() }
+                thread.isVirtual.shouldBeTrue()
+                thread.name shouldStartWith "check-vt-"
+            }
+        }
+    }
+})
@@ -0,0 +1,156 @@
+package com.kuvaszuptime.kuvasz.services
+
+import com.kuvaszuptime.kuvasz.jooq.enums.HttpMethod
+import com.kuvaszuptime.kuvasz.jooq.tables.records.MonitorRecord
+import com.kuvaszuptime.kuvasz.models.events.MonitorDeleteEvent
+import com.kuvaszuptime.kuvasz.models.events.MonitorUpdateEvent
+import com.kuvaszuptime.kuvasz.repositories.MonitorRepository
+import io.kotest.core.spec.style.BehaviorSpec
+import io.kotest.matchers.nulls.shouldBeNull
+import io.kotest.matchers.shouldBe
+import io.kotest.matchers.types.shouldBeSameInstanceAs
+import io.mockk.every
+import io.mockk.mockk
+import io.mockk.verify
+import java.net.URI
+
+class MonitorRegistryTest : BehaviorSpec({
+
+    fun monitor(id: Long, name: String = "monitor-$id") = MonitorRecord().apply {
+        this.id = id
+        this.name = name
+        this.url = "https://example.com/$name"
+        this.requestMethod = HttpMethod.GET
+    }
+
+    fun registry(
+        monitorRepository: MonitorRepository = mockk(),
+        eventDispatcher: EventDispatcher = EventDispatcher(),
+        requestTemplates: CheckRequestTemplates = CheckRequestTemplates(),
+    ) = MonitorRegistry(monitorRepository, eventDispatcher, requestTemplates).apply { subscribeToLifecycleEvents() }
+
+    given("a MonitorRegistry") {
+
+        `when`("a monitor is put into it") {
+
+            then("it should be returned without reading the database") {
+                val monitorRepository = mockk<MonitorRepository>()
+                val registry = registry(monitorRepository)
+                val monitor = monitor(1)
+
+                registry.put(monitor)
+
+                registry.get(1) shouldBeSameInstanceAs monitor
+                verify(exactly = 0) { monitorRepository.findById(any()) }
+            }
+        }
+
+        `when`("a monitor is not in it yet") {
+
+            then("it should be loaded from the database only once") {
+                val monitor = monitor(1)
+                val monitorRepository = mockk<MonitorRepository> {
+                    every { findById(1) } returns monitor
+                    every { findById(2) } returns null
+                }
+                val registry = registry(monitorRepository)
+
+                registry.get(1) shouldBeSameInstanceAs monitor
+                registry.get(1) shouldBeSameInstanceAs monitor
+                registry.get(2).shouldBeNull()
+
+                verify(exactly = 1) { monitorRepository.findById(1) }
+                registry.size() shouldBe 1
+            }
+        }
+
+        `when`("a monitor is updated") {
+
+            then("the new state should replace the old one") {
+                val registry = registry()
+                registry.put(monitor(1, name = "old"))
+
+                registry.put(monitor(1, name = "new"))
+
+                registry.get(1)?.name shouldBe "new"
+            }
+        }
+
+        `when`("a monitor is put only if it's absent") {
+
+            then("the state that's already in the registry should be kept") {
+                val registry = registry()
+                registry.put(monitor(1, name = "new"))
+
+                registry.putIfAbsent(monitor(1, name = "old")).name shouldBe "new"
+                registry.putIfAbsent(monitor(2, name = "absent")).name shouldBe "absent"
+
+                registry.get(1)?.name shouldBe "new"
+                registry.get(2)?.name shouldBe "absent"
+            }
+        }
+
+        `when`("a delete event is dispatched") {
+
+            then("the monitor should be removed, but the update events should not affect it") {
+                val monitorRepository = mockk<MonitorRepository> {
+                    every { findById(any()) } returns null
+                }
+                val eventDispatcher = EventDispatcher()
+                val registry = registry(monitorRepository, eventDispatcher)
+                registry.putAll(listOf(monitor(1), monitor(2)))
+
+                eventDispatcher.dispatch(MonitorUpdateEvent(1))
+                eventDispatcher.dispatch(MonitorDeleteEvent(2))
+
+                registry.get(1)?.id shouldBe 1
+                registry.get(2).shouldBeNull()
+            }
+        }
+
+        `when`("the monitors are replaced, e.g. by an import") {
+
+            then("only the new monitors should be kept") {
+                val registry = registry()
+                registry.putAll(listOf(monitor(1), monitor(2)))
+
+                registry.replaceAll(listOf(monitor(2, name = "updated"), monitor(3)))
+
+                registry.size() shouldBe 2
+                registry.get(2)?.name shouldBe "updated"
+                registry.get(3)?.id shouldBe 3
+            }
+        }
+
+        `when`("the monitors are changed") {
+
+            then("their request templates should be kept in sync") {
+                val requestTemplates = CheckRequestTemplates()
+                val registry = registry(requestTemplates = requestTemplates)
+                val updated = monitor(1, name = "updated")
+
+                registry.putAll(listOf(monitor(1), monitor(2), monitor(3)))
+                val template = requestTemplates.forMonitor(monitor(2))
+                registry.put(updated)
+                registry.remove(3)
+
+                requestTemplates.size() shouldBe 2
+                requestTemplates.forMonitor(updated).uri shouldBe URI(updated.url)
+                requestTemplates.forMonitor(monitor(2)) shouldBeSameInstanceAs template
+
+                registry.replaceAll(listOf(updated))
+
+                requestTemplates.size() shouldBe 1
+            }
+
+            then("a monitor with an invalid URL should not have a template") {
+                val requestTemplates = CheckRequestTemplates()
+                val registry = registry(requestTemplates = requestTemplates)
+
+                registry.put(monitor(1).apply { url = "https://exa mple.com" })
+
+                requestTemplates.size() shouldBe 0
+            }
+        }
+    }
+})
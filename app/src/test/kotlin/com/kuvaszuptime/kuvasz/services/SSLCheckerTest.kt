@@ -12,6 +12,7 @@ import com.kuvaszuptime.kuvasz.models.events.SSLWillExpireEvent
 import com.kuvaszuptime.kuvasz.repositories.MonitorRepository
 import com.kuvaszuptime.kuvasz.repositories.SSLEventRepository
 import com.kuvaszuptime.kuvasz.repositories.UptimeEventRepository
+import com.kuvaszuptime.kuvasz.services.tls.PeerCertificateCache
 import com.kuvaszuptime.kuvasz.testutils.forwardToSubscriber
 import com.kuvaszuptime.kuvasz.testutils.shouldBe
 import com.kuvaszuptime.kuvasz.util.getCurrentTimestamp
@@ -22,10 +23,12 @@ import io.kotest.matchers.comparables.shouldBeLessThan
 import io.kotest.matchers.shouldBe
 import io.micronaut.test.extensions.kotest5.annotation.MicronautTest
 import io.mockk.clearMocks
+import io.mockk.coEvery
+import io.mockk.coVerify
 import io.mockk.every
 import io.mockk.mockk
 import io.mockk.spyk
-import io.mockk.verify
+import io.netty.handler.ssl.util.SelfSignedCertificate
 import io.reactivex.rxjava3.subscribers.TestSubscriber
 import java.time.OffsetDateTime
 
@@ -37,6 +40,7 @@ class SSLCheckerTest(
 
     private val sslValidator = mockk<SSLValidator>()
     private val uptimeEventRepository = mockk<UptimeEventRepository>()
+    private val peerCertificateCache = PeerCertificateCache()
 
     init {
         val eventDispatcher = EventDispatcher()
@@ -45,9 +49,14 @@ class SSLCheckerTest(
                 sslValidator = sslValidator,
                 eventDispatcher = eventDispatcher,
                 sslEventRepository = sslEventRepository,
-                uptimeEventRepository = uptimeEventRepository
+                uptimeEventRepository = uptimeEventRepository,
+                requestTemplates = CheckRequestTemplates(),
+                peerCertificateCache = peerCertificateCache,
             )
         )
+        val certificate = SelfSignedCertificate("example.com").cert()
+        val rotatedCertificate = SelfSignedCertificate("example.com").cert()
+        val origin = PeerCertificateCache.originOf("example.com", 443)
 
         given("the SSLChecker service") {
             `when`("it checks a monitor that is DOWN") {
@@ -57,7 +66,41 @@ class SSLCheckerTest(
                 sslChecker.check(monitor)
 
                 then("it should not run the SSL check") {
-                    verify(exactly = 0) { sslValidator.validate(any()) }
+                    coVerify(exactly = 0) { sslValidator.validate(any()) }
+                }
+            }
+
+            `when`("it checks a monitor whose chain was captured recently by an uptime check") {
+                val monitor = createMonitor(monitorRepository, url = "https://example.com")
+                val subscriber = TestSubscriber<SSLValidEvent>()
+                eventDispatcher.subscribeToSSLValidEvents { it.forwardToSubscriber(subscriber) }
+                peerCertificateCache.record(origin, listOf(certificate))
+                mockValidationResult(SslStatus.VALID)
+                mockIsMonitorUpResult(true)
+
+                sslChecker.check(monitor)
+
+                then("it should validate the captured chain without connecting to the server") {
+                    subscriber.awaitCount(1).values().first().monitor.id shouldBe monitor.id
+                    coVerify(exactly = 1) { sslValidator.validate(any(), listOf(certificate), any()) }
+                    coVerify(exactly = 0) { sslValidator.validate(any()) }
+                }
+            }
+
+            `when`("the certificate of a checked monitor is rotated") {
+                val monitor = createMonitor(monitorRepository, url = "https://example.com")
+                peerCertificateCache.record(origin, listOf(certificate))
+                mockValidationResult(SslStatus.VALID)
+                mockIsMonitorUpResult(true)
+                sslChecker.check(monitor)
+
+                then("the rotation should be claimed only once") {
+                    sslChecker.claimCertificateRotation(monitor) shouldBe false
+
+                    peerCertificateCache.record(origin, listOf(rotatedCertificate))
+
+                    sslChecker.claimCertificateRotation(monitor) shouldBe true
+                    sslChecker.claimCertificateRotation(monitor) shouldBe false
                 }
             }
 
@@ -181,7 +224,8 @@ class SSLCheckerTest(
             SslStatus.WILL_EXPIRE -> Either.Right(certInfo)
             SslStatus.INVALID -> Either.Left(SSLValidationError("validation error"))
         }
-        every { sslValidator.validate(any()) } returns mockResult
+        coEvery { sslValidator.validate(any()) } returns mockResult
+        coEvery { sslValidator.validate(any(), any(), any()) } returns mockResult
     }
 
     private fun mockIsMonitorUpResult(result: Boolean) {
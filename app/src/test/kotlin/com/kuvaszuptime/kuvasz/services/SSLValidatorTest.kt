@@ -1,5 +1,14 @@
 package com.kuvaszuptime.kuvasz.services
 
+import com.kuvaszuptime.kuvasz.config.AppConfig
+import com.kuvaszuptime.kuvasz.services.dns.UptimeCheckDnsResolver
+import com.kuvaszuptime.kuvasz.services.tls.CertificateHandshakeProbe
+import com.kuvaszuptime.kuvasz.services.tls.ChainValidationCache
+import com.kuvaszuptime.kuvasz.services.tls.PeerCertificateCache
+import com.kuvaszuptime.kuvasz.services.tls.RevocationLookup
+import com.kuvaszuptime.kuvasz.services.tls.RevocationResponseCache
+import com.kuvaszuptime.kuvasz.services.tls.UptimeCheckSslBuilder
+import com.kuvaszuptime.kuvasz.testutils.LocalRevocationResponder
 import com.kuvaszuptime.kuvasz.util.toUri
 import io.kotest.core.spec.style.StringSpec
 import io.kotest.data.forAll
@@ -7,10 +16,179 @@ import io.kotest.data.headers
 import io.kotest.data.row
 import io.kotest.data.table
 import io.kotest.matchers.booleans.shouldBeTrue
+import io.kotest.matchers.shouldBe
+import io.kotest.matchers.string.shouldContain
+import io.micronaut.core.io.ResourceResolver
+import io.micronaut.http.client.ProxyHttpClient
+import io.micronaut.http.netty.channel.EventLoopGroupFactory
+import io.micronaut.http.netty.channel.EventLoopGroupRegistry
+import io.mockk.every
+import io.mockk.mockk
+import io.netty.channel.nio.NioEventLoopGroup
+import io.netty.channel.socket.nio.NioSocketChannel
+import io.netty.handler.ssl.util.SelfSignedCertificate
+import io.netty.resolver.DefaultAddressResolverGroup
+import java.util.Optional
 
 class SSLValidatorTest : StringSpec(
     {
-        val validator = SSLValidator()
+        val eventLoopGroup = NioEventLoopGroup(1)
+        val eventLoopGroupRegistry = mockk<EventLoopGroupRegistry> {
+            every { getEventLoopGroup(any()) } returns Optional.of(eventLoopGroup)
+            every { getEventLoopGroupConfiguration(any()) } returns Optional.empty()
+        }
+        val eventLoopGroupFactory = mockk<EventLoopGroupFactory> {
+            every { channelClass(any(), any()) } returns NioSocketChannel::class.java
+        }
+        val dnsResolver = mockk<UptimeCheckDnsResolver> {
+            every { addressResolverGroup } returns DefaultAddressResolverGroup.INSTANCE
+        }
+        val appConfig = AppConfig()
+        val validationCache = ChainValidationCache()
+        val httpClient = ProxyHttpClient.create(null)
+        // The local revocation responder is on the loopback address
+        val revocationLookup = RevocationLookup(
+            RevocationResponseCache(appConfig),
+            httpClient,
+            AppConfig().apply { sslRevocationPrivateTargetsAllowed = true },
+        )
+        val responder = LocalRevocationResponder()
+        val validator = SSLValidator(
+            handshakeProbe = CertificateHandshakeProbe(
+                appConfig = appConfig,
+                sslBuilder = UptimeCheckSslBuilder(ResourceResolver(), appConfig),
+                dnsResolver = dnsResolver,
+                peerCertificateCache = PeerCertificateCache(),
+                uptimeCheckEventLoopGroup = UptimeCheckEventLoopGroup(
+                    eventLoopGroupRegistry = { eventLoopGroupRegistry },
+                    eventLoopGroupFactory = eventLoopGroupFactory,
+                ),
+            ),
+            validationCache = validationCache,
+            revocationLookup = revocationLookup,
+            appConfig = appConfig,
+        )
+
+        /**
+         * A validator that trusts only the CA of the local revocation responder
+         */
+        suspend fun <T> withResponderValidator(
+            appConfig: AppConfig = AppConfig(),
+            block: suspend (SSLValidator) -> T,
+        ): T = responder.trustingTheCa {
+            val responderValidator = SSLValidator(
+                handshakeProbe = mockk(),
+                validationCache = ChainValidationCache(),
+                revocationLookup = revocationLookup,
+                appConfig = appConfig,
+            )
+            try {
+                block(responderValidator)
+            } finally {
+                responderValidator.close()
+            }
+        }
+
+        afterSpec {
+            validator.close()
+            eventLoopGroup.shutdownGracefully()
+            httpClient.close()
+            responder.close()
+        }
+
+        "validate should memoize the result of a captured chain" {
+            val certificate = SelfSignedCertificate("example.com")
+            val url = "https://example.com".toUri().toURL()
+            val sizeBefore = validationCache.size()
+
+            val first = validator.validate(url, listOf(certificate.cert()))
+            val second = validator.validate(url, listOf(certificate.cert()))
+
+            first.isLeft().shouldBeTrue()
+            second shouldBe first
+            validationCache.size() shouldBe sizeBefore + 1
+            certificate.delete()
+        }
+
+        "validate should find a certificate valid, if its OCSP responder says it's good" {
+            val certificate = responder.issue()
+            val url = "https://server.localhost".toUri().toURL()
+
+            val result = withResponderValidator { it.validate(url, listOf(certificate)) }
+
+            result.isRight().shouldBeTrue()
+        }
+
+        "validate should find a certificate invalid, if its OCSP responder says it's revoked" {
+            val certificate = responder.issue(withCrl = false)
+            responder.revokedSerials.add(certificate.serialNumber)
+            val url = "https://server.localhost".toUri().toURL()
+
+            val result = withResponderValidator { it.validate(url, listOf(certificate)) }
+
+            result.fold({ it.message shouldContain "REVOKED (Certificate index: 0" }, { error("It should be revoked") })
+        }
+
+        "validate should find a certificate invalid, if it's revoked by the stapled OCSP response" {
+            val certificate = responder.issue(withOcsp = false, withCrl = false)
+            responder.revokedSerials.add(certificate.serialNumber)
+            val stapled = responder.ocspResponseOf(certificate)
+            val url = "https://server.localhost".toUri().toURL()
+
+            val result = withResponderValidator { it.validate(url, listOf(certificate), stapled) }
+
+            result.isLeft().shouldBeTrue()
+        }
+
+        "validate should find a certificate invalid, if it's revoked after the chain's validation was memoized" {
+            val certificate = responder.issue(withOcsp = false, withCrl = false)
+            val url = "https://server.localhost".toUri().toURL()
+
+            val (first, second) = withResponderValidator {
+                val first = it.validate(url, listOf(certificate), responder.ocspResponseOf(certificate))
+                responder.revokedSerials.add(certificate.serialNumber)
+                first to it.validate(url, listOf(certificate), responder.ocspResponseOf(certificate))
+            }
+
+            first.isRight().shouldBeTrue()
+            second.fold({ it.message shouldContain "REVOKED" }, { error("It should be revoked") })
+        }
+
+        "validate should find a certificate invalid, if it's on the CRL of its distribution point" {
+            val certificate = responder.issue(withOcsp = false)
+            responder.revokedSerials.add(certificate.serialNumber)
+            val url = "https://server.localhost".toUri().toURL()
+
+            val result = withResponderValidator { it.validate(url, listOf(certificate)) }
+
+            result.fold({ it.message shouldContain "REVOKED" }, { error("It should be revoked") })
+        }
+
+        "validate should let a certificate through, if its revocation status can't be determined" {
+            val certificate = responder.issue(withCrl = false)
+            responder.revokedSerials.add(certificate.serialNumber)
+            responder.ocspAvailable = false
+            val url = "https://server.localhost".toUri().toURL()
+
+            val result = try {
+                withResponderValidator { it.validate(url, listOf(certificate)) }
+            } finally {
+                responder.ocspAvailable = true
+            }
+
+            result.isRight().shouldBeTrue()
+        }
+
+        "validate shouldn't check the revocation, if it's disabled" {
+            val certificate = responder.issue()
+            responder.revokedSerials.add(certificate.serialNumber)
+            val url = "https://server.localhost".toUri().toURL()
+            val appConfig = AppConfig().apply { sslRevocationCheckEnabled = false }
+
+            val result = withResponderValidator(appConfig) { it.validate(url, listOf(certificate)) }
+
+            result.isRight().shouldBeTrue()
+        }
 
         "validate should return the right result" {
             table(
@@ -40,6 +218,7 @@ class SSLValidatorTest : StringSpec(
                 row("https://wrong.host.badssl.com/", false),
                 row("https://self-signed.badssl.com/", false),
                 row("https://untrusted-root.badssl.com/", false),
+                row("https://revoked.badssl.com/", false),
                 row("https://no-common-name.badssl.com/", false),
                 row("https://no-subject.badssl.com/", false),
                 row("https://incomplete-chain.badssl.com/", false)
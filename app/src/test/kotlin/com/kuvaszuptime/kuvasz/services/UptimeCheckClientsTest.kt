@@ -0,0 +1,57 @@
+package com.kuvaszuptime.kuvasz.services
+
+import com.kuvaszuptime.kuvasz.jooq.tables.records.MonitorRecord
+import io.kotest.core.spec.style.BehaviorSpec
+import io.kotest.matchers.types.shouldBeSameInstanceAs
+import io.micronaut.http.client.ProxyHttpClient
+import io.mockk.mockk
+
+class UptimeCheckClientsTest : BehaviorSpec({
+
+    val pooledClient = mockk<ProxyHttpClient>()
+    val pooledFullHandshakeClient = mockk<ProxyHttpClient>()
+    val coldConnectionClient = mockk<ProxyHttpClient>()
+    val coldConnectionFullHandshakeClient = mockk<ProxyHttpClient>()
+    val uptimeCheckClients = UptimeCheckClients(
+        pooledClient = pooledClient,
+        pooledFullHandshakeClient = pooledFullHandshakeClient,
+        coldConnectionClient = coldConnectionClient,
+        coldConnectionFullHandshakeClient = coldConnectionFullHandshakeClient,
+    )
+
+    fun monitor(connectionReuseEnabled: Boolean, tlsSessionResumptionEnabled: Boolean) = MonitorRecord()
+        .setConnectionReuseEnabled(connectionReuseEnabled)
+        .setTlsSessionResumptionEnabled(tlsSessionResumptionEnabled)
+
+    given("the clients of the uptime checks") {
+
+        `when`("the monitor reuses the connections and resumes the TLS sessions") {
+
+            then("it should get the pooled client") {
+                uptimeCheckClients.forMonitor(monitor(true, true)) shouldBeSameInstanceAs pooledClient
+            }
+        }
+
+        `when`("the monitor reuses the connections, but doesn't resume the TLS sessions") {
+
+            then("it should get the pooled client that does full TLS handshakes") {
+                uptimeCheckClients.forMonitor(monitor(true, false)) shouldBeSameInstanceAs pooledFullHandshakeClient
+            }
+        }
+
+        `when`("the monitor doesn't reuse the connections, but resumes the TLS sessions") {
+
+            then("it should get the cold connection client") {
+                uptimeCheckClients.forMonitor(monitor(false, true)) shouldBeSameInstanceAs coldConnectionClient
+            }
+        }
+
+        `when`("the monitor neither reuses the connections, nor resumes the TLS sessions") {
+
+            then("it should get the cold connection client that does full TLS handshakes") {
+                uptimeCheckClients.forMonitor(monitor(false, false)) shouldBeSameInstanceAs
+                    coldConnectionFullHandshakeClient
+            }
+        }
+    }
+})
@@ -7,6 +7,8 @@ import com.kuvaszuptime.kuvasz.models.events.MonitorDownEvent
 import com.kuvaszuptime.kuvasz.models.events.MonitorUpEvent
 import com.kuvaszuptime.kuvasz.models.events.RedirectEvent
 import com.kuvaszuptime.kuvasz.repositories.MonitorRepository
+import com.kuvaszuptime.kuvasz.services.timing.CheckConnectionStats
+import com.kuvaszuptime.kuvasz.services.timing.CheckTimingClientCustomizer
 import com.kuvaszuptime.kuvasz.testutils.forwardToSubscriber
 import com.kuvaszuptime.kuvasz.testutils.shouldBeUriOf
 import io.kotest.inspectors.forAll
@@ -27,7 +29,8 @@ import org.mockserver.verify.VerificationTimes
 class UptimeCheckerE2ETest(
     uptimeChecker: UptimeChecker,
     private val monitorRepository: MonitorRepository,
-    private val eventDispatcher: EventDispatcher
+    private val eventDispatcher: EventDispatcher,
+    private val checkConnectionStats: CheckConnectionStats,
 ) : DatabaseBehaviorSpec({
 
     lateinit var mockServer: ClientAndServer
@@ -73,6 +76,183 @@ class UptimeCheckerE2ETest(
             }
         }
 
+        `when`("it checks a monitor that is UP - the body is longer than the cap") {
+            val monitor = createMonitor(
+                repository = monitorRepository,
+                url = "$mockServerUrl/large-page",
+                requestMethod = HttpMethod.GET,
+            )
+            val subscriber = TestSubscriber<MonitorUpEvent>()
+            eventDispatcher.subscribeToMonitorUpEvents { it.forwardToSubscriber(subscriber) }
+
+            val request = getRequest("/large-page")
+            mockServer.`when`(request).respond(
+                response()
+                    .withStatusCode(HttpStatus.OK.code)
+                    .withBody("x".repeat(LARGE_BODY_BYTES))
+            )
+
+            uptimeChecker.check(monitor)
+
+            then("it should abandon the body and should dispatch a MonitorUpEvent") {
+                val expectedEvent = subscriber.awaitCount(1).values().first()
+
+                expectedEvent.status shouldBe HttpStatus.OK
+                expectedEvent.monitor.id shouldBe monitor.id
+
+                mockServer.verifyRequest(request)
+            }
+        }
+
+        `when`("it checks a monitor that is UP - the body passes the content assertions") {
+            val monitor = createMonitor(
+                repository = monitorRepository,
+                url = "$mockServerUrl/content",
+                requestMethod = HttpMethod.GET,
+                bodyMustContain = listOf("\"status\":\"ok\"", "database"),
+                bodyMustNotContain = listOf("maintenance"),
+            )
+            val subscriber = TestSubscriber<MonitorUpEvent>()
+            eventDispatcher.subscribeToMonitorUpEvents { it.forwardToSubscriber(subscriber) }
+
+            val request = getRequest("/content")
+            mockServer.`when`(request).respond(
+                response()
+                    .withStatusCode(HttpStatus.OK.code)
+                    .withBody("{\"database\":\"up\",\"status\":\"ok\"}")
+            )
+
+            uptimeChecker.check(monitor)
+
+            then("it should dispatch a MonitorUpEvent") {
+                val expectedEvent = subscriber.awaitCount(1).values().first()
+
+                expectedEvent.status shouldBe HttpStatus.OK
+                expectedEvent.monitor.id shouldBe monitor.id
+
+                mockServer.verifyRequest(request)
+            }
+        }
+
+        `when`("it checks a monitor that is DOWN - the body fails the content assertions") {
+            val monitor = createMonitor(
+                repository = monitorRepository,
+                url = "$mockServerUrl/content",
+                requestMethod = HttpMethod.GET,
+                bodyMustContain = listOf("\"status\":\"ok\"", "database"),
+                bodyMustNotContain = listOf("maintenance"),
+            )
+            val subscriber = TestSubscriber<MonitorDownEvent>()
+            eventDispatcher.subscribeToMonitorDownEvents { it.forwardToSubscriber(subscriber) }
+
+            val request = getRequest("/content")
+            mockServer.`when`(request).respond(
+                response()
+                    .withStatusCode(HttpStatus.OK.code)
+                    .withBody("{\"database\":\"maintenance\"}")
+            )
+
+            uptimeChecker.check(monitor)
+
+            then("it should dispatch a MonitorDownEvent with the details, without retrying the check") {
+                val expectedEvent = subscriber.awaitCount(1).values().first()
+
+                expectedEvent.status shouldBe HttpStatus.OK
+                expectedEvent.monitor.id shouldBe monitor.id
+                expectedEvent.error.message shouldBe "The response body does not contain: \"\"status\":\"ok\"\"; " +
+                    "The response body contains: \"maintenance\""
+
+                mockServer.verifyRequest(request)
+            }
+        }
+
+        `when`("it checks a monitor that is DOWN - the expected content is beyond the cap") {
+            val monitor = createMonitor(
+                repository = monitorRepository,
+                url = "$mockServerUrl/large-page",
+                requestMethod = HttpMethod.GET,
+                bodyMustContain = listOf("footer"),
+            )
+            val subscriber = TestSubscriber<MonitorDownEvent>()
+            eventDispatcher.subscribeToMonitorDownEvents { it.forwardToSubscriber(subscriber) }
+
+            val request = getRequest("/large-page")
+            mockServer.`when`(request).respond(
+                response()
+                    .withStatusCode(HttpStatus.OK.code)
+                    .withBody("x".repeat(LARGE_BODY_BYTES) + "footer")
+            )
+
+            uptimeChecker.check(monitor)
+
+            then("it should dispatch a MonitorDownEvent") {
+                val expectedEvent = subscriber.awaitCount(1).values().first()
+
+                expectedEvent.status shouldBe HttpStatus.OK
+                expectedEvent.error.message shouldBe "The response body does not contain: \"footer\""
+            }
+        }
+
+        `when`("it checks a monitor that is UP - the JSON body passes the JSON assertions") {
+            val monitor = createMonitor(
+                repository = monitorRepository,
+                url = "$mockServerUrl/health",
+                requestMethod = HttpMethod.GET,
+                bodyJsonAssertions = listOf("/status=UP", "/components/db/status=UP"),
+            )
+            val subscriber = TestSubscriber<MonitorUpEvent>()
+            eventDispatcher.subscribeToMonitorUpEvents { it.forwardToSubscriber(subscriber) }
+
+            val request = getRequest("/health")
+            mockServer.`when`(request).respond(
+                response()
+                    .withStatusCode(HttpStatus.OK.code)
+                    .withBody("{\"status\":\"UP\",\"components\":{\"db\":{\"status\":\"UP\"}}}")
+            )
+
+            uptimeChecker.check(monitor)
+
+            then("it should dispatch a MonitorUpEvent") {
+                val expectedEvent = subscriber.awaitCount(1).values().first()
+
+                expectedEvent.status shouldBe HttpStatus.OK
+                expectedEvent.monitor.id shouldBe monitor.id
+
+                mockServer.verifyRequest(request)
+            }
+        }
+
+        `when`("it checks a monitor that is DOWN - the JSON body fails the JSON assertions") {
+            val monitor = createMonitor(
+                repository = monitorRepository,
+                url = "$mockServerUrl/health",
+                requestMethod = HttpMethod.GET,
+                bodyJsonAssertions = listOf("/status=UP", "/components/db/status=UP"),
+            )
+            val subscriber = TestSubscriber<MonitorDownEvent>()
+            eventDispatcher.subscribeToMonitorDownEvents { it.forwardToSubscriber(subscriber) }
+
+            val request = getRequest("/health")
+            mockServer.`when`(request).respond(
+                response()
+                    .withStatusCode(HttpStatus.OK.code)
+                    .withBody("{\"status\":\"DOWN\",\"components\":{}}")
+            )
+
+            uptimeChecker.check(monitor)
+
+            then("it should dispatch a MonitorDownEvent with the details") {
+                val expectedEvent = subscriber.awaitCount(1).values().first()
+
+                expectedEvent.status shouldBe HttpStatus.OK
+                expectedEvent.monitor.id shouldBe monitor.id
+                expectedEvent.error.message shouldBe "The JSON body does not contain: \"/components/db/status\"; " +
+                    "\"/status\" is \"DOWN\" instead of \"UP\""
+
+                mockServer.verifyRequest(request)
+            }
+        }
+
         `when`("it checks a monitor that is UP - HEAD") {
             val monitor = createMonitor(
                 repository = monitorRepository,
@@ -152,6 +332,67 @@ class UptimeCheckerE2ETest(
             }
         }
 
+        `when`("it checks a monitor - connection reuse is disabled") {
+            val monitor = createMonitor(
+                repository = monitorRepository,
+                url = "$mockServerUrl/some-path",
+                requestMethod = HttpMethod.GET,
+                connectionReuseEnabled = false,
+            )
+            val subscriber = TestSubscriber<MonitorUpEvent>()
+            eventDispatcher.subscribeToMonitorUpEvents { it.forwardToSubscriber(subscriber) }
+
+            val request = getRequest("/some-path")
+                .withHeader(HttpHeaders.CONNECTION, "close")
+                .withHeader(not(CheckTimingClientCustomizer.CLOSE_CONNECTION_HEADER), string(".*"))
+            mockServer.`when`(request).respond(
+                response().withStatusCode(HttpStatus.OK.code)
+            )
+            val newConnectionsBefore = checkConnectionStats.newConnectionCount()
+
+            uptimeChecker.check(monitor)
+            uptimeChecker.check(monitor)
+
+            then("it should open a new connection for every check, and close it after the response") {
+                subscriber.awaitCount(2).values().forAll { event ->
+                    event.status shouldBe HttpStatus.OK
+                    event.monitor.id shouldBe monitor.id
+                }
+                checkConnectionStats.newConnectionCount() - newConnectionsBefore shouldBe 2
+
+                mockServer.verifyRequest(request, exactly = 2)
+            }
+        }
+
+        `when`("it checks a monitor - neither connection reuse, nor TLS session resumption is enabled") {
+            val monitor = createMonitor(
+                repository = monitorRepository,
+                url = "$mockServerUrl/some-path",
+                requestMethod = HttpMethod.GET,
+                connectionReuseEnabled = false,
+                tlsSessionResumptionEnabled = false,
+            )
+            val subscriber = TestSubscriber<MonitorUpEvent>()
+            eventDispatcher.subscribeToMonitorUpEvents { it.forwardToSubscriber(subscriber) }
+
+            val request = getRequest("/some-path")
+                .withHeader(HttpHeaders.CONNECTION, "close")
+            mockServer.`when`(request).respond(
+                response().withStatusCode(HttpStatus.OK.code)
+            )
+
+            uptimeChecker.check(monitor)
+
+            then("it should check it over a new connection, with its own client") {
+                val expectedEvent = subscriber.awaitCount(1).values().first()
+
+                expectedEvent.status shouldBe HttpStatus.OK
+                expectedEvent.monitor.id shouldBe monitor.id
+
+                mockServer.verifyRequest(request)
+            }
+        }
+
         `when`("it checks a monitor that is redirected - following redirects is enabled") {
             val monitor = createMonitor(
                 repository = monitorRepository,
@@ -547,3 +788,6 @@ private fun ClientAndServer.verifyRequest(request: HttpRequest, exactly: Int = 1
             .withHeader(HttpHeaders.USER_AGENT, HttpCheckRequestConfigurator.USER_AGENT),
         if (exactly == 0) VerificationTimes.never() else VerificationTimes.exactly(exactly)
     )
+
+// Longer than the default cap of the response bodies (1 MiB)
+private const val LARGE_BODY_BYTES = 2 * 1024 * 1024
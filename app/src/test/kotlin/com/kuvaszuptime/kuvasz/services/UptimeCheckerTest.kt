@@ -4,31 +4,42 @@ import com.kuvaszuptime.kuvasz.DatabaseBehaviorSpec
 import com.kuvaszuptime.kuvasz.jooq.enums.HttpMethod
 import com.kuvaszuptime.kuvasz.jooq.tables.records.MonitorRecord
 import com.kuvaszuptime.kuvasz.mocks.createMonitor
+import com.kuvaszuptime.kuvasz.models.CheckDeadlineExceededException
 import com.kuvaszuptime.kuvasz.models.checks.HttpCheckResponse
 import com.kuvaszuptime.kuvasz.models.events.MonitorDownEvent
 import com.kuvaszuptime.kuvasz.models.events.MonitorUpEvent
 import com.kuvaszuptime.kuvasz.repositories.MonitorRepository
+import com.kuvaszuptime.kuvasz.services.timing.CheckConnectionStats
 import com.kuvaszuptime.kuvasz.testutils.forwardToSubscriber
 import io.kotest.core.test.TestCase
 import io.kotest.core.test.TestResult
 import io.kotest.matchers.comparables.shouldBeGreaterThan
 import io.kotest.matchers.comparables.shouldBeLessThan
+import io.kotest.matchers.nulls.shouldNotBeNull
 import io.kotest.matchers.shouldBe
+import io.kotest.matchers.string.shouldContain
+import io.kotest.matchers.types.shouldBeInstanceOf
 import io.micronaut.core.io.buffer.ByteBuffer
 import io.micronaut.http.HttpStatus
+import io.micronaut.http.client.exceptions.HttpClientException
 import io.micronaut.http.simple.SimpleHttpResponseFactory
 import io.micronaut.test.extensions.kotest5.annotation.MicronautTest
 import io.mockk.clearAllMocks
+import io.mockk.coEvery
 import io.mockk.every
 import io.mockk.spyk
 import io.reactivex.rxjava3.subscribers.TestSubscriber
+import kotlinx.coroutines.delay
+import java.net.BindException
 import java.net.URI
+import kotlin.system.measureTimeMillis
 
 @MicronautTest(startApplication = false)
 class UptimeCheckerTest(
     uptimeChecker: UptimeChecker,
     private val monitorRepository: MonitorRepository,
-    private val eventDispatcher: EventDispatcher
+    private val eventDispatcher: EventDispatcher,
+    private val checkConnectionStats: CheckConnectionStats,
 ) : DatabaseBehaviorSpec() {
     init {
         val uptimeCheckerSpy = spyk(uptimeChecker)
@@ -137,6 +148,70 @@ class UptimeCheckerTest(
                     expectedDownEvent.dispatchedAt shouldBeGreaterThan expectedUpEvent.dispatchedAt
                 }
             }
+
+            `when`("it checks a monitor whose check exceeds its deadline") {
+                val monitor = createMonitor(monitorRepository, checkDeadlineSeconds = 1)
+                val subscriber = TestSubscriber<MonitorDownEvent>()
+                eventDispatcher.subscribeToMonitorDownEvents { it.forwardToSubscriber(subscriber) }
+                coEvery {
+                    uptimeCheckerSpy["sendHttpRequest"](any<MonitorRecord>(), any<URI>())
+                } coAnswers {
+                    delay(10_000)
+                    error("The request should have been cancelled")
+                }
+
+                then("it should be cancelled and a MonitorDownEvent should be dispatched with a distinct reason") {
+                    val elapsed = measureTimeMillis { uptimeCheckerSpy.check(monitor) }
+
+                    val expectedEvent = subscriber.awaitCount(1).values().first()
+                    expectedEvent.monitor.id shouldBe monitor.id
+                    expectedEvent.error.shouldBeInstanceOf<CheckDeadlineExceededException>()
+                    expectedEvent.error.message.shouldNotBeNull() shouldContain "deadline of 1 seconds"
+                    elapsed shouldBeLessThan 5000
+                }
+            }
+
+            `when`("the request fails a few times before it succeeds") {
+                val monitor = createMonitor(monitorRepository)
+                val subscriber = TestSubscriber<MonitorUpEvent>()
+                eventDispatcher.subscribeToMonitorUpEvents { it.forwardToSubscriber(subscriber) }
+                val response = SimpleHttpResponseFactory().status<ByteBuffer<Any>>(HttpStatus.OK)
+                var attempts = 0
+                coEvery {
+                    uptimeCheckerSpy["sendHttpRequest"](any<MonitorRecord>(), any<URI>())
+                } coAnswers {
+                    if (attempts++ < 2) throw HttpClientException("Connection refused")
+                    HttpCheckResponse(httpResponse = response, latency = 100)
+                }
+
+                then("it should be retried, and a MonitorUpEvent should be dispatched") {
+                    uptimeCheckerSpy.check(monitor)
+
+                    val expectedEvent = subscriber.awaitCount(1).values().first()
+                    expectedEvent.monitor.id shouldBe monitor.id
+                    attempts shouldBe 3
+                }
+            }
+
+            `when`("the prober runs out of ephemeral ports") {
+                val monitor = createMonitor(monitorRepository)
+                val subscriber = TestSubscriber<MonitorDownEvent>()
+                eventDispatcher.subscribeToMonitorDownEvents { it.forwardToSubscriber(subscriber) }
+                val localErrorsBefore = checkConnectionStats.localSocketErrorCount()
+                coEvery {
+                    uptimeCheckerSpy["sendHttpRequest"](any<MonitorRecord>(), any<URI>())
+                } throws HttpClientException(
+                    "Connect Error: Cannot assign requested address",
+                    BindException("Cannot assign requested address"),
+                )
+
+                then("it should be counted as a local error, and no MonitorDownEvent should be dispatched") {
+                    uptimeCheckerSpy.check(monitor)
+
+                    subscriber.assertNoValues()
+                    checkConnectionStats.localSocketErrorCount() shouldBe localErrorsBefore + 1
+                }
+            }
         }
     }
 
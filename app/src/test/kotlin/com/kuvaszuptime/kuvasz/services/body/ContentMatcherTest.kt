@@ -0,0 +1,98 @@
+package com.kuvaszuptime.kuvasz.services.body
+
+import com.kuvaszuptime.kuvasz.models.checks.ContentAssertionResult
+import io.kotest.core.spec.style.BehaviorSpec
+import io.kotest.matchers.shouldBe
+import io.netty.buffer.Unpooled
+
+class ContentMatcherTest : BehaviorSpec({
+
+    fun ContentMatcher.Scan.feed(vararg chunks: String): Boolean =
+        chunks.map { chunk ->
+            val buffer = Unpooled.copiedBuffer(chunk, Charsets.UTF_8)
+            try {
+                feed(buffer, buffer.readableBytes())
+            } finally {
+                buffer.release()
+            }
+        }.last()
+
+    given("a ContentMatcher") {
+
+        `when`("the patterns overlap each other") {
+
+            then("every one of them should be found in a single pass") {
+                val matcher = ContentMatcher(
+                    mustContain = listOf("he", "she", "hers", "his"),
+                    mustNotContain = emptyList(),
+                )
+                val scan = matcher.newScan()
+
+                scan.feed("ushers")
+
+                scan.result() shouldBe ContentAssertionResult(missing = listOf("his"), forbiddenFound = emptyList())
+            }
+        }
+
+        `when`("a pattern is split between two chunks") {
+
+            then("it should be found") {
+                val matcher = ContentMatcher(mustContain = listOf("\"status\":\"ok\""), mustNotContain = emptyList())
+                val scan = matcher.newScan()
+
+                scan.feed("{\"stat", "us\":", "\"ok\"}")
+
+                scan.result().passed shouldBe true
+            }
+        }
+
+        `when`("the patterns contain multi-byte characters") {
+
+            then("they should be matched on their UTF-8 bytes") {
+                val matcher = ContentMatcher(mustContain = listOf("működik"), mustNotContain = listOf("hiba"))
+                val scan = matcher.newScan()
+
+                scan.feed("A rendszer műk", "ödik")
+
+                scan.result().passed shouldBe true
+            }
+        }
+
+        `when`("every required pattern is found and there are no forbidden ones") {
+
+            then("the rest of the body should not be needed") {
+                val matcher = ContentMatcher(mustContain = listOf("ok"), mustNotContain = emptyList())
+                val scan = matcher.newScan()
+
+                scan.feed("it's ok, the rest doesn't matter") shouldBe false
+                scan.isDecided shouldBe true
+            }
+        }
+
+        `when`("there are forbidden patterns") {
+
+            then("the whole body should be needed until one of them is found") {
+                val matcher = ContentMatcher(mustContain = listOf("ok"), mustNotContain = listOf("error"))
+                val scan = matcher.newScan()
+
+                scan.feed("it's ok") shouldBe true
+                scan.feed(" so far, but an err", "or happened") shouldBe false
+                scan.result() shouldBe ContentAssertionResult(missing = emptyList(), forbiddenFound = listOf("error"))
+            }
+        }
+
+        `when`("only a part of the chunk is fed") {
+
+            then("the rest of the chunk should be ignored") {
+                val matcher = ContentMatcher(mustContain = listOf("footer"), mustNotContain = emptyList())
+                val scan = matcher.newScan()
+                val chunk = Unpooled.copiedBuffer("header footer", Charsets.UTF_8)
+
+                scan.feed(chunk, length = 7)
+                chunk.release()
+
+                scan.result().missing shouldBe listOf("footer")
+            }
+        }
+    }
+})
@@ -0,0 +1,137 @@
+package com.kuvaszuptime.kuvasz.services.body
+
+import com.kuvaszuptime.kuvasz.models.checks.JsonAssertionResult
+import com.kuvaszuptime.kuvasz.models.checks.JsonValueMismatch
+import io.kotest.core.spec.style.BehaviorSpec
+import io.kotest.matchers.nulls.shouldBeNull
+import io.kotest.matchers.nulls.shouldNotBeNull
+import io.kotest.matchers.shouldBe
+import io.netty.buffer.Unpooled
+
+class JsonAssertionMatcherTest : BehaviorSpec({
+
+    fun matcher(vararg assertions: String) =
+        JsonAssertionMatcher(assertions.map { JsonAssertion.fromString(it).shouldNotBeNull() })
+
+    fun JsonAssertionMatcher.Scan.feed(vararg chunks: String): Boolean =
+        chunks.map { chunk ->
+            val buffer = Unpooled.copiedBuffer(chunk, Charsets.UTF_8)
+            try {
+                feed(buffer, buffer.readableBytes())
+            } finally {
+                buffer.release()
+            }
+        }.last()
+
+    given("a JsonAssertion") {
+
+        `when`("it's parsed from its string form") {
+
+            then("it should be split at the first separator, and invalid pointers should be rejected") {
+                JsonAssertion.fromString("/db/status=UP") shouldBe JsonAssertion("/db/status", "UP")
+                JsonAssertion.fromString("/token=a=b") shouldBe JsonAssertion("/token", "a=b")
+                JsonAssertion.fromString("=42") shouldBe JsonAssertion("", "42")
+                JsonAssertion.fromString("/status").shouldBeNull()
+                JsonAssertion.fromString("status=UP").shouldBeNull()
+            }
+        }
+    }
+
+    given("a JsonAssertionMatcher") {
+
+        `when`("the values are nested in objects and arrays") {
+
+            then("they should be resolved by their pointers") {
+                val scan = matcher(
+                    "/status=UP",
+                    "/components/db/status=UP",
+                    "/checks/1/healthy=true",
+                    "/version=2",
+                    "/a~1b=escaped",
+                ).newScan()
+
+                scan.feed(
+                    """{"status":"UP","components":{"db":{"status":"UP"}},""",
+                    """"checks":[{"healthy":false},{"healthy":true}],"version":2,"a/b":"escaped"}""",
+                )
+
+                scan.result(endOfBody = true) shouldBe
+                    JsonAssertionResult(missing = emptyList(), mismatched = emptyList())
+            }
+        }
+
+        `when`("a value is different, or it's missing") {
+
+            then("it should be reported") {
+                val scan = matcher("/status=UP", "/db=UP", "/components/cache/status=UP").newScan()
+
+                scan.feed("""{"status":"DOWN","db":{"status":"UP"},"components":{}}""")
+
+                scan.result(endOfBody = true) shouldBe JsonAssertionResult(
+                    missing = listOf("/components/cache/status"),
+                    mismatched = listOf(
+                        JsonValueMismatch(pointer = "/status", expected = "UP", actual = "DOWN"),
+                        JsonValueMismatch(pointer = "/db", expected = "UP", actual = "{...}"),
+                    ),
+                )
+            }
+        }
+
+        `when`("a value with the same name is in a different path") {
+
+            then("it should not be mistaken for the asserted one") {
+                val scan = matcher("/status=UP").newScan()
+
+                scan.feed("""{"db":{"status":"UP"},"status":"DOWN"}""")
+
+                scan.result(endOfBody = true).mismatched shouldBe listOf(
+                    JsonValueMismatch(pointer = "/status", expected = "UP", actual = "DOWN")
+                )
+            }
+        }
+
+        `when`("a token is split between two chunks") {
+
+            then("it should be resolved") {
+                val scan = matcher("/status=UP").newScan()
+
+                scan.feed("""{"sta""", """tus":"U""", """P"}""")
+
+                scan.result(endOfBody = true).passed shouldBe true
+            }
+        }
+
+        `when`("every pointer is resolved") {
+
+            then("the rest of the body should not be needed, even if it's invalid") {
+                val scan = matcher("/status=UP").newScan()
+
+                scan.feed("""{"status":"UP","details":""") shouldBe false
+                scan.isDecided shouldBe true
+                scan.result(endOfBody = false).passed shouldBe true
+            }
+        }
+
+        `when`("the value is at the very end of the body") {
+
+            then("it should be resolved only when the end of the body is signalled") {
+                val scan = matcher("=42").newScan()
+
+                scan.feed("42") shouldBe true
+
+                scan.result(endOfBody = true).passed shouldBe true
+            }
+        }
+
+        `when`("the body is not a valid JSON") {
+
+            then("the parse error should be reported") {
+                val scan = matcher("/status=UP").newScan()
+
+                scan.feed("<html>Service Unavailable</html>") shouldBe false
+
+                scan.result(endOfBody = true).parseError.shouldNotBeNull()
+            }
+        }
+    }
+})
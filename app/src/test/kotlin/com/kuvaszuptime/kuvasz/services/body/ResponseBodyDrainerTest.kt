@@ -0,0 +1,125 @@
+package com.kuvaszuptime.kuvasz.services.body
+
+import io.kotest.assertions.throwables.shouldThrow
+import io.kotest.core.spec.style.BehaviorSpec
+import io.kotest.inspectors.forAll
+import io.kotest.matchers.shouldBe
+import io.netty.buffer.Unpooled
+import io.netty.handler.codec.http.DefaultHttpContent
+import io.netty.handler.codec.http.DefaultLastHttpContent
+import io.netty.handler.codec.http.HttpContent
+import io.reactivex.rxjava3.core.Flowable
+import kotlinx.coroutines.CoroutineStart
+import kotlinx.coroutines.async
+import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.yield
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicLong
+
+class ResponseBodyDrainerTest : BehaviorSpec({
+
+    fun chunks(count: Int, size: Int): List<HttpContent> =
+        List(count) { DefaultHttpContent(Unpooled.wrappedBuffer(ByteArray(size))) } +
+            DefaultLastHttpContent(Unpooled.buffer(0))
+
+    given("a streamed response body") {
+
+        `when`("it's shorter than the cap") {
+
+            then("it should be read to its end, and every chunk should be released") {
+                val body = chunks(count = 4, size = 100)
+
+                val result = Flowable.fromIterable(body).drain(maxBytes = 1000)
+
+                result shouldBe DrainedBody(bytes = 400, truncated = false)
+                body.forAll { it.refCnt() shouldBe 0 }
+            }
+        }
+
+        `when`("it's longer than the cap") {
+
+            then("it should be abandoned as soon as the cap is exceeded, without requesting the rest of it") {
+                val body = chunks(count = 10, size = 100)
+                val requested = AtomicLong()
+                val cancelled = AtomicBoolean()
+
+                val result = Flowable.fromIterable(body)
+                    .doOnRequest { requested.addAndGet(it) }
+                    .doOnCancel { cancelled.set(true) }
+                    .drain(maxBytes = 250)
+
+                result shouldBe DrainedBody(bytes = 300, truncated = true)
+                cancelled.get() shouldBe true
+                requested.get() shouldBe 3
+                body.take(3).forAll { it.refCnt() shouldBe 0 }
+            }
+        }
+
+        `when`("there is a chunk consumer") {
+
+            then("it should get only the bytes within the cap, and it should be able to stop the draining") {
+                val body = chunks(count = 10, size = 100)
+                val consumed = mutableListOf<Int>()
+                val cancelled = AtomicBoolean()
+
+                val result = Flowable.fromIterable(body)
+                    .doOnCancel { cancelled.set(true) }
+                    .drain(maxBytes = 250) { chunk, length ->
+                        chunk.readableBytes() shouldBe 100
+                        consumed.add(length)
+                        true
+                    }
+                val stopped = Flowable.fromIterable(chunks(count = 10, size = 100))
+                    .drain(maxBytes = 1000) { _, _ -> false }
+
+                consumed shouldBe listOf(100, 100, 50)
+                result shouldBe DrainedBody(bytes = 300, truncated = true)
+                cancelled.get() shouldBe true
+                stopped shouldBe DrainedBody(bytes = 100, truncated = true)
+            }
+        }
+
+        `when`("the cap is 0") {
+
+            then("the body should not be requested at all") {
+                val requested = AtomicLong()
+                val cancelled = AtomicBoolean()
+
+                val result = Flowable.fromIterable(chunks(count = 1, size = 100))
+                    .doOnRequest { requested.addAndGet(it) }
+                    .doOnCancel { cancelled.set(true) }
+                    .drain(maxBytes = 0)
+
+                result shouldBe DrainedBody(bytes = 0, truncated = true)
+                requested.get() shouldBe 0
+                cancelled.get() shouldBe true
+            }
+        }
+
+        `when`("the body fails") {
+
+            then("the error should be propagated") {
+                val body = Flowable.fromIterable(chunks(count = 1, size = 100))
+                    .concatWith(Flowable.error(IllegalStateException("Connection reset")))
+
+                shouldThrow<IllegalStateException> { body.drain(maxBytes = 1000) }.message shouldBe "Connection reset"
+            }
+        }
+
+        `when`("the draining coroutine is cancelled") {
+
+            then("the subscription should be cancelled") {
+                val cancelled = AtomicBoolean()
+                val body = Flowable.never<HttpContent>().doOnCancel { cancelled.set(true) }
+
+                coroutineScope {
+                    val draining = async(start = CoroutineStart.UNDISPATCHED) { body.drain(maxBytes = 1000) }
+                    yield()
+                    draining.cancel()
+                }
+
+                cancelled.get() shouldBe true
+            }
+        }
+    }
+})
@@ -0,0 +1,188 @@
+package com.kuvaszuptime.kuvasz.services.concurrency
+
+import com.kuvaszuptime.kuvasz.config.AppConfig
+import com.kuvaszuptime.kuvasz.models.CheckType
+import com.kuvaszuptime.kuvasz.models.events.MonitorDeleteEvent
+import com.kuvaszuptime.kuvasz.services.EventDispatcher
+import io.kotest.core.spec.style.BehaviorSpec
+import io.kotest.matchers.booleans.shouldBeFalse
+import io.kotest.matchers.booleans.shouldBeTrue
+import io.kotest.matchers.shouldBe
+import io.micronaut.http.netty.channel.EventLoopGroupRegistry
+import io.mockk.every
+import io.mockk.mockk
+import kotlinx.coroutines.Dispatchers
+import java.time.Duration
+import java.util.Optional
+
+class AdaptiveConcurrencyLimiterTest : BehaviorSpec({
+
+    val lagThreshold = Duration.ofMillis(50).toNanos()
+
+    fun limiter(
+        adaptiveConcurrencyEnabled: Boolean,
+        eventDispatcher: EventDispatcher = EventDispatcher(),
+        maxConcurrentChecks: Int = 100,
+        minLimit: Int = 10,
+    ): Pair<AdaptiveConcurrencyLimiter, CheckAdmissionController> {
+        val appConfig = AppConfig().apply {
+            this.adaptiveConcurrencyEnabled = adaptiveConcurrencyEnabled
+            this.maxConcurrentChecks = maxConcurrentChecks
+            this.adaptiveConcurrencyMinLimit = minLimit
+            this.proberLagThresholdMs = Duration.ofNanos(lagThreshold).toMillis()
+        }
+        val admissionController = CheckAdmissionController(appConfig)
+        val registry = mockk<EventLoopGroupRegistry> {
+            every { getEventLoopGroup(any()) } returns Optional.empty()
+        }
+        val limiter = AdaptiveConcurrencyLimiter(
+            appConfig,
+            admissionController,
+            registry,
+            Dispatchers.Unconfined,
+            eventDispatcher,
+        ).apply { subscribeToLifecycleEvents() }
+        return limiter to admissionController
+    }
+
+    fun CheckAdmissionController.fill(count: Int) {
+        val now = System.nanoTime()
+        (1L..count).forEach { submit(CheckType.UPTIME, it, now) {} }
+    }
+
+    given("an AdaptiveConcurrencyLimiter") {
+
+        `when`("the event loop or the dispatcher is lagging") {
+
+            then("the prober should be considered saturated until the lag goes away") {
+                val (limiter, _) = limiter(adaptiveConcurrencyEnabled = false)
+
+                limiter.adjust(eventLoopLagNanos = lagThreshold * 2, dispatcherLagNanos = 0)
+                limiter.isSaturated().shouldBeTrue()
+                limiter.eventLoopLagNanos() shouldBe lagThreshold * 2
+
+                limiter.adjust(eventLoopLagNanos = 0, dispatcherLagNanos = lagThreshold + 1)
+                limiter.isSaturated().shouldBeTrue()
+
+                limiter.adjust(eventLoopLagNanos = 0, dispatcherLagNanos = 0)
+                limiter.isSaturated().shouldBeFalse()
+            }
+        }
+
+        `when`("the majority of the RTTs are inflated compared to their baselines") {
+
+            then("the prober should be considered saturated") {
+                val (limiter, _) = limiter(adaptiveConcurrencyEnabled = false)
+                (1L..20L).forEach { limiter.recordRtt(it, latencyMs = 100) }
+                (1L..20L).forEach { limiter.recordRtt(it, latencyMs = if (it <= 11) 400 else 110) }
+
+                limiter.adjust(eventLoopLagNanos = 0, dispatcherLagNanos = 0)
+
+                limiter.isSaturated().shouldBeTrue()
+            }
+        }
+
+        `when`("the monitors are deleted") {
+
+            then("their baselines should be forgotten") {
+                val eventDispatcher = EventDispatcher()
+                val (limiter, _) = limiter(adaptiveConcurrencyEnabled = false, eventDispatcher = eventDispatcher)
+                (1L..20L).forEach { limiter.recordRtt(it, latencyMs = 100) }
+
+                (1L..20L).forEach { eventDispatcher.dispatch(MonitorDeleteEvent(it)) }
+                // Without their previous baselines, these are the new baselines, not inflated samples
+                (1L..20L).forEach { limiter.recordRtt(it, latencyMs = 400) }
+                limiter.adjust(eventLoopLagNanos = 0, dispatcherLagNanos = 0)
+
+                limiter.isSaturated().shouldBeFalse()
+            }
+        }
+
+        `when`("only a minority of the RTTs are inflated, or there are too few samples") {
+
+            then("the prober should not be considered saturated") {
+                val (limiter, _) = limiter(adaptiveConcurrencyEnabled = false)
+                (1L..20L).forEach { limiter.recordRtt(it, latencyMs = 100) }
+                (1L..20L).forEach { limiter.recordRtt(it, latencyMs = if (it <= 5) 400 else 110) }
+                limiter.adjust(eventLoopLagNanos = 0, dispatcherLagNanos = 0)
+                limiter.isSaturated().shouldBeFalse()
+
+                (1L..5L).forEach { limiter.recordRtt(it, latencyMs = 1000) }
+                limiter.adjust(eventLoopLagNanos = 0, dispatcherLagNanos = 0)
+                limiter.isSaturated().shouldBeFalse()
+            }
+        }
+
+        `when`("adaptive concurrency is enabled and the prober is saturated") {
+
+            then("the limit should be decreased multiplicatively, but not below the minimum") {
+                val (limiter, admissionController) = limiter(adaptiveConcurrencyEnabled = true)
+
+                limiter.adjust(eventLoopLagNanos = lagThreshold * 2, dispatcherLagNanos = 0)
+                limiter.currentLimit() shouldBe 75
+
+                repeat(10) { limiter.adjust(eventLoopLagNanos = lagThreshold * 2, dispatcherLagNanos = 0) }
+                admissionController.currentLimit() shouldBe 10
+            }
+        }
+
+        `when`("adaptive concurrency is enabled, the prober is healthy and the limit is reached") {
+
+            then("the limit should be increased additively, up to the configured maximum") {
+                val (limiter, admissionController) = limiter(adaptiveConcurrencyEnabled = true)
+                limiter.adjust(eventLoopLagNanos = lagThreshold * 2, dispatcherLagNanos = 0)
+                limiter.currentLimit() shouldBe 75
+
+                admissionController.fill(80)
+                admissionController.pendingCount() shouldBe 5
+
+                limiter.adjust(eventLoopLagNanos = 0, dispatcherLagNanos = 0)
+                // 75 + ceil(sqrt(75))
+                limiter.currentLimit() shouldBe 84
+                // The raised limit lets the pending checks in right away
+                admissionController.pendingCount() shouldBe 0
+                admissionController.runningCount() shouldBe 80
+
+                limiter.adjust(eventLoopLagNanos = 0, dispatcherLagNanos = 0)
+                limiter.currentLimit() shouldBe 84
+
+                admissionController.fill(20)
+                repeat(5) { limiter.adjust(eventLoopLagNanos = 0, dispatcherLagNanos = 0) }
+                limiter.currentLimit() shouldBe 100
+            }
+        }
+
+        `when`("adaptive concurrency is disabled") {
+
+            then("the limit should not be touched") {
+                val (limiter, _) = limiter(adaptiveConcurrencyEnabled = false)
+
+                limiter.adjust(eventLoopLagNanos = lagThreshold * 2, dispatcherLagNanos = 0)
+
+                limiter.currentLimit() shouldBe 100
+            }
+        }
+    }
+
+    given("a CheckAdmissionController whose limit is lowered") {
+
+        `when`("the running checks are finished") {
+
+            then("the pending checks should be started only when the running count drops below the new limit") {
+                val appConfig = AppConfig().apply { maxConcurrentChecks = 3 }
+                val controller = CheckAdmissionController(appConfig)
+                controller.fill(5)
+                controller.updateLimit(1)
+
+                controller.release()
+                controller.release()
+                controller.runningCount() shouldBe 1
+                controller.pendingCount() shouldBe 2
+
+                controller.release()
+                controller.runningCount() shouldBe 1
+                controller.pendingCount() shouldBe 1
+            }
+        }
+    }
+})
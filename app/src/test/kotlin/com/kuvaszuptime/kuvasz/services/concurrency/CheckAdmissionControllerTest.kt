@@ -0,0 +1,148 @@
+package com.kuvaszuptime.kuvasz.services.concurrency
+
+import com.kuvaszuptime.kuvasz.config.AppConfig
+import com.kuvaszuptime.kuvasz.models.CheckType
+import io.kotest.core.spec.style.BehaviorSpec
+import io.kotest.matchers.longs.shouldBeGreaterThanOrEqual
+import io.kotest.matchers.shouldBe
+import java.time.Duration
+
+class CheckAdmissionControllerTest : BehaviorSpec({
+
+    fun controller(maxConcurrentChecks: Int, maxPendingChecks: Int) = CheckAdmissionController(
+        AppConfig().apply {
+            this.maxConcurrentChecks = maxConcurrentChecks
+            this.maxPendingChecks = maxPendingChecks
+        }
+    )
+
+    given("a CheckAdmissionController") {
+
+        `when`("more checks are submitted than the limit") {
+
+            then("the checks over the limit should be deferred, then rejected when the queue is full") {
+                val controller = controller(maxConcurrentChecks = 2, maxPendingChecks = 2)
+                val started = mutableListOf<Long>()
+                val now = System.nanoTime()
+
+                val admissions = (1L..5L).map { monitorId ->
+                    controller.submit(CheckType.UPTIME, monitorId, now) { started.add(monitorId) }
+                }
+
+                admissions shouldBe listOf(
+                    Admission.STARTED,
+                    Admission.STARTED,
+                    Admission.DEFERRED,
+                    Admission.DEFERRED,
+                    Admission.REJECTED,
+                )
+                started shouldBe listOf(1L, 2L)
+                controller.runningCount() shouldBe 2
+                controller.pendingCount() shouldBe 2
+                controller.stats(CheckType.UPTIME).deferredCount() shouldBe 2
+                controller.stats(CheckType.UPTIME).rejectedCount() shouldBe 1
+                controller.stats(CheckType.SSL).rejectedCount() shouldBe 0
+            }
+        }
+
+        `when`("a running check is finished") {
+
+            then("the pending checks should be started in the order of their arrival") {
+                val controller = controller(maxConcurrentChecks = 1, maxPendingChecks = 10)
+                val started = mutableListOf<Long>()
+                val now = System.nanoTime()
+
+                (1L..3L).forEach { monitorId ->
+                    controller.submit(CheckType.UPTIME, monitorId, now) { started.add(monitorId) }
+                }
+                started shouldBe listOf(1L)
+
+                controller.release()
+                started shouldBe listOf(1L, 2L)
+                controller.runningCount() shouldBe 1
+
+                controller.release()
+                controller.release()
+                started shouldBe listOf(1L, 2L, 3L)
+                controller.runningCount() shouldBe 0
+                controller.pendingCount() shouldBe 0
+            }
+        }
+
+        `when`("the same check is submitted again while it's pending") {
+
+            then("it should be rejected instead of being queued twice") {
+                val controller = controller(maxConcurrentChecks = 1, maxPendingChecks = 10)
+                val now = System.nanoTime()
+
+                controller.submit(CheckType.UPTIME, 1, now) {} shouldBe Admission.STARTED
+                controller.submit(CheckType.UPTIME, 2, now) {} shouldBe Admission.DEFERRED
+                controller.submit(CheckType.UPTIME, 2, now) {} shouldBe Admission.REJECTED
+                controller.submit(CheckType.SSL, 2, now) {} shouldBe Admission.DEFERRED
+                controller.pendingCount() shouldBe 2
+            }
+        }
+
+        `when`("the pending checks of a monitor are discarded") {
+
+            then("they should not be started anymore") {
+                val controller = controller(maxConcurrentChecks = 1, maxPendingChecks = 10)
+                val started = mutableListOf<Long>()
+                val now = System.nanoTime()
+
+                (1L..3L).forEach { monitorId ->
+                    controller.submit(CheckType.UPTIME, monitorId, now) { started.add(monitorId) }
+                }
+                controller.discardPending(2)
+                controller.pendingCount() shouldBe 1
+
+                controller.release()
+                controller.release()
+                started shouldBe listOf(1L, 3L)
+                controller.submit(CheckType.UPTIME, 2, now) { started.add(2) } shouldBe Admission.STARTED
+            }
+        }
+
+        `when`("the limit is disabled") {
+
+            then("every check should be started right away") {
+                val controller = controller(maxConcurrentChecks = 0, maxPendingChecks = 0)
+                val now = System.nanoTime()
+
+                (1L..100L).map { controller.submit(CheckType.UPTIME, it, now) {} }.toSet() shouldBe
+                    setOf(Admission.STARTED)
+                controller.runningCount() shouldBe 100
+            }
+        }
+
+        `when`("a check is started later than it was planned") {
+
+            then("its scheduler lag should be recorded") {
+                val controller = controller(maxConcurrentChecks = 1, maxPendingChecks = 10)
+                val plannedAt = System.nanoTime() - Duration.ofMillis(250).toNanos()
+
+                controller.submit(CheckType.SSL, 1, plannedAt) {}
+                controller.submit(CheckType.SSL, 2, plannedAt) {}
+                Thread.sleep(50)
+                controller.release()
+
+                val sslStats = controller.stats(CheckType.SSL)
+                sslStats.startedCount() shouldBe 2
+                controller.stats(CheckType.UPTIME).startedCount() shouldBe 0
+                sslStats.maxLagNanos() shouldBeGreaterThanOrEqual Duration.ofMillis(300).toNanos()
+                sslStats.totalLagNanos() shouldBeGreaterThanOrEqual Duration.ofMillis(550).toNanos()
+            }
+        }
+
+        `when`("a check fails to start") {
+
+            then("its permit should be given back") {
+                val controller = controller(maxConcurrentChecks = 1, maxPendingChecks = 10)
+
+                controller.submit(CheckType.UPTIME, 1, System.nanoTime()) { error("Boom") }
+
+                controller.runningCount() shouldBe 0
+            }
+        }
+    }
+})
@@ -0,0 +1,152 @@
+package com.kuvaszuptime.kuvasz.services.concurrency
+
+import com.kuvaszuptime.kuvasz.config.AppConfig
+import io.kotest.core.spec.style.BehaviorSpec
+import io.kotest.matchers.longs.shouldBeGreaterThan
+import io.kotest.matchers.shouldBe
+import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.async
+import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.yield
+import java.net.URI
+import java.util.Collections
+
+class HostBulkheadTest : BehaviorSpec({
+
+    fun bulkhead(globalLimit: Int) = HostBulkhead(AppConfig().apply { maxConcurrentChecksPerHost = globalLimit })
+
+    suspend fun waitUntil(condition: () -> Boolean) {
+        while (!condition()) yield()
+    }
+
+    given("a HostBulkhead with a global limit") {
+
+        `when`("more checks are started against the same host than the limit") {
+
+            then("the checks over the limit should wait and be let in in the order of their arrival") {
+                val bulkhead = bulkhead(globalLimit = 2)
+                val uri = URI("https://example.com/first")
+                val gates = List(5) { CompletableDeferred<Unit>() }
+                val entered = Collections.synchronizedList(mutableListOf<Int>())
+
+                coroutineScope {
+                    val checks = gates.mapIndexed { index, gate ->
+                        async {
+                            bulkhead.withPermit(uri, monitorLimit = 0) {
+                                entered.add(index)
+                                gate.await()
+                            }
+                        }.also { waitUntil { entered.size + bulkhead.waitingCount() == index + 1 } }
+                    }
+
+                    entered shouldBe listOf(0, 1)
+                    bulkhead.waitingCount() shouldBe 3
+                    bulkhead.inFlight(uri) shouldBe 2
+
+                    gates[1].complete(Unit)
+                    waitUntil { entered.size == 3 }
+                    gates[0].complete(Unit)
+                    waitUntil { entered.size == 4 }
+                    entered shouldBe listOf(0, 1, 2, 3)
+                    bulkhead.inFlight(uri) shouldBe 2
+
+                    gates.forEach { it.complete(Unit) }
+                    checks.forEach { it.await() }
+                }
+
+                entered shouldBe listOf(0, 1, 2, 3, 4)
+                bulkhead.inFlight(uri) shouldBe 0
+                bulkhead.waitingCount() shouldBe 0
+                bulkhead.queuedCount() shouldBe 3
+                bulkhead.totalWaitNanos() shouldBeGreaterThan 0
+            }
+        }
+
+        `when`("the checks are running against different hosts or ports") {
+
+            then("the limit should be applied to each of them separately") {
+                val bulkhead = bulkhead(globalLimit = 1)
+                val gate = CompletableDeferred<Unit>()
+                val uris = listOf(
+                    URI("https://example.com/a"),
+                    URI("https://example.org/a"),
+                    URI("https://example.com:8443/a"),
+                    URI("http://example.com/a"),
+                )
+
+                coroutineScope {
+                    val checks = uris.map { uri ->
+                        async { bulkhead.withPermit(uri, monitorLimit = 0) { gate.await() } }
+                    }
+                    waitUntil { uris.all { bulkhead.inFlight(it) == 1 } }
+
+                    bulkhead.waitingCount() shouldBe 0
+                    gate.complete(Unit)
+                    checks.forEach { it.await() }
+                }
+            }
+        }
+
+        `when`("a waiting check is cancelled") {
+
+            then("it should leave the queue without taking a permit") {
+                val bulkhead = bulkhead(globalLimit = 1)
+                val uri = URI("https://example.com")
+                val gate = CompletableDeferred<Unit>()
+                var cancelledEntered = false
+
+                coroutineScope {
+                    val running = async { bulkhead.withPermit(uri, monitorLimit = 0) { gate.await() } }
+                    waitUntil { bulkhead.inFlight(uri) == 1 }
+                    val cancelled = launch { bulkhead.withPermit(uri, monitorLimit = 0) { cancelledEntered = true } }
+                    waitUntil { bulkhead.waitingCount() == 1 }
+
+                    cancelled.cancel()
+                    cancelled.join()
+                    bulkhead.waitingCount() shouldBe 0
+
+                    gate.complete(Unit)
+                    running.await()
+                }
+
+                cancelledEntered shouldBe false
+                bulkhead.inFlight(uri) shouldBe 0
+                bulkhead.withPermit(uri, monitorLimit = 0) { bulkhead.inFlight(uri) } shouldBe 1
+            }
+        }
+    }
+
+    given("a HostBulkhead without a global limit") {
+
+        `when`("a monitor has its own limit") {
+
+            then("the per-monitor limit should be applied to its checks") {
+                val bulkhead = bulkhead(globalLimit = 0)
+                val uri = URI("https://example.com")
+                val gate = CompletableDeferred<Unit>()
+
+                coroutineScope {
+                    val unlimited = List(3) { async { bulkhead.withPermit(uri, monitorLimit = 0) { gate.await() } } }
+                    val limited = List(3) { async { bulkhead.withPermit(uri, monitorLimit = 1) { gate.await() } } }
+                    waitUntil { bulkhead.waitingCount() == 2 }
+
+                    // The unlimited checks are bypassing the bulkhead, so they are not counted as in-flight
+                    bulkhead.inFlight(uri) shouldBe 1
+
+                    gate.complete(Unit)
+                    (unlimited + limited).forEach { it.await() }
+                }
+            }
+        }
+
+        `when`("the effective limit is calculated") {
+
+            then("the per-monitor limit should take precedence over the global one") {
+                bulkhead(globalLimit = 0).effectiveLimit(monitorLimit = 0) shouldBe 0
+                bulkhead(globalLimit = 5).effectiveLimit(monitorLimit = 0) shouldBe 5
+                bulkhead(globalLimit = 5).effectiveLimit(monitorLimit = 2) shouldBe 2
+            }
+        }
+    }
+})
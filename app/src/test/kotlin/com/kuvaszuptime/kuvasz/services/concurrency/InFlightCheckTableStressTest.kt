@@ -0,0 +1,94 @@
+package com.kuvaszuptime.kuvasz.services.concurrency
+
+import com.kuvaszuptime.kuvasz.config.AppConfig
+import io.kotest.core.spec.style.StringSpec
+import io.kotest.matchers.ints.shouldBeGreaterThan
+import io.kotest.matchers.shouldBe
+import kotlinx.coroutines.Job
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CyclicBarrier
+import java.util.concurrent.atomic.AtomicInteger
+import kotlin.concurrent.thread
+
+/**
+ * Hammers the same slots of the [InFlightCheckTable] from many threads at once, and verifies that no two threads are
+ * ever holding the same slot, i.e. the mutual exclusion holds, even while the slots are taken over by the sweep.
+ */
+class InFlightCheckTableStressTest : StringSpec({
+
+    val threadCount = maxOf(4, Runtime.getRuntime().availableProcessors() * 2)
+    val iterations = 20_000
+    val monitorIds = 1L..4L
+
+    fun runConcurrently(body: (threadIndex: Int) -> Unit) {
+        val barrier = CyclicBarrier(threadCount)
+        val errors = ConcurrentHashMap.newKeySet<Throwable>()
+        List(threadCount) { index ->
+            thread(name = "in-flight-stress-$index") {
+                @Suppress("TooGenericExceptionCaught")
+                try {
+                    barrier.await()
+                    body(index)
+                } catch (ex: Throwable) {
+                    errors.add(ex)
+                }
+            }
+        }.forEach { it.join() }
+        errors.firstOrNull()?.let { throw it }
+    }
+
+    "at most one holder per monitor while acquiring and releasing concurrently" {
+        val table = InFlightCheckTable(AppConfig().apply { uptimeCheckLockTimeoutMs = 60_000 })
+        val holders = monitorIds.associateWith { AtomicInteger() }
+        val acquisitions = AtomicInteger()
+        val violations = AtomicInteger()
+
+        runConcurrently { index ->
+            repeat(iterations) { iteration ->
+                val monitorId = monitorIds.first + (index + iteration) % monitorIds.count()
+                val ticket = table.tryAcquire(monitorId)
+                if (ticket != InFlightCheckTable.NOT_ACQUIRED) {
+                    acquisitions.incrementAndGet()
+                    if (holders.getValue(monitorId).incrementAndGet() != 1) violations.incrementAndGet()
+                    holders.getValue(monitorId).decrementAndGet()
+                    if (!table.release(monitorId, ticket)) violations.incrementAndGet()
+                }
+            }
+        }
+
+        violations.get() shouldBe 0
+        acquisitions.get() shouldBeGreaterThan 0
+        table.runningCount() shouldBe 0
+    }
+
+    "the stale tickets never release a taken over slot" {
+        // Every check overruns its deadline right away, so the slots are constantly taken over
+        val table = InFlightCheckTable(AppConfig().apply { uptimeCheckLockTimeoutMs = 0 })
+        val issuedTickets = ConcurrentHashMap.newKeySet<Long>()
+        val duplicateTickets = AtomicInteger()
+        val releasedByCurrentHolder = AtomicInteger()
+        val releasedAfterTakeover = AtomicInteger()
+
+        runConcurrently { index ->
+            repeat(iterations) { iteration ->
+                val monitorId = monitorIds.first + (index + iteration) % monitorIds.count()
+                if (index == 0 && iteration % 100 == 0) table.cancelOverrunChecks()
+                val job = Job()
+                val ticket = table.tryAcquire(monitorId, job)
+                if (ticket != InFlightCheckTable.NOT_ACQUIRED) {
+                    if (!issuedTickets.add(ticket)) duplicateTickets.incrementAndGet()
+                    // A successful release means that nobody took the slot over, so the job can't be cancelled
+                    if (table.release(monitorId, ticket)) {
+                        if (job.isCancelled) releasedAfterTakeover.incrementAndGet()
+                        releasedByCurrentHolder.incrementAndGet()
+                    }
+                }
+            }
+        }
+
+        duplicateTickets.get() shouldBe 0
+        releasedAfterTakeover.get() shouldBe 0
+        releasedByCurrentHolder.get() shouldBeGreaterThan 0
+        table.runningCount() shouldBe 0
+    }
+})
@@ -0,0 +1,145 @@
+package com.kuvaszuptime.kuvasz.services.concurrency
+
+import com.kuvaszuptime.kuvasz.config.AppConfig
+import io.kotest.core.spec.style.BehaviorSpec
+import io.kotest.matchers.booleans.shouldBeFalse
+import io.kotest.matchers.booleans.shouldBeTrue
+import io.kotest.matchers.collections.shouldBeEmpty
+import io.kotest.matchers.collections.shouldHaveSize
+import io.kotest.matchers.longs.shouldBeLessThan
+import io.kotest.matchers.shouldBe
+import io.kotest.matchers.shouldNotBe
+import kotlinx.coroutines.Job
+
+class InFlightCheckTableTest : BehaviorSpec({
+
+    fun table(timeoutMs: Long = 60_000) = InFlightCheckTable(AppConfig().apply { uptimeCheckLockTimeoutMs = timeoutMs })
+
+    given("an InFlightCheckTable") {
+
+        `when`("there is no running check of the monitor") {
+
+            then("the slot should be acquired") {
+                val table = table()
+
+                table.tryAcquire(1) shouldNotBe InFlightCheckTable.NOT_ACQUIRED
+                table.runningCount() shouldBe 1
+            }
+        }
+
+        `when`("the check of the monitor is already running") {
+
+            then("the slot should not be acquired again, but it should not affect the other monitors") {
+                val table = table()
+                table.tryAcquire(1)
+
+                table.tryAcquire(1) shouldBe InFlightCheckTable.NOT_ACQUIRED
+                table.tryAcquire(2) shouldNotBe InFlightCheckTable.NOT_ACQUIRED
+            }
+        }
+
+        `when`("the slot is released") {
+
+            then("it should be acquired again, with a new ticket") {
+                val table = table()
+                val ticket = table.tryAcquire(1)
+
+                table.release(1, ticket).shouldBeTrue()
+                table.runningCount() shouldBe 0
+
+                val newTicket = table.tryAcquire(1)
+                newTicket shouldNotBe InFlightCheckTable.NOT_ACQUIRED
+                newTicket shouldNotBe ticket
+                // The stale ticket can't release the slot of the new holder
+                table.release(1, ticket).shouldBeFalse()
+                table.runningCount() shouldBe 1
+            }
+        }
+
+        `when`("the running check overruns its deadline") {
+
+            then("it should be cancelled, and the next check should take over its slot") {
+                val table = table(timeoutMs = 1)
+                val job = Job()
+                val ticket = table.tryAcquire(1, job)
+                Thread.sleep(5)
+
+                val newTicket = table.tryAcquire(1, Job())
+
+                newTicket shouldNotBe InFlightCheckTable.NOT_ACQUIRED
+                job.isCancelled.shouldBeTrue()
+                table.release(1, ticket).shouldBeFalse()
+                table.release(1, newTicket).shouldBeTrue()
+            }
+        }
+
+        `when`("the periodic sweep runs") {
+
+            then("it should cancel only the checks that overran their deadline") {
+                val table = table(timeoutMs = 1)
+                val overrunJob = Job()
+                table.tryAcquire(1, overrunJob)
+                Thread.sleep(5)
+
+                table.cancelOverrunChecks()
+
+                overrunJob.isCancelled.shouldBeTrue()
+                table.runningCount() shouldBe 0
+
+                val longTable = table()
+                val runningJob = Job()
+                longTable.tryAcquire(1, runningJob)
+                longTable.cancelOverrunChecks()
+                runningJob.isActive.shouldBeTrue()
+            }
+        }
+
+        `when`("the monitor is removed while its check is running") {
+
+            then("the check should be cancelled") {
+                val table = table()
+                val job = Job()
+                val ticket = table.tryAcquire(1, job)
+
+                table.remove(1)
+
+                job.isCancelled.shouldBeTrue()
+                table.release(1, ticket).shouldBeFalse()
+                table.snapshot().shouldBeEmpty()
+            }
+        }
+
+        `when`("the table is cleared while some checks are running") {
+
+            then("every check should be cancelled, and every slot should be dropped") {
+                val table = table()
+                val jobs = (1L..3L).map { monitorId -> Job().also { table.tryAcquire(monitorId, it) } }
+                val ticket = table.tryAcquire(4)
+
+                table.clear()
+
+                jobs.forEach { it.isCancelled.shouldBeTrue() }
+                table.release(4, ticket).shouldBeFalse()
+                table.snapshot().shouldBeEmpty()
+                table.runningCount() shouldBe 0
+            }
+        }
+
+        `when`("the running checks are queried") {
+
+            then("it should return them, the longest running first") {
+                val table = table(timeoutMs = 10)
+                table.tryAcquire(1)
+                Thread.sleep(20)
+                table.tryAcquire(2)
+                table.release(3, table.tryAcquire(3))
+
+                val snapshot = table.snapshot()
+
+                snapshot shouldHaveSize 2
+                snapshot.map { it.monitorId } shouldBe listOf(1L, 2L)
+                snapshot[0].remainingNanos shouldBeLessThan 0
+            }
+        }
+    }
+})
@@ -0,0 +1,90 @@
+package com.kuvaszuptime.kuvasz.services.dns
+
+import io.kotest.core.spec.style.BehaviorSpec
+import io.kotest.matchers.shouldBe
+import io.mockk.every
+import io.mockk.mockk
+import io.mockk.verify
+import io.netty.channel.EventLoop
+import io.netty.resolver.dns.DnsCache
+import io.netty.resolver.dns.DnsCacheEntry
+import java.net.InetAddress
+
+class BoundedDnsCacheTest : BehaviorSpec({
+
+    val address = InetAddress.getLoopbackAddress()
+    val loop = mockk<EventLoop>()
+
+    fun delegate() = mockk<DnsCache>(relaxed = true)
+
+    given("a BoundedDnsCache") {
+
+        `when`("more hosts are cached than the limit") {
+
+            then("the least recently used host should be evicted from the delegate") {
+                val delegate = delegate()
+                every { delegate.get(any(), any()) } returns listOf(mockk<DnsCacheEntry>())
+                val cache = BoundedDnsCache(delegate, maxEntries = 2)
+
+                cache.cache("first.com", null, address, 60, loop)
+                cache.cache("second.com", null, address, 60, loop)
+                // It makes the second host the least recently used one
+                cache.get("first.com", null)
+                cache.cache("third.com", null, address, 60, loop)
+
+                cache.size() shouldBe 2
+                verify(exactly = 1) { delegate.clear("second.com") }
+                verify(exactly = 0) { delegate.clear("first.com") }
+            }
+        }
+
+        `when`("the failed resolutions are cached too") {
+
+            then("they should count against the limit") {
+                val delegate = delegate()
+                val cache = BoundedDnsCache(delegate, maxEntries = 1)
+
+                cache.cache("first.com", null, address, 60, loop)
+                cache.cache("nxdomain.com", null, RuntimeException("NXDOMAIN"), loop)
+
+                cache.size() shouldBe 1
+                verify(exactly = 1) { delegate.clear("first.com") }
+            }
+        }
+
+        `when`("the cache is looked up") {
+
+            then("the hits and the misses should be counted") {
+                val delegate = delegate()
+                every { delegate.get("cached.com", any()) } returns listOf(mockk<DnsCacheEntry>())
+                every { delegate.get("unknown.com", any()) } returns null
+                every { delegate.get("expired.com", any()) } returns emptyList()
+                val cache = BoundedDnsCache(delegate, maxEntries = 10)
+
+                cache.get("cached.com", null)
+                cache.get("cached.com", null)
+                cache.get("unknown.com", null)
+                cache.get("expired.com", null)
+
+                cache.hitCount() shouldBe 2
+                cache.missCount() shouldBe 2
+            }
+        }
+
+        `when`("a host is cleared") {
+
+            then("it should be cleared from the delegate, and it should free up its slot") {
+                val delegate = delegate()
+                val cache = BoundedDnsCache(delegate, maxEntries = 1)
+                cache.cache("first.com", null, address, 60, loop)
+
+                cache.clear("first.com")
+                cache.cache("second.com", null, address, 60, loop)
+
+                cache.size() shouldBe 1
+                verify(exactly = 1) { delegate.clear("first.com") }
+                verify(exactly = 0) { delegate.clear("second.com") }
+            }
+        }
+    }
+})
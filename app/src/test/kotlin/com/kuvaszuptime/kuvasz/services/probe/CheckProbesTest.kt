@@ -0,0 +1,54 @@
+package com.kuvaszuptime.kuvasz.services.probe
+
+import com.kuvaszuptime.kuvasz.config.AppConfig
+import com.kuvaszuptime.kuvasz.config.CheckProbeEngine
+import com.kuvaszuptime.kuvasz.jooq.tables.records.MonitorRecord
+import io.kotest.core.spec.style.BehaviorSpec
+import io.kotest.matchers.types.shouldBeSameInstanceAs
+import io.mockk.mockk
+
+class CheckProbesTest : BehaviorSpec({
+
+    val httpClientProbe = mockk<HttpClientCheckProbe>()
+    val nettyProbe = mockk<NettyCheckProbe>()
+
+    fun checkProbes(engine: CheckProbeEngine) =
+        CheckProbes(httpClientProbe, nettyProbe, AppConfig().apply { checkProbeEngine = engine })
+
+    given("the client engine") {
+        val checkProbes = checkProbes(CheckProbeEngine.CLIENT)
+
+        `when`("a monitor is checked") {
+
+            then("it should get the HTTP client probe") {
+                checkProbes.forMonitor(MonitorRecord()) shouldBeSameInstanceAs httpClientProbe
+            }
+        }
+    }
+
+    given("the Netty engine") {
+        val checkProbes = checkProbes(CheckProbeEngine.NETTY)
+
+        `when`("the monitor doesn't have any body assertions") {
+
+            then("it should get the Netty probe") {
+                checkProbes.forMonitor(MonitorRecord()) shouldBeSameInstanceAs nettyProbe
+                checkProbes.forMonitor(MonitorRecord().setBodyMustContain(arrayOf(""))) shouldBeSameInstanceAs
+                    nettyProbe
+            }
+        }
+
+        `when`("the monitor has body assertions") {
+
+            then("it should get the HTTP client probe, because the Netty one doesn't read the body") {
+                listOf(
+                    MonitorRecord().setBodyMustContain(arrayOf("ok")),
+                    MonitorRecord().setBodyMustNotContain(arrayOf("error")),
+                    MonitorRecord().setBodyJsonAssertions(arrayOf("/status=ok")),
+                ).forEach { monitor ->
+                    checkProbes.forMonitor(monitor) shouldBeSameInstanceAs httpClientProbe
+                }
+            }
+        }
+    }
+})
@@ -0,0 +1,262 @@
+package com.kuvaszuptime.kuvasz.services.probe
+
+import com.kuvaszuptime.kuvasz.config.AppConfig
+import com.kuvaszuptime.kuvasz.jooq.enums.HttpMethod
+import com.kuvaszuptime.kuvasz.jooq.tables.records.MonitorRecord
+import com.kuvaszuptime.kuvasz.services.CheckRequestTemplates
+import com.kuvaszuptime.kuvasz.services.UptimeCheckEventLoopGroup
+import com.kuvaszuptime.kuvasz.services.dns.UptimeCheckDnsResolver
+import com.kuvaszuptime.kuvasz.services.socket.LocalAddressPool
+import com.kuvaszuptime.kuvasz.services.timing.CheckConnectionStats
+import com.kuvaszuptime.kuvasz.services.timing.PendingCheckTiming
+import com.kuvaszuptime.kuvasz.services.tls.PeerCertificateCache
+import com.kuvaszuptime.kuvasz.services.tls.UptimeCheckSslBuilder
+import com.sun.net.httpserver.HttpServer
+import io.kotest.assertions.throwables.shouldThrow
+import io.kotest.core.spec.style.BehaviorSpec
+import io.kotest.matchers.booleans.shouldBeFalse
+import io.kotest.matchers.booleans.shouldBeTrue
+import io.kotest.matchers.nulls.shouldNotBeNull
+import io.kotest.matchers.shouldBe
+import io.micronaut.core.io.ResourceResolver
+import io.micronaut.http.HttpHeaders
+import io.micronaut.http.netty.channel.EventLoopGroupFactory
+import io.micronaut.http.netty.channel.EventLoopGroupRegistry
+import io.mockk.every
+import io.mockk.mockk
+import io.netty.channel.nio.NioEventLoopGroup
+import io.netty.channel.socket.nio.NioSocketChannel
+import io.netty.resolver.DefaultAddressResolverGroup
+import kotlinx.coroutines.delay
+import java.net.ConnectException
+import java.net.InetSocketAddress
+import java.net.ServerSocket
+import java.net.URI
+import java.util.Optional
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.TimeUnit
+
+class NettyCheckProbeTest : BehaviorSpec({
+
+    val body = "Hello, world".toByteArray()
+    val connectionHeaders = ConcurrentLinkedQueue<String>()
+    val server = HttpServer.create(InetSocketAddress("localhost", 0), 0).apply {
+        createContext("/") { exchange ->
+            connectionHeaders.add(exchange.requestHeaders.getFirst(HttpHeaders.CONNECTION) ?: "")
+            when {
+                exchange.requestURI.path == "/redirect" -> {
+                    exchange.responseHeaders.add(HttpHeaders.LOCATION, "/target")
+                    exchange.sendResponseHeaders(301, -1)
+                }
+                exchange.requestMethod == "HEAD" -> exchange.sendResponseHeaders(200, -1)
+                else -> {
+                    exchange.sendResponseHeaders(200, body.size.toLong())
+                    exchange.responseBody.use { it.write(body) }
+                }
+            }
+            exchange.close()
+        }
+        start()
+    }
+    val baseUrl = "http://localhost:${server.address.port}"
+
+    val eventLoopGroup = NioEventLoopGroup(1)
+    val eventLoopGroupRegistry = mockk<EventLoopGroupRegistry> {
+        every { getEventLoopGroup(any()) } returns Optional.of(eventLoopGroup)
+        every { getEventLoopGroupConfiguration(any()) } returns Optional.empty()
+    }
+    val eventLoopGroupFactory = mockk<EventLoopGroupFactory> {
+        every { channelClass(any(), any()) } returns NioSocketChannel::class.java
+    }
+    val dnsResolver = mockk<UptimeCheckDnsResolver> {
+        every { addressResolverGroup } returns DefaultAddressResolverGroup.INSTANCE
+    }
+
+    fun probe(appConfig: AppConfig = AppConfig(), checkConnectionStats: CheckConnectionStats = CheckConnectionStats()) =
+        NettyCheckProbe(
+            appConfig = appConfig,
+            requestTemplates = CheckRequestTemplates(),
+            sslBuilder = UptimeCheckSslBuilder(ResourceResolver(), appConfig),
+            dnsResolver = dnsResolver,
+            localAddressPool = LocalAddressPool(appConfig),
+            checkConnectionStats = checkConnectionStats,
+            peerCertificateCache = PeerCertificateCache(),
+            uptimeCheckEventLoopGroup = UptimeCheckEventLoopGroup({ eventLoopGroupRegistry }, eventLoopGroupFactory),
+        )
+
+    fun monitor(path: String, method: HttpMethod = HttpMethod.GET, connectionReuseEnabled: Boolean = true) =
+        MonitorRecord()
+            .setId(1)
+            .setUrl("$baseUrl$path")
+            .setRequestMethod(method)
+            .setForceNoCache(false)
+            .setConnectionReuseEnabled(connectionReuseEnabled)
+
+    suspend fun NettyCheckProbe.check(monitor: MonitorRecord, timing: PendingCheckTiming = PendingCheckTiming("")) =
+        probe(monitor, URI(monitor.url), timing)
+
+    afterSpec {
+        server.stop(0)
+        eventLoopGroup.shutdownGracefully()
+    }
+
+    given("a NettyCheckProbe") {
+
+        `when`("the monitor is checked") {
+
+            then("it should return the status of the response, and record the phases of the request") {
+                val probe = probe()
+                val timing = PendingCheckTiming("")
+
+                try {
+                    val result = probe.check(monitor("/"), timing)
+
+                    result.response.code() shouldBe 200
+                    result.bodyBytes shouldBe body.size
+                    result.truncated.shouldBeFalse()
+                    timing.toCheckTimings().shouldNotBeNull().connectNanos.shouldNotBeNull()
+                } finally {
+                    probe.close()
+                }
+            }
+        }
+
+        `when`("the monitor reuses the connections") {
+
+            then("the next checks should be sent over the same connection") {
+                val checkConnectionStats = CheckConnectionStats()
+                val probe = probe(checkConnectionStats = checkConnectionStats)
+
+                try {
+                    repeat(3) { probe.check(monitor("/")).response.code() shouldBe 200 }
+
+                    checkConnectionStats.newConnectionCount() shouldBe 1
+                    checkConnectionStats.reusedConnectionCount() shouldBe 2
+                } finally {
+                    probe.close()
+                }
+            }
+        }
+
+        `when`("a pooled connection is idle for longer than the idle timeout") {
+
+            then("it should be closed, and the next check should open a new one") {
+                val checkConnectionStats = CheckConnectionStats()
+                val probe = probe(AppConfig().apply { checkConnectionIdleTimeoutSeconds = 1 }, checkConnectionStats)
+
+                try {
+                    probe.check(monitor("/")).response.code() shouldBe 200
+                    delay(1500)
+                    probe.check(monitor("/")).response.code() shouldBe 200
+
+                    checkConnectionStats.newConnectionCount() shouldBe 2
+                    checkConnectionStats.reusedConnectionCount() shouldBe 0
+                } finally {
+                    probe.close()
+                }
+            }
+        }
+
+        `when`("an origin isn't checked for longer than the idle timeout") {
+
+            then("its pool should be evicted, but the recently checked ones should be kept") {
+                val probe = probe()
+
+                try {
+                    probe.check(monitor("/")).response.code() shouldBe 200
+
+                    probe.evictIdlePools(System.nanoTime())
+                    probe.poolCount() shouldBe 1
+
+                    probe.evictIdlePools(System.nanoTime() + TimeUnit.MINUTES.toNanos(2))
+                    probe.poolCount() shouldBe 0
+                } finally {
+                    probe.close()
+                }
+            }
+        }
+
+        `when`("the monitor doesn't reuse the connections") {
+
+            then("every check should open a new connection, and ask the server to close it") {
+                val checkConnectionStats = CheckConnectionStats()
+                val probe = probe(checkConnectionStats = checkConnectionStats)
+                connectionHeaders.clear()
+
+                try {
+                    repeat(2) { probe.check(monitor("/", connectionReuseEnabled = false)).response.code() shouldBe 200 }
+
+                    checkConnectionStats.newConnectionCount() shouldBe 2
+                    checkConnectionStats.reusedConnectionCount() shouldBe 0
+                    connectionHeaders.toList() shouldBe listOf("close", "close")
+                } finally {
+                    probe.close()
+                }
+            }
+        }
+
+        `when`("the request is a HEAD one") {
+
+            then("the response should not have a body") {
+                val probe = probe()
+
+                try {
+                    val result = probe.check(monitor("/", method = HttpMethod.HEAD))
+
+                    result.response.code() shouldBe 200
+                    result.bodyBytes shouldBe 0
+                } finally {
+                    probe.close()
+                }
+            }
+        }
+
+        `when`("the monitor is redirected") {
+
+            then("the location of the redirect should be returned") {
+                val probe = probe()
+
+                try {
+                    val response = probe.check(monitor("/redirect")).response
+
+                    response.code() shouldBe 301
+                    response.headers.get(HttpHeaders.LOCATION) shouldBe "/target"
+                } finally {
+                    probe.close()
+                }
+            }
+        }
+
+        `when`("the body of the response is longer than the cap") {
+
+            then("it should be truncated, and the connection should not be reused") {
+                val checkConnectionStats = CheckConnectionStats()
+                val probe = probe(AppConfig().apply { checkBodyMaxBytes = 5 }, checkConnectionStats)
+
+                try {
+                    repeat(2) { probe.check(monitor("/")).truncated.shouldBeTrue() }
+
+                    checkConnectionStats.newConnectionCount() shouldBe 2
+                } finally {
+                    probe.close()
+                }
+            }
+        }
+
+        `when`("the connection is refused") {
+
+            then("the check should fail") {
+                val port = ServerSocket(0).use { it.localPort }
+                val probe = probe()
+
+                try {
+                    shouldThrow<ConnectException> {
+                        probe.check(monitor("/").setUrl("http://localhost:$port/"))
+                    }
+                } finally {
+                    probe.close()
+                }
+            }
+        }
+    }
+})
@@ -0,0 +1,260 @@
+package com.kuvaszuptime.kuvasz.services.probe
+
+import com.kuvaszuptime.kuvasz.models.InvalidResponseException
+import io.kotest.assertions.throwables.shouldThrow
+import io.kotest.core.spec.style.BehaviorSpec
+import io.kotest.matchers.booleans.shouldBeFalse
+import io.kotest.matchers.booleans.shouldBeTrue
+import io.kotest.matchers.nulls.shouldBeNull
+import io.kotest.matchers.shouldBe
+import io.netty.buffer.ByteBuf
+import io.netty.buffer.Unpooled
+
+class ProbeResponseParserTest : BehaviorSpec({
+
+    fun parser(headRequest: Boolean = false, maxBodyBytes: Long = 1024) =
+        ProbeResponseParser().apply { reset(headRequest, maxBodyBytes) }
+
+    fun buffer(text: String): ByteBuf = Unpooled.copiedBuffer(text, Charsets.ISO_8859_1)
+
+    /**
+     * Feeds the response byte by byte, so every state has to survive the end of a buffer
+     */
+    fun ProbeResponseParser.feedByteByByte(text: String): Boolean =
+        text.map { feed(buffer(it.toString())) }.last()
+
+    given("a response with a Content-Length") {
+        val response = "HTTP/1.1 200 OK\r\nContent-Type: text/plain\r\ncontent-length: 5\r\n\r\nHello"
+
+        `when`("it arrives in a single buffer") {
+
+            then("it should be complete, and the connection should be reusable") {
+                val parser = parser()
+
+                parser.feed(buffer(response)).shouldBeTrue()
+
+                parser.code shouldBe 200
+                parser.reason shouldBe "OK"
+                parser.headComplete.shouldBeTrue()
+                parser.bodyBytes shouldBe 5
+                parser.truncated.shouldBeFalse()
+                parser.keepAlive.shouldBeTrue()
+                parser.location.shouldBeNull()
+            }
+        }
+
+        `when`("it arrives byte by byte") {
+
+            then("it should be complete only after its last byte") {
+                val parser = parser()
+
+                parser.feedByteByByte(response.dropLast(1)).shouldBeFalse()
+                parser.headComplete.shouldBeTrue()
+                parser.feed(buffer("o")).shouldBeTrue()
+
+                parser.bodyBytes shouldBe 5
+            }
+        }
+
+        `when`("it's followed by other bytes") {
+
+            then("they should be left unread") {
+                val parser = parser()
+                val buffer = buffer(response + "HTTP/1.1")
+
+                parser.feed(buffer).shouldBeTrue()
+
+                buffer.readableBytes() shouldBe "HTTP/1.1".length
+            }
+        }
+
+        `when`("its body is longer than the cap") {
+
+            then("it should be truncated, and the connection should not be reusable") {
+                val parser = parser(maxBodyBytes = 3)
+
+                parser.feed(buffer(response)).shouldBeTrue()
+
+                parser.truncated.shouldBeTrue()
+                parser.keepAlive.shouldBeFalse()
+            }
+        }
+
+        `when`("not even a single byte of its body is wanted") {
+
+            then("it should be truncated right after its head") {
+                val parser = parser(maxBodyBytes = 0)
+
+                parser.feed(buffer(response)).shouldBeTrue()
+
+                parser.bodyBytes shouldBe 0
+                parser.truncated.shouldBeTrue()
+            }
+        }
+
+        `when`("it's the response of a HEAD request") {
+
+            then("it should be complete without a body") {
+                val parser = parser(headRequest = true)
+
+                parser.feed(buffer("HTTP/1.1 200 OK\r\nContent-Length: 5\r\n\r\n")).shouldBeTrue()
+
+                parser.bodyBytes shouldBe 0
+                parser.keepAlive.shouldBeTrue()
+            }
+        }
+
+        `when`("it has conflicting lengths") {
+
+            then("it should be rejected") {
+                shouldThrow<InvalidResponseException> {
+                    parser().feed(buffer("HTTP/1.1 200 OK\r\nContent-Length: 5\r\nContent-Length: 6\r\n\r\n"))
+                }
+            }
+        }
+    }
+
+    given("a chunked response") {
+        val response = "HTTP/1.1 200 OK\r\nTransfer-Encoding: gzip, chunked\r\n\r\n" +
+            "5;name=value\r\nHello\r\n" +
+            "7\r\n, world\r\n" +
+            "0\r\nSome-Trailer: value\r\n\r\n"
+
+        `when`("it arrives byte by byte") {
+
+            then("it should be complete only after its trailers") {
+                val parser = parser()
+
+                parser.feedByteByByte(response.dropLast(2)).shouldBeFalse()
+                parser.feedByteByByte("\r\n").shouldBeTrue()
+
+                parser.bodyBytes shouldBe 12
+                parser.keepAlive.shouldBeTrue()
+            }
+        }
+
+        `when`("a chunk is not terminated properly") {
+
+            then("it should be rejected") {
+                shouldThrow<InvalidResponseException> {
+                    parser().feed(buffer("HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n5\r\nHello!\r\n"))
+                }
+            }
+        }
+    }
+
+    given("a response without a known length") {
+        val response = "HTTP/1.1 200 OK\r\n\r\nHello"
+
+        `when`("the connection is closed") {
+
+            then("it should be complete, and the connection should not be reusable") {
+                val parser = parser()
+
+                parser.feed(buffer(response)).shouldBeFalse()
+                parser.endOfInput().shouldBeTrue()
+
+                parser.bodyBytes shouldBe 5
+                parser.keepAlive.shouldBeFalse()
+            }
+        }
+    }
+
+    given("a response that is cut") {
+
+        `when`("the connection is closed before the end of its body") {
+
+            then("it should not be complete") {
+                val parser = parser()
+
+                parser.feed(buffer("HTTP/1.1 200 OK\r\nContent-Length: 10\r\n\r\nHello")).shouldBeFalse()
+
+                parser.endOfInput().shouldBeFalse()
+            }
+        }
+    }
+
+    given("the headers that affect the connection") {
+
+        `when`("the server closes the connection") {
+
+            then("it should not be reusable") {
+                val parser = parser()
+
+                parser.feed(buffer("HTTP/1.1 204 No Content\r\nConnection: Upgrade, Close\r\n\r\n")).shouldBeTrue()
+
+                parser.keepAlive.shouldBeFalse()
+            }
+        }
+
+        `when`("it's an HTTP/1.0 response") {
+
+            then("it should be reusable only if the server keeps it alive explicitly") {
+                val parser = parser()
+
+                parser.feed(buffer("HTTP/1.0 304 Not Modified\r\n\r\n")).shouldBeTrue()
+                parser.keepAlive.shouldBeFalse()
+
+                parser.reset(headRequest = false, maxBodyBytes = 1024)
+                parser.feed(buffer("HTTP/1.0 304 Not Modified\r\nConnection: keep-alive\r\n\r\n")).shouldBeTrue()
+                parser.keepAlive.shouldBeTrue()
+            }
+        }
+    }
+
+    given("a redirect") {
+
+        `when`("it has a Location header") {
+
+            then("its value should be kept") {
+                val parser = parser()
+
+                val response = "HTTP/1.1 301 Moved Permanently\r\nLOCATION:  /new-path \r\nContent-Length: 0\r\n\r\n"
+
+                parser.feed(buffer(response)).shouldBeTrue()
+
+                parser.code shouldBe 301
+                parser.location shouldBe "/new-path"
+            }
+        }
+    }
+
+    given("an interim response") {
+
+        `when`("it's followed by the final one") {
+
+            then("only the final one should be parsed") {
+                val parser = parser()
+
+                parser.feed(buffer("HTTP/1.1 100 Continue\r\n\r\nHTTP/1.1 200 OK\r\nContent-Length: 0\r\n\r\n"))
+                    .shouldBeTrue()
+
+                parser.code shouldBe 200
+            }
+        }
+    }
+
+    given("an invalid status line") {
+
+        `when`("it's not an HTTP/1.x response") {
+
+            then("it should be rejected") {
+                listOf("HTTP/2 200\r\n\r\n", "SSH-2.0-OpenSSH\r\n\r\n", "HTTP/1.1 2x0 OK\r\n\r\n").forEach { response ->
+                    shouldThrow<InvalidResponseException> { parser().feed(buffer(response)) }
+                }
+            }
+        }
+
+        `when`("it doesn't have a reason phrase") {
+
+            then("it should be accepted") {
+                val parser = parser()
+
+                parser.feed(buffer("HTTP/1.1 498\r\nContent-Length: 0\r\n\r\n")).shouldBeTrue()
+
+                parser.code shouldBe 498
+                parser.reason shouldBe ""
+            }
+        }
+    }
+})
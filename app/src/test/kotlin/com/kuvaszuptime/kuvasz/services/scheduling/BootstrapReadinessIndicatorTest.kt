@@ -0,0 +1,46 @@
+package com.kuvaszuptime.kuvasz.services.scheduling
+
+import io.kotest.core.spec.style.BehaviorSpec
+import io.kotest.matchers.maps.shouldContain
+import io.kotest.matchers.shouldBe
+import io.kotest.matchers.types.shouldBeInstanceOf
+import io.micronaut.health.HealthStatus
+import io.micronaut.management.health.indicator.HealthResult
+import kotlinx.coroutines.reactive.awaitFirst
+
+class BootstrapReadinessIndicatorTest : BehaviorSpec({
+
+    given("a BootstrapReadinessIndicator") {
+
+        `when`("the monitors are still being scheduled") {
+
+            then("it should report DOWN with the progress") {
+                val progress = BootstrapProgress().apply {
+                    start(totalMonitors = 10)
+                    advance(scheduledCount = 4)
+                }
+
+                val result: HealthResult = BootstrapReadinessIndicator(progress).result.awaitFirst()
+
+                result.status shouldBe HealthStatus.DOWN
+                with(result.details.shouldBeInstanceOf<Map<String, Any>>()) {
+                    this shouldContain ("totalMonitors" to 10)
+                    this shouldContain ("scheduledMonitors" to 4)
+                }
+            }
+        }
+
+        `when`("every monitor has been scheduled") {
+
+            then("it should report UP") {
+                val progress = BootstrapProgress().apply {
+                    start(totalMonitors = 10)
+                    advance(scheduledCount = 10)
+                    complete()
+                }
+
+                BootstrapReadinessIndicator(progress).result.awaitFirst().status shouldBe HealthStatus.UP
+            }
+        }
+    }
+})
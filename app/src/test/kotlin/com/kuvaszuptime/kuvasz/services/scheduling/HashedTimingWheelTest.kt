@@ -0,0 +1,171 @@
+package com.kuvaszuptime.kuvasz.services.scheduling
+
+import io.kotest.assertions.throwables.shouldThrow
+import io.kotest.core.spec.style.BehaviorSpec
+import io.kotest.matchers.booleans.shouldBeFalse
+import io.kotest.matchers.booleans.shouldBeTrue
+import io.kotest.matchers.ints.shouldBeGreaterThanOrEqual
+import io.kotest.matchers.longs.shouldBeGreaterThanOrEqual
+import io.kotest.matchers.longs.shouldBeInRange
+import io.kotest.matchers.shouldBe
+import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.delay
+import java.time.Duration
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class HashedTimingWheelTest : BehaviorSpec({
+
+    val timingWheel = HashedTimingWheel(tickDuration = Duration.ofMillis(10), wheelSize = 8)
+
+    afterSpec { timingWheel.close() }
+
+    given("the HashedTimingWheel") {
+
+        `when`("a periodic task is scheduled") {
+            val counter = AtomicInteger()
+            val timeout = timingWheel.schedule(Duration.ofMillis(400), Duration.ofMillis(200)) {
+                counter.incrementAndGet()
+            }
+
+            then("it should report the delay of the first execution") {
+                timeout.getDelay(TimeUnit.MILLISECONDS) shouldBeInRange 0L..400L
+            }
+
+            then("it should fire after the initial delay and then periodically") {
+                delay(50)
+                counter.get() shouldBe 0
+                delay(950)
+                counter.get() shouldBeGreaterThanOrEqual 3
+                timeout.cancel()
+            }
+        }
+
+        `when`("a task is fired") {
+            val scheduledAt = System.nanoTime()
+            val firedAt = CompletableDeferred<Pair<Long, Long>>()
+            val timeout = timingWheel.schedule(Duration.ofMillis(100), Duration.ofMinutes(1)) { firedTimeout ->
+                firedAt.complete(firedTimeout.plannedExecutionNanos to System.nanoTime())
+            }
+
+            then("it should know when the execution was planned to happen") {
+                val (plannedAt, actualStart) = firedAt.await()
+                plannedAt - scheduledAt shouldBeInRange
+                    Duration.ofMillis(100).toNanos()..Duration.ofMillis(110).toNanos()
+                actualStart shouldBeGreaterThanOrEqual plannedAt
+                timeout.cancel()
+            }
+        }
+
+        `when`("the delay of a task is longer than a full rotation of the wheel") {
+            val counter = AtomicInteger()
+            // 8 buckets * 10ms = 80ms per rotation
+            val timeout = timingWheel.schedule(Duration.ofMillis(300), Duration.ofMinutes(1)) {
+                counter.incrementAndGet()
+            }
+
+            then("it should survive the rotations and fire only once its deadline is reached") {
+                delay(200)
+                counter.get() shouldBe 0
+                delay(300)
+                counter.get() shouldBe 1
+                timeout.cancel()
+            }
+        }
+
+        `when`("a task is cancelled") {
+            val counter = AtomicInteger()
+            val timeout = timingWheel.schedule(Duration.ofMillis(100), Duration.ofMillis(100)) {
+                counter.incrementAndGet()
+            }
+            val cancelResult = timeout.cancel()
+
+            then("it should never fire") {
+                cancelResult.shouldBeTrue()
+                timeout.isCancelled.shouldBeTrue()
+                timeout.isDone.shouldBeTrue()
+                delay(300)
+                counter.get() shouldBe 0
+            }
+
+            then("it can't be cancelled or re-scheduled again") {
+                timeout.cancel().shouldBeFalse()
+                timeout.reschedule(Duration.ofMillis(10)).shouldBeFalse()
+            }
+        }
+
+        `when`("a task is re-scheduled before its deadline") {
+            val counter = AtomicInteger()
+            val timeout = timingWheel.schedule(Duration.ofMillis(100), Duration.ofMinutes(1)) {
+                counter.incrementAndGet()
+            }
+            val rescheduleResult = timeout.reschedule(Duration.ofMillis(500))
+
+            then("it should fire only after the new delay") {
+                rescheduleResult.shouldBeTrue()
+                timeout.isCancelled.shouldBeFalse()
+                delay(300)
+                counter.get() shouldBe 0
+                delay(400)
+                counter.get() shouldBe 1
+                timeout.cancel()
+            }
+        }
+
+        `when`("a task is re-scheduled while the wheel is firing it") {
+            val firedAt = ConcurrentLinkedQueue<Long>()
+            val rescheduledAt = CompletableDeferred<Long>()
+            val target = timingWheel.schedule(Duration.ofMillis(100), Duration.ofMinutes(1)) {
+                firedAt.add(System.nanoTime())
+            }
+            // It's in the same bucket, but it's fired first, so it re-schedules the target before it's re-armed
+            val rescheduler = timingWheel.schedule(Duration.ofMillis(100), Duration.ofMinutes(1)) {
+                rescheduledAt.complete(System.nanoTime())
+                target.reschedule(Duration.ofMillis(300))
+            }
+
+            then("the new delay should not be overwritten by the re-arming") {
+                val rescheduled = rescheduledAt.await()
+                delay(600)
+                firedAt.any { it - rescheduled >= Duration.ofMillis(250).toNanos() }.shouldBeTrue()
+                target.cancel()
+                rescheduler.cancel()
+            }
+        }
+
+        `when`("a task throws an exception") {
+            val counter = AtomicInteger()
+            val timeout = timingWheel.schedule(Duration.ZERO, Duration.ofMillis(100)) {
+                counter.incrementAndGet()
+                error("bad")
+            }
+
+            then("it should be fired again in the next period anyway") {
+                delay(350)
+                counter.get() shouldBeGreaterThanOrEqual 2
+                timeout.cancel()
+            }
+        }
+
+        `when`("the period of a task is not positive") {
+
+            then("it should throw an exception") {
+                shouldThrow<IllegalArgumentException> {
+                    timingWheel.schedule(Duration.ofSeconds(1), Duration.ZERO) {}
+                }
+            }
+        }
+
+        `when`("the wheel is already closed") {
+            val closedWheel = HashedTimingWheel(tickDuration = Duration.ofMillis(10), wheelSize = 8)
+            closedWheel.close()
+
+            then("it should not accept new tasks") {
+                shouldThrow<IllegalStateException> {
+                    closedWheel.schedule(Duration.ofSeconds(1), Duration.ofSeconds(1)) {}
+                }
+            }
+        }
+    }
+})
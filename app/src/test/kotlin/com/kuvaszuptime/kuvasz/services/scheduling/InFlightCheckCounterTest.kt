@@ -0,0 +1,67 @@
+package com.kuvaszuptime.kuvasz.services.scheduling
+
+import com.kuvaszuptime.kuvasz.models.CheckType
+import io.kotest.assertions.throwables.shouldThrow
+import io.kotest.core.spec.style.BehaviorSpec
+import io.kotest.matchers.shouldBe
+import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.async
+import kotlinx.coroutines.coroutineScope
+
+class InFlightCheckCounterTest : BehaviorSpec({
+
+    given("the InFlightCheckCounter") {
+
+        `when`("checks are running") {
+
+            then("it should count them as in-flight until they are finished") {
+                val counter = InFlightCheckCounter()
+                val uptimeGate = CompletableDeferred<Unit>()
+                val sslGate = CompletableDeferred<Unit>()
+                val started = CompletableDeferred<Unit>()
+
+                coroutineScope {
+                    val uptimeChecks = List(3) {
+                        async { counter.track(CheckType.UPTIME) { uptimeGate.await() } }
+                    }
+                    val sslCheck = async {
+                        counter.track(CheckType.SSL) {
+                            started.complete(Unit)
+                            sslGate.await()
+                        }
+                    }
+                    started.await()
+
+                    counter.inFlight(CheckType.UPTIME) shouldBe 3
+                    counter.inFlight(CheckType.SSL) shouldBe 1
+
+                    uptimeGate.complete(Unit)
+                    uptimeChecks.forEach { it.await() }
+                    counter.inFlight(CheckType.UPTIME) shouldBe 0
+                    counter.inFlight(CheckType.SSL) shouldBe 1
+
+                    sslGate.complete(Unit)
+                    sslCheck.await()
+                }
+
+                counter.inFlight(CheckType.SSL) shouldBe 0
+                counter.started(CheckType.UPTIME) shouldBe 3
+                counter.started(CheckType.SSL) shouldBe 1
+            }
+        }
+
+        `when`("a check fails") {
+
+            then("it should not be counted as in-flight anymore") {
+                val counter = InFlightCheckCounter()
+
+                shouldThrow<IllegalStateException> {
+                    counter.track(CheckType.UPTIME) { error("unexpected") }
+                }
+
+                counter.inFlight(CheckType.UPTIME) shouldBe 0
+                counter.started(CheckType.UPTIME) shouldBe 1
+            }
+        }
+    }
+})
@@ -0,0 +1,127 @@
+package com.kuvaszuptime.kuvasz.services.scheduling
+
+import io.kotest.assertions.throwables.shouldThrow
+import io.kotest.core.spec.style.BehaviorSpec
+import io.kotest.inspectors.forAll
+import io.kotest.matchers.collections.shouldBeEmpty
+import io.kotest.matchers.collections.shouldHaveSize
+import io.kotest.matchers.ints.shouldBeInRange
+import io.kotest.matchers.nulls.shouldBeNull
+import io.kotest.matchers.nulls.shouldNotBeNull
+import io.kotest.matchers.shouldBe
+import java.time.Duration
+import java.time.Instant
+
+class PhasePlannerTest : BehaviorSpec({
+
+    val from = Instant.ofEpochSecond(1_700_000_000)
+
+    fun PhasePlanner.histogram(interval: Int) = plannedChecksPerSecond(from, interval)
+
+    given("the PhasePlanner") {
+
+        `when`("lots of monitors are planned with the same interval") {
+            val planner = PhasePlanner()
+            (1L..20_000L).forEach { planner.plan(it, 60) }
+
+            then("the planned checks should be flat across the interval") {
+                val histogram = planner.histogram(60)
+                histogram.sum() shouldBe 20_000
+                (histogram.max() - histogram.min()) shouldBeInRange 0..1
+            }
+        }
+
+        `when`("a monitor is planned again with the same interval") {
+            val planner = PhasePlanner()
+            (1L..100L).forEach { planner.plan(it, 30) }
+            val original = planner.getAssignment(42).shouldNotBeNull()
+            val plan = planner.plan(42, 30)
+
+            then("it should keep its phase, without moving others") {
+                plan.assignment shouldBe original
+                plan.moves.shouldBeEmpty()
+            }
+        }
+
+        `when`("the planning is repeated in the same order") {
+            val first = PhasePlanner().apply { (1L..500L).forEach { plan(it, 45) } }
+            val second = PhasePlanner().apply { (1L..500L).forEach { plan(it, 45) } }
+
+            then("the phases should be the same") {
+                (1L..500L).toList().forAll { id ->
+                    first.getAssignment(id) shouldBe second.getAssignment(id)
+                }
+            }
+        }
+
+        `when`("monitors are released") {
+            val planner = PhasePlanner()
+            (1L..1_000L).forEach { planner.plan(it, 60) }
+            val releasedIds = (1L..1_000L step 3).toSet()
+            val moves = releasedIds.flatMap { planner.release(it) }
+
+            then("the placement should stay balanced") {
+                val histogram = planner.histogram(60)
+                histogram.sum() shouldBe 666
+                (histogram.max() - histogram.min()) shouldBeInRange 0..1
+            }
+
+            then("the moved monitors should get their new phases") {
+                // A monitor might be moved more than once, and it can be released after it was moved
+                val latestMoves = moves.associateBy { it.monitorId }.filterKeys { it !in releasedIds }
+                latestMoves.values.forAll { move ->
+                    planner.getAssignment(move.monitorId) shouldBe move.assignment
+                }
+            }
+
+            then("the released monitors shouldn't have a phase anymore") {
+                planner.getAssignment(1).shouldBeNull()
+                planner.delayUntilNextPhase(1).shouldBeNull()
+                planner.release(1).shouldBeEmpty()
+            }
+        }
+
+        `when`("the interval of a monitor changes") {
+            val planner = PhasePlanner()
+            (1L..120L).forEach { planner.plan(it, 60) }
+            planner.plan(7, 30)
+
+            then("it should be moved to the group of the new interval") {
+                planner.getAssignment(7).shouldNotBeNull().interval shouldBe 30
+                planner.histogram(60).let { (it.max() - it.min()) shouldBeInRange 0..1 }
+                planner.plannedChecksPerSecond(from, 60).sum() shouldBe 119 + 2
+            }
+        }
+
+        `when`("the delay until the next phase is calculated") {
+            val planner = PhasePlanner()
+            val assignment = PhaseAssignment(interval = 60, phase = 10)
+            // 1_700_000_000 is at the 20th second of its minute
+            val now = Instant.ofEpochSecond(1_700_000_000)
+
+            then("it should point to the next occurrence of the phase") {
+                planner.delayUntilNextPhase(assignment, now) shouldBe Duration.ofSeconds(50)
+                planner.delayUntilNextPhase(assignment, now.plusMillis(500)) shouldBe Duration.ofMillis(49_500)
+                planner.delayUntilNextPhase(assignment, now.plusSeconds(50)) shouldBe Duration.ofSeconds(60)
+            }
+        }
+
+        `when`("the interval is not positive") {
+
+            then("it should throw an exception") {
+                shouldThrow<IllegalArgumentException> { PhasePlanner().plan(1, 0) }
+            }
+        }
+
+        `when`("the planner is cleared") {
+            val planner = PhasePlanner()
+            (1L..10L).forEach { planner.plan(it, 5) }
+            planner.clear()
+
+            then("there shouldn't be any planned checks") {
+                planner.histogram(5).toList() shouldHaveSize 5
+                planner.histogram(5).sum() shouldBe 0
+            }
+        }
+    }
+})
@@ -0,0 +1,166 @@
+package com.kuvaszuptime.kuvasz.services.scheduling
+
+import arrow.core.Either
+import com.kuvaszuptime.kuvasz.config.AppConfig
+import com.kuvaszuptime.kuvasz.jooq.enums.SslStatus
+import com.kuvaszuptime.kuvasz.models.CertificateInfo
+import com.kuvaszuptime.kuvasz.models.SSLValidationError
+import io.kotest.core.spec.style.BehaviorSpec
+import io.kotest.matchers.comparables.shouldBeLessThanOrEqualTo
+import io.kotest.matchers.ints.shouldBeInRange
+import io.kotest.matchers.longs.shouldBeInRange
+import io.kotest.matchers.nulls.shouldBeNull
+import io.kotest.matchers.shouldBe
+import java.time.Duration
+import java.time.Instant
+import java.time.ZoneOffset
+
+class SSLCheckPlannerTest : BehaviorSpec({
+
+    // 2023-11-14T22:13:20Z
+    val now = Instant.ofEpochSecond(1_700_000_000)
+    val day = Duration.ofDays(1)
+    val thresholdDays = 30
+
+    fun validUntil(daysFromNow: Long): Either<SSLValidationError, CertificateInfo> =
+        Either.Right(CertificateInfo(validTo = now.plus(Duration.ofDays(daysFromNow)).atOffset(ZoneOffset.UTC)))
+
+    fun SSLCheckPlanner.slotTimeAfter(delay: Duration, monitorId: Long) =
+        now.plus(delay).epochSecond.mod(day.toSeconds()) shouldBe slotOf(monitorId).toSeconds()
+
+    given("the SSLCheckPlanner") {
+
+        `when`("lots of monitors are planned") {
+            val planner = SSLCheckPlanner(AppConfig())
+            val monitorCount = 24_000
+            val delays = (1L..monitorCount).map { planner.planFirst(it, now = now) }
+
+            then("their first checks should be spread evenly over the next day") {
+                val perHour = delays.groupingBy { it.toHours() }.eachCount()
+                perHour.keys shouldBe (0L..23L).toSet()
+                perHour.values.forEach { it shouldBeInRange 950..1050 }
+                delays.forEach { it shouldBeLessThanOrEqualTo day }
+            }
+
+            then("their first checks should happen in their slots") {
+                delays.forEachIndexed { index, delay -> planner.slotTimeAfter(delay, index + 1L) }
+            }
+
+            then("the planned checks should be counted in their hours") {
+                (0L..23L).sumOf { planner.plannedInHourOf(now.plus(Duration.ofHours(it))) } +
+                    planner.plannedInHourOf(now.plus(day)) shouldBe monitorCount
+            }
+        }
+
+        `when`("the first check of a monitor should happen sooner than its slot") {
+            val planner = SSLCheckPlanner(AppConfig())
+            val untilSlot = planner.planFirst(1, now = now)
+
+            then("it should be planned after the given delay") {
+                planner.planFirst(1, maxDelay = Duration.ofSeconds(1), now = now) shouldBe
+                    minOf(Duration.ofSeconds(1), untilSlot)
+            }
+        }
+
+        `when`("the first check of a monitor is planned after a restart") {
+            val planner = SSLCheckPlanner(AppConfig())
+            val checkedAt = now.minus(Duration.ofMinutes(20)).atOffset(ZoneOffset.UTC)
+
+            then("an invalid certificate should be checked again an hour after its last check") {
+                planner.recheckDelayOf(SslStatus.INVALID, checkedAt, now) shouldBe Duration.ofMinutes(40)
+            }
+
+            then("an expiring certificate should be checked again a few hours after its last check") {
+                planner.recheckDelayOf(SslStatus.WILL_EXPIRE, checkedAt, now) shouldBe
+                    Duration.ofHours(6).minusMinutes(20)
+            }
+
+            then("an overdue recheck should happen right away") {
+                val longAgo = now.minus(Duration.ofDays(2)).atOffset(ZoneOffset.UTC)
+
+                planner.recheckDelayOf(SslStatus.INVALID, longAgo, now) shouldBe Duration.ZERO
+            }
+
+            then("a valid certificate should wait for its slot") {
+                planner.recheckDelayOf(SslStatus.VALID, checkedAt, now).shouldBeNull()
+            }
+        }
+
+        `when`("the last check found the certificate invalid") {
+            val planner = SSLCheckPlanner(AppConfig())
+
+            then("it should be checked again within an hour") {
+                planner.planNext(1, Either.Left(SSLValidationError("Invalid")), thresholdDays, now) shouldBe
+                    SSLCheckPlanner.INVALID_RECHECK_DELAY
+            }
+        }
+
+        `when`("the certificate will expire within the threshold") {
+            val planner = SSLCheckPlanner(AppConfig())
+
+            then("it should be checked again within a few hours") {
+                planner.planNext(1, validUntil(thresholdDays - 1L), thresholdDays, now) shouldBe
+                    SSLCheckPlanner.EXPIRING_RECHECK_DELAY
+            }
+        }
+
+        `when`("the certificate is valid") {
+            val planner = SSLCheckPlanner(AppConfig())
+
+            then("it should be checked again in its slot, less often the farther the expiry threshold is") {
+                val nearDelay = planner.planNext(1, validUntil(thresholdDays + 5L), thresholdDays, now)
+                val midDelay = planner.planNext(1, validUntil(thresholdDays + 12L), thresholdDays, now)
+                val farDelay = planner.planNext(1, validUntil(thresholdDays + 60L), thresholdDays, now)
+
+                listOf(nearDelay, midDelay, farDelay).forEach { planner.slotTimeAfter(it, 1) }
+                nearDelay.toHours() shouldBeInRange 12L..36L
+                midDelay.toHours() shouldBeInRange 60L..84L
+                farDelay.toHours() shouldBeInRange 156L..180L
+            }
+
+            then("the interval should be capped by the configuration") {
+                val planner = SSLCheckPlanner(AppConfig().apply { sslCheckMaxIntervalDays = 1 })
+
+                planner.planNext(1, validUntil(thresholdDays + 60L), thresholdDays, now).toHours() shouldBeInRange
+                    12L..36L
+            }
+        }
+
+        `when`("the last check was skipped") {
+            val planner = SSLCheckPlanner(AppConfig())
+
+            then("it should be checked again in its next slot") {
+                val delay = planner.planNext(1, null, thresholdDays, now)
+
+                planner.slotTimeAfter(delay, 1)
+                delay.toHours() shouldBeInRange 12L..36L
+            }
+        }
+
+        `when`("planned checks are executed, re-planned and released") {
+            val planner = SSLCheckPlanner(AppConfig())
+            val firstDelay = planner.planFirst(1, maxDelay = Duration.ZERO, now = now)
+            planner.planFirst(2, maxDelay = Duration.ZERO, now = now)
+            planner.planFirst(3, maxDelay = Duration.ZERO, now = now)
+            planner.planFirst(4, maxDelay = Duration.ofMinutes(1), now = now)
+
+            planner.executed(1)
+            planner.planNext(1, validUntil(90), thresholdDays, now)
+            planner.planNext(4, validUntil(90), thresholdDays, now)
+            planner.release(2, now)
+
+            then("only the executions should be counted as executed, and the replaced checks shouldn't be counted") {
+                firstDelay shouldBe Duration.ZERO
+                planner.plannedInHourOf(now) shouldBe 3
+                planner.executedInHourOf(now) shouldBe 1
+            }
+
+            then("the counts of the past hours should be evicted after a day") {
+                planner.evictPastHours(now.plus(day).plus(Duration.ofHours(1)))
+
+                planner.plannedInHourOf(now) shouldBe 0
+                planner.executedInHourOf(now) shouldBe 0
+            }
+        }
+    }
+})
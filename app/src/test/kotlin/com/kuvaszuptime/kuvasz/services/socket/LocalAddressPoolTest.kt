@@ -0,0 +1,82 @@
+package com.kuvaszuptime.kuvasz.services.socket
+
+import com.kuvaszuptime.kuvasz.config.AppConfig
+import io.kotest.assertions.throwables.shouldThrow
+import io.kotest.core.spec.style.BehaviorSpec
+import io.kotest.matchers.booleans.shouldBeFalse
+import io.kotest.matchers.booleans.shouldBeTrue
+import io.kotest.matchers.nulls.shouldBeNull
+import io.kotest.matchers.shouldBe
+import io.kotest.matchers.string.shouldContain
+import java.net.InetAddress
+import java.net.InetSocketAddress
+
+class LocalAddressPoolTest : BehaviorSpec({
+
+    val ipv4Target = InetSocketAddress(InetAddress.getByName("192.0.2.10"), 443)
+    val ipv6Target = InetSocketAddress(InetAddress.getByName("2001:db8::10"), 443)
+
+    fun pool(vararg addresses: String) =
+        LocalAddressPool(AppConfig().apply { checkLocalAddresses = addresses.toList() })
+
+    given("a LocalAddressPool") {
+
+        `when`("there are several addresses of the same family") {
+
+            then("they should be picked in a round-robin fashion, with an ephemeral port") {
+                val pool = pool("10.0.0.1", "10.0.0.2", "10.0.0.3")
+
+                val picked = List(4) { pool.next(ipv4Target) }
+
+                picked.map { it?.address?.hostAddress } shouldBe listOf("10.0.0.1", "10.0.0.2", "10.0.0.3", "10.0.0.1")
+                picked.map { it?.port } shouldBe listOf(0, 0, 0, 0)
+            }
+        }
+
+        `when`("there are addresses of both families") {
+
+            then("the address should be picked from the family of the target") {
+                val pool = pool("10.0.0.1", "2001:db8::1", "10.0.0.2")
+
+                pool.next(ipv6Target)?.address?.hostAddress shouldBe "2001:db8:0:0:0:0:0:1"
+                pool.next(ipv4Target)?.address?.hostAddress shouldBe "10.0.0.1"
+                pool.next(ipv6Target)?.address?.hostAddress shouldBe "2001:db8:0:0:0:0:0:1"
+                pool.next(ipv4Target)?.address?.hostAddress shouldBe "10.0.0.2"
+            }
+        }
+
+        `when`("there isn't any address of the target's family") {
+
+            then("the OS should pick the source address") {
+                pool("10.0.0.1").next(ipv6Target).shouldBeNull()
+            }
+        }
+
+        `when`("the target is not resolved") {
+
+            then("the OS should pick the source address") {
+                pool("10.0.0.1").next(InetSocketAddress.createUnresolved("example.com", 443)).shouldBeNull()
+            }
+        }
+
+        `when`("there are only blank addresses") {
+
+            then("it should be empty") {
+                val pool = pool("", " ")
+
+                pool.isEmpty.shouldBeTrue()
+                pool.next(ipv4Target).shouldBeNull()
+                pool("10.0.0.1").isEmpty.shouldBeFalse()
+            }
+        }
+
+        `when`("an address is not an IP literal") {
+
+            then("it should fail, instead of resolving it") {
+                val ex = shouldThrow<IllegalArgumentException> { pool("10.0.0.1", "localhost") }
+
+                ex.message shouldContain "localhost"
+            }
+        }
+    }
+})
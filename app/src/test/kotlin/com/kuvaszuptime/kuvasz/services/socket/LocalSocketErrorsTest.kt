@@ -0,0 +1,66 @@
+package com.kuvaszuptime.kuvasz.services.socket
+
+import io.kotest.core.spec.style.BehaviorSpec
+import io.kotest.matchers.booleans.shouldBeFalse
+import io.kotest.matchers.booleans.shouldBeTrue
+import io.micronaut.http.HttpResponse
+import io.micronaut.http.HttpStatus
+import io.micronaut.http.client.exceptions.HttpClientException
+import io.micronaut.http.client.exceptions.HttpClientResponseException
+import java.net.BindException
+import java.net.ConnectException
+import java.net.SocketException
+
+class LocalSocketErrorsTest : BehaviorSpec({
+
+    given("the classification of the local socket errors") {
+
+        `when`("the ephemeral ports of the prober are exhausted") {
+
+            then("the wrapped BindException should be a local error") {
+                val error = HttpClientException(
+                    "Connect Error: Cannot assign requested address: example.com/192.0.2.10:443",
+                    SocketException("Cannot assign requested address: example.com/192.0.2.10:443")
+                        .initCause(BindException("Cannot assign requested address")),
+                )
+
+                error.isLocalSocketError().shouldBeTrue()
+            }
+        }
+
+        `when`("the prober ran out of file descriptors") {
+
+            then("it should be a local error") {
+                val error = HttpClientException("Connect Error", SocketException("Too many open files"))
+
+                error.isLocalSocketError().shouldBeTrue()
+            }
+        }
+
+        `when`("the native transport reports the error") {
+
+            then("it should be a local error") {
+                SocketException("connect(..) failed: Cannot assign requested address").isLocalSocketError()
+                    .shouldBeTrue()
+            }
+        }
+
+        `when`("the target refuses the connection") {
+
+            then("it should not be a local error") {
+                val error = HttpClientException("Connect Error: Connection refused", ConnectException("refused"))
+
+                error.isLocalSocketError().shouldBeFalse()
+            }
+        }
+
+        `when`("the target responds with an error that looks like a local one") {
+
+            then("it should not be a local error") {
+                val response = HttpResponse.status<Any>(HttpStatus.SERVICE_UNAVAILABLE, "Too many open files")
+
+                HttpClientResponseException("Too many open files", response).isLocalSocketError().shouldBeFalse()
+            }
+        }
+    }
+})
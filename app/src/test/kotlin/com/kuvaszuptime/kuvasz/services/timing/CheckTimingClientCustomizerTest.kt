@@ -0,0 +1,212 @@
+package com.kuvaszuptime.kuvasz.services.timing
+
+import com.kuvaszuptime.kuvasz.services.tls.PeerCertificateCache
+import io.kotest.core.spec.style.BehaviorSpec
+import io.kotest.matchers.longs.shouldBeGreaterThanOrEqual
+import io.kotest.matchers.nulls.shouldBeNull
+import io.kotest.matchers.nulls.shouldNotBeNull
+import io.kotest.matchers.shouldBe
+import io.kotest.matchers.string.shouldContain
+import io.kotest.matchers.string.shouldNotContain
+import io.micronaut.http.client.netty.NettyClientCustomizer.ChannelRole
+import io.netty.buffer.ByteBuf
+import io.netty.buffer.Unpooled
+import io.netty.channel.embedded.EmbeddedChannel
+import io.netty.handler.codec.http.DefaultFullHttpRequest
+import io.netty.handler.codec.http.HttpClientCodec
+import io.netty.handler.codec.http.HttpMethod
+import io.netty.handler.codec.http.HttpRequest
+import io.netty.handler.codec.http.HttpResponse
+import io.netty.handler.codec.http.HttpUtil
+import io.netty.handler.codec.http.HttpVersion
+import io.netty.handler.codec.http2.DefaultHttp2Headers
+import io.netty.handler.codec.http2.DefaultHttp2HeadersFrame
+import io.netty.handler.codec.http2.Http2HeadersFrame
+import io.netty.handler.codec.http2.Http2StreamFrameToHttpObjectCodec
+import io.netty.util.ReferenceCountUtil
+import java.net.InetSocketAddress
+import kotlin.text.Charsets.UTF_8
+
+class CheckTimingClientCustomizerTest : BehaviorSpec({
+
+    fun newConnection(
+        recorder: CheckTimingRecorder,
+        stats: CheckConnectionStats = CheckConnectionStats(),
+    ): EmbeddedChannel {
+        val channel = EmbeddedChannel()
+        val customizer = CheckTimingClientCustomizer(recorder, stats, PeerCertificateCache())
+            .specializeForChannel(channel, ChannelRole.CONNECTION)
+        channel.pipeline().addLast(HttpClientCodec())
+        customizer.onStreamPipelineBuilt()
+        channel.connect(InetSocketAddress.createUnresolved("example.com", 80))
+        channel.pipeline().fireChannelActive()
+        return channel
+    }
+
+    fun timedRequest(timing: PendingCheckTiming?) =
+        DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/").apply {
+            headers().set("X-Custom", "custom")
+            timing?.let { headers().set(CheckTimingRecorder.TIMING_HEADER, it.token) }
+        }
+
+    /**
+     * Sends a request through the channel, and returns what was actually written to the wire, and the decoded response
+     */
+    fun EmbeddedChannel.exchangeRequest(request: HttpRequest): Pair<String, HttpResponse> {
+        writeOutbound(request)
+        val written = generateSequence { readOutbound<ByteBuf>() }
+            .joinToString("") { buffer -> buffer.toString(UTF_8).also { buffer.release() } }
+
+        writeInbound(Unpooled.copiedBuffer("HTTP/1.1 200 OK\r\ncontent-length: 2\r\n\r\nok", UTF_8))
+        val inbound = generateSequence { readInbound<Any>() }.toList()
+        val response = inbound.filterIsInstance<HttpResponse>().single()
+        inbound.forEach { ReferenceCountUtil.release(it) }
+        return written to response
+    }
+
+    fun EmbeddedChannel.exchange(timing: PendingCheckTiming?): String = exchangeRequest(timedRequest(timing)).first
+
+    given("a connection customized by the CheckTimingClientCustomizer") {
+
+        `when`("a timed request is sent over a new connection") {
+
+            then("the timing header should be stripped, and every phase of the request should be recorded") {
+                val recorder = CheckTimingRecorder()
+                val channel = newConnection(recorder)
+                val timing = recorder.start()
+
+                val written = channel.exchange(timing)
+                recorder.finish(timing)
+
+                written shouldNotContain CheckTimingRecorder.TIMING_HEADER
+                written shouldContain "X-Custom: custom"
+                val timings = timing.toCheckTimings().shouldNotBeNull()
+                timings.dnsNanos.shouldNotBeNull() shouldBeGreaterThanOrEqual 0
+                timings.connectNanos.shouldNotBeNull() shouldBeGreaterThanOrEqual 0
+                // Plain HTTP, there was no TLS handshake
+                timings.tlsNanos.shouldBeNull()
+                timings.ttfbNanos shouldBeGreaterThanOrEqual 0
+                timings.transferNanos shouldBeGreaterThanOrEqual 0
+            }
+        }
+
+        `when`("the connection is reused by a subsequent request") {
+
+            then("the connection related phases should not be attributed to it") {
+                val recorder = CheckTimingRecorder()
+                val channel = newConnection(recorder)
+                channel.exchange(timing = null)
+                val timing = recorder.start()
+
+                channel.exchange(timing)
+
+                val timings = timing.toCheckTimings().shouldNotBeNull()
+                timings.dnsNanos.shouldBeNull()
+                timings.connectNanos.shouldBeNull()
+                timings.totalNanos shouldBe timings.ttfbNanos + timings.transferNanos
+            }
+        }
+
+        `when`("several timed requests are sent over the same connection") {
+
+            then("only the first one should be counted as a new connection") {
+                val recorder = CheckTimingRecorder()
+                val stats = CheckConnectionStats()
+                val channel = newConnection(recorder, stats)
+
+                repeat(3) {
+                    val timing = recorder.start()
+                    channel.exchange(timing)
+                    recorder.finish(timing)
+                }
+
+                stats.newConnectionCount() shouldBe 1
+                stats.reusedConnectionCount() shouldBe 2
+                // Plain HTTP, there was no TLS handshake
+                stats.tlsHandshakeCount() shouldBe 0
+                stats.reuseRatio() shouldBe (2.0 / 3)
+            }
+        }
+
+        `when`("the request asks for its connection to be closed") {
+
+            then("the connection should be closed after the response, even if the server would keep it alive") {
+                val recorder = CheckTimingRecorder()
+                val channel = newConnection(recorder)
+                val request = timedRequest(recorder.start()).apply {
+                    headers().set(CheckTimingClientCustomizer.CLOSE_CONNECTION_HEADER, "true")
+                }
+
+                val (written, response) = channel.exchangeRequest(request)
+
+                written shouldNotContain CheckTimingClientCustomizer.CLOSE_CONNECTION_HEADER
+                written shouldContain "connection: close"
+                HttpUtil.isKeepAlive(response) shouldBe false
+            }
+        }
+
+        `when`("a request doesn't ask for its connection to be closed") {
+
+            then("the connection should be kept alive") {
+                val channel = newConnection(CheckTimingRecorder())
+
+                val (written, response) = channel.exchangeRequest(timedRequest(timing = null))
+
+                written shouldNotContain "connection: close"
+                HttpUtil.isKeepAlive(response) shouldBe true
+            }
+        }
+
+        `when`("the response is not received") {
+
+            then("the timings should not be returned") {
+                val recorder = CheckTimingRecorder()
+                val channel = newConnection(recorder)
+                val timing = recorder.start()
+                channel.writeOutbound(
+                    DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/").apply {
+                        headers().set(CheckTimingRecorder.TIMING_HEADER, timing.token)
+                    }
+                )
+
+                timing.toCheckTimings().shouldBeNull()
+            }
+        }
+    }
+
+    given("an HTTP/2 connection customized by the CheckTimingClientCustomizer") {
+
+        `when`("timed requests are multiplexed over its streams") {
+
+            then("every request should be timed, and only the first one should be counted as a new connection") {
+                val recorder = CheckTimingRecorder()
+                val stats = CheckConnectionStats()
+                val connection = EmbeddedChannel()
+                val customizer = CheckTimingClientCustomizer(recorder, stats, PeerCertificateCache())
+                    .specializeForChannel(connection, ChannelRole.CONNECTION)
+                connection.connect(InetSocketAddress.createUnresolved("example.com", 443))
+                connection.pipeline().fireChannelActive()
+
+                val timings = List(2) {
+                    val stream = EmbeddedChannel(Http2StreamFrameToHttpObjectCodec(false))
+                    customizer.specializeForChannel(stream, ChannelRole.HTTP2_STREAM)
+                    val timing = recorder.start()
+
+                    stream.writeOutbound(timedRequest(timing))
+                    val headers = stream.readOutbound<Http2HeadersFrame>()
+                    stream.writeInbound(DefaultHttp2HeadersFrame(DefaultHttp2Headers().status("200"), true))
+                    generateSequence { stream.readInbound<Any>() }.forEach { ReferenceCountUtil.release(it) }
+                    recorder.finish(timing)
+
+                    headers.headers().contains(CheckTimingRecorder.TIMING_HEADER.lowercase()) shouldBe false
+                    timing.toCheckTimings().shouldNotBeNull()
+                }
+
+                timings.first().connectNanos.shouldNotBeNull()
+                timings.last().connectNanos.shouldBeNull()
+                stats.newConnectionCount() shouldBe 1
+                stats.reusedConnectionCount() shouldBe 1
+            }
+        }
+    }
+})
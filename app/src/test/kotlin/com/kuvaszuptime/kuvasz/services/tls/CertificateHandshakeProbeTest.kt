@@ -0,0 +1,168 @@
+package com.kuvaszuptime.kuvasz.services.tls
+
+import com.kuvaszuptime.kuvasz.config.AppConfig
+import com.kuvaszuptime.kuvasz.services.UptimeCheckEventLoopGroup
+import com.kuvaszuptime.kuvasz.services.dns.UptimeCheckDnsResolver
+import io.kotest.assertions.throwables.shouldThrow
+import io.kotest.core.spec.style.BehaviorSpec
+import io.kotest.matchers.collections.shouldContainExactly
+import io.kotest.matchers.nulls.shouldNotBeNull
+import io.kotest.matchers.shouldBe
+import io.micronaut.core.io.ResourceResolver
+import io.micronaut.http.netty.channel.EventLoopGroupFactory
+import io.micronaut.http.netty.channel.EventLoopGroupRegistry
+import io.mockk.every
+import io.mockk.mockk
+import io.netty.bootstrap.ServerBootstrap
+import io.netty.buffer.ByteBuf
+import io.netty.channel.Channel
+import io.netty.channel.ChannelHandlerContext
+import io.netty.channel.ChannelInboundHandlerAdapter
+import io.netty.channel.ChannelInitializer
+import io.netty.channel.nio.NioEventLoopGroup
+import io.netty.channel.socket.nio.NioServerSocketChannel
+import io.netty.channel.socket.nio.NioSocketChannel
+import io.netty.handler.ssl.SslContextBuilder
+import io.netty.handler.ssl.util.SelfSignedCertificate
+import io.netty.resolver.DefaultAddressResolverGroup
+import io.netty.util.ReferenceCountUtil
+import java.net.ConnectException
+import java.net.InetSocketAddress
+import java.net.ServerSocket
+import java.net.URI
+import java.nio.file.Files
+import java.security.KeyStore
+import java.util.Optional
+import java.util.concurrent.atomic.AtomicLong
+import javax.net.ssl.SSLHandshakeException
+
+class CertificateHandshakeProbeTest : BehaviorSpec({
+
+    val certificate = SelfSignedCertificate("localhost")
+    val receivedBytes = AtomicLong()
+    val serverGroup = NioEventLoopGroup(1)
+    val serverSslContext = SslContextBuilder.forServer(certificate.certificate(), certificate.privateKey()).build()
+    val server = ServerBootstrap()
+        .group(serverGroup)
+        .channel(NioServerSocketChannel::class.java)
+        .childHandler(object : ChannelInitializer<Channel>() {
+            override fun initChannel(channel: Channel) {
+                channel.pipeline().addLast(serverSslContext.newHandler(channel.alloc()))
+                channel.pipeline().addLast(object : ChannelInboundHandlerAdapter() {
+                    override fun channelRead(ctx: ChannelHandlerContext, msg: Any) {
+                        if (msg is ByteBuf) receivedBytes.addAndGet(msg.readableBytes().toLong())
+                        ReferenceCountUtil.release(msg)
+                    }
+
+                    override fun exceptionCaught(ctx: ChannelHandlerContext, cause: Throwable) {
+                        ctx.close()
+                    }
+                })
+            }
+        })
+        .bind(InetSocketAddress("localhost", 0))
+        .sync()
+        .channel()
+    val serverUri = URI("https://localhost:${(server.localAddress() as InetSocketAddress).port}")
+
+    val eventLoopGroup = NioEventLoopGroup(1)
+    val eventLoopGroupRegistry = mockk<EventLoopGroupRegistry> {
+        every { getEventLoopGroup(any()) } returns Optional.of(eventLoopGroup)
+        every { getEventLoopGroupConfiguration(any()) } returns Optional.empty()
+    }
+    val eventLoopGroupFactory = mockk<EventLoopGroupFactory> {
+        every { channelClass(any(), any()) } returns NioSocketChannel::class.java
+    }
+    val dnsResolver = mockk<UptimeCheckDnsResolver> {
+        every { addressResolverGroup } returns DefaultAddressResolverGroup.INSTANCE
+    }
+
+    fun probe(
+        appConfig: AppConfig = AppConfig(),
+        peerCertificateCache: PeerCertificateCache = PeerCertificateCache(),
+    ) = CertificateHandshakeProbe(
+        appConfig = appConfig,
+        sslBuilder = UptimeCheckSslBuilder(ResourceResolver(), appConfig),
+        dnsResolver = dnsResolver,
+        peerCertificateCache = peerCertificateCache,
+        uptimeCheckEventLoopGroup = UptimeCheckEventLoopGroup({ eventLoopGroupRegistry }, eventLoopGroupFactory),
+    )
+
+    /**
+     * Makes the JVM's default trust store trust only the server's self-signed certificate while the block runs
+     */
+    suspend fun <T> trustingTheServer(block: suspend () -> T): T {
+        val trustStore = Files.createTempFile("kuvasz-trust-store", ".p12").toFile()
+        KeyStore.getInstance("PKCS12").apply {
+            load(null, null)
+            setCertificateEntry("localhost", certificate.cert())
+            trustStore.outputStream().use { store(it, "changeit".toCharArray()) }
+        }
+        val properties = mapOf(
+            "javax.net.ssl.trustStore" to trustStore.absolutePath,
+            "javax.net.ssl.trustStorePassword" to "changeit",
+            "javax.net.ssl.trustStoreType" to "PKCS12",
+        )
+        properties.forEach { (key, value) -> System.setProperty(key, value) }
+        return try {
+            block()
+        } finally {
+            properties.keys.forEach { System.clearProperty(it) }
+            trustStore.delete()
+        }
+    }
+
+    afterSpec {
+        server.close().sync()
+        serverGroup.shutdownGracefully()
+        eventLoopGroup.shutdownGracefully()
+        certificate.delete()
+    }
+
+    given("a CertificateHandshakeProbe") {
+
+        `when`("the server's certificate is trusted") {
+
+            then("it should return the server's chain after the handshake, without sending a request") {
+                receivedBytes.set(0)
+                val peerCertificateCache = PeerCertificateCache()
+
+                val certificates = trustingTheServer {
+                    probe(peerCertificateCache = peerCertificateCache).fetchCertificates(serverUri).certificates
+                }
+
+                certificates shouldContainExactly listOf(certificate.cert())
+                receivedBytes.get() shouldBe 0
+                peerCertificateCache.get(PeerCertificateCache.originOf("localhost", serverUri.port))
+                    .shouldNotBeNull().certificates shouldContainExactly listOf(certificate.cert())
+            }
+        }
+
+        `when`("the server's certificate is not trusted") {
+
+            then("it should fail with the error of the handshake") {
+                shouldThrow<SSLHandshakeException> { probe().fetchCertificates(serverUri) }
+            }
+        }
+
+        `when`("the host doesn't match the certificate") {
+
+            then("it should fail with the error of the handshake") {
+                val uri = URI("https://127.0.0.1:${serverUri.port}")
+
+                shouldThrow<SSLHandshakeException> {
+                    trustingTheServer { probe().fetchCertificates(uri) }
+                }
+            }
+        }
+
+        `when`("the server can't be reached") {
+
+            then("it should fail with the error of the connection attempt") {
+                val closedPort = ServerSocket(0).use { it.localPort }
+
+                shouldThrow<ConnectException> { probe().fetchCertificates(URI("https://localhost:$closedPort")) }
+            }
+        }
+    }
+})
@@ -0,0 +1,138 @@
+package com.kuvaszuptime.kuvasz.services.tls
+
+import arrow.core.Either
+import com.kuvaszuptime.kuvasz.models.CertificateInfo
+import com.kuvaszuptime.kuvasz.models.SSLValidationError
+import com.kuvaszuptime.kuvasz.util.toOffsetDateTime
+import io.kotest.assertions.throwables.shouldThrow
+import io.kotest.core.spec.style.BehaviorSpec
+import io.kotest.matchers.shouldBe
+import io.kotest.matchers.shouldNotBe
+import io.netty.handler.ssl.util.SelfSignedCertificate
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.withContext
+import java.util.Date
+import java.util.concurrent.atomic.AtomicInteger
+
+class ChainValidationCacheTest : BehaviorSpec({
+
+    val notAfter = Date(System.currentTimeMillis() + ChainValidationCache.MAX_AGE.toMillis() * 2)
+    val certificate = SelfSignedCertificate("example.com", Date(), notAfter).cert()
+    val otherCertificate = SelfSignedCertificate("example.com", Date(), notAfter).cert()
+    val expiringCertificate = SelfSignedCertificate(
+        "example.com",
+        Date(),
+        Date(System.currentTimeMillis() + ChainValidationCache.MAX_AGE.toMillis() / 2),
+    ).cert()
+    val maxAgeMs = ChainValidationCache.MAX_AGE.toMillis()
+
+    fun validation(counter: AtomicInteger): () -> Either<SSLValidationError, CertificateInfo> = {
+        counter.incrementAndGet()
+        Either.Right(CertificateInfo(validTo = notAfter.toOffsetDateTime()))
+    }
+
+    given("a ChainValidationCache") {
+
+        `when`("the same chain is validated more times") {
+
+            then("it should be validated only once, until the result is expired") {
+                val cache = ChainValidationCache()
+                val validations = AtomicInteger()
+                val now = System.currentTimeMillis()
+
+                val first = cache.getOrValidate(listOf(certificate), "v1", now, validation(validations))
+                val second = cache.getOrValidate(listOf(certificate), "v1", now + maxAgeMs - 1, validation(validations))
+
+                second shouldBe first
+                validations.get() shouldBe 1
+
+                cache.getOrValidate(listOf(certificate), "v1", now + maxAgeMs, validation(validations))
+                validations.get() shouldBe 2
+            }
+
+            then("it should be validated only once, even if the validations are concurrent") {
+                val cache = ChainValidationCache()
+                val validations = AtomicInteger()
+
+                withContext(Dispatchers.Default) {
+                    (1..16).map {
+                        async { cache.getOrValidate(listOf(certificate), "v1", validate = validation(validations)) }
+                    }.awaitAll()
+                }
+
+                validations.get() shouldBe 1
+            }
+        }
+
+        `when`("a certificate of the chain expires before the maximum age") {
+
+            then("the result should expire with it") {
+                val cache = ChainValidationCache()
+                val validations = AtomicInteger()
+                val now = System.currentTimeMillis()
+                val chain = listOf(certificate, expiringCertificate)
+
+                cache.getOrValidate(chain, "v1", now, validation(validations))
+                cache.getOrValidate(chain, "v1", expiringCertificate.notAfter.time, validation(validations))
+
+                validations.get() shouldBe 2
+            }
+        }
+
+        `when`("the chain or the trust store is different") {
+
+            then("the chain should be validated again") {
+                val cache = ChainValidationCache()
+                val validations = AtomicInteger()
+
+                cache.getOrValidate(listOf(certificate), "v1", validate = validation(validations))
+                cache.getOrValidate(listOf(certificate, otherCertificate), "v1", validate = validation(validations))
+                cache.getOrValidate(listOf(certificate), "v2", validate = validation(validations))
+
+                validations.get() shouldBe 3
+                cache.size() shouldBe 3
+            }
+        }
+
+        `when`("the validation throws") {
+
+            then("nothing should be memoized") {
+                val cache = ChainValidationCache()
+
+                shouldThrow<IllegalStateException> {
+                    cache.getOrValidate(listOf(certificate), "v1") { error("Setup failed") }
+                }
+
+                cache.size() shouldBe 0
+            }
+        }
+
+        `when`("the expired results are evicted") {
+
+            then("only the valid ones should be kept") {
+                val cache = ChainValidationCache()
+                val validations = AtomicInteger()
+                val now = System.currentTimeMillis()
+                cache.getOrValidate(listOf(certificate), "v1", now, validation(validations))
+                cache.getOrValidate(listOf(expiringCertificate), "v1", now, validation(validations))
+
+                cache.evictExpired(expiringCertificate.notAfter.time)
+
+                cache.size() shouldBe 1
+            }
+        }
+    }
+
+    given("the fingerprint of a chain") {
+
+        `when`("the order of the certificates is different") {
+
+            then("it should be different") {
+                ChainValidationCache.fingerprintOf(listOf(certificate, otherCertificate)) shouldNotBe
+                    ChainValidationCache.fingerprintOf(listOf(otherCertificate, certificate))
+            }
+        }
+    }
+})
@@ -0,0 +1,126 @@
+package com.kuvaszuptime.kuvasz.services.tls
+
+import io.kotest.core.spec.style.BehaviorSpec
+import io.kotest.matchers.collections.shouldContainExactly
+import io.kotest.matchers.nulls.shouldBeNull
+import io.kotest.matchers.nulls.shouldNotBeNull
+import io.kotest.matchers.shouldBe
+import io.kotest.matchers.shouldNotBe
+import io.kotest.matchers.string.shouldHaveLength
+import io.kotest.matchers.types.shouldBeSameInstanceAs
+import io.netty.handler.ssl.util.SelfSignedCertificate
+
+class PeerCertificateCacheTest : BehaviorSpec({
+
+    val certificate = SelfSignedCertificate("example.com").cert()
+    val rotatedCertificate = SelfSignedCertificate("example.com").cert()
+    val origin = PeerCertificateCache.originOf("example.com", 443)
+    val maxAgeMs = PeerCertificateCache.MAX_AGE.toMillis()
+
+    given("the key of an origin") {
+
+        `when`("the host is written differently") {
+
+            then("it should be normalized") {
+                PeerCertificateCache.originOf("Example.COM", 443) shouldBe origin
+                PeerCertificateCache.originOf("[::1]", 8443) shouldBe PeerCertificateCache.originOf("::1", 8443)
+            }
+        }
+    }
+
+    given("a PeerCertificateCache") {
+
+        `when`("a chain is recorded") {
+
+            then("it should be returned with the fingerprint of its leaf, while it's fresh") {
+                val cache = PeerCertificateCache()
+
+                cache.record(origin, listOf(certificate), now = 1000L)
+
+                val chain = cache.get(origin, now = 1000L + maxAgeMs).shouldNotBeNull()
+                chain.certificates shouldContainExactly listOf(certificate)
+                chain.leafFingerprint shouldHaveLength 64
+                cache.get(origin, now = 1001L + maxAgeMs).shouldBeNull()
+                cache.leafFingerprint(origin) shouldBe chain.leafFingerprint
+            }
+        }
+
+        `when`("the same certificate is presented again") {
+
+            then("only the capture time of the origin should be refreshed") {
+                val cache = PeerCertificateCache()
+                cache.record(origin, listOf(certificate), now = 1000L)
+                val chain = cache.get(origin, now = 1000L)
+
+                cache.record(origin, listOf(certificate), now = 1000L + maxAgeMs)
+
+                cache.get(origin, now = 1001L + maxAgeMs) shouldBeSameInstanceAs chain
+            }
+
+            then("an older capture (e.g. of a resumed session) should not make it stale") {
+                val cache = PeerCertificateCache()
+                cache.record(origin, listOf(certificate), now = 2000L)
+
+                cache.record(origin, listOf(certificate), now = 1000L)
+
+                cache.get(origin, now = 1001L + maxAgeMs).shouldNotBeNull()
+            }
+        }
+
+        `when`("the same certificate is presented by more origins") {
+
+            then("they should share the chain") {
+                val cache = PeerCertificateCache()
+                val otherOrigin = PeerCertificateCache.originOf("www.example.com", 443)
+
+                cache.record(origin, listOf(certificate), now = 1000L)
+                cache.record(otherOrigin, listOf(certificate), now = 1000L)
+
+                cache.get(otherOrigin, now = 1000L) shouldBeSameInstanceAs cache.get(origin, now = 1000L)
+                cache.size() shouldBe 2
+            }
+        }
+
+        `when`("the certificate of an origin is rotated") {
+
+            then("the new chain should replace the previous one") {
+                val cache = PeerCertificateCache()
+                cache.record(origin, listOf(certificate), now = 1000L)
+                val previousFingerprint = cache.leafFingerprint(origin)
+
+                cache.record(origin, listOf(rotatedCertificate), now = 2000L)
+
+                cache.get(origin, now = 2000L).shouldNotBeNull().certificates shouldContainExactly
+                    listOf(rotatedCertificate)
+                cache.leafFingerprint(origin) shouldNotBe previousFingerprint
+            }
+        }
+
+        `when`("the stale chains are evicted") {
+
+            then("only the fresh ones should be kept") {
+                val cache = PeerCertificateCache()
+                val otherOrigin = PeerCertificateCache.originOf("example.org", 443)
+                cache.record(origin, listOf(certificate), now = 1000L)
+                cache.record(otherOrigin, listOf(rotatedCertificate), now = 2000L)
+
+                cache.evictStale(now = 1001L + maxAgeMs)
+
+                cache.size() shouldBe 1
+                cache.leafFingerprint(origin).shouldBeNull()
+                cache.get(otherOrigin, now = 1001L + maxAgeMs).shouldNotBeNull()
+            }
+        }
+
+        `when`("an empty chain is recorded") {
+
+            then("it should be ignored") {
+                val cache = PeerCertificateCache()
+
+                cache.record(origin, emptyList())
+
+                cache.size() shouldBe 0
+            }
+        }
+    }
+})
@@ -0,0 +1,158 @@
+package com.kuvaszuptime.kuvasz.services.tls
+
+import com.kuvaszuptime.kuvasz.config.AppConfig
+import com.kuvaszuptime.kuvasz.testutils.LocalRevocationResponder
+import io.kotest.core.spec.style.BehaviorSpec
+import io.kotest.matchers.doubles.shouldBeGreaterThan
+import io.kotest.matchers.maps.shouldBeEmpty
+import io.kotest.matchers.maps.shouldContainKey
+import io.kotest.matchers.nulls.shouldNotBeNull
+import io.kotest.matchers.shouldBe
+import io.micronaut.http.client.ProxyHttpClient
+
+class RevocationLookupTest : BehaviorSpec({
+
+    val responder = LocalRevocationResponder()
+    val httpClient = ProxyHttpClient.create(null)
+
+    // The local revocation responder is on the loopback address
+    fun lookup(appConfig: AppConfig = AppConfig().apply { sslRevocationPrivateTargetsAllowed = true }) =
+        RevocationResponseCache(appConfig).let { RevocationLookup(it, httpClient, appConfig) to it }
+
+    afterSpec {
+        httpClient.close()
+        responder.close()
+    }
+
+    given("a RevocationLookup") {
+
+        `when`("the certificate has an OCSP responder") {
+
+            then("its OCSP response should be fetched, and cached until its next update") {
+                val (lookup, cache) = lookup()
+                val certificate = responder.issue()
+                val requestsBefore = responder.ocspRequests.get()
+
+                val first = lookup.lookUp(listOf(certificate), listOf(responder.caCertificate))
+                val second = lookup.lookUp(listOf(certificate), listOf(responder.caCertificate))
+
+                first.ocspResponses shouldContainKey certificate
+                first.crls.shouldBeEmpty()
+                second.ocspResponses[certificate].shouldNotBeNull() shouldBe first.ocspResponses[certificate]
+                responder.ocspRequests.get() shouldBe requestsBefore + 1
+                cache.hitRatio() shouldBeGreaterThan 0.0
+                lookup.lookupCount() shouldBe 2
+            }
+
+            then("nothing should be cached, if the cache is disabled") {
+                val (lookup, cache) = lookup(
+                    AppConfig().apply {
+                        sslRevocationPrivateTargetsAllowed = true
+                        sslRevocationCacheMaxEntries = 0
+                    }
+                )
+                val certificate = responder.issue()
+                val requestsBefore = responder.ocspRequests.get()
+
+                lookup.lookUp(listOf(certificate), listOf(responder.caCertificate))
+                lookup.lookUp(listOf(certificate), listOf(responder.caCertificate))
+
+                responder.ocspRequests.get() shouldBe requestsBefore + 2
+                cache.size() shouldBe 0
+            }
+        }
+
+        `when`("the server stapled an OCSP response to the handshake") {
+
+            then("it should be used without querying the responder") {
+                val (lookup, _) = lookup()
+                val certificate = responder.issue()
+                val stapled = responder.ocspResponseOf(certificate)
+                val requestsBefore = responder.ocspRequests.get()
+
+                val evidence = lookup.lookUp(listOf(certificate), listOf(responder.caCertificate), stapled)
+
+                evidence.ocspResponses[certificate] shouldBe stapled
+                responder.ocspRequests.get() shouldBe requestsBefore
+            }
+        }
+
+        `when`("the OCSP responder is unavailable") {
+
+            then("the CRL of the distribution point should be used, and downloaded only once") {
+                val (lookup, _) = lookup()
+                val certificate = responder.issue()
+                val otherCertificate = responder.issue(withOcsp = false)
+                val crlRequestsBefore = responder.crlRequests.get()
+                responder.ocspAvailable = false
+
+                val evidence = try {
+                    lookup.lookUp(
+                        listOf(certificate, otherCertificate),
+                        listOf(responder.caCertificate, responder.caCertificate),
+                    )
+                    lookup.lookUp(listOf(certificate), listOf(responder.caCertificate))
+                } finally {
+                    responder.ocspAvailable = true
+                }
+
+                evidence.ocspResponses.shouldBeEmpty()
+                evidence.crls shouldContainKey certificate
+                responder.crlRequests.get() shouldBe crlRequestsBefore + 1
+            }
+        }
+
+        `when`("the responder and the distribution point are on a private address") {
+
+            then("nothing should be requested, if the private targets are not allowed") {
+                val (lookup, _) = lookup(AppConfig())
+                val ocspRequestsBefore = responder.ocspRequests.get()
+                val crlRequestsBefore = responder.crlRequests.get()
+
+                val evidence = lookup.lookUp(listOf(responder.issue()), listOf(responder.caCertificate))
+
+                evidence.ocspResponses.shouldBeEmpty()
+                evidence.crls.shouldBeEmpty()
+                responder.ocspRequests.get() shouldBe ocspRequestsBefore
+                responder.crlRequests.get() shouldBe crlRequestsBefore
+            }
+        }
+
+        `when`("the responses are longer than the download cap") {
+
+            then("they should be discarded") {
+                val (lookup, cache) = lookup(
+                    AppConfig().apply {
+                        sslRevocationPrivateTargetsAllowed = true
+                        sslRevocationMaxDownloadBytes = 16
+                    }
+                )
+                val certificate = responder.issue()
+                val ocspRequestsBefore = responder.ocspRequests.get()
+                val crlRequestsBefore = responder.crlRequests.get()
+
+                val evidence = lookup.lookUp(listOf(certificate), listOf(responder.caCertificate))
+
+                evidence.ocspResponses.shouldBeEmpty()
+                evidence.crls.shouldBeEmpty()
+                responder.ocspRequests.get() shouldBe ocspRequestsBefore + 1
+                responder.crlRequests.get() shouldBe crlRequestsBefore + 1
+                cache.size() shouldBe 0
+            }
+        }
+
+        `when`("the issuer of the certificate is not known") {
+
+            then("nothing should be looked up") {
+                val (lookup, _) = lookup()
+                val requestsBefore = responder.ocspRequests.get()
+
+                val evidence = lookup.lookUp(listOf(responder.issue()), listOf(null))
+
+                evidence.ocspResponses.shouldBeEmpty()
+                evidence.crls.shouldBeEmpty()
+                responder.ocspRequests.get() shouldBe requestsBefore
+            }
+        }
+    }
+})
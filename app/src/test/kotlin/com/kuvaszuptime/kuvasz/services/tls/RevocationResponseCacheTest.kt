@@ -0,0 +1,87 @@
+package com.kuvaszuptime.kuvasz.services.tls
+
+import com.kuvaszuptime.kuvasz.config.AppConfig
+import io.kotest.core.spec.style.BehaviorSpec
+import io.kotest.matchers.nulls.shouldBeNull
+import io.kotest.matchers.nulls.shouldNotBeNull
+import io.kotest.matchers.shouldBe
+import io.mockk.every
+import io.mockk.mockk
+import java.security.cert.X509CRL
+import java.time.Instant
+import java.util.Date
+
+class RevocationResponseCacheTest : BehaviorSpec({
+
+    val now = 1_700_000_000_000L
+    val nextUpdate = Instant.ofEpochMilli(now + 60_000)
+    val response = byteArrayOf(1, 2, 3)
+
+    fun crl(nextUpdate: Date?) = mockk<X509CRL> { every { this@mockk.nextUpdate } returns nextUpdate }
+
+    given("a RevocationResponseCache") {
+
+        `when`("an OCSP response is cached") {
+
+            then("it should be served until its next update") {
+                val cache = RevocationResponseCache(AppConfig())
+                cache.putOcspResponse("cert-id", response, nextUpdate, now)
+
+                cache.ocspResponse("cert-id", now + 59_999) shouldBe response
+                cache.ocspResponse("cert-id", now + 60_000).shouldBeNull()
+                cache.ocspResponse("other-cert-id", now).shouldBeNull()
+                cache.hitRatio() shouldBe 1.0 / 3
+            }
+
+            then("an outdated one shouldn't be cached at all") {
+                val cache = RevocationResponseCache(AppConfig())
+                cache.putOcspResponse("cert-id", response, nextUpdate, now = nextUpdate.toEpochMilli())
+
+                cache.size() shouldBe 0
+            }
+        }
+
+        `when`("more responses are cached than the limit") {
+
+            then("the least recently used one should be evicted") {
+                val cache = RevocationResponseCache(AppConfig().apply { sslRevocationCacheMaxEntries = 2 })
+                cache.putOcspResponse("first", response, nextUpdate, now)
+                cache.putOcspResponse("second", response, nextUpdate, now)
+                cache.ocspResponse("first", now)
+                cache.putOcspResponse("third", response, nextUpdate, now)
+
+                cache.ocspResponse("first", now).shouldNotBeNull()
+                cache.ocspResponse("second", now).shouldBeNull()
+                cache.ocspResponse("third", now).shouldNotBeNull()
+            }
+        }
+
+        `when`("a CRL is cached") {
+
+            then("it should be served until its next update, if it has one") {
+                val cache = RevocationResponseCache(AppConfig())
+                val crl = crl(Date.from(nextUpdate))
+                cache.putCrl("http://crl.example.com/ca.crl", crl, now)
+                cache.putCrl("http://crl.example.com/other.crl", crl(null), now)
+
+                cache.crl("http://crl.example.com/ca.crl", now) shouldBe crl
+                cache.crl("http://crl.example.com/other.crl", now).shouldBeNull()
+                cache.size() shouldBe 1
+            }
+        }
+
+        `when`("the outdated entries are evicted") {
+
+            then("only the up to date ones should be kept") {
+                val cache = RevocationResponseCache(AppConfig())
+                cache.putOcspResponse("outdated", response, nextUpdate, now)
+                cache.putOcspResponse("up-to-date", response, nextUpdate.plusSeconds(60), now)
+                cache.putCrl("http://crl.example.com/ca.crl", crl(Date.from(nextUpdate)), now)
+
+                cache.evictExpired(nextUpdate.toEpochMilli())
+
+                cache.size() shouldBe 1
+            }
+        }
+    }
+})
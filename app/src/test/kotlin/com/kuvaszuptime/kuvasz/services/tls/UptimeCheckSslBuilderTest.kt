@@ -0,0 +1,115 @@
+package com.kuvaszuptime.kuvasz.services.tls
+
+import com.kuvaszuptime.kuvasz.config.AppConfig
+import com.kuvaszuptime.kuvasz.config.CheckTlsProvider
+import com.kuvaszuptime.kuvasz.services.HttpCheckerClientConfiguration
+import io.kotest.core.spec.style.BehaviorSpec
+import io.kotest.matchers.booleans.shouldBeFalse
+import io.kotest.matchers.booleans.shouldBeTrue
+import io.kotest.matchers.collections.shouldContainExactly
+import io.kotest.matchers.shouldBe
+import io.kotest.matchers.types.shouldBeInstanceOf
+import io.micronaut.core.io.ResourceResolver
+import io.micronaut.http.client.HttpVersionSelection
+import io.micronaut.http.ssl.ClientSslConfiguration
+import io.micronaut.runtime.ApplicationConfiguration
+import io.netty.buffer.ByteBufAllocator
+import io.netty.handler.ssl.ApplicationProtocolNames
+import io.netty.handler.ssl.JdkSslContext
+import io.netty.handler.ssl.OpenSsl
+import io.netty.handler.ssl.OpenSslContext
+import io.netty.handler.ssl.OpenSslSessionContext
+import io.netty.handler.ssl.SslContext
+import io.netty.util.ReferenceCountUtil
+
+class UptimeCheckSslBuilderTest : BehaviorSpec({
+
+    val host = "example.com"
+    val port = 443
+    val versionSelection = HttpVersionSelection.forClientConfiguration(
+        HttpCheckerClientConfiguration(ApplicationConfiguration(), AppConfig())
+    )
+
+    fun build(provider: CheckTlsProvider, sessionResumptionEnabled: Boolean): SslContext =
+        UptimeCheckSslBuilder(ResourceResolver(), AppConfig().apply { checkTlsProvider = provider })
+            .build(UptimeCheckSslConfiguration(sessionResumptionEnabled), versionSelection)
+
+    fun SslContext.peerOfNewEngine(): Pair<String?, Int> {
+        val engine = newEngine(ByteBufAllocator.DEFAULT, host, port)
+        return try {
+            engine.peerHost to engine.peerPort
+        } finally {
+            ReferenceCountUtil.release(engine)
+        }
+    }
+
+    given("the SSL context of an uptime check client") {
+
+        `when`("the JDK provider is configured") {
+
+            then("it should use the JDK's TLS implementation, and offer the protocols of the client via ALPN") {
+                val sslContext = build(CheckTlsProvider.JDK, sessionResumptionEnabled = true)
+
+                sslContext.shouldBeInstanceOf<JdkSslContext>()
+                sslContext.isClient.shouldBeTrue()
+                @Suppress("DEPRECATION")
+                sslContext.applicationProtocolNegotiator().protocols() shouldContainExactly
+                    listOf(ApplicationProtocolNames.HTTP_2, ApplicationProtocolNames.HTTP_1_1)
+            }
+
+            then("the engines should know the peer's host and port if the sessions are resumed") {
+                val sslContext = build(CheckTlsProvider.JDK, sessionResumptionEnabled = true)
+
+                sslContext.peerOfNewEngine() shouldBe (host to port)
+            }
+
+            then("the engines should know only the peer's host if the sessions are not resumed") {
+                val sslContext = build(CheckTlsProvider.JDK, sessionResumptionEnabled = false)
+
+                sslContext.isClient.shouldBeTrue()
+                sslContext.peerOfNewEngine() shouldBe (host to -1)
+            }
+        }
+
+        `when`("the OpenSSL provider is configured") {
+
+            then("it should use OpenSSL, with its session cache") {
+                OpenSsl.isAvailable().shouldBeTrue()
+                val sslContext = build(CheckTlsProvider.OPENSSL, sessionResumptionEnabled = true)
+
+                sslContext.shouldBeInstanceOf<OpenSslContext>()
+                sslContext.sessionContext().shouldBeInstanceOf<OpenSslSessionContext>()
+                    .isSessionCacheEnabled.shouldBeTrue()
+                sslContext.peerOfNewEngine() shouldBe (host to port)
+            }
+
+            then("its session cache should be disabled if the sessions are not resumed") {
+                val sslContext = build(CheckTlsProvider.OPENSSL, sessionResumptionEnabled = false)
+
+                sslContext.shouldBeInstanceOf<OpenSslContext>()
+                sslContext.sessionContext().shouldBeInstanceOf<OpenSslSessionContext>()
+                    .isSessionCacheEnabled.shouldBeFalse()
+            }
+        }
+    }
+
+    given("the SSL context of another client") {
+
+        `when`("it's built with the OpenSSL provider available") {
+
+            then("it should use the JDK's TLS implementation, regardless of the checks' provider") {
+                OpenSsl.isAvailable().shouldBeTrue()
+                val sslContext = UptimeCheckSslBuilder(
+                    ResourceResolver(),
+                    AppConfig().apply { checkTlsProvider = CheckTlsProvider.OPENSSL },
+                ).build(ClientSslConfiguration(), versionSelection)
+
+                // Micronaut's default builder would prefer OpenSSL for the clients that negotiate via ALPN
+                sslContext.shouldBeInstanceOf<JdkSslContext>()
+                @Suppress("DEPRECATION")
+                sslContext.applicationProtocolNegotiator().protocols() shouldContainExactly
+                    listOf(ApplicationProtocolNames.HTTP_2, ApplicationProtocolNames.HTTP_1_1)
+            }
+        }
+    }
+})
@@ -0,0 +1,149 @@
+package com.kuvaszuptime.kuvasz.testutils
+
+import com.sun.management.ThreadMXBean
+import io.kotest.core.test.EnabledIf
+import org.slf4j.LoggerFactory
+import java.lang.management.ManagementFactory
+import java.lang.management.MemoryType
+import java.time.Duration
+
+/**
+ * Benchmarks are excluded from the regular test runs, they can be executed with `./gradlew :app:benchmark`
+ */
+val benchmarksEnabled: EnabledIf = { System.getProperty("kuvasz.benchmarks") == "true" }
+
+private val benchmarkLogger = LoggerFactory.getLogger("com.kuvaszuptime.kuvasz.benchmarks")
+
+/**
+ * Measures the wall-clock time of the given block and logs it together with the derived throughput
+ */
+inline fun <T> measureBenchmark(name: String, operations: Int, block: () -> T): T {
+    val start = System.nanoTime()
+    val result = block()
+    reportBenchmark(name, operations, Duration.ofNanos(System.nanoTime() - start))
+    return result
+}
+
+fun reportBenchmark(name: String, operations: Int, elapsed: Duration) {
+    val nanosPerOp = elapsed.toNanos().toDouble() / operations.coerceAtLeast(1)
+    benchmarkLogger.info(
+        String.format(
+            "%-60s %10d ops %10d ms %12.1f ns/op",
+            name,
+            operations,
+            elapsed.toMillis(),
+            nanosPerOp,
+        )
+    )
+}
+
+/**
+ * Best-effort snapshot of the heap usage after a GC, used to compare the footprint of different implementations
+ */
+fun usedHeapBytes(): Long {
+    val runtime = Runtime.getRuntime()
+    System.gc()
+    return runtime.totalMemory() - runtime.freeMemory()
+}
+
+fun reportHeapUsage(name: String, bytes: Long) {
+    benchmarkLogger.info(String.format("%-60s %10d KiB", name, bytes / 1024))
+}
+
+/**
+ * Best-effort peak heap usage while the given block is running, based on the peak usages of the heap memory pools
+ */
+inline fun <T> measurePeakHeap(name: String, block: () -> T): T {
+    val heapPools = ManagementFactory.getMemoryPoolMXBeans().filter { it.type == MemoryType.HEAP }
+    System.gc()
+    heapPools.forEach { it.resetPeakUsage() }
+    val result = block()
+    reportHeapUsage(name, heapPools.sumOf { it.peakUsage.used })
+    return result
+}
+
+/**
+ * Best-effort number of the bytes allocated by the JVM's threads while the given block is running, except for the
+ * threads that are matched by [excludedThreads] (e.g. the threads of a server that's part of the benchmark). The
+ * allocations of the threads that terminate in the meantime aren't counted.
+ */
+inline fun <T> measureAllocations(
+    name: String,
+    operations: Int,
+    noinline excludedThreads: (String) -> Boolean = { false },
+    block: () -> T,
+): T {
+    val before = allocatedBytesByThread(excludedThreads)
+    val result = block()
+    val after = allocatedBytesByThread(excludedThreads)
+    val allocated = after.entries.sumOf { (threadId, bytes) -> bytes - (before[threadId] ?: 0L) }
+    reportAllocations(name, operations, allocated)
+    return result
+}
+
+fun allocatedBytesByThread(excludedThreads: (String) -> Boolean): Map<Long, Long> {
+    val threadMXBean = ManagementFactory.getThreadMXBean() as ThreadMXBean
+    val threadIds = threadMXBean.allThreadIds
+    val threadInfos = threadMXBean.getThreadInfo(threadIds)
+    val allocatedBytes = threadMXBean.getThreadAllocatedBytes(threadIds)
+    return threadIds.indices
+        .filter { index -> threadInfos[index]?.threadName?.let(excludedThreads) == false && allocatedBytes[index] >= 0 }
+        .associate { index -> threadIds[index] to allocatedBytes[index] }
+}
+
+/**
+ * The average number of the bytes allocated by the current thread per call of the given block (rounded down), which is
+ * exact (unlike the measurements of the other threads), so it can be asserted by the allocation benchmarks
+ */
+inline fun allocatedBytesPerOperation(operations: Int, block: () -> Unit): Long {
+    val threadMXBean = ManagementFactory.getThreadMXBean() as ThreadMXBean
+    val before = threadMXBean.currentThreadAllocatedBytes
+    repeat(operations) { block() }
+    return (threadMXBean.currentThreadAllocatedBytes - before) / operations
+}
+
+fun reportAllocations(name: String, operations: Int, bytes: Long) {
+    benchmarkLogger.info(
+        String.format("%-60s %10d ops %10d KiB %12d B/op", name, operations, bytes / 1024, bytes / operations)
+    )
+}
+
+/**
+ * Best-effort CPU time used by the JVM's threads while the given block is running, except for the threads that are
+ * matched by [excludedThreads], with the same caveats as [measureAllocations]
+ */
+inline fun <T> measureCpuTime(
+    name: String,
+    operations: Int,
+    noinline excludedThreads: (String) -> Boolean = { false },
+    block: () -> T,
+): T {
+    val before = cpuNanosByThread(excludedThreads)
+    val result = block()
+    val after = cpuNanosByThread(excludedThreads)
+    val cpuNanos = after.entries.sumOf { (threadId, nanos) -> nanos - (before[threadId] ?: 0L) }
+    reportCpuTime(name, operations, cpuNanos)
+    return result
+}
+
+fun cpuNanosByThread(excludedThreads: (String) -> Boolean): Map<Long, Long> {
+    val threadMXBean = ManagementFactory.getThreadMXBean()
+    return threadMXBean.allThreadIds
+        .filter { threadId -> threadMXBean.getThreadInfo(threadId)?.threadName?.let(excludedThreads) == false }
+        .associateWith { threadId -> threadMXBean.getThreadCpuTime(threadId) }
+        .filterValues { it >= 0 }
+}
+
+fun reportCpuTime(name: String, operations: Int, cpuNanos: Long) {
+    val nanosPerOp = cpuNanos.toDouble() / operations.coerceAtLeast(1)
+    benchmarkLogger.info(
+        String.format(
+            "%-60s %10d ops %10d ms %12.1f ns/op %10.0f ops/core/s",
+            name,
+            operations,
+            Duration.ofNanos(cpuNanos).toMillis(),
+            nanosPerOp,
+            Duration.ofSeconds(1).toNanos() / nanosPerOp.coerceAtLeast(1.0),
+        )
+    )
+}
@@ -0,0 +1,221 @@
+package com.kuvaszuptime.kuvasz.testutils
+
+import com.sun.net.httpserver.HttpExchange
+import com.sun.net.httpserver.HttpServer
+import org.bouncycastle.asn1.x509.AccessDescription
+import org.bouncycastle.asn1.x509.AuthorityInformationAccess
+import org.bouncycastle.asn1.x509.BasicConstraints
+import org.bouncycastle.asn1.x509.CRLDistPoint
+import org.bouncycastle.asn1.x509.CRLReason
+import org.bouncycastle.asn1.x509.DistributionPoint
+import org.bouncycastle.asn1.x509.DistributionPointName
+import org.bouncycastle.asn1.x509.Extension
+import org.bouncycastle.asn1.x509.GeneralName
+import org.bouncycastle.asn1.x509.GeneralNames
+import org.bouncycastle.asn1.x509.KeyUsage
+import org.bouncycastle.cert.X509CertificateHolder
+import org.bouncycastle.cert.jcajce.JcaX509CRLConverter
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter
+import org.bouncycastle.cert.jcajce.JcaX509v2CRLBuilder
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder
+import org.bouncycastle.cert.ocsp.CertificateID
+import org.bouncycastle.cert.ocsp.CertificateStatus
+import org.bouncycastle.cert.ocsp.OCSPReq
+import org.bouncycastle.cert.ocsp.OCSPRespBuilder
+import org.bouncycastle.cert.ocsp.RevokedStatus
+import org.bouncycastle.cert.ocsp.jcajce.JcaBasicOCSPRespBuilder
+import org.bouncycastle.cert.ocsp.jcajce.JcaCertificateID
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder
+import org.bouncycastle.operator.jcajce.JcaDigestCalculatorProviderBuilder
+import java.math.BigInteger
+import java.net.HttpURLConnection
+import java.net.InetSocketAddress
+import java.nio.file.Files
+import java.security.KeyPair
+import java.security.KeyPairGenerator
+import java.security.KeyStore
+import java.security.cert.X509Certificate
+import java.time.Duration
+import java.util.Date
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+import javax.security.auth.x500.X500Principal
+
+/**
+ * A stand-in for the OCSP responder and the CRL distribution point of a test CA on localhost. It issues the server
+ * certificates of the CA, that point to its own endpoints, and it answers their revocation status by [revokedSerials].
+ */
+class LocalRevocationResponder : AutoCloseable {
+
+    companion object {
+        private const val KEY_ALGORITHM = "EC"
+        private const val SIGNATURE_ALGORITHM = "SHA256withECDSA"
+        private const val OCSP_PATH = "/ocsp"
+        private const val CRL_PATH = "/crl"
+        private val VALIDITY = Duration.ofDays(30)
+        private val UPDATE_INTERVAL = Duration.ofHours(1)
+    }
+
+    private val keyPairGenerator = KeyPairGenerator.getInstance(KEY_ALGORITHM)
+    private val caKeyPair = keyPairGenerator.generateKeyPair()
+    private val serials = AtomicLong()
+    private val server = HttpServer.create(InetSocketAddress("localhost", 0), 0).apply {
+        createContext(OCSP_PATH) { exchange -> exchange.respondToOcsp() }
+        createContext(CRL_PATH) { exchange -> exchange.respond(crl()) }
+        start()
+    }
+    private val baseUri = "http://localhost:${server.address.port}"
+
+    val caCertificate: X509Certificate = certificate(
+        issuer = X500Principal("CN=Kuvasz Test CA"),
+        subject = X500Principal("CN=Kuvasz Test CA"),
+        keyPair = caKeyPair,
+        signingKeyPair = caKeyPair,
+    ) {
+        addExtension(Extension.basicConstraints, true, BasicConstraints(true))
+        addExtension(Extension.keyUsage, true, KeyUsage(KeyUsage.keyCertSign or KeyUsage.cRLSign))
+    }
+
+    val revokedSerials: MutableSet<BigInteger> = ConcurrentHashMap.newKeySet()
+    val ocspRequests = AtomicInteger()
+    val crlRequests = AtomicInteger()
+
+    @Volatile
+    var ocspAvailable = true
+
+    /**
+     * Issues a server certificate, that points to the OCSP responder and/or the CRL distribution point
+     */
+    fun issue(withOcsp: Boolean = true, withCrl: Boolean = true): X509Certificate {
+        val serial = serials.incrementAndGet()
+        return certificate(
+            issuer = caCertificate.subjectX500Principal,
+            subject = X500Principal("CN=server-$serial.localhost"),
+            keyPair = keyPairGenerator.generateKeyPair(),
+            signingKeyPair = caKeyPair,
+            serial = BigInteger.valueOf(serial),
+        ) {
+            addExtension(Extension.basicConstraints, true, BasicConstraints(false))
+            if (withOcsp) {
+                val responder = GeneralName(GeneralName.uniformResourceIdentifier, "$baseUri$OCSP_PATH")
+                addExtension(
+                    Extension.authorityInfoAccess,
+                    false,
+                    AuthorityInformationAccess(AccessDescription(AccessDescription.id_ad_ocsp, responder)),
+                )
+            }
+            if (withCrl) {
+                val distributionPoint = GeneralName(GeneralName.uniformResourceIdentifier, "$baseUri$CRL_PATH")
+                addExtension(
+                    Extension.cRLDistributionPoints,
+                    false,
+                    CRLDistPoint(
+                        arrayOf(DistributionPoint(DistributionPointName(GeneralNames(distributionPoint)), null, null))
+                    ),
+                )
+            }
+        }
+    }
+
+    /**
+     * The signed OCSP response of the certificate, e.g. to be stapled
+     */
+    fun ocspResponseOf(certificate: X509Certificate): ByteArray =
+        ocspResponse(listOf(JcaCertificateID(digestCalculator(), caCertificate, certificate.serialNumber)))
+
+    /**
+     * Makes the JVM's default trust store trust only the test CA while the block runs
+     */
+    suspend fun <T> trustingTheCa(block: suspend () -> T): T {
+        val trustStore = Files.createTempFile("kuvasz-trust-store", ".p12").toFile()
+        KeyStore.getInstance("PKCS12").apply {
+            load(null, null)
+            setCertificateEntry("ca", caCertificate)
+            trustStore.outputStream().use { store(it, "changeit".toCharArray()) }
+        }
+        val properties = mapOf(
+            "javax.net.ssl.trustStore" to trustStore.absolutePath,
+            "javax.net.ssl.trustStorePassword" to "changeit",
+            "javax.net.ssl.trustStoreType" to "PKCS12",
+        )
+        properties.forEach { (key, value) -> System.setProperty(key, value) }
+        return try {
+            block()
+        } finally {
+            properties.keys.forEach { System.clearProperty(it) }
+            trustStore.delete()
+        }
+    }
+
+    override fun close() {
+        server.stop(0)
+    }
+
+    private fun HttpExchange.respondToOcsp() {
+        ocspRequests.incrementAndGet()
+        if (!ocspAvailable) {
+            sendResponseHeaders(HttpURLConnection.HTTP_UNAVAILABLE, -1)
+            close()
+            return
+        }
+        val request = OCSPReq(requestBody.readAllBytes())
+        respond(ocspResponse(request.requestList.map { it.certID }))
+    }
+
+    private fun HttpExchange.respond(body: ByteArray) {
+        sendResponseHeaders(HttpURLConnection.HTTP_OK, body.size.toLong())
+        responseBody.use { it.write(body) }
+    }
+
+    private fun ocspResponse(certIds: List<CertificateID>): ByteArray {
+        val now = System.currentTimeMillis()
+        val builder = JcaBasicOCSPRespBuilder(caKeyPair.public, digestCalculator())
+        certIds.forEach { certId ->
+            val status = if (certId.serialNumber in revokedSerials) {
+                RevokedStatus(Date(now - UPDATE_INTERVAL.toMillis()), CRLReason.keyCompromise)
+            } else {
+                CertificateStatus.GOOD
+            }
+            builder.addResponse(certId, status, Date(now), Date(now + UPDATE_INTERVAL.toMillis()), null)
+        }
+        val basicResponse = builder.build(signer(), arrayOf<X509CertificateHolder>(), Date(now))
+        return OCSPRespBuilder().build(OCSPRespBuilder.SUCCESSFUL, basicResponse).encoded
+    }
+
+    private fun crl(): ByteArray {
+        crlRequests.incrementAndGet()
+        val now = System.currentTimeMillis()
+        val builder = JcaX509v2CRLBuilder(caCertificate, Date(now))
+            .setNextUpdate(Date(now + UPDATE_INTERVAL.toMillis()))
+        revokedSerials.forEach {
+            builder.addCRLEntry(it, Date(now - UPDATE_INTERVAL.toMillis()), CRLReason.keyCompromise)
+        }
+        return JcaX509CRLConverter().getCRL(builder.build(signer())).encoded
+    }
+
+    private fun certificate(
+        issuer: X500Principal,
+        subject: X500Principal,
+        keyPair: KeyPair,
+        signingKeyPair: KeyPair,
+        serial: BigInteger = BigInteger.ZERO,
+        extensions: JcaX509v3CertificateBuilder.() -> Unit,
+    ): X509Certificate {
+        val now = System.currentTimeMillis()
+        val builder = JcaX509v3CertificateBuilder(
+            issuer,
+            serial,
+            Date(now - UPDATE_INTERVAL.toMillis()),
+            Date(now + VALIDITY.toMillis()),
+            subject,
+            keyPair.public,
+        ).apply(extensions)
+        val signer = JcaContentSignerBuilder(SIGNATURE_ALGORITHM).build(signingKeyPair.private)
+        return JcaX509CertificateConverter().getCertificate(builder.build(signer))
+    }
+
+    private fun signer() = JcaContentSignerBuilder(SIGNATURE_ALGORITHM).build(caKeyPair.private)
+
+    private fun digestCalculator() = JcaDigestCalculatorProviderBuilder().build().get(CertificateID.HASH_SHA1)
+}
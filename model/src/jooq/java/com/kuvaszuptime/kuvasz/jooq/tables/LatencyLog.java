@@ -80,6 +80,36 @@ public class LatencyLog extends TableImpl<LatencyLogRecord> {
      */
     public final TableField<LatencyLogRecord, OffsetDateTime> CREATED_AT = createField(DSL.name("created_at"), SQLDataType.TIMESTAMPWITHTIMEZONE(6).nullable(false).defaultValue(DSL.field(DSL.raw("now()"), SQLDataType.TIMESTAMPWITHTIMEZONE)), this, "");
 
+    /**
+     * The column <code>kuvasz.latency_log.prober_saturated</code>.
+     */
+    public final TableField<LatencyLogRecord, Boolean> PROBER_SATURATED = createField(DSL.name("prober_saturated"), SQLDataType.BOOLEAN.nullable(false).defaultValue(DSL.field(DSL.raw("false"), SQLDataType.BOOLEAN)), this, "");
+
+    /**
+     * The column <code>kuvasz.latency_log.dns_us</code>.
+     */
+    public final TableField<LatencyLogRecord, Integer> DNS_US = createField(DSL.name("dns_us"), SQLDataType.INTEGER, this, "");
+
+    /**
+     * The column <code>kuvasz.latency_log.connect_us</code>.
+     */
+    public final TableField<LatencyLogRecord, Integer> CONNECT_US = createField(DSL.name("connect_us"), SQLDataType.INTEGER, this, "");
+
+    /**
+     * The column <code>kuvasz.latency_log.tls_us</code>.
+     */
+    public final TableField<LatencyLogRecord, Integer> TLS_US = createField(DSL.name("tls_us"), SQLDataType.INTEGER, this, "");
+
+    /**
+     * The column <code>kuvasz.latency_log.ttfb_us</code>.
+     */
+    public final TableField<LatencyLogRecord, Integer> TTFB_US = createField(DSL.name("ttfb_us"), SQLDataType.INTEGER, this, "");
+
+    /**
+     * The column <code>kuvasz.latency_log.transfer_us</code>.
+     */
+    public final TableField<LatencyLogRecord, Integer> TRANSFER_US = createField(DSL.name("transfer_us"), SQLDataType.INTEGER, this, "");
+
     private LatencyLog(Name alias, Table<LatencyLogRecord> aliased) {
         this(alias, aliased, (Field<?>[]) null, null);
     }
@@ -135,6 +135,46 @@ public class Monitor extends TableImpl<MonitorRecord> {
      */
     public final TableField<MonitorRecord, IntegrationID[]> INTEGRATIONS = createField(DSL.name("integrations"), SQLDataType.CLOB.array().nullable(false).defaultValue(DSL.field(DSL.raw("ARRAY[]::text[]"), SQLDataType.CLOB.array())), this, "", new TextArrayToIntegrationIdArrayConverter());
 
+    /**
+     * The column <code>kuvasz.monitor.host_concurrency_limit</code>.
+     */
+    public final TableField<MonitorRecord, Integer> HOST_CONCURRENCY_LIMIT = createField(DSL.name("host_concurrency_limit"), SQLDataType.INTEGER.nullable(false).defaultValue(DSL.field(DSL.raw("0"), SQLDataType.INTEGER)), this, "");
+
+    /**
+     * The column <code>kuvasz.monitor.check_deadline_seconds</code>.
+     */
+    public final TableField<MonitorRecord, Integer> CHECK_DEADLINE_SECONDS = createField(DSL.name("check_deadline_seconds"), SQLDataType.INTEGER.nullable(false).defaultValue(DSL.field(DSL.raw("0"), SQLDataType.INTEGER)), this, "");
+
+    /**
+     * The column <code>kuvasz.monitor.dns_cache_enabled</code>.
+     */
+    public final TableField<MonitorRecord, Boolean> DNS_CACHE_ENABLED = createField(DSL.name("dns_cache_enabled"), SQLDataType.BOOLEAN.nullable(false).defaultValue(DSL.field(DSL.raw("true"), SQLDataType.BOOLEAN)), this, "");
+
+    /**
+     * The column <code>kuvasz.monitor.body_must_contain</code>.
+     */
+    public final TableField<MonitorRecord, String[]> BODY_MUST_CONTAIN = createField(DSL.name("body_must_contain"), SQLDataType.CLOB.array().nullable(false).defaultValue(DSL.field(DSL.raw("ARRAY[]::text[]"), SQLDataType.CLOB.array())), this, "");
+
+    /**
+     * The column <code>kuvasz.monitor.body_must_not_contain</code>.
+     */
+    public final TableField<MonitorRecord, String[]> BODY_MUST_NOT_CONTAIN = createField(DSL.name("body_must_not_contain"), SQLDataType.CLOB.array().nullable(false).defaultValue(DSL.field(DSL.raw("ARRAY[]::text[]"), SQLDataType.CLOB.array())), this, "");
+
+    /**
+     * The column <code>kuvasz.monitor.body_json_assertions</code>.
+     */
+    public final TableField<MonitorRecord, String[]> BODY_JSON_ASSERTIONS = createField(DSL.name("body_json_assertions"), SQLDataType.CLOB.array().nullable(false).defaultValue(DSL.field(DSL.raw("ARRAY[]::text[]"), SQLDataType.CLOB.array())), this, "");
+
+    /**
+     * The column <code>kuvasz.monitor.connection_reuse_enabled</code>.
+     */
+    public final TableField<MonitorRecord, Boolean> CONNECTION_REUSE_ENABLED = createField(DSL.name("connection_reuse_enabled"), SQLDataType.BOOLEAN.nullable(false).defaultValue(DSL.field(DSL.raw("true"), SQLDataType.BOOLEAN)), this, "");
+
+    /**
+     * The column <code>kuvasz.monitor.tls_session_resumption_enabled</code>.
+     */
+    public final TableField<MonitorRecord, Boolean> TLS_SESSION_RESUMPTION_ENABLED = createField(DSL.name("tls_session_resumption_enabled"), SQLDataType.BOOLEAN.nullable(false).defaultValue(DSL.field(DSL.raw("true"), SQLDataType.BOOLEAN)), this, "");
+
     private Monitor(Name alias, Table<MonitorRecord> aliased) {
         this(alias, aliased, (Field<?>[]) null, null);
     }
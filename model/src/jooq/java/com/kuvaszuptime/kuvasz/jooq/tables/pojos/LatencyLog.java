@@ -20,6 +20,12 @@ public class LatencyLog implements Serializable {
     private Long monitorId;
     private Integer latency;
     private OffsetDateTime createdAt;
+    private Boolean proberSaturated;
+    private Integer dnsUs;
+    private Integer connectUs;
+    private Integer tlsUs;
+    private Integer ttfbUs;
+    private Integer transferUs;
 
     public LatencyLog() {}
 
@@ -28,18 +34,36 @@ public class LatencyLog implements Serializable {
         this.monitorId = value.monitorId;
         this.latency = value.latency;
         this.createdAt = value.createdAt;
+        this.proberSaturated = value.proberSaturated;
+        this.dnsUs = value.dnsUs;
+        this.connectUs = value.connectUs;
+        this.tlsUs = value.tlsUs;
+        this.ttfbUs = value.ttfbUs;
+        this.transferUs = value.transferUs;
     }
 
     public LatencyLog(
         Long id,
         Long monitorId,
         Integer latency,
-        OffsetDateTime createdAt
+        OffsetDateTime createdAt,
+        Boolean proberSaturated,
+        Integer dnsUs,
+        Integer connectUs,
+        Integer tlsUs,
+        Integer ttfbUs,
+        Integer transferUs
     ) {
         this.id = id;
         this.monitorId = monitorId;
         this.latency = latency;
         this.createdAt = createdAt;
+        this.proberSaturated = proberSaturated;
+        this.dnsUs = dnsUs;
+        this.connectUs = connectUs;
+        this.tlsUs = tlsUs;
+        this.ttfbUs = ttfbUs;
+        this.transferUs = transferUs;
     }
 
     /**
@@ -102,6 +126,96 @@ public class LatencyLog implements Serializable {
         return this;
     }
 
+    /**
+     * Getter for <code>kuvasz.latency_log.prober_saturated</code>.
+     */
+    public Boolean getProberSaturated() {
+        return this.proberSaturated;
+    }
+
+    /**
+     * Setter for <code>kuvasz.latency_log.prober_saturated</code>.
+     */
+    public LatencyLog setProberSaturated(Boolean proberSaturated) {
+        this.proberSaturated = proberSaturated;
+        return this;
+    }
+
+    /**
+     * Getter for <code>kuvasz.latency_log.dns_us</code>.
+     */
+    public Integer getDnsUs() {
+        return this.dnsUs;
+    }
+
+    /**
+     * Setter for <code>kuvasz.latency_log.dns_us</code>.
+     */
+    public LatencyLog setDnsUs(Integer dnsUs) {
+        this.dnsUs = dnsUs;
+        return this;
+    }
+
+    /**
+     * Getter for <code>kuvasz.latency_log.connect_us</code>.
+     */
+    public Integer getConnectUs() {
+        return this.connectUs;
+    }
+
+    /**
+     * Setter for <code>kuvasz.latency_log.connect_us</code>.
+     */
+    public LatencyLog setConnectUs(Integer connectUs) {
+        this.connectUs = connectUs;
+        return this;
+    }
+
+    /**
+     * Getter for <code>kuvasz.latency_log.tls_us</code>.
+     */
+    public Integer getTlsUs() {
+        return this.tlsUs;
+    }
+
+    /**
+     * Setter for <code>kuvasz.latency_log.tls_us</code>.
+     */
+    public LatencyLog setTlsUs(Integer tlsUs) {
+        this.tlsUs = tlsUs;
+        return this;
+    }
+
+    /**
+     * Getter for <code>kuvasz.latency_log.ttfb_us</code>.
+     */
+    public Integer getTtfbUs() {
+        return this.ttfbUs;
+    }
+
+    /**
+     * Setter for <code>kuvasz.latency_log.ttfb_us</code>.
+     */
+    public LatencyLog setTtfbUs(Integer ttfbUs) {
+        this.ttfbUs = ttfbUs;
+        return this;
+    }
+
+    /**
+     * Getter for <code>kuvasz.latency_log.transfer_us</code>.
+     */
+    public Integer getTransferUs() {
+        return this.transferUs;
+    }
+
+    /**
+     * Setter for <code>kuvasz.latency_log.transfer_us</code>.
+     */
+    public LatencyLog setTransferUs(Integer transferUs) {
+        this.transferUs = transferUs;
+        return this;
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (this == obj)
@@ -135,6 +249,42 @@ public class LatencyLog implements Serializable {
         }
         else if (!this.createdAt.equals(other.createdAt))
             return false;
+        if (this.proberSaturated == null) {
+            if (other.proberSaturated != null)
+                return false;
+        }
+        else if (!this.proberSaturated.equals(other.proberSaturated))
+            return false;
+        if (this.dnsUs == null) {
+            if (other.dnsUs != null)
+                return false;
+        }
+        else if (!this.dnsUs.equals(other.dnsUs))
+            return false;
+        if (this.connectUs == null) {
+            if (other.connectUs != null)
+                return false;
+        }
+        else if (!this.connectUs.equals(other.connectUs))
+            return false;
+        if (this.tlsUs == null) {
+            if (other.tlsUs != null)
+                return false;
+        }
+        else if (!this.tlsUs.equals(other.tlsUs))
+            return false;
+        if (this.ttfbUs == null) {
+            if (other.ttfbUs != null)
+                return false;
+        }
+        else if (!this.ttfbUs.equals(other.ttfbUs))
+            return false;
+        if (this.transferUs == null) {
+            if (other.transferUs != null)
+                return false;
+        }
+        else if (!this.transferUs.equals(other.transferUs))
+            return false;
         return true;
     }
 
@@ -146,6 +296,12 @@ public class LatencyLog implements Serializable {
         result = prime * result + ((this.monitorId == null) ? 0 : this.monitorId.hashCode());
         result = prime * result + ((this.latency == null) ? 0 : this.latency.hashCode());
         result = prime * result + ((this.createdAt == null) ? 0 : this.createdAt.hashCode());
+        result = prime * result + ((this.proberSaturated == null) ? 0 : this.proberSaturated.hashCode());
+        result = prime * result + ((this.dnsUs == null) ? 0 : this.dnsUs.hashCode());
+        result = prime * result + ((this.connectUs == null) ? 0 : this.connectUs.hashCode());
+        result = prime * result + ((this.tlsUs == null) ? 0 : this.tlsUs.hashCode());
+        result = prime * result + ((this.ttfbUs == null) ? 0 : this.ttfbUs.hashCode());
+        result = prime * result + ((this.transferUs == null) ? 0 : this.transferUs.hashCode());
         return result;
     }
 
@@ -157,6 +313,12 @@ public class LatencyLog implements Serializable {
         sb.append(", ").append(monitorId);
         sb.append(", ").append(latency);
         sb.append(", ").append(createdAt);
+        sb.append(", ").append(proberSaturated);
+        sb.append(", ").append(dnsUs);
+        sb.append(", ").append(connectUs);
+        sb.append(", ").append(tlsUs);
+        sb.append(", ").append(ttfbUs);
+        sb.append(", ").append(transferUs);
 
         sb.append(")");
         return sb.toString();
@@ -34,6 +34,14 @@ public class Monitor implements Serializable {
     private HttpMethod requestMethod;
     private Integer sslExpiryThreshold;
     private IntegrationID[] integrations;
+    private Integer hostConcurrencyLimit;
+    private Integer checkDeadlineSeconds;
+    private Boolean dnsCacheEnabled;
+    private String[] bodyMustContain;
+    private String[] bodyMustNotContain;
+    private String[] bodyJsonAssertions;
+    private Boolean connectionReuseEnabled;
+    private Boolean tlsSessionResumptionEnabled;
 
     public Monitor() {}
 
@@ -52,6 +60,14 @@ public class Monitor implements Serializable {
         this.requestMethod = value.requestMethod;
         this.sslExpiryThreshold = value.sslExpiryThreshold;
         this.integrations = value.integrations;
+        this.hostConcurrencyLimit = value.hostConcurrencyLimit;
+        this.checkDeadlineSeconds = value.checkDeadlineSeconds;
+        this.dnsCacheEnabled = value.dnsCacheEnabled;
+        this.bodyMustContain = value.bodyMustContain;
+        this.bodyMustNotContain = value.bodyMustNotContain;
+        this.bodyJsonAssertions = value.bodyJsonAssertions;
+        this.connectionReuseEnabled = value.connectionReuseEnabled;
+        this.tlsSessionResumptionEnabled = value.tlsSessionResumptionEnabled;
     }
 
     public Monitor(
@@ -68,7 +84,15 @@ public class Monitor implements Serializable {
         Boolean forceNoCache,
         HttpMethod requestMethod,
         Integer sslExpiryThreshold,
-        IntegrationID[] integrations
+        IntegrationID[] integrations,
+        Integer hostConcurrencyLimit,
+        Integer checkDeadlineSeconds,
+        Boolean dnsCacheEnabled,
+        String[] bodyMustContain,
+        String[] bodyMustNotContain,
+        String[] bodyJsonAssertions,
+        Boolean connectionReuseEnabled,
+        Boolean tlsSessionResumptionEnabled
     ) {
         this.id = id;
         this.name = name;
@@ -84,6 +108,14 @@ public class Monitor implements Serializable {
         this.requestMethod = requestMethod;
         this.sslExpiryThreshold = sslExpiryThreshold;
         this.integrations = integrations;
+        this.hostConcurrencyLimit = hostConcurrencyLimit;
+        this.checkDeadlineSeconds = checkDeadlineSeconds;
+        this.dnsCacheEnabled = dnsCacheEnabled;
+        this.bodyMustContain = bodyMustContain;
+        this.bodyMustNotContain = bodyMustNotContain;
+        this.bodyJsonAssertions = bodyJsonAssertions;
+        this.connectionReuseEnabled = connectionReuseEnabled;
+        this.tlsSessionResumptionEnabled = tlsSessionResumptionEnabled;
     }
 
     /**
@@ -300,6 +332,126 @@ public class Monitor implements Serializable {
         return this;
     }
 
+    /**
+     * Getter for <code>kuvasz.monitor.host_concurrency_limit</code>.
+     */
+    public Integer getHostConcurrencyLimit() {
+        return this.hostConcurrencyLimit;
+    }
+
+    /**
+     * Setter for <code>kuvasz.monitor.host_concurrency_limit</code>.
+     */
+    public Monitor setHostConcurrencyLimit(Integer hostConcurrencyLimit) {
+        this.hostConcurrencyLimit = hostConcurrencyLimit;
+        return this;
+    }
+
+    /**
+     * Getter for <code>kuvasz.monitor.check_deadline_seconds</code>.
+     */
+    public Integer getCheckDeadlineSeconds() {
+        return this.checkDeadlineSeconds;
+    }
+
+    /**
+     * Setter for <code>kuvasz.monitor.check_deadline_seconds</code>.
+     */
+    public Monitor setCheckDeadlineSeconds(Integer checkDeadlineSeconds) {
+        this.checkDeadlineSeconds = checkDeadlineSeconds;
+        return this;
+    }
+
+    /**
+     * Getter for <code>kuvasz.monitor.dns_cache_enabled</code>.
+     */
+    public Boolean getDnsCacheEnabled() {
+        return this.dnsCacheEnabled;
+    }
+
+    /**
+     * Setter for <code>kuvasz.monitor.dns_cache_enabled</code>.
+     */
+    public Monitor setDnsCacheEnabled(Boolean dnsCacheEnabled) {
+        this.dnsCacheEnabled = dnsCacheEnabled;
+        return this;
+    }
+
+    /**
+     * Getter for <code>kuvasz.monitor.body_must_contain</code>.
+     */
+    public String[] getBodyMustContain() {
+        return this.bodyMustContain;
+    }
+
+    /**
+     * Setter for <code>kuvasz.monitor.body_must_contain</code>.
+     */
+    public Monitor setBodyMustContain(String[] bodyMustContain) {
+        this.bodyMustContain = bodyMustContain;
+        return this;
+    }
+
+    /**
+     * Getter for <code>kuvasz.monitor.body_must_not_contain</code>.
+     */
+    public String[] getBodyMustNotContain() {
+        return this.bodyMustNotContain;
+    }
+
+    /**
+     * Setter for <code>kuvasz.monitor.body_must_not_contain</code>.
+     */
+    public Monitor setBodyMustNotContain(String[] bodyMustNotContain) {
+        this.bodyMustNotContain = bodyMustNotContain;
+        return this;
+    }
+
+    /**
+     * Getter for <code>kuvasz.monitor.body_json_assertions</code>.
+     */
+    public String[] getBodyJsonAssertions() {
+        return this.bodyJsonAssertions;
+    }
+
+    /**
+     * Setter for <code>kuvasz.monitor.body_json_assertions</code>.
+     */
+    public Monitor setBodyJsonAssertions(String[] bodyJsonAssertions) {
+        this.bodyJsonAssertions = bodyJsonAssertions;
+        return this;
+    }
+
+    /**
+     * Getter for <code>kuvasz.monitor.connection_reuse_enabled</code>.
+     */
+    public Boolean getConnectionReuseEnabled() {
+        return this.connectionReuseEnabled;
+    }
+
+    /**
+     * Setter for <code>kuvasz.monitor.connection_reuse_enabled</code>.
+     */
+    public Monitor setConnectionReuseEnabled(Boolean connectionReuseEnabled) {
+        this.connectionReuseEnabled = connectionReuseEnabled;
+        return this;
+    }
+
+    /**
+     * Getter for <code>kuvasz.monitor.tls_session_resumption_enabled</code>.
+     */
+    public Boolean getTlsSessionResumptionEnabled() {
+        return this.tlsSessionResumptionEnabled;
+    }
+
+    /**
+     * Setter for <code>kuvasz.monitor.tls_session_resumption_enabled</code>.
+     */
+    public Monitor setTlsSessionResumptionEnabled(Boolean tlsSessionResumptionEnabled) {
+        this.tlsSessionResumptionEnabled = tlsSessionResumptionEnabled;
+        return this;
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (this == obj)
@@ -393,6 +545,54 @@ public class Monitor implements Serializable {
         }
         else if (!Arrays.deepEquals(this.integrations, other.integrations))
             return false;
+        if (this.hostConcurrencyLimit == null) {
+            if (other.hostConcurrencyLimit != null)
+                return false;
+        }
+        else if (!this.hostConcurrencyLimit.equals(other.hostConcurrencyLimit))
+            return false;
+        if (this.checkDeadlineSeconds == null) {
+            if (other.checkDeadlineSeconds != null)
+                return false;
+        }
+        else if (!this.checkDeadlineSeconds.equals(other.checkDeadlineSeconds))
+            return false;
+        if (this.dnsCacheEnabled == null) {
+            if (other.dnsCacheEnabled != null)
+                return false;
+        }
+        else if (!this.dnsCacheEnabled.equals(other.dnsCacheEnabled))
+            return false;
+        if (this.bodyMustContain == null) {
+            if (other.bodyMustContain != null)
+                return false;
+        }
+        else if (!Arrays.deepEquals(this.bodyMustContain, other.bodyMustContain))
+            return false;
+        if (this.bodyMustNotContain == null) {
+            if (other.bodyMustNotContain != null)
+                return false;
+        }
+        else if (!Arrays.deepEquals(this.bodyMustNotContain, other.bodyMustNotContain))
+            return false;
+        if (this.bodyJsonAssertions == null) {
+            if (other.bodyJsonAssertions != null)
+                return false;
+        }
+        else if (!Arrays.deepEquals(this.bodyJsonAssertions, other.bodyJsonAssertions))
+            return false;
+        if (this.connectionReuseEnabled == null) {
+            if (other.connectionReuseEnabled != null)
+                return false;
+        }
+        else if (!this.connectionReuseEnabled.equals(other.connectionReuseEnabled))
+            return false;
+        if (this.tlsSessionResumptionEnabled == null) {
+            if (other.tlsSessionResumptionEnabled != null)
+                return false;
+        }
+        else if (!this.tlsSessionResumptionEnabled.equals(other.tlsSessionResumptionEnabled))
+            return false;
         return true;
     }
 
@@ -414,6 +614,14 @@ public class Monitor implements Serializable {
         result = prime * result + ((this.requestMethod == null) ? 0 : this.requestMethod.hashCode());
         result = prime * result + ((this.sslExpiryThreshold == null) ? 0 : this.sslExpiryThreshold.hashCode());
         result = prime * result + ((this.integrations == null) ? 0 : Arrays.deepHashCode(this.integrations));
+        result = prime * result + ((this.hostConcurrencyLimit == null) ? 0 : this.hostConcurrencyLimit.hashCode());
+        result = prime * result + ((this.checkDeadlineSeconds == null) ? 0 : this.checkDeadlineSeconds.hashCode());
+        result = prime * result + ((this.dnsCacheEnabled == null) ? 0 : this.dnsCacheEnabled.hashCode());
+        result = prime * result + ((this.bodyMustContain == null) ? 0 : Arrays.deepHashCode(this.bodyMustContain));
+        result = prime * result + ((this.bodyMustNotContain == null) ? 0 : Arrays.deepHashCode(this.bodyMustNotContain));
+        result = prime * result + ((this.bodyJsonAssertions == null) ? 0 : Arrays.deepHashCode(this.bodyJsonAssertions));
+        result = prime * result + ((this.connectionReuseEnabled == null) ? 0 : this.connectionReuseEnabled.hashCode());
+        result = prime * result + ((this.tlsSessionResumptionEnabled == null) ? 0 : this.tlsSessionResumptionEnabled.hashCode());
         return result;
     }
 
@@ -435,6 +643,14 @@ public class Monitor implements Serializable {
         sb.append(", ").append(requestMethod);
         sb.append(", ").append(sslExpiryThreshold);
         sb.append(", ").append(Arrays.deepToString(integrations));
+        sb.append(", ").append(hostConcurrencyLimit);
+        sb.append(", ").append(checkDeadlineSeconds);
+        sb.append(", ").append(dnsCacheEnabled);
+        sb.append(", ").append(Arrays.deepToString(bodyMustContain));
+        sb.append(", ").append(Arrays.deepToString(bodyMustNotContain));
+        sb.append(", ").append(Arrays.deepToString(bodyJsonAssertions));
+        sb.append(", ").append(connectionReuseEnabled);
+        sb.append(", ").append(tlsSessionResumptionEnabled);
 
         sb.append(")");
         return sb.toString();
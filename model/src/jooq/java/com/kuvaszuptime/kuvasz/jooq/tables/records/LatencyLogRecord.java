@@ -80,6 +80,96 @@ public class LatencyLogRecord extends UpdatableRecordImpl<LatencyLogRecord> {
         return (OffsetDateTime) get(3);
     }
 
+    /**
+     * Setter for <code>kuvasz.latency_log.prober_saturated</code>.
+     */
+    public LatencyLogRecord setProberSaturated(Boolean value) {
+        set(4, value);
+        return this;
+    }
+
+    /**
+     * Getter for <code>kuvasz.latency_log.prober_saturated</code>.
+     */
+    public Boolean getProberSaturated() {
+        return (Boolean) get(4);
+    }
+
+    /**
+     * Setter for <code>kuvasz.latency_log.dns_us</code>.
+     */
+    public LatencyLogRecord setDnsUs(Integer value) {
+        set(5, value);
+        return this;
+    }
+
+    /**
+     * Getter for <code>kuvasz.latency_log.dns_us</code>.
+     */
+    public Integer getDnsUs() {
+        return (Integer) get(5);
+    }
+
+    /**
+     * Setter for <code>kuvasz.latency_log.connect_us</code>.
+     */
+    public LatencyLogRecord setConnectUs(Integer value) {
+        set(6, value);
+        return this;
+    }
+
+    /**
+     * Getter for <code>kuvasz.latency_log.connect_us</code>.
+     */
+    public Integer getConnectUs() {
+        return (Integer) get(6);
+    }
+
+    /**
+     * Setter for <code>kuvasz.latency_log.tls_us</code>.
+     */
+    public LatencyLogRecord setTlsUs(Integer value) {
+        set(7, value);
+        return this;
+    }
+
+    /**
+     * Getter for <code>kuvasz.latency_log.tls_us</code>.
+     */
+    public Integer getTlsUs() {
+        return (Integer) get(7);
+    }
+
+    /**
+     * Setter for <code>kuvasz.latency_log.ttfb_us</code>.
+     */
+    public LatencyLogRecord setTtfbUs(Integer value) {
+        set(8, value);
+        return this;
+    }
+
+    /**
+     * Getter for <code>kuvasz.latency_log.ttfb_us</code>.
+     */
+    public Integer getTtfbUs() {
+        return (Integer) get(8);
+    }
+
+    /**
+     * Setter for <code>kuvasz.latency_log.transfer_us</code>.
+     */
+    public LatencyLogRecord setTransferUs(Integer value) {
+        set(9, value);
+        return this;
+    }
+
+    /**
+     * Getter for <code>kuvasz.latency_log.transfer_us</code>.
+     */
+    public Integer getTransferUs() {
+        return (Integer) get(9);
+    }
+
     // -------------------------------------------------------------------------
     // Primary key information
     // -------------------------------------------------------------------------
@@ -103,13 +193,19 @@ public class LatencyLogRecord extends UpdatableRecordImpl<LatencyLogRecord> {
     /**
      * Create a detached, initialised LatencyLogRecord
      */
-    public LatencyLogRecord(Long id, Long monitorId, Integer latency, OffsetDateTime createdAt) {
+    public LatencyLogRecord(Long id, Long monitorId, Integer latency, OffsetDateTime createdAt, Boolean proberSaturated, Integer dnsUs, Integer connectUs, Integer tlsUs, Integer ttfbUs, Integer transferUs) {
         super(LatencyLog.LATENCY_LOG);
 
         setId(id);
         setMonitorId(monitorId);
         setLatency(latency);
         setCreatedAt(createdAt);
+        setProberSaturated(proberSaturated);
+        setDnsUs(dnsUs);
+        setConnectUs(connectUs);
+        setTlsUs(tlsUs);
+        setTtfbUs(ttfbUs);
+        setTransferUs(transferUs);
         resetTouchedOnNotNull();
     }
 
@@ -124,6 +220,12 @@ public class LatencyLogRecord extends UpdatableRecordImpl<LatencyLogRecord> {
             setMonitorId(value.getMonitorId());
             setLatency(value.getLatency());
             setCreatedAt(value.getCreatedAt());
+            setProberSaturated(value.getProberSaturated());
+            setDnsUs(value.getDnsUs());
+            setConnectUs(value.getConnectUs());
+            setTlsUs(value.getTlsUs());
+            setTtfbUs(value.getTtfbUs());
+            setTransferUs(value.getTransferUs());
             resetTouchedOnNotNull();
         }
     }
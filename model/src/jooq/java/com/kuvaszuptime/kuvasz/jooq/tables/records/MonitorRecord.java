@@ -236,6 +236,126 @@ public class MonitorRecord extends UpdatableRecordImpl<MonitorRecord> {
         return (IntegrationID[]) get(13);
     }
 
+    /**
+     * Setter for <code>kuvasz.monitor.host_concurrency_limit</code>.
+     */
+    public MonitorRecord setHostConcurrencyLimit(Integer value) {
+        set(14, value);
+        return this;
+    }
+
+    /**
+     * Getter for <code>kuvasz.monitor.host_concurrency_limit</code>.
+     */
+    public Integer getHostConcurrencyLimit() {
+        return (Integer) get(14);
+    }
+
+    /**
+     * Setter for <code>kuvasz.monitor.check_deadline_seconds</code>.
+     */
+    public MonitorRecord setCheckDeadlineSeconds(Integer value) {
+        set(15, value);
+        return this;
+    }
+
+    /**
+     * Getter for <code>kuvasz.monitor.check_deadline_seconds</code>.
+     */
+    public Integer getCheckDeadlineSeconds() {
+        return (Integer) get(15);
+    }
+
+    /**
+     * Setter for <code>kuvasz.monitor.dns_cache_enabled</code>.
+     */
+    public MonitorRecord setDnsCacheEnabled(Boolean value) {
+        set(16, value);
+        return this;
+    }
+
+    /**
+     * Getter for <code>kuvasz.monitor.dns_cache_enabled</code>.
+     */
+    public Boolean getDnsCacheEnabled() {
+        return (Boolean) get(16);
+    }
+
+    /**
+     * Setter for <code>kuvasz.monitor.body_must_contain</code>.
+     */
+    public MonitorRecord setBodyMustContain(String[] value) {
+        set(17, value);
+        return this;
+    }
+
+    /**
+     * Getter for <code>kuvasz.monitor.body_must_contain</code>.
+     */
+    public String[] getBodyMustContain() {
+        return (String[]) get(17);
+    }
+
+    /**
+     * Setter for <code>kuvasz.monitor.body_must_not_contain</code>.
+     */
+    public MonitorRecord setBodyMustNotContain(String[] value) {
+        set(18, value);
+        return this;
+    }
+
+    /**
+     * Getter for <code>kuvasz.monitor.body_must_not_contain</code>.
+     */
+    public String[] getBodyMustNotContain() {
+        return (String[]) get(18);
+    }
+
+    /**
+     * Setter for <code>kuvasz.monitor.body_json_assertions</code>.
+     */
+    public MonitorRecord setBodyJsonAssertions(String[] value) {
+        set(19, value);
+        return this;
+    }
+
+    /**
+     * Getter for <code>kuvasz.monitor.body_json_assertions</code>.
+     */
+    public String[] getBodyJsonAssertions() {
+        return (String[]) get(19);
+    }
+
+    /**
+     * Setter for <code>kuvasz.monitor.connection_reuse_enabled</code>.
+     */
+    public MonitorRecord setConnectionReuseEnabled(Boolean value) {
+        set(20, value);
+        return this;
+    }
+
+    /**
+     * Getter for <code>kuvasz.monitor.connection_reuse_enabled</code>.
+     */
+    public Boolean getConnectionReuseEnabled() {
+        return (Boolean) get(20);
+    }
+
+    /**
+     * Setter for <code>kuvasz.monitor.tls_session_resumption_enabled</code>.
+     */
+    public MonitorRecord setTlsSessionResumptionEnabled(Boolean value) {
+        set(21, value);
+        return this;
+    }
+
+    /**
+     * Getter for <code>kuvasz.monitor.tls_session_resumption_enabled</code>.
+     */
+    public Boolean getTlsSessionResumptionEnabled() {
+        return (Boolean) get(21);
+    }
+
     // -------------------------------------------------------------------------
     // Primary key information
     // -------------------------------------------------------------------------
@@ -259,7 +379,7 @@ public class MonitorRecord extends UpdatableRecordImpl<MonitorRecord> {
     /**
      * Create a detached, initialised MonitorRecord
      */
-    public MonitorRecord(Long id, String name, String url, Integer uptimeCheckInterval, Boolean enabled, OffsetDateTime createdAt, OffsetDateTime updatedAt, Boolean sslCheckEnabled, Boolean latencyHistoryEnabled, Boolean followRedirects, Boolean forceNoCache, HttpMethod requestMethod, Integer sslExpiryThreshold, IntegrationID[] integrations) {
+    public MonitorRecord(Long id, String name, String url, Integer uptimeCheckInterval, Boolean enabled, OffsetDateTime createdAt, OffsetDateTime updatedAt, Boolean sslCheckEnabled, Boolean latencyHistoryEnabled, Boolean followRedirects, Boolean forceNoCache, HttpMethod requestMethod, Integer sslExpiryThreshold, IntegrationID[] integrations, Integer hostConcurrencyLimit, Integer checkDeadlineSeconds, Boolean dnsCacheEnabled, String[] bodyMustContain, String[] bodyMustNotContain, String[] bodyJsonAssertions, Boolean connectionReuseEnabled, Boolean tlsSessionResumptionEnabled) {
         super(Monitor.MONITOR);
 
         setId(id);
@@ -276,6 +396,14 @@ public class MonitorRecord extends UpdatableRecordImpl<MonitorRecord> {
         setRequestMethod(requestMethod);
         setSslExpiryThreshold(sslExpiryThreshold);
         setIntegrations(integrations);
+        setHostConcurrencyLimit(hostConcurrencyLimit);
+        setCheckDeadlineSeconds(checkDeadlineSeconds);
+        setDnsCacheEnabled(dnsCacheEnabled);
+        setBodyMustContain(bodyMustContain);
+        setBodyMustNotContain(bodyMustNotContain);
+        setBodyJsonAssertions(bodyJsonAssertions);
+        setConnectionReuseEnabled(connectionReuseEnabled);
+        setTlsSessionResumptionEnabled(tlsSessionResumptionEnabled);
         resetTouchedOnNotNull();
     }
 
@@ -300,6 +428,14 @@ public class MonitorRecord extends UpdatableRecordImpl<MonitorRecord> {
             setRequestMethod(value.getRequestMethod());
             setSslExpiryThreshold(value.getSslExpiryThreshold());
             setIntegrations(value.getIntegrations());
+            setHostConcurrencyLimit(value.getHostConcurrencyLimit());
+            setCheckDeadlineSeconds(value.getCheckDeadlineSeconds());
+            setDnsCacheEnabled(value.getDnsCacheEnabled());
+            setBodyMustContain(value.getBodyMustContain());
+            setBodyMustNotContain(value.getBodyMustNotContain());
+            setBodyJsonAssertions(value.getBodyJsonAssertions());
+            setConnectionReuseEnabled(value.getConnectionReuseEnabled());
+            setTlsSessionResumptionEnabled(value.getTlsSessionResumptionEnabled());
             resetTouchedOnNotNull();
         }
     }
@@ -1,5 +1,6 @@
 package com.kuvaszuptime.kuvasz.models
 
+import com.kuvaszuptime.kuvasz.models.checks.JsonAssertionResult
 import io.micronaut.core.annotation.Introspected
 
 @Introspected
@@ -38,7 +39,38 @@ class InvalidRedirectionException(
     override val message: String
 ) : UptimeCheckException()
 
+class CheckDeadlineExceededException(
+    val deadlineSeconds: Long,
+    override val message: String? = "The check did not finish within its deadline of $deadlineSeconds seconds",
+) : UptimeCheckException()
+
+class InvalidResponseException(
+    override val message: String
+) : UptimeCheckException()
+
 class IneligibleStatusCodeException(
     val statusCode: Int,
     override val message: String? = "The status code $statusCode is not eligible for the check"
 ) : UptimeCheckException()
+
+class ContentAssertionFailedException(
+    val missing: List<String>,
+    val forbiddenFound: List<String>,
+    override val message: String? = listOfNotNull(
+        missing.takeIf { it.isNotEmpty() }?.let { "The response body does not contain: ${it.quoted()}" },
+        forbiddenFound.takeIf { it.isNotEmpty() }?.let { "The response body contains: ${it.quoted()}" },
+    ).joinToString("; "),
+) : UptimeCheckException()
+
+class JsonAssertionFailedException(
+    val result: JsonAssertionResult,
+    override val message: String? = listOfNotNull(
+        result.parseError?.let { "The response body is not a valid JSON: $it" },
+        result.missing.takeIf { it.isNotEmpty() }?.let { "The JSON body does not contain: ${it.quoted()}" },
+        result.mismatched.takeIf { it.isNotEmpty() }?.joinToString { mismatch ->
+            "\"${mismatch.pointer}\" is \"${mismatch.actual}\" instead of \"${mismatch.expected}\""
+        },
+    ).joinToString("; "),
+) : UptimeCheckException()
+
+private fun List<String>.quoted(): String = joinToString { "\"$it\"" }
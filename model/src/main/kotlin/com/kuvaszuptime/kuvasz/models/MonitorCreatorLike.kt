@@ -33,6 +33,26 @@ interface MonitorCreatorLike {
     @get:PositiveOrZero
     val sslExpiryThreshold: Int
 
+    @get:NotNull
+    @get:PositiveOrZero
+    val hostConcurrencyLimit: Int
+
+    @get:NotNull
+    @get:PositiveOrZero
+    val checkDeadlineSeconds: Int
+
+    val dnsCacheEnabled: Boolean
+
+    val connectionReuseEnabled: Boolean
+
+    val tlsSessionResumptionEnabled: Boolean
+
+    val bodyMustContain: List<String>?
+
+    val bodyMustNotContain: List<String>?
+
+    val bodyJsonAssertions: List<@Pattern(regexp = Validation.JSON_ASSERTION_REGEX) String>?
+
     val integrations: List<String>?
 }
 
@@ -48,4 +68,18 @@ fun MonitorCreatorLike.toMonitorRecord(validatedIntegrations: Set<IntegrationID>
         .setForceNoCache(forceNoCache)
         .setFollowRedirects(followRedirects)
         .setSslExpiryThreshold(sslExpiryThreshold)
+        .setHostConcurrencyLimit(hostConcurrencyLimit)
+        .setCheckDeadlineSeconds(checkDeadlineSeconds)
+        .setDnsCacheEnabled(dnsCacheEnabled)
+        .setConnectionReuseEnabled(connectionReuseEnabled)
+        .setTlsSessionResumptionEnabled(tlsSessionResumptionEnabled)
+        .setBodyMustContain(bodyMustContain.toContentPatterns())
+        .setBodyMustNotContain(bodyMustNotContain.toContentPatterns())
+        .setBodyJsonAssertions(bodyJsonAssertions.orEmpty().distinct().toTypedArray())
         .setIntegrations(validatedIntegrations.toTypedArray())
+
+/**
+ * The empty strings would match any body, so they're dropped together with the duplicates
+ */
+fun List<String>?.toContentPatterns(): Array<String> =
+    orEmpty().filter { it.isNotEmpty() }.distinct().toTypedArray()
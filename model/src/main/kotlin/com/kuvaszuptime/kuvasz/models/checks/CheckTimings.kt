@@ -0,0 +1,24 @@
+package com.kuvaszuptime.kuvasz.models.checks
+
+/**
+ * The breakdown of a single HTTP request into its phases, measured on a monotonic clock
+ *
+ * The connection related phases are null, if they didn't happen during the request, e.g. a pooled connection was
+ * reused, or the request was sent over plain HTTP (i.e. there was no TLS handshake)
+ *
+ * @property dnsNanos The time it took to resolve the host
+ * @property connectNanos The time it took to establish the TCP connection
+ * @property tlsNanos The time it took to complete the TLS handshake
+ * @property ttfbNanos The time between sending the request and receiving the head of the response
+ * @property transferNanos The time it took to receive the rest of the response
+ */
+data class CheckTimings(
+    val dnsNanos: Long?,
+    val connectNanos: Long?,
+    val tlsNanos: Long?,
+    val ttfbNanos: Long,
+    val transferNanos: Long,
+) {
+    val totalNanos: Long
+        get() = (dnsNanos ?: 0) + (connectNanos ?: 0) + (tlsNanos ?: 0) + ttfbNanos + transferNanos
+}
@@ -0,0 +1,15 @@
+package com.kuvaszuptime.kuvasz.models.checks
+
+/**
+ * The outcome of matching the content assertions of a monitor against a response body
+ *
+ * @property missing The patterns that had to be in the body, but weren't found in it
+ * @property forbiddenFound The patterns that must not be in the body, but were found in it
+ */
+data class ContentAssertionResult(
+    val missing: List<String>,
+    val forbiddenFound: List<String>,
+) {
+    val passed: Boolean
+        get() = missing.isEmpty() && forbiddenFound.isEmpty()
+}
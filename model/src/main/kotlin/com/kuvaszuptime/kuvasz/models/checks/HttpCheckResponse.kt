@@ -1,11 +1,14 @@
 package com.kuvaszuptime.kuvasz.models.checks
 
-import io.micronaut.core.io.buffer.ByteBuffer
 import io.micronaut.http.HttpResponse
 
 data class HttpCheckResponse(
     val httpResponse: RawHttpResponse,
     val latency: Int,
+    val proberSaturated: Boolean = false,
+    val timings: CheckTimings? = null,
+    val contentAssertions: ContentAssertionResult? = null,
+    val jsonAssertions: JsonAssertionResult? = null,
 )
 
-typealias RawHttpResponse = HttpResponse<ByteBuffer<Any>>
+typealias RawHttpResponse = HttpResponse<*>
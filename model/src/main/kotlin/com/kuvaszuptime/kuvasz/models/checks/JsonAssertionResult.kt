@@ -0,0 +1,23 @@
+package com.kuvaszuptime.kuvasz.models.checks
+
+/**
+ * The outcome of evaluating the JSON assertions of a monitor against a response body
+ *
+ * @property missing The JSON Pointers that weren't found in the body
+ * @property mismatched The values that were found, but they're different than the expected ones
+ * @property parseError The reason why the body couldn't be parsed as JSON, if it's not a valid JSON
+ */
+data class JsonAssertionResult(
+    val missing: List<String>,
+    val mismatched: List<JsonValueMismatch>,
+    val parseError: String? = null,
+) {
+    val passed: Boolean
+        get() = missing.isEmpty() && mismatched.isEmpty() && parseError == null
+}
+
+data class JsonValueMismatch(
+    val pointer: String,
+    val expected: String,
+    val actual: String,
+)
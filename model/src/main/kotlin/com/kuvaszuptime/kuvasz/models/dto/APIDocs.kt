@@ -21,6 +21,33 @@ object MonitorDocs {
     const val UPTIME_ERROR = "The error message if the last uptime check failed"
     const val SSL_ERROR = "The error message if the last SSL check failed"
     const val SSL_EXPIRY_THRESHOLD = "The threshold in days for SSL certificate expiry checks"
+    const val HOST_CONCURRENCY_LIMIT =
+        "The maximum number of concurrent uptime checks against the monitor's host (scheme, host and port). " +
+            "0 means that the global limit is used."
+    const val CHECK_DEADLINE_SECONDS =
+        "The total time in seconds that an uptime check can take, including every redirect and retry. If it's " +
+            "exceeded, the check is cancelled, and the monitor is considered DOWN. 0 means that the global deadline " +
+            "is used."
+    const val DNS_CACHE_ENABLED =
+        "Whether the uptime checks can use the cached DNS records of the monitor's host. If it's disabled, the host " +
+            "is resolved from scratch whenever a new connection is opened, e.g. to measure the cold DNS resolution."
+    const val CONNECTION_REUSE_ENABLED =
+        "Whether the uptime checks can reuse the pooled (and on HTTP/2, multiplexed) connections of the monitor's " +
+            "origin. If it's disabled, every check opens a new HTTP/1.1 connection with a full TCP and TLS " +
+            "handshake, which is closed after the response, e.g. to measure the cold connection setup."
+    const val TLS_SESSION_RESUMPTION_ENABLED =
+        "Whether the uptime checks can resume the cached TLS sessions of the monitor's origin when they open a new " +
+            "connection, which makes the TLS handshake shorter and cheaper. If it's disabled, every new connection " +
+            "does a full TLS handshake, e.g. to measure it, or to validate the certificate chain every time."
+    const val BODY_MUST_CONTAIN =
+        "Case-sensitive strings that the response body must contain (within the first check-body-max-bytes " +
+            "bytes of it), otherwise the monitor is considered DOWN"
+    const val BODY_MUST_NOT_CONTAIN =
+        "Case-sensitive strings that the response body must not contain (within the first check-body-max-bytes " +
+            "bytes of it), otherwise the monitor is considered DOWN"
+    const val BODY_JSON_ASSERTIONS =
+        "Assertions on the values of a JSON response body, in the format of \"{JSON Pointer}={expected value}\", " +
+            "e.g. \"/db/status=UP\". If a value is missing or different, the monitor is considered DOWN"
     const val SSL_VALID_UNTIL = "The timestamp until which the SSL certificate is valid"
     const val REQUEST_METHOD = "The HTTP method used for the uptime check"
     const val LATENCY_HISTORY_ENABLED = "Whether latency history is enabled for the monitor"
@@ -0,0 +1,25 @@
+package com.kuvaszuptime.kuvasz.models.dto
+
+import io.micronaut.core.annotation.Introspected
+import io.swagger.v3.oas.annotations.media.Schema
+import java.time.OffsetDateTime
+
+@Introspected
+data class InFlightCheckDto(
+    @Schema(description = "The ID of the monitor whose uptime check is running", required = true)
+    val monitorId: Long,
+    @Schema(description = "When the check was started", required = true)
+    val startedAt: OffsetDateTime,
+    @Schema(description = "For how long the check has been running in milliseconds", required = true)
+    val runningForMs: Long,
+    @Schema(
+        description = "The time left until the deadline of the check in milliseconds, negative if it has overrun it",
+        required = true,
+    )
+    val remainingMs: Long,
+    @Schema(
+        description = "Whether the check has overrun its deadline, so it's going to be cancelled",
+        required = true,
+    )
+    val overrun: Boolean,
+)
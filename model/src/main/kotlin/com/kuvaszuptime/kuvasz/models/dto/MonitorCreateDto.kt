@@ -4,6 +4,7 @@ import com.kuvaszuptime.kuvasz.jooq.enums.HttpMethod
 import com.kuvaszuptime.kuvasz.models.MonitorCreatorLike
 import io.micronaut.core.annotation.Introspected
 import io.swagger.v3.oas.annotations.media.Schema
+import jakarta.validation.constraints.Pattern
 
 object MonitorDefaults {
     const val MONITOR_ENABLED = true
@@ -13,6 +14,11 @@ object MonitorDefaults {
     const val FORCE_NO_CACHE = true
     const val FOLLOW_REDIRECTS = true
     const val SSL_EXPIRY_THRESHOLD_DAYS = 30
+    const val HOST_CONCURRENCY_LIMIT = 0
+    const val CHECK_DEADLINE_SECONDS = 0
+    const val DNS_CACHE_ENABLED = true
+    const val CONNECTION_REUSE_ENABLED = true
+    const val TLS_SESSION_RESUMPTION_ENABLED = true
 }
 
 @Introspected
@@ -37,6 +43,22 @@ data class MonitorCreateDto(
     override val followRedirects: Boolean = MonitorDefaults.FOLLOW_REDIRECTS,
     @Schema(description = MonitorDocs.SSL_EXPIRY_THRESHOLD, required = false, defaultValue = "30")
     override val sslExpiryThreshold: Int = MonitorDefaults.SSL_EXPIRY_THRESHOLD_DAYS,
+    @Schema(description = MonitorDocs.HOST_CONCURRENCY_LIMIT, required = false, defaultValue = "0")
+    override val hostConcurrencyLimit: Int = MonitorDefaults.HOST_CONCURRENCY_LIMIT,
+    @Schema(description = MonitorDocs.CHECK_DEADLINE_SECONDS, required = false, defaultValue = "0")
+    override val checkDeadlineSeconds: Int = MonitorDefaults.CHECK_DEADLINE_SECONDS,
+    @Schema(description = MonitorDocs.DNS_CACHE_ENABLED, required = false, defaultValue = "true")
+    override val dnsCacheEnabled: Boolean = MonitorDefaults.DNS_CACHE_ENABLED,
+    @Schema(description = MonitorDocs.CONNECTION_REUSE_ENABLED, required = false, defaultValue = "true")
+    override val connectionReuseEnabled: Boolean = MonitorDefaults.CONNECTION_REUSE_ENABLED,
+    @Schema(description = MonitorDocs.TLS_SESSION_RESUMPTION_ENABLED, required = false, defaultValue = "true")
+    override val tlsSessionResumptionEnabled: Boolean = MonitorDefaults.TLS_SESSION_RESUMPTION_ENABLED,
+    @Schema(description = MonitorDocs.BODY_MUST_CONTAIN, required = false)
+    override val bodyMustContain: List<String>? = emptyList(),
+    @Schema(description = MonitorDocs.BODY_MUST_NOT_CONTAIN, required = false)
+    override val bodyMustNotContain: List<String>? = emptyList(),
+    @Schema(description = MonitorDocs.BODY_JSON_ASSERTIONS, required = false, example = "[\"/status=UP\"]")
+    override val bodyJsonAssertions: List<@Pattern(regexp = Validation.JSON_ASSERTION_REGEX) String>? = emptyList(),
     @Schema(description = MonitorDocs.INTEGRATIONS, required = false)
     override val integrations: List<String>? = emptyList(),
 ) : MonitorCreatorLike
@@ -61,6 +61,22 @@ data class MonitorDetailsDto(
     val followRedirects: Boolean,
     @Schema(description = MonitorDocs.SSL_EXPIRY_THRESHOLD, required = true)
     val sslExpiryThreshold: Int,
+    @Schema(description = MonitorDocs.HOST_CONCURRENCY_LIMIT, required = true)
+    val hostConcurrencyLimit: Int,
+    @Schema(description = MonitorDocs.CHECK_DEADLINE_SECONDS, required = true)
+    val checkDeadlineSeconds: Int,
+    @Schema(description = MonitorDocs.DNS_CACHE_ENABLED, required = true)
+    val dnsCacheEnabled: Boolean,
+    @Schema(description = MonitorDocs.CONNECTION_REUSE_ENABLED, required = true)
+    val connectionReuseEnabled: Boolean,
+    @Schema(description = MonitorDocs.TLS_SESSION_RESUMPTION_ENABLED, required = true)
+    val tlsSessionResumptionEnabled: Boolean,
+    @Schema(description = MonitorDocs.BODY_MUST_CONTAIN, required = true)
+    val bodyMustContain: List<String>,
+    @Schema(description = MonitorDocs.BODY_MUST_NOT_CONTAIN, required = true)
+    val bodyMustNotContain: List<String>,
+    @Schema(description = MonitorDocs.BODY_JSON_ASSERTIONS, required = true)
+    val bodyJsonAssertions: List<String>,
     @Schema(description = MonitorDocs.SSL_VALID_UNTIL, required = true, nullable = true)
     val sslValidUntil: OffsetDateTime?,
     @Schema(description = MonitorDocs.INTEGRATIONS, required = true)
@@ -31,6 +31,22 @@ data class MonitorDto(
     val followRedirects: Boolean,
     @Schema(description = MonitorDocs.SSL_EXPIRY_THRESHOLD, required = true)
     val sslExpiryThreshold: Int,
+    @Schema(description = MonitorDocs.HOST_CONCURRENCY_LIMIT, required = true)
+    val hostConcurrencyLimit: Int,
+    @Schema(description = MonitorDocs.CHECK_DEADLINE_SECONDS, required = true)
+    val checkDeadlineSeconds: Int,
+    @Schema(description = MonitorDocs.DNS_CACHE_ENABLED, required = true)
+    val dnsCacheEnabled: Boolean,
+    @Schema(description = MonitorDocs.CONNECTION_REUSE_ENABLED, required = true)
+    val connectionReuseEnabled: Boolean,
+    @Schema(description = MonitorDocs.TLS_SESSION_RESUMPTION_ENABLED, required = true)
+    val tlsSessionResumptionEnabled: Boolean,
+    @Schema(description = MonitorDocs.BODY_MUST_CONTAIN, required = true)
+    val bodyMustContain: List<String>,
+    @Schema(description = MonitorDocs.BODY_MUST_NOT_CONTAIN, required = true)
+    val bodyMustNotContain: List<String>,
+    @Schema(description = MonitorDocs.BODY_JSON_ASSERTIONS, required = true)
+    val bodyJsonAssertions: List<String>,
     @Schema(description = MonitorDocs.INTEGRATIONS, required = true)
     val integrations: Set<IntegrationID>,
     @Schema(description = MonitorDocs.CREATED_AT, required = true)
@@ -52,6 +68,14 @@ data class MonitorDto(
                 forceNoCache = record.forceNoCache,
                 followRedirects = record.followRedirects,
                 sslExpiryThreshold = record.sslExpiryThreshold,
+                hostConcurrencyLimit = record.hostConcurrencyLimit,
+                checkDeadlineSeconds = record.checkDeadlineSeconds,
+                dnsCacheEnabled = record.dnsCacheEnabled,
+                connectionReuseEnabled = record.connectionReuseEnabled,
+                tlsSessionResumptionEnabled = record.tlsSessionResumptionEnabled,
+                bodyMustContain = record.bodyMustContain.toList(),
+                bodyMustNotContain = record.bodyMustNotContain.toList(),
+                bodyJsonAssertions = record.bodyJsonAssertions.toList(),
                 integrations = record.integrations.toSet(),
                 createdAt = record.createdAt,
                 updatedAt = record.updatedAt,
@@ -17,6 +17,14 @@ data class MonitorExportDto(
     val followRedirects: Boolean,
     val forceNoCache: Boolean,
     val sslExpiryThreshold: Int,
+    val hostConcurrencyLimit: Int,
+    val checkDeadlineSeconds: Int,
+    val dnsCacheEnabled: Boolean,
+    val connectionReuseEnabled: Boolean,
+    val tlsSessionResumptionEnabled: Boolean,
+    val bodyMustContain: List<String>,
+    val bodyMustNotContain: List<String>,
+    val bodyJsonAssertions: List<String>,
     val integrations: Set<IntegrationID>,
 ) {
     companion object {
@@ -32,6 +40,14 @@ data class MonitorExportDto(
                 followRedirects = record.followRedirects,
                 forceNoCache = record.forceNoCache,
                 sslExpiryThreshold = record.sslExpiryThreshold,
+                hostConcurrencyLimit = record.hostConcurrencyLimit,
+                checkDeadlineSeconds = record.checkDeadlineSeconds,
+                dnsCacheEnabled = record.dnsCacheEnabled,
+                connectionReuseEnabled = record.connectionReuseEnabled,
+                tlsSessionResumptionEnabled = record.tlsSessionResumptionEnabled,
+                bodyMustContain = record.bodyMustContain.toList(),
+                bodyMustNotContain = record.bodyMustNotContain.toList(),
+                bodyJsonAssertions = record.bodyJsonAssertions.toList(),
                 integrations = record.integrations.toSet(),
             )
         }
@@ -22,6 +22,16 @@ data class MonitorStatsDto(
     val p95LatencyInMs: Int?,
     @Schema(description = "The 99th percentile latency in milliseconds for the monitor")
     val p99LatencyInMs: Int?,
+    @Schema(description = "The average DNS resolution time in milliseconds for the monitor, if it was measured")
+    val averageDnsInMs: Double?,
+    @Schema(description = "The average TCP connect time in milliseconds for the monitor, if it was measured")
+    val averageConnectInMs: Double?,
+    @Schema(description = "The average TLS handshake time in milliseconds for the monitor, if it was measured")
+    val averageTlsInMs: Double?,
+    @Schema(description = "The average time to first byte in milliseconds for the monitor, if it was measured")
+    val averageTtfbInMs: Double?,
+    @Schema(description = "The average response transfer time in milliseconds for the monitor, if it was measured")
+    val averageTransferInMs: Double?,
     @Schema(description = "All the latency logs recorded for the monitor in the given period", required = true)
     val latencyLogs: List<LatencyLogDto>,
 )
@@ -34,4 +44,20 @@ data class LatencyLogDto(
     val latencyInMs: Int,
     @Schema(description = "The timestamp when the latency was recorded", required = true)
     val createdAt: OffsetDateTime,
+    @Schema(
+        description = "Whether the latency was recorded while the prober itself was saturated, so it might include " +
+            "self-induced delays. These logs are excluded from the aggregated latency metrics.",
+        required = true,
+    )
+    val proberSaturated: Boolean,
+    @Schema(description = "The DNS resolution time in milliseconds, null if it didn't happen during the check")
+    val dnsInMs: Double?,
+    @Schema(description = "The TCP connect time in milliseconds, null if it didn't happen during the check")
+    val connectInMs: Double?,
+    @Schema(description = "The TLS handshake time in milliseconds, null if it didn't happen during the check")
+    val tlsInMs: Double?,
+    @Schema(description = "The time to first byte in milliseconds, i.e. until the head of the response was received")
+    val ttfbInMs: Double?,
+    @Schema(description = "The time in milliseconds it took to receive the rest of the response")
+    val transferInMs: Double?,
 )
@@ -1,6 +1,7 @@
 package com.kuvaszuptime.kuvasz.models.dto
 
 import com.kuvaszuptime.kuvasz.jooq.enums.HttpMethod
+import com.kuvaszuptime.kuvasz.models.dto.Validation.JSON_ASSERTION_REGEX
 import com.kuvaszuptime.kuvasz.models.dto.Validation.MIN_UPTIME_CHECK_INTERVAL
 import com.kuvaszuptime.kuvasz.models.dto.Validation.URI_REGEX
 import com.kuvaszuptime.kuvasz.models.handlers.IntegrationID
@@ -10,6 +11,7 @@ import jakarta.validation.constraints.Min
 import jakarta.validation.constraints.NotBlank
 import jakarta.validation.constraints.NotNull
 import jakarta.validation.constraints.Pattern
+import jakarta.validation.constraints.PositiveOrZero
 
 @Introspected
 data class MonitorUpdateDto(
@@ -46,6 +48,32 @@ data class MonitorUpdateDto(
     @get:NotNull
     @Schema(description = MonitorDocs.SSL_EXPIRY_THRESHOLD, required = false, nullable = false)
     val sslExpiryThreshold: Int?,
+    @get:NotNull
+    @get:PositiveOrZero
+    @Schema(description = MonitorDocs.HOST_CONCURRENCY_LIMIT, required = false, nullable = false)
+    val hostConcurrencyLimit: Int?,
+    @get:NotNull
+    @get:PositiveOrZero
+    @Schema(description = MonitorDocs.CHECK_DEADLINE_SECONDS, required = false, nullable = false)
+    val checkDeadlineSeconds: Int?,
+    @get:NotNull
+    @Schema(description = MonitorDocs.DNS_CACHE_ENABLED, required = false, nullable = false)
+    val dnsCacheEnabled: Boolean?,
+    @get:NotNull
+    @Schema(description = MonitorDocs.CONNECTION_REUSE_ENABLED, required = false, nullable = false)
+    val connectionReuseEnabled: Boolean?,
+    @get:NotNull
+    @Schema(description = MonitorDocs.TLS_SESSION_RESUMPTION_ENABLED, required = false, nullable = false)
+    val tlsSessionResumptionEnabled: Boolean?,
+    @get:NotNull
+    @Schema(description = MonitorDocs.BODY_MUST_CONTAIN, required = false, nullable = false)
+    val bodyMustContain: List<String>?,
+    @get:NotNull
+    @Schema(description = MonitorDocs.BODY_MUST_NOT_CONTAIN, required = false, nullable = false)
+    val bodyMustNotContain: List<String>?,
+    @get:NotNull
+    @Schema(description = MonitorDocs.BODY_JSON_ASSERTIONS, required = false, nullable = false)
+    val bodyJsonAssertions: List<@Pattern(regexp = JSON_ASSERTION_REGEX) String>?,
     @Schema(description = MonitorDocs.INTEGRATIONS, required = false, nullable = true)
     val integrations: Set<IntegrationID>?,
 )
@@ -0,0 +1,19 @@
+package com.kuvaszuptime.kuvasz.models.dto
+
+import io.micronaut.core.annotation.Introspected
+import io.swagger.v3.oas.annotations.media.Schema
+import java.time.OffsetDateTime
+
+@Introspected
+data class PlannedChecksDto(
+    @Schema(description = "The start of the first second of the histogram", required = true)
+    val from: OffsetDateTime,
+    @Schema(description = "The minimum number of uptime checks that are planned for a single second", required = true)
+    val min: Int,
+    @Schema(description = "The maximum number of uptime checks that are planned for a single second", required = true)
+    val max: Int,
+    @Schema(description = "The average number of uptime checks that are planned for a second", required = true)
+    val mean: Double,
+    @Schema(description = "The number of the planned uptime checks, second by second", required = true)
+    val perSecond: List<Int>,
+)
@@ -215,6 +215,11 @@ data class SettingsDto(
             val uptimeStatus: Boolean,
             @Schema(description = "Whether SSL status exporter is enabled", required = true)
             val sslStatus: Boolean,
+            @Schema(
+                description = "Whether check execution (e.g. in-flight checks) exporter is enabled",
+                required = true,
+            )
+            val checkExecution: Boolean,
         )
 
         @Introspected
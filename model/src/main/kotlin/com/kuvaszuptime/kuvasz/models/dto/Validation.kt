@@ -2,5 +2,6 @@ package com.kuvaszuptime.kuvasz.models.dto
 
 object Validation {
     const val MIN_UPTIME_CHECK_INTERVAL = 5L
+    const val JSON_ASSERTION_REGEX = "^(/[^=]*)?=.*$"
     const val URI_REGEX = "^(https?)://[-a-zA-Z0-9+&@#/%?=~_|!:,.;]*[-a-zA-Z0-9+&@#/%=~_|]"
 }
@@ -8,6 +8,7 @@ import com.kuvaszuptime.kuvasz.jooq.tables.records.SslEventRecord
 import com.kuvaszuptime.kuvasz.jooq.tables.records.UptimeEventRecord
 import com.kuvaszuptime.kuvasz.models.CertificateInfo
 import com.kuvaszuptime.kuvasz.models.SSLValidationError
+import com.kuvaszuptime.kuvasz.models.checks.CheckTimings
 import com.kuvaszuptime.kuvasz.models.events.MonitorEvent.Companion.ERROR_MAX_LENGTH
 import com.kuvaszuptime.kuvasz.util.diffToDuration
 import com.kuvaszuptime.kuvasz.util.getCurrentTimestamp
@@ -58,7 +59,9 @@ data class MonitorUpEvent(
     override val monitor: MonitorRecord,
     val status: HttpStatus,
     val latency: Int,
-    override val previousEvent: UptimeEventRecord?
+    override val previousEvent: UptimeEventRecord?,
+    val proberSaturated: Boolean = false,
+    val timings: CheckTimings? = null,
 ) : UptimeMonitorEvent() {
 
     override val uptimeStatus = UptimeStatus.UP
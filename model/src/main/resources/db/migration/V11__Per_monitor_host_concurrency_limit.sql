@@ -0,0 +1,2 @@
+ALTER TABLE monitor
+    ADD COLUMN host_concurrency_limit INTEGER NOT NULL DEFAULT 0;
@@ -0,0 +1,2 @@
+ALTER TABLE latency_log
+    ADD COLUMN prober_saturated BOOLEAN NOT NULL DEFAULT FALSE;
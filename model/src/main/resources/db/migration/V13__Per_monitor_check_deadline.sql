@@ -0,0 +1,2 @@
+ALTER TABLE monitor
+    ADD COLUMN check_deadline_seconds INTEGER NOT NULL DEFAULT 0;
@@ -0,0 +1,8 @@
+-- The phases that didn't happen during the check (e.g. the DNS resolution, when a pooled connection was reused)
+-- are NULL, so they don't distort the averages
+ALTER TABLE latency_log
+    ADD COLUMN dns_us      INTEGER,
+    ADD COLUMN connect_us  INTEGER,
+    ADD COLUMN tls_us      INTEGER,
+    ADD COLUMN ttfb_us     INTEGER,
+    ADD COLUMN transfer_us INTEGER;
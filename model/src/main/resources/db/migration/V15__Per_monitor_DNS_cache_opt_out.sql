@@ -0,0 +1,2 @@
+ALTER TABLE monitor
+    ADD COLUMN dns_cache_enabled BOOLEAN NOT NULL DEFAULT TRUE;
@@ -0,0 +1,3 @@
+ALTER TABLE monitor
+    ADD COLUMN body_must_contain TEXT[] NOT NULL DEFAULT ARRAY[]::TEXT[],
+    ADD COLUMN body_must_not_contain TEXT[] NOT NULL DEFAULT ARRAY[]::TEXT[];
@@ -0,0 +1,2 @@
+ALTER TABLE monitor
+    ADD COLUMN body_json_assertions TEXT[] NOT NULL DEFAULT ARRAY[]::TEXT[];
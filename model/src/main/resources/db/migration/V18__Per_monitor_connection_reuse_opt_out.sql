@@ -0,0 +1,2 @@
+ALTER TABLE monitor
+    ADD COLUMN connection_reuse_enabled BOOLEAN NOT NULL DEFAULT TRUE;
@@ -0,0 +1,2 @@
+ALTER TABLE monitor
+    ADD COLUMN tls_session_resumption_enabled BOOLEAN NOT NULL DEFAULT TRUE;
@@ -88,6 +88,7 @@ dependencyResolutionManagement {
             // Tests
             library("mockk", "io.mockk", "mockk").version("1.14.2")
             library("mockserver-netty", "org.mock-server", "mockserver-netty").version("5.15.0")
+            library("bcpkix", "org.bouncycastle", "bcpkix-jdk18on").version("1.72")
 
             // Misc
             library("arrow-core-data", "io.arrow-kt", "arrow-core-data").version("0.12.1")
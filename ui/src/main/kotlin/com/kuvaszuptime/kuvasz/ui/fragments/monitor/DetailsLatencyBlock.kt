@@ -53,6 +53,15 @@ internal fun FlowContent.detailsLatencyBlock(monitor: MonitorDetailsDto) {
             latencyMetricCard(propertyName = "lastResponse?.p99LatencyInMs", label = "P99")
         }
 
+        div {
+            classes(ROW, ROW_CARDS, MB_3)
+            latencyMetricCard(propertyName = "lastResponse?.averageDnsInMs", label = "DNS")
+            latencyMetricCard(propertyName = "lastResponse?.averageConnectInMs", label = Messages.latencyConnect())
+            latencyMetricCard(propertyName = "lastResponse?.averageTlsInMs", label = "TLS")
+            latencyMetricCard(propertyName = "lastResponse?.averageTtfbInMs", label = "TTFB")
+            latencyMetricCard(propertyName = "lastResponse?.averageTransferInMs", label = Messages.latencyTransfer())
+        }
+
         div {
             classes(ROW, ROW_CARDS, MB_3)
             div {
@@ -230,6 +230,10 @@ fun renderSettings(globals: AppGlobals, settings: SettingsDto) =
                                     )
                                     multiSettingsToggle(label = Messages.sslStatus(), checked = metersConfig.sslStatus)
                                     multiSettingsToggle(label = Messages.sslExpiry(), checked = metersConfig.sslExpiry)
+                                    multiSettingsToggle(
+                                        label = Messages.checkExecution(),
+                                        checked = metersConfig.checkExecution,
+                                    )
                                 }
                             }
                         }